@@ -34,6 +34,10 @@ public final class RandomUtil
 	/** this is used by the random selection tools */
 	private static final Random RANDOM = new Random(System.currentTimeMillis());
 
+	/** The generator used instead of RANDOM by the current thread, if any */
+	private static final ThreadLocal<Random> THREAD_RANDOM =
+			new ThreadLocal<Random>();
+
 	private RandomUtil()
 	{
 		// Can't instantiate
@@ -46,7 +50,34 @@ public final class RandomUtil
 	 */
 	public static int getRandomInt()
 	{
-		return RANDOM.nextInt();
+		return getRandom().nextInt();
+	}
+
+	/**
+	 * Sets the generator to be used by the current thread, so that the values
+	 * produced on that thread are independent of other threads and can be
+	 * reproduced by using a generator with the same seed.
+	 * 
+	 * @param random
+	 *            The generator to be used by the current thread; null to
+	 *            return to the shared generator
+	 */
+	public static void setThreadRandom(Random random)
+	{
+		if (random == null)
+		{
+			THREAD_RANDOM.remove();
+		}
+		else
+		{
+			THREAD_RANDOM.set(random);
+		}
+	}
+
+	private static Random getRandom()
+	{
+		Random random = THREAD_RANDOM.get();
+		return (random == null) ? RANDOM : random;
 	}
 
 	/**
@@ -64,7 +95,7 @@ public final class RandomUtil
 		{
 			return 0;
 		}
-		int rand = RANDOM.nextInt(high);
+		int rand = getRandom().nextInt(high);
 		if (Logging.isDebugMode())
 		{
 			Logging.debugPrint("Generated random number between " //$NON-NLS-1$
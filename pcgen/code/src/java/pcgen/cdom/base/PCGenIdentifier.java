@@ -1,6 +1,16 @@
 package pcgen.cdom.base;
 
+import pcgen.cdom.facet.base.FacetCache;
+
 public interface PCGenIdentifier
 {
 
+	/**
+	 * Returns the FacetCache which holds the information stored by facets for
+	 * the resource identified by this PCGenIdentifier.
+	 * 
+	 * @return The FacetCache for the resource identified by this
+	 *         PCGenIdentifier
+	 */
+	public FacetCache getFacetCache();
 }
@@ -17,11 +17,11 @@
  */
 package pcgen.cdom.enumeration;
 
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import pcgen.base.enumeration.TypeSafeConstant;
 import pcgen.cdom.base.PCGenIdentifier;
-import pcgen.cdom.facet.base.AbstractStorageFacet;
+import pcgen.cdom.facet.base.FacetCache;
 
 /**
  * @author Tom Parker (thpr [at] yahoo.com)
@@ -35,7 +35,7 @@ public final class CharID implements TypeSafeConstant, PCGenIdentifier
 	/**
 	 * This is used to provide a unique ordinal to each constant in this class
 	 */
-	private static int ordinalCount = 0;
+	private static final AtomicInteger ORDINAL_COUNT = new AtomicInteger();
 
 	/**
 	 * The ordinal of this Constant
@@ -48,13 +48,14 @@ public final class CharID implements TypeSafeConstant, PCGenIdentifier
 	private final DataSetID datasetID;
 
 	/**
-	 * A view of the cache for this CharID. Generally useful for debuggers,
-	 * since this is a consolidated point for the cache for a single
+	 * The cache for this CharID, which holds the information stored by facets
+	 * for the PlayerCharacter. Since each CharID owns its cache, no storage is
+	 * shared with other resources. Generally useful for debuggers, since this
+	 * is a consolidated point for the cache for a single
 	 * CharID/PlayerCharacter (and useful to be here in CharID since there is
 	 * now code that no longer has any PlayerCharacter reference).
 	 */
-	@SuppressWarnings("unused")
-	private Map<Class<?>, Object> myFacetCache;
+	private final FacetCache myFacetCache = new FacetCache();
 
 	private CharID(DataSetID dsid)
 	{
@@ -62,7 +63,7 @@ public final class CharID implements TypeSafeConstant, PCGenIdentifier
 		{
 			throw new IllegalArgumentException("DataSetID cannot be null");
 		}
-		ordinal = ordinalCount++;
+		ordinal = ORDINAL_COUNT.getAndIncrement();
 		datasetID = dsid;
 	}
 
@@ -82,8 +83,12 @@ public final class CharID implements TypeSafeConstant, PCGenIdentifier
 
 	public static CharID getID(DataSetID dsid)
 	{
-		CharID id = new CharID(dsid);
-		id.myFacetCache = AbstractStorageFacet.peekAtCache(id);
-		return id;
+		return new CharID(dsid);
+	}
+
+	@Override
+	public FacetCache getFacetCache()
+	{
+		return myFacetCache;
 	}
 }
@@ -17,11 +17,11 @@
  */
 package pcgen.cdom.enumeration;
 
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import pcgen.base.enumeration.TypeSafeConstant;
 import pcgen.cdom.base.PCGenIdentifier;
-import pcgen.cdom.facet.base.AbstractStorageFacet;
+import pcgen.cdom.facet.base.FacetCache;
 
 /**
  * This Class is a Type Safe Constant. It is designed to hold a unique Data Set
@@ -35,7 +35,7 @@ public final class DataSetID implements TypeSafeConstant, PCGenIdentifier
 	/**
 	 * This is used to provide a unique ordinal to each constant in this class
 	 */
-	private static int ordinalCount = 0;
+	private static final AtomicInteger ORDINAL_COUNT = new AtomicInteger();
 
 	/**
 	 * The ordinal of this Constant
@@ -43,17 +43,18 @@ public final class DataSetID implements TypeSafeConstant, PCGenIdentifier
 	private final transient int ordinal;
 
 	/**
-	 * A view of the cache for this DataSetID. Generally useful for debuggers,
-	 * since this is a consolidated point for the cache for a single
+	 * The cache for this DataSetID, which holds the information stored by facets
+	 * for the Loaded Campaigns. Since each DataSetID owns its cache, no storage is
+	 * shared with other resources. Generally useful for debuggers, since this
+	 * is a consolidated point for the cache for a single
 	 * DataSetID/Loaded Campaigns (and useful to be here in DataSetID since
 	 * there is code that has no Loaded Campaign reference).
 	 */
-	@SuppressWarnings("unused")
-	private Map<Class<?>, Object> myFacetCache;
+	private final FacetCache myFacetCache = new FacetCache();
 
 	private DataSetID()
 	{
-		ordinal = ordinalCount++;
+		ordinal = ORDINAL_COUNT.getAndIncrement();
 	}
 
 	/**
@@ -67,8 +68,12 @@ public final class DataSetID implements TypeSafeConstant, PCGenIdentifier
 
 	public static DataSetID getID()
 	{
-		DataSetID id = new DataSetID();
-		id.myFacetCache = AbstractStorageFacet.peekAtCache(id);
-		return id;
+		return new DataSetID();
+	}
+
+	@Override
+	public FacetCache getFacetCache()
+	{
+		return myFacetCache;
 	}
 }
@@ -17,8 +17,12 @@
  */
 package pcgen.cdom.facet;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import pcgen.cdom.base.CDOMObject;
 import pcgen.cdom.enumeration.CharID;
+import pcgen.cdom.facet.event.DataFacetChangeBatchListener;
 import pcgen.cdom.facet.event.DataFacetChangeEvent;
 import pcgen.cdom.facet.event.DataFacetChangeListener;
 
@@ -41,7 +45,7 @@ import pcgen.cdom.facet.event.DataFacetChangeListener;
  * @author Thomas Parker (thpr [at] yahoo.com)
  */
 public class CDOMObjectConsolidationFacet implements
-		DataFacetChangeListener<CharID, CDOMObject>
+		DataFacetChangeBatchListener<CharID, CDOMObject>
 {
 	private CDOMObjectBridge bridgeFacet;
 
@@ -158,4 +162,54 @@ public class CDOMObjectConsolidationFacet implements
 		CDOMObject cdo = dfce.getCDOMObject();
 		remove(dfce.getCharID(), cdo, dfce.getSource());
 	}
+
+	/**
+	 * Detects the CDOMObjects added to and removed from a Player Character
+	 * during a change batch, and adds or removes each run of additions or
+	 * removals in a single pass.
+	 * 
+	 * @param events
+	 *            The DataFacetChangeEvents for the changes made to one of the
+	 *            Facets to which CDOMObjectConsolidationFacet listens
+	 * 
+	 * @see pcgen.cdom.facet.event.DataFacetChangeBatchListener#dataChanged(List)
+	 */
+	@Override
+	public void dataChanged(List<DataFacetChangeEvent<CharID, CDOMObject>> events)
+	{
+		List<CDOMObject> run = new ArrayList<CDOMObject>();
+		int runType = DataFacetChangeEvent.DATA_ADDED;
+		DataFacetChangeEvent<CharID, CDOMObject> first = null;
+		for (DataFacetChangeEvent<CharID, CDOMObject> dfce : events)
+		{
+			if (first != null && dfce.getEventType() != runType)
+			{
+				processRun(first, runType, run);
+				run.clear();
+			}
+			if (run.isEmpty())
+			{
+				first = dfce;
+				runType = dfce.getEventType();
+			}
+			run.add(dfce.getCDOMObject());
+		}
+		if (first != null)
+		{
+			processRun(first, runType, run);
+		}
+	}
+
+	private void processRun(DataFacetChangeEvent<CharID, CDOMObject> first,
+		int type, List<CDOMObject> objects)
+	{
+		if (type == DataFacetChangeEvent.DATA_ADDED)
+		{
+			bridgeFacet.addAll(first.getCharID(), objects, first.getSource());
+		}
+		else
+		{
+			bridgeFacet.removeAll(first.getCharID(), objects, first.getSource());
+		}
+	}
 }
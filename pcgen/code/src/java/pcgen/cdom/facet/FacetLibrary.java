@@ -17,8 +17,8 @@
  */
 package pcgen.cdom.facet;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import pcgen.cdom.helper.SpringHelper;
 
@@ -36,9 +36,23 @@ public final class FacetLibrary
 		//Do not instantiate
 	}
 
-	private static Map<Class<?>, Object> facets = new HashMap<Class<?>, Object>();
+	/*
+	 * Facets are retrieved whenever a PlayerCharacter is constructed, which
+	 * may happen on several threads at once.
+	 */
+	private static Map<Class<?>, Object> facets = new ConcurrentHashMap<Class<?>, Object>();
 
 	public static <T extends Object> T getFacet(Class<T> cl)
+	{
+		T facet = (T) facets.get(cl);
+		if (facet == null)
+		{
+			facet = createFacet(cl);
+		}
+		return facet;
+	}
+
+	private static synchronized <T extends Object> T createFacet(Class<T> cl)
 	{
 		T facet = (T) facets.get(cl);
 		if (facet == null)
@@ -64,7 +78,10 @@ public final class FacetLibrary
 					e.printStackTrace();
 				}
 			}
-			facets.put(cl, facet);
+			if (facet != null)
+			{
+				facets.put(cl, facet);
+			}
 		}
 		return facet;
 	}
@@ -53,4 +53,18 @@ public class PlayerCharacterTrackingFacet extends AbstractStorageFacet<CharID>
 		//We explicitly ignore this, since the CharID identifies the PlayerCharacter
 	}
 
+	/**
+	 * The PlayerCharacter for a CharID is only ever changed by replacing the
+	 * stored reference, which is always reported. The state of the
+	 * PlayerCharacter itself is held in other facets, whose reads are reported
+	 * (and judged) separately.
+	 * 
+	 * @see pcgen.cdom.facet.base.AbstractStorageFacet#isChangeTracked()
+	 */
+	@Override
+	protected boolean isChangeTracked()
+	{
+		return true;
+	}
+
 }
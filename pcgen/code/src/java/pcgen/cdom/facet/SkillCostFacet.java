@@ -24,6 +24,7 @@ import pcgen.cdom.facet.analysis.GlobalToSkillCostFacet;
 import pcgen.cdom.facet.analysis.ListToSkillCostFacet;
 import pcgen.cdom.facet.analysis.LocalSkillCostFacet;
 import pcgen.cdom.facet.analysis.MonCSkillToSkillCostFacet;
+import pcgen.cdom.facet.base.AbstractStorageFacet;
 import pcgen.cdom.facet.base.AbstractSubScopeFacet;
 import pcgen.cdom.facet.event.SubScopeFacetChangeEvent;
 import pcgen.cdom.facet.event.SubScopeFacetChangeListener;
@@ -34,6 +35,11 @@ import pcgen.core.Skill;
 /**
  * SkillCostFacet is a Facet that tracks costs of Skills for each PCClass
  * 
+ * In addition to the sources of each cost, the costs granted to each Player
+ * Character are held in a SkillCostMatrix which is updated as each cost is
+ * added or removed, so that the cost of a Skill for a PCClass can be found
+ * without searching the sources.
+ * 
  * @author Thomas Parker (thpr [at] yahoo.com)
  */
 public class SkillCostFacet extends
@@ -47,14 +53,22 @@ public class SkillCostFacet extends
 	private MonCSkillToSkillCostFacet monCSkillToSkillCostFacet;
 	private GlobalToSkillCostFacet globalToSkillCostFacet;
 
+	private static final int CLASS_BIT = 1 << SkillCost.CLASS.ordinal();
+
+	private static final int CROSS_CLASS_BIT =
+			1 << SkillCost.CROSS_CLASS.ordinal();
+
+	private final MatrixStorage matrixStorage = new MatrixStorage();
+
 	public SkillCost skillCostForPCClass(CharID id, Skill sk, PCClass aClass)
 	{
-		if (isClassSkill(id, aClass, sk))
+		int costs = getCosts(id, aClass, sk, "skillCostForPCClass");
+		if ((costs & CLASS_BIT) != 0)
 		{
 			return SkillCost.CLASS;
 		}
 		else if (sk.getSafe(ObjectKey.EXCLUSIVE)
-			&& !isCrossClassSkill(id, aClass, sk))
+			&& ((costs & CROSS_CLASS_BIT) == 0))
 		{
 			return SkillCost.EXCLUSIVE;
 		}
@@ -65,34 +79,67 @@ public class SkillCostFacet extends
 	}
 
 	public boolean isClassSkill(CharID id, PCClass pcc, Skill skill)
+	{
+		return (getCosts(id, pcc, skill, "isClassSkill") & CLASS_BIT) != 0;
+	}
+
+	public boolean isCrossClassSkill(CharID id, PCClass pcc, Skill skill)
+	{
+		int costs = getCosts(id, pcc, skill, "isCrossClassSkill");
+		return ((costs & CLASS_BIT) == 0) && ((costs & CROSS_CLASS_BIT) != 0);
+	}
+
+	/**
+	 * Returns the SkillCosts granted to the Player Character identified by the
+	 * given CharID for the given Skill and PCClass, as a set of bits indexed
+	 * by the ordinal of each SkillCost.
+	 */
+	private int getCosts(CharID id, PCClass pcc, Skill skill, String method)
 	{
 		if (pcc == null)
 		{
-			throw new IllegalArgumentException(
-				"PCClass in isClassSkill cannot be null");
+			throw new IllegalArgumentException("PCClass in " + method
+				+ " cannot be null");
 		}
 		if (skill == null)
 		{
-			throw new IllegalArgumentException(
-				"Skill in isClassSkill cannot be null");
+			throw new IllegalArgumentException("Skill in " + method
+				+ " cannot be null");
+		}
+		/*
+		 * Reading this facet's own information first completes any deferred
+		 * copy of it (which fills the matrix) and reports the read to any
+		 * listener tracking which facets a calculation depends upon.
+		 */
+		if (getCache(id) == null)
+		{
+			return 0;
 		}
-		return contains(id, skill, SkillCost.CLASS, pcc);
+		SkillCostMatrix matrix = (SkillCostMatrix) matrixStorage.getCache(id);
+		return (matrix == null) ? 0 : matrix.getCosts(skill, pcc);
 	}
 
-	public boolean isCrossClassSkill(CharID id, PCClass pcc, Skill skill)
+	/**
+	 * Keeps the SkillCostMatrix of the Player Character up to date with each
+	 * cost added to or removed from this facet, before passing the change on
+	 * to the listeners.
+	 * 
+	 * @see pcgen.cdom.facet.base.AbstractSubScopeFacet#fireSubScopeFacetChangeEvent(pcgen.cdom.enumeration.CharID,
+	 *      java.lang.Object, java.lang.Object, java.lang.Object, int)
+	 */
+	@Override
+	protected void fireSubScopeFacetChangeEvent(CharID id, Skill skill,
+		SkillCost cost, PCClass pcc, int type)
 	{
-		if (pcc == null)
+		SkillCostMatrix matrix = (SkillCostMatrix) matrixStorage.getCache(id);
+		if (matrix == null)
 		{
-			throw new IllegalArgumentException(
-				"PCClass in isCrossClassSkill cannot be null");
+			matrix = new SkillCostMatrix();
+			matrixStorage.setCache(id, matrix);
 		}
-		if (skill == null)
-		{
-			throw new IllegalArgumentException(
-				"Skill in isCrossClassSkill cannot be null");
-		}
-		return !contains(id, skill, SkillCost.CLASS, pcc)
-			&& contains(id, skill, SkillCost.CROSS_CLASS, pcc);
+		matrix.setCost(skill, pcc, cost,
+			type == SubScopeFacetChangeEvent.DATA_ADDED);
+		super.fireSubScopeFacetChangeEvent(id, skill, cost, pcc, type);
 	}
 
 	public void dataAdded(
@@ -153,4 +200,32 @@ public class SkillCostFacet extends
 		listToSkillCostFacet.addSubScopeFacetChangeListener(this);
 		monCSkillToSkillCostFacet.addSubScopeFacetChangeListener(this);
 	}
+
+	/**
+	 * MatrixStorage holds the SkillCostMatrix of each Player Character in a
+	 * cache slot of its own.
+	 */
+	private static final class MatrixStorage extends
+			AbstractStorageFacet<CharID>
+	{
+		/**
+		 * The matrix is rebuilt as the costs are copied into this facet, so
+		 * there is nothing to copy here.
+		 */
+		@Override
+		public void copyContents(CharID source, CharID copy)
+		{
+			// Rebuilt by SkillCostFacet.copyContents
+		}
+
+		/**
+		 * The matrix only changes along with the costs in SkillCostFacet,
+		 * which reports each change.
+		 */
+		@Override
+		protected boolean isChangeTracked()
+		{
+			return true;
+		}
+	}
 }
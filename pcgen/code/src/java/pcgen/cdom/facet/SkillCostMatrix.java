@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA
+ */
+package pcgen.cdom.facet;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import pcgen.cdom.enumeration.SkillCost;
+import pcgen.core.PCClass;
+import pcgen.core.Skill;
+
+/**
+ * SkillCostMatrix is a dense table of the SkillCosts granted to one Player
+ * Character for each Skill and PCClass.
+ *
+ * Each Skill and PCClass is given a row or column the first time a cost is
+ * granted for it. Each cell holds one bit for each SkillCost which is
+ * currently granted for that Skill and PCClass, so a lookup is an array read
+ * once the row and column are known. Rows and columns are never reclaimed, as
+ * the number of Skills and PCClasses in a data set is bounded.
+ */
+final class SkillCostMatrix
+{
+	private final Map<Skill, Integer> skillRows =
+			new IdentityHashMap<Skill, Integer>();
+
+	private final Map<PCClass, Integer> classColumns =
+			new IdentityHashMap<PCClass, Integer>();
+
+	private byte[][] cells = new byte[16][];
+
+	/**
+	 * Returns the SkillCosts granted for the given Skill and PCClass, as a
+	 * set of bits indexed by the ordinal of each SkillCost.
+	 *
+	 * @param skill
+	 *            The Skill for which the granted SkillCosts are returned
+	 * @param pcc
+	 *            The PCClass for which the granted SkillCosts are returned
+	 * @return The bits of the SkillCosts granted for the given Skill and
+	 *         PCClass
+	 */
+	int getCosts(Skill skill, PCClass pcc)
+	{
+		Integer row = skillRows.get(skill);
+		if (row == null)
+		{
+			return 0;
+		}
+		Integer column = classColumns.get(pcc);
+		if (column == null)
+		{
+			return 0;
+		}
+		byte[] rowCells = cells[row];
+		int col = column;
+		return (col < rowCells.length) ? rowCells[col] : 0;
+	}
+
+	/**
+	 * Records that the given SkillCost has been granted for (or is no longer
+	 * granted for) the given Skill and PCClass.
+	 *
+	 * @param skill
+	 *            The Skill for which the SkillCost changed
+	 * @param pcc
+	 *            The PCClass for which the SkillCost changed
+	 * @param cost
+	 *            The SkillCost which changed
+	 * @param granted
+	 *            true if the SkillCost is now granted; false if it is no
+	 *            longer granted
+	 */
+	void setCost(Skill skill, PCClass pcc, SkillCost cost, boolean granted)
+	{
+		int row = getRow(skill);
+		int col = getColumn(pcc);
+		byte[] rowCells = cells[row];
+		if (col >= rowCells.length)
+		{
+			if (!granted)
+			{
+				return;
+			}
+			rowCells = Arrays.copyOf(rowCells,
+				Math.max(col + 1, classColumns.size()));
+			cells[row] = rowCells;
+		}
+		int bit = 1 << cost.ordinal();
+		if (granted)
+		{
+			rowCells[col] |= bit;
+		}
+		else
+		{
+			rowCells[col] &= ~bit;
+		}
+	}
+
+	private int getRow(Skill skill)
+	{
+		Integer row = skillRows.get(skill);
+		if (row == null)
+		{
+			row = skillRows.size();
+			skillRows.put(skill, row);
+			if (row >= cells.length)
+			{
+				cells = Arrays.copyOf(cells, cells.length * 2);
+			}
+			cells[row] = new byte[classColumns.size()];
+		}
+		return row;
+	}
+
+	private int getColumn(PCClass pcc)
+	{
+		Integer column = classColumns.get(pcc);
+		if (column == null)
+		{
+			column = classColumns.size();
+			classColumns.put(pcc, column);
+		}
+		return column;
+	}
+}
@@ -103,6 +103,7 @@ public class SkillRankFacet extends AbstractStorageFacet<CharID>
 			map.put(skill, clMap);
 		}
 		clMap.put(pcc, value);
+		fireCacheChanged(id);
 
 		
 		Float newRank = getRank(id, skill);
@@ -193,6 +194,7 @@ public class SkillRankFacet extends AbstractStorageFacet<CharID>
 			{
 				Float oldRank = getRank(id, sk);
 				clMap.remove(pcc);
+				fireCacheChanged(id);
 				Float newRank = getRank(id, sk);
 				support.fireSkillRankChangeEvent(id, sk, oldRank, newRank);
 			}
@@ -378,4 +380,16 @@ public class SkillRankFacet extends AbstractStorageFacet<CharID>
 			}
 		}
 	}
+
+	/**
+	 * SkillRankFacet reports each change to the skill ranks it stores for a
+	 * Player Character.
+	 * 
+	 * @see pcgen.cdom.facet.base.AbstractStorageFacet#isChangeTracked()
+	 */
+	@Override
+	protected boolean isChangeTracked()
+	{
+		return true;
+	}
 }
@@ -28,4 +28,15 @@ import pcgen.core.PCStat;
  */
 public class StatValueFacet extends AbstractAssociationFacet<PCStat, Integer>
 {
+	/**
+	 * StatValueFacet reports each change to a stat value, including the
+	 * replacement of an existing value.
+	 * 
+	 * @see pcgen.cdom.facet.base.AbstractStorageFacet#isChangeTracked()
+	 */
+	@Override
+	protected boolean isChangeTracked()
+	{
+		return true;
+	}
 }
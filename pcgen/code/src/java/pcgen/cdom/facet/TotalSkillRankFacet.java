@@ -75,6 +75,7 @@ public class TotalSkillRankFacet extends AbstractStorageFacet<CharID> implements
 		if (isNew)
 		{
 			map.put(sk, rank);
+			fireCacheChanged(id);
 			if (support != null)
 			{
 				support.fireAssociationChange(id, sk, currentRank, rank);
@@ -362,4 +363,15 @@ public class TotalSkillRankFacet extends AbstractStorageFacet<CharID> implements
 		this.bonusSkillRankChangeFacet = bonusSkillRankChangeFacet;
 	}
 
+	/**
+	 * TotalSkillRankFacet reports each change to the total skill ranks it
+	 * stores for a Player Character.
+	 * 
+	 * @see pcgen.cdom.facet.base.AbstractStorageFacet#isChangeTracked()
+	 */
+	@Override
+	protected boolean isChangeTracked()
+	{
+		return true;
+	}
 }
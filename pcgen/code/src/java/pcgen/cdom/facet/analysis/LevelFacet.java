@@ -241,6 +241,7 @@ public class LevelFacet extends AbstractStorageFacet<CharID> implements
 			{
 				lci.nonMonsterLevels = lci.nonMonsterLevels + levelChange;
 			}
+			fireCacheChanged(id);
 			support.fireLevelChangeEvent(id);
 		}
 	}
@@ -466,4 +467,16 @@ public class LevelFacet extends AbstractStorageFacet<CharID> implements
 			copyinfo.nonMonsterLevels = info.nonMonsterLevels;
 		}
 	}
+
+	/**
+	 * LevelFacet reports each change to the level counts it stores for a
+	 * Player Character.
+	 * 
+	 * @see pcgen.cdom.facet.base.AbstractStorageFacet#isChangeTracked()
+	 */
+	@Override
+	protected boolean isChangeTracked()
+	{
+		return true;
+	}
 }
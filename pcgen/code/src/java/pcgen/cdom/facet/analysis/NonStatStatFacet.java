@@ -104,4 +104,16 @@ public class NonStatStatFacet extends AbstractSourcedListFacet<CharID, PCStat> i
 	{
 		consolidationFacet.addDataFacetChangeListener(this);
 	}
+
+	/**
+	 * NonStatStatFacet reports each change to the stats locked to a non
+	 * stat value.
+	 * 
+	 * @see pcgen.cdom.facet.base.AbstractStorageFacet#isChangeTracked()
+	 */
+	@Override
+	protected boolean isChangeTracked()
+	{
+		return true;
+	}
 }
@@ -104,4 +104,16 @@ public class NonStatToStatFacet extends AbstractSourcedListFacet<CharID, PCStat>
 	{
 		consolidationFacet.addDataFacetChangeListener(this);
 	}
+
+	/**
+	 * NonStatToStatFacet reports each change to the stats unlocked from a
+	 * non stat value.
+	 * 
+	 * @see pcgen.cdom.facet.base.AbstractStorageFacet#isChangeTracked()
+	 */
+	@Override
+	protected boolean isChangeTracked()
+	{
+		return true;
+	}
 }
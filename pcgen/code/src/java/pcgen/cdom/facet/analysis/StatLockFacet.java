@@ -162,4 +162,16 @@ public class StatLockFacet extends AbstractSourcedListFacet<CharID, StatLock> im
 	{
 		consolidationFacet.addDataFacetChangeListener(this);
 	}
+
+	/**
+	 * StatLockFacet reports every StatLock (and every source of a StatLock)
+	 * added to or removed from a Player Character.
+	 * 
+	 * @see pcgen.cdom.facet.base.AbstractStorageFacet#isChangeTracked()
+	 */
+	@Override
+	protected boolean isChangeTracked()
+	{
+		return true;
+	}
 }
@@ -168,4 +168,16 @@ public class StatMaxValueFacet extends AbstractSourcedListFacet<CharID, StatLock
 	{
 		consolidationFacet.addDataFacetChangeListener(this);
 	}
+
+	/**
+	 * StatMaxValueFacet reports each maximum stat value granted to or
+	 * removed from a Player Character.
+	 * 
+	 * @see pcgen.cdom.facet.base.AbstractStorageFacet#isChangeTracked()
+	 */
+	@Override
+	protected boolean isChangeTracked()
+	{
+		return true;
+	}
 }
@@ -168,4 +168,16 @@ public class StatMinValueFacet extends AbstractSourcedListFacet<CharID, StatLock
 	{
 		consolidationFacet.addDataFacetChangeListener(this);
 	}
+
+	/**
+	 * The StatLock objects stored by StatMinValueFacet are never modified
+	 * once granted, and every grant or removal is reported.
+	 * 
+	 * @see pcgen.cdom.facet.base.AbstractStorageFacet#isChangeTracked()
+	 */
+	@Override
+	protected boolean isChangeTracked()
+	{
+		return true;
+	}
 }
@@ -100,4 +100,16 @@ public class UnlockedStatFacet extends AbstractSourcedListFacet<CharID, PCStat>
 	{
 		consolidationFacet.addDataFacetChangeListener(this);
 	}
+
+	/**
+	 * The unlocked stats are only changed through the sourced list, which
+	 * reports each change.
+	 * 
+	 * @see pcgen.cdom.facet.base.AbstractStorageFacet#isChangeTracked()
+	 */
+	@Override
+	protected boolean isChangeTracked()
+	{
+		return true;
+	}
 }
@@ -109,6 +109,7 @@ public class VariableFacet extends AbstractStorageFacet<CharID> implements
 			subMap.put(formula, sources);
 		}
 		sources.add(cdo);
+		fireCacheChanged(id);
 	}
 
 	/**
@@ -192,6 +193,7 @@ public class VariableFacet extends AbstractStorageFacet<CharID> implements
 					mit.remove();
 				}
 			}
+			fireCacheChanged(id);
 		}
 	}
 
@@ -342,4 +344,16 @@ public class VariableFacet extends AbstractStorageFacet<CharID> implements
 			}
 		}
 	}
+
+	/**
+	 * VariableFacet reports each addition to and removal from the variable Map
+	 * it stores for a Player Character.
+	 * 
+	 * @see pcgen.cdom.facet.base.AbstractStorageFacet#isChangeTracked()
+	 */
+	@Override
+	protected boolean isChangeTracked()
+	{
+		return true;
+	}
 }
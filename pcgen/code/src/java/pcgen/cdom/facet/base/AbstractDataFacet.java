@@ -18,6 +18,9 @@
 package pcgen.cdom.facet.base;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -26,6 +29,7 @@ import pcgen.cdom.base.Category;
 import pcgen.cdom.base.PCGenIdentifier;
 import pcgen.cdom.enumeration.Nature;
 import pcgen.cdom.facet.CategorizedDataFacetChangeEvent;
+import pcgen.cdom.facet.event.DataFacetChangeBatchListener;
 import pcgen.cdom.facet.event.DataFacetChangeEvent;
 import pcgen.cdom.facet.event.DataFacetChangeListener;
 
@@ -46,6 +50,15 @@ import pcgen.cdom.facet.event.DataFacetChangeListener;
  * DataFacetChangeListners of the <b>same</b> priority will receive events from
  * the AbstractDataFacet.
  * 
+ * Changes to the information stored for a resource may be made in a change
+ * batch (see beginChangeBatch). The events for changes made during a batch are
+ * held until the batch is committed, and are then delivered facet by facet, in
+ * the order in which the facets first changed. Each listener receives all of
+ * the events from a facet before the listeners at the next priority receive
+ * any; a DataFacetChangeBatchListener receives them in a single call.
+ * Additions and removals of the same object which cancel each other out during
+ * the batch are not delivered at all.
+ * 
  * @author Thomas Parker (thpr [at] yahoo.com)
  */
 public abstract class AbstractDataFacet<IDT extends PCGenIdentifier, T> extends
@@ -54,6 +67,15 @@ public abstract class AbstractDataFacet<IDT extends PCGenIdentifier, T> extends
 	private final Map<Integer, DataFacetChangeListener<IDT, ? super T>[]> listeners =
 			new TreeMap<Integer, DataFacetChangeListener<IDT, ? super T>[]>();
 
+	/**
+	 * The open change batches, by the identifier of the resource being
+	 * changed.
+	 */
+	private static final Map<PCGenIdentifier, ChangeBatch> BATCHES =
+			new HashMap<PCGenIdentifier, ChangeBatch>();
+
+	private static volatile boolean hasBatches = false;
+
 	/**
 	 * Adds a new DataFacetChangeListener to receive DataFacetChangeEvents
 	 * (EdgeChangeEvent and NodeChangeEvent) from the source DataFacet. The
@@ -224,6 +246,20 @@ public abstract class AbstractDataFacet<IDT extends PCGenIdentifier, T> extends
 	protected void fireDataFacetChangeEvent(IDT id, T node, int type,
 		Category category, Nature nature)
 	{
+		fireCacheChanged(id);
+		if (hasBatches && !listeners.isEmpty())
+		{
+			ChangeBatch batch;
+			synchronized (BATCHES)
+			{
+				batch = BATCHES.get(id);
+			}
+			if (batch != null)
+			{
+				batch.add(this, node, type, category, nature);
+				return;
+			}
+		}
 		for (DataFacetChangeListener<IDT, ? super T>[] dfclArray : listeners
 			.values())
 		{
@@ -240,35 +276,180 @@ public abstract class AbstractDataFacet<IDT extends PCGenIdentifier, T> extends
 				// Lazily create event
 				if (ccEvent == null)
 				{
-					if (category == null)
-					{
-						ccEvent =
-								new DataFacetChangeEvent<IDT, T>(id, node,
-									this, type);
-					}
-					else
-					{
-						ccEvent =
-								new CategorizedDataFacetChangeEvent<IDT, T>(id,
-									node, this, type, category, nature);
-					}
+					ccEvent = createEvent(id, node, type, category, nature);
 				}
+				deliverEvent(dfclArray[i], ccEvent);
+			}
+		}
+	}
+
+	private DataFacetChangeEvent<IDT, T> createEvent(IDT id, T node, int type,
+		Category<?> category, Nature nature)
+	{
+		if (category == null)
+		{
+			return new DataFacetChangeEvent<IDT, T>(id, node, this, type);
+		}
+		return new CategorizedDataFacetChangeEvent<IDT, T>(id, node, this,
+			type, category, nature);
+	}
+
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	private static void deliverEvent(DataFacetChangeListener dfcl,
+		DataFacetChangeEvent ccEvent)
+	{
+		switch (ccEvent.getEventType())
+		{
+			case DataFacetChangeEvent.DATA_ADDED:
+				dfcl.dataAdded(ccEvent);
+				break;
+			case DataFacetChangeEvent.DATA_REMOVED:
+				dfcl.dataRemoved(ccEvent);
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Sends the events for the changes made to this facet during a change
+	 * batch to the DataFacetChangeListeners, in order of priority. Each
+	 * DataFacetChangeBatchListener receives all of the events at once.
+	 * 
+	 * @param id
+	 *            The PCGenIdentifier identifying the resource which changed
+	 * @param changes
+	 *            The changes made to this facet during the batch
+	 */
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	private void fireBatchedChanges(PCGenIdentifier id,
+		List<PendingChange> changes)
+	{
+		List<DataFacetChangeEvent<IDT, T>> events =
+				new ArrayList<DataFacetChangeEvent<IDT, T>>(changes.size());
+		for (PendingChange change : changes)
+		{
+			if (!change.cancelled)
+			{
+				events.add(createEvent((IDT) id, (T) change.node, change.type,
+					change.category, change.nature));
+			}
+		}
+		if (events.isEmpty())
+		{
+			return;
+		}
+		List<DataFacetChangeEvent<IDT, T>> batchEvents =
+				Collections.unmodifiableList(events);
+		for (DataFacetChangeListener<IDT, ? super T>[] dfclArray : listeners
+			.values())
+		{
+			for (int i = dfclArray.length - 1; i >= 0; i--)
+			{
 				DataFacetChangeListener dfcl = dfclArray[i];
-				switch (ccEvent.getEventType())
+				if (dfcl instanceof DataFacetChangeBatchListener)
 				{
-					case DataFacetChangeEvent.DATA_ADDED:
-						dfcl.dataAdded(ccEvent);
-						break;
-					case DataFacetChangeEvent.DATA_REMOVED:
-						dfcl.dataRemoved(ccEvent);
-						break;
-					default:
-						break;
+					((DataFacetChangeBatchListener) dfcl)
+						.dataChanged(batchEvents);
+				}
+				else
+				{
+					for (DataFacetChangeEvent<IDT, T> ccEvent : events)
+					{
+						deliverEvent(dfcl, ccEvent);
+					}
 				}
 			}
 		}
 	}
 
+	/**
+	 * Opens a change batch for the given resource. Until the batch is
+	 * committed, the DataFacetChangeEvents for changes to the information
+	 * stored for the resource by any AbstractDataFacet are held rather than
+	 * sent. The information itself is changed immediately.
+	 * 
+	 * Batches may be nested; the events are sent when the outermost batch is
+	 * committed. Every call to beginChangeBatch must be matched by a call to
+	 * commitChangeBatch (normally in a finally block) on the same thread.
+	 * 
+	 * Listeners do not see the changes made during a batch until it is
+	 * committed, so a batch should only be used for changes which do not
+	 * depend on information derived from the earlier changes in the batch.
+	 * 
+	 * @param id
+	 *            The PCGenIdentifier identifying the resource to be changed
+	 */
+	public static void beginChangeBatch(PCGenIdentifier id)
+	{
+		synchronized (BATCHES)
+		{
+			ChangeBatch batch = BATCHES.get(id);
+			if (batch == null)
+			{
+				batch = new ChangeBatch();
+				BATCHES.put(id, batch);
+				hasBatches = true;
+			}
+			batch.depth++;
+		}
+	}
+
+	/**
+	 * Commits a change batch opened by beginChangeBatch. When the outermost
+	 * batch is committed, the events held for the resource are sent, facet by
+	 * facet. Changes made by the listeners as they receive the events are
+	 * reported immediately.
+	 * 
+	 * @param id
+	 *            The PCGenIdentifier identifying the resource which was changed
+	 */
+	public static void commitChangeBatch(PCGenIdentifier id)
+	{
+		ChangeBatch batch;
+		synchronized (BATCHES)
+		{
+			batch = BATCHES.get(id);
+			if (batch == null)
+			{
+				throw new IllegalStateException(
+					"No change batch has been begun for " + id);
+			}
+			batch.depth--;
+			if (batch.depth > 0)
+			{
+				return;
+			}
+			BATCHES.remove(id);
+			hasBatches = !BATCHES.isEmpty();
+		}
+		for (Map.Entry<AbstractDataFacet<?, ?>, List<PendingChange>> me : batch.changes
+			.entrySet())
+		{
+			me.getKey().fireBatchedChanges(id, me.getValue());
+		}
+	}
+
+	/**
+	 * Identifies if a change batch is open for the given resource.
+	 * 
+	 * @param id
+	 *            The PCGenIdentifier identifying the resource
+	 * @return true if changes to the resource are being batched; false
+	 *         otherwise
+	 */
+	public static boolean isChangeBatchOpen(PCGenIdentifier id)
+	{
+		if (!hasBatches)
+		{
+			return false;
+		}
+		synchronized (BATCHES)
+		{
+			return BATCHES.containsKey(id);
+		}
+	}
+
 	public DataFacetChangeListener<IDT, ? super T>[] getDataFacetChangeListeners()
 	{
 		List<DataFacetChangeListener<IDT, ? super T>> list =
@@ -283,4 +464,77 @@ public abstract class AbstractDataFacet<IDT extends PCGenIdentifier, T> extends
 		}
 		return list.toArray(new DataFacetChangeListener[list.size()]);
 	}
+
+	/**
+	 * The changes held for a resource during a change batch, by the facet
+	 * which changed.
+	 */
+	private static final class ChangeBatch
+	{
+		private int depth;
+
+		private final Map<AbstractDataFacet<?, ?>, List<PendingChange>> changes =
+				new LinkedHashMap<AbstractDataFacet<?, ?>, List<PendingChange>>();
+
+		/**
+		 * The latest change to each object, by facet, so that an addition and
+		 * a removal of the same object can cancel each other out.
+		 */
+		private final Map<AbstractDataFacet<?, ?>, Map<Object, PendingChange>> latest =
+				new HashMap<AbstractDataFacet<?, ?>, Map<Object, PendingChange>>();
+
+		private void add(AbstractDataFacet<?, ?> facet, Object node, int type,
+			Category<?> category, Nature nature)
+		{
+			List<PendingChange> facetChanges = changes.get(facet);
+			Map<Object, PendingChange> facetLatest = latest.get(facet);
+			if (facetChanges == null)
+			{
+				facetChanges = new ArrayList<PendingChange>();
+				changes.put(facet, facetChanges);
+				facetLatest = new HashMap<Object, PendingChange>();
+				latest.put(facet, facetLatest);
+			}
+			PendingChange last = facetLatest.get(node);
+			if (last != null && last.cancels(type, category, nature))
+			{
+				last.cancelled = true;
+				facetLatest.remove(node);
+				return;
+			}
+			PendingChange change =
+					new PendingChange(node, type, category, nature);
+			facetChanges.add(change);
+			facetLatest.put(node, change);
+		}
+	}
+
+	/**
+	 * A change held during a change batch.
+	 */
+	private static final class PendingChange
+	{
+		private final Object node;
+		private final int type;
+		private final Category<?> category;
+		private final Nature nature;
+		private boolean cancelled = false;
+
+		private PendingChange(Object node, int type, Category<?> category,
+			Nature nature)
+		{
+			this.node = node;
+			this.type = type;
+			this.category = category;
+			this.nature = nature;
+		}
+
+		private boolean cancels(int otherType, Category<?> otherCategory,
+			Nature otherNature)
+		{
+			return type != otherType
+				&& (category == null ? otherCategory == null : category
+					.equals(otherCategory)) && nature == otherNature;
+		}
+	}
 }
@@ -78,7 +78,8 @@ public abstract class AbstractListFacet<IDT extends PCGenIdentifier, T> extends
 	/**
 	 * Adds all of the objects in the given Collection to the list of objects
 	 * stored in this AbstractListFacet for the Player Character represented by
-	 * the given PCGenIdentifier
+	 * the given PCGenIdentifier. The additions are made in a change batch, so
+	 * the listeners are informed once all of the objects have been added.
 	 * 
 	 * @param id
 	 *            The PCGenIdentifier representing the Player Character for
@@ -97,19 +98,27 @@ public abstract class AbstractListFacet<IDT extends PCGenIdentifier, T> extends
 			return;
 		}
 		Collection<T> set = getConstructingCachedSet(id);
-		for (T obj : c)
+		beginChangeBatch(id);
+		try
 		{
-			if (obj == null)
-			{
-				throw new IllegalArgumentException(
-					"Object to add may not be null");
-			}
-			if (set.add(obj))
+			for (T obj : c)
 			{
-				fireDataFacetChangeEvent(id, obj,
-					DataFacetChangeEvent.DATA_ADDED);
+				if (obj == null)
+				{
+					throw new IllegalArgumentException(
+						"Object to add may not be null");
+				}
+				if (set.add(obj))
+				{
+					fireDataFacetChangeEvent(id, obj,
+						DataFacetChangeEvent.DATA_ADDED);
+				}
 			}
 		}
+		finally
+		{
+			commitChangeBatch(id);
+		}
 	}
 
 	/**
@@ -155,7 +164,9 @@ public abstract class AbstractListFacet<IDT extends PCGenIdentifier, T> extends
 	/**
 	 * Removes all of the objects in the given Collection from the list of
 	 * objects stored in this AbstractListFacet for the Player Character
-	 * represented by the given PCGenIdentifier
+	 * represented by the given PCGenIdentifier. The removals are made in a
+	 * change batch, so the listeners are informed once all of the objects have
+	 * been removed.
 	 * 
 	 * @param id
 	 *            The PCGenIdentifier representing the Player Character from
@@ -172,19 +183,27 @@ public abstract class AbstractListFacet<IDT extends PCGenIdentifier, T> extends
 		Collection<T> componentSet = getCachedSet(id);
 		if (componentSet != null)
 		{
-			for (T obj : c)
+			beginChangeBatch(id);
+			try
 			{
-				if (obj == null)
+				for (T obj : c)
 				{
-					throw new IllegalArgumentException(
-						"Object to add may not be null");
-				}
-				if (componentSet.remove(obj))
-				{
-					fireDataFacetChangeEvent(id, obj,
-						DataFacetChangeEvent.DATA_REMOVED);
+					if (obj == null)
+					{
+						throw new IllegalArgumentException(
+							"Object to add may not be null");
+					}
+					if (componentSet.remove(obj))
+					{
+						fireDataFacetChangeEvent(id, obj,
+							DataFacetChangeEvent.DATA_REMOVED);
+					}
 				}
 			}
+			finally
+			{
+				commitChangeBatch(id);
+			}
 		}
 	}
 
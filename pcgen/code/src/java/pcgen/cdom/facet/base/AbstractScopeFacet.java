@@ -434,6 +434,7 @@ public class AbstractScopeFacet<IDT extends PCGenIdentifier, S, T> extends
 	@SuppressWarnings("rawtypes")
 	protected void fireScopeFacetChangeEvent(IDT id, S scope, T node, int type)
 	{
+		fireCacheChanged(id);
 		for (ScopeFacetChangeListener<? super IDT, ? super S, ? super T>[] dfclArray : listeners
 			.values())
 		{
@@ -468,5 +469,4 @@ public class AbstractScopeFacet<IDT extends PCGenIdentifier, S, T> extends
 			}
 		}
 	}
-
 }
@@ -89,17 +89,23 @@ public abstract class AbstractSourcedListFacet<IDT extends PCGenIdentifier, T>
 			set = new WrappedMapSet<Object>(IdentityHashMap.class);
 			map.put(obj, set);
 		}
-		set.add(source);
+		boolean added = set.add(source);
 		if (fireNew)
 		{
 			fireDataFacetChangeEvent(id, obj, DataFacetChangeEvent.DATA_ADDED);
 		}
+		else if (added)
+		{
+			fireCacheChanged(id);
+		}
 	}
 
 	/**
 	 * Adds all of the objects with the given source in the given Collection to
 	 * the list of objects stored in this AbstractSourcedListFacet for the
-	 * resource represented by the given PCGenIdentifier
+	 * resource represented by the given PCGenIdentifier. The additions are
+	 * made in a change batch, so the listeners are informed once all of the
+	 * objects have been added.
 	 * 
 	 * @param id
 	 *            The PCGenIdentifier representing the resource for which the
@@ -115,9 +121,17 @@ public abstract class AbstractSourcedListFacet<IDT extends PCGenIdentifier, T>
 	 */
 	public void addAll(IDT id, Collection<? extends T> c, Object source)
 	{
-		for (T obj : c)
+		beginChangeBatch(id);
+		try
 		{
-			add(id, obj, source);
+			for (T obj : c)
+			{
+				add(id, obj, source);
+			}
+		}
+		finally
+		{
+			commitChangeBatch(id);
 		}
 	}
 
@@ -151,7 +165,9 @@ public abstract class AbstractSourcedListFacet<IDT extends PCGenIdentifier, T>
 	 * PCGenIdentifier. If the given source was the only source for any of the
 	 * objects in the collection, then those objects are removed from the list
 	 * of objects stored in this AbstractSourcedListFacet for the resource
-	 * represented by the given PCGenIdentifier.
+	 * represented by the given PCGenIdentifier. The removals are made in a
+	 * change batch, so the listeners are informed once all of the objects have
+	 * been removed.
 	 * 
 	 * @param id
 	 *            The PCGenIdentifier representing the resource from which the
@@ -171,9 +187,17 @@ public abstract class AbstractSourcedListFacet<IDT extends PCGenIdentifier, T>
 		Map<T, Set<Object>> componentMap = getCachedMap(id);
 		if (componentMap != null)
 		{
-			for (T obj : c)
+			beginChangeBatch(id);
+			try
+			{
+				for (T obj : c)
+				{
+					processRemoval(id, componentMap, obj, source);
+				}
+			}
+			finally
 			{
-				processRemoval(id, componentMap, obj, source);
+				commitChangeBatch(id);
 			}
 		}
 	}
@@ -503,6 +527,10 @@ public abstract class AbstractSourcedListFacet<IDT extends PCGenIdentifier, T>
 				removeCache(id);
 			}
 		}
+		else if (returnVal)
+		{
+			fireCacheChanged(id);
+		}
 		return returnVal;
 	}
 
@@ -529,22 +557,34 @@ public abstract class AbstractSourcedListFacet<IDT extends PCGenIdentifier, T>
 			 * concurrent modification exception on a recursive remove
 			 */
 			List<T> removedKeys = new ArrayList<T>();
+			boolean sourceRemoved = false;
 			for (Iterator<Map.Entry<T, Set<Object>>> it =
 					componentMap.entrySet().iterator(); it.hasNext();)
 			{
 				Entry<T, Set<Object>> me = it.next();
 				Set<Object> set = me.getValue();
-				if (set.remove(source) && set.isEmpty())
+				if (set.remove(source))
 				{
-					T obj = me.getKey();
-					it.remove();
-					removedKeys.add(obj);
+					sourceRemoved = true;
+					if (set.isEmpty())
+					{
+						T obj = me.getKey();
+						it.remove();
+						removedKeys.add(obj);
+					}
 				}
 			}
 			if (componentMap.isEmpty())
 			{
 				removeCache(id);
 			}
+			else if (sourceRemoved && removedKeys.isEmpty())
+			{
+				/*
+				 * Only the sources changed, which fires no data event
+				 */
+				fireCacheChanged(id);
+			}
 			for (T obj : removedKeys)
 			{
 				fireDataFacetChangeEvent(id, obj,
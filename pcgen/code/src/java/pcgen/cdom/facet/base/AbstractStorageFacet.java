@@ -17,15 +17,15 @@
  */
 package pcgen.cdom.facet.base;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import pcgen.base.test.InequalityTester;
-import pcgen.base.util.DoubleKeyMap;
 import pcgen.cdom.base.PCGenIdentifier;
 import pcgen.util.Logging;
 
@@ -41,6 +41,12 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 
 	private final Class<?> thisClass = getClass();
 
+	/**
+	 * The slot of the FacetCache in which this facet stores information. Slots
+	 * are assigned by class, so all facets of a class share a slot.
+	 */
+	private final int slot = FacetCache.getSlot(thisClass);
+
 	/**
 	 * Copies the contents of the AbstractStorageFacet from one resource to
 	 * another resource, based on the given PCGenIdentifiers representing those
@@ -68,21 +74,104 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 	public abstract void copyContents(T source, T copy);
 
 	/**
-	 * The actual cache that stores the CDOM information, as stored by the
-	 * identifying PCGenIdentifier of a resource and the class of the facet
-	 * storing the information
+	 * Returns the slot of the FacetCache in which this facet stores
+	 * information.
+	 * 
+	 * @return The slot in which this facet stores information
+	 */
+	int getSlot()
+	{
+		return slot;
+	}
+
+	/**
+	 * Copies the contents of the given AbstractStorageFacets from one resource
+	 * to another, deferring the copy made by each facet until the information
+	 * it stores is first accessed for either resource. This has the same
+	 * result as calling copyContents on each facet, but is much cheaper when
+	 * the copy is short-lived and only a few facets are accessed before it is
+	 * discarded.
+	 * 
+	 * @param source
+	 *            The PCGenIdentifier representing the resource from which the
+	 *            information should be copied
+	 * @param copy
+	 *            The PCGenIdentifier representing the resource to which the
+	 *            information should be copied
+	 * @param facets
+	 *            The AbstractStorageFacets whose contents should be copied
+	 */
+	public static <T extends PCGenIdentifier> void deferCopyContents(T source,
+		T copy, Collection<? extends AbstractStorageFacet> facets)
+	{
+		if (source == null || copy == null)
+		{
+			throw new IllegalArgumentException(
+				"PCGenIdentifier cannot be null in deferCopyContents");
+		}
+		FacetCache.deferCopy(source, copy, facets);
+	}
+
+	/**
+	 * Abandons any deferred copy of contents into the given resource, so that
+	 * the resource from which the contents were being copied no longer tracks
+	 * it. The contents not yet copied are lost, so the given resource should
+	 * not be used after this is called.
+	 * 
+	 * @param copy
+	 *            The PCGenIdentifier representing the resource which is no
+	 *            longer required
+	 */
+	public static void discardDeferredCopy(PCGenIdentifier copy)
+	{
+		if (copy == null)
+		{
+			throw new IllegalArgumentException(
+				"PCGenIdentifier cannot be null in discardDeferredCopy");
+		}
+		FacetCache.discardDeferredCopy(copy);
+	}
+
+	/**
+	 * Returns the number of facets whose contents are still waiting to be
+	 * copied into the given resource by deferCopyContents.
+	 * 
+	 * @param copy
+	 *            The PCGenIdentifier representing the resource being copied
+	 *            into
+	 * @return The number of facets not yet copied, or zero if no copy is in
+	 *         progress
 	 */
-	private static final DoubleKeyMap<PCGenIdentifier, Class<?>, Object> CACHE =
-			new DoubleKeyMap<PCGenIdentifier, Class<?>, Object>(
-				WeakHashMap.class, HashMap.class);
+	public static int getDeferredCopyCount(PCGenIdentifier copy)
+	{
+		if (copy == null)
+		{
+			throw new IllegalArgumentException(
+				"PCGenIdentifier cannot be null in getDeferredCopyCount");
+		}
+		return FacetCache.getDeferredCount(copy);
+	}
+
+	/**
+	 * The CacheAccessListener (if any) informed of reads from the cache made on
+	 * the current thread.
+	 */
+	private static final ThreadLocal<CacheAccessListener> READ_LISTENER =
+			new ThreadLocal<CacheAccessListener>();
+
+	/**
+	 * The number of threads with a read listener. Allows getCache to avoid the
+	 * ThreadLocal lookup when nothing is listening.
+	 */
+	private static final AtomicInteger READ_LISTENER_COUNT = new AtomicInteger();
 
 	/*
-	 * Note: the use of CACHE.getReadOnlyMapFor(K1) in peekAtCache makes calling
-	 * CACHE.removeAll(k1) or CACHE.clear() [not used in this class at the
-	 * moment] a rather dangerous activity that is prone to later frustration in
-	 * debugging. It is advised that if such a call is every considered that
-	 * detailed consideration is made of the consequences so that debugging
-	 * information is not destroyed in the process. - thpr Dec 15, 2012.
+	 * Note: The CDOM information is stored in the FacetCache owned by the
+	 * identifying PCGenIdentifier of a resource, in the slot assigned to the
+	 * class of the facet storing the information. Since the view returned by
+	 * peekAtCache is reference-semantic, replacing the FacetCache of a
+	 * PCGenIdentifier is a rather dangerous activity that is prone to later
+	 * frustration in debugging.
 	 */
 
 	/**
@@ -103,7 +192,9 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 			throw new IllegalArgumentException(
 				"PCGenIdentifier cannot be null in removeCache");
 		}
-		return CACHE.remove(id, thisClass);
+		Object old = id.getFacetCache().put(slot, null);
+		fireCacheChanged(id);
+		return old;
 	}
 
 	/**
@@ -126,7 +217,9 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 			throw new IllegalArgumentException(
 				"PCGenIdentifier cannot be null in setCache");
 		}
-		return CACHE.put(id, thisClass, o);
+		Object old = id.getFacetCache().put(slot, o);
+		fireCacheChanged(id);
+		return old;
 	}
 
 	/**
@@ -147,7 +240,125 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 			throw new IllegalArgumentException(
 				"PCGenIdentifier cannot be null in getCache");
 		}
-		return CACHE.get(id, thisClass);
+		if (READ_LISTENER_COUNT.get() > 0)
+		{
+			CacheAccessListener listener = READ_LISTENER.get();
+			if (listener != null)
+			{
+				listener.cacheRead(id, thisClass, isChangeTracked());
+			}
+		}
+		return id.getFacetCache().get(slot);
+	}
+
+	/**
+	 * Identifies if this facet informs the change listeners of every change
+	 * to the information it stores. Replacing or removing the information in
+	 * the cache is always reported, but that alone is not enough: a facet may
+	 * only return true if it also calls fireCacheChanged whenever it modifies
+	 * its stored information in place, and if the objects it stores are not
+	 * themselves modified after they are added (as Equipment is, for
+	 * example). Reads from facets which do not make that promise are reported
+	 * as untracked, so results derived from them are never reused.
+	 * 
+	 * @return true if every change to the information stored by this facet is
+	 *         reported to the change listeners; false otherwise
+	 */
+	protected boolean isChangeTracked()
+	{
+		return false;
+	}
+
+	/**
+	 * Informs the CacheAccessListener objects registered for the given
+	 * resource (if any) that the information stored by this facet has changed.
+	 * 
+	 * @param id
+	 *            The PCGenIdentifier for which the information stored by this
+	 *            facet has changed
+	 */
+	protected void fireCacheChanged(T id)
+	{
+		List<WeakReference<CacheAccessListener>> refs =
+				id.getFacetCache().getChangeListeners();
+		if (refs != null)
+		{
+			for (WeakReference<CacheAccessListener> ref : refs)
+			{
+				CacheAccessListener listener = ref.get();
+				if (listener != null)
+				{
+					listener.cacheChanged(id, thisClass);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets the CacheAccessListener to be informed of reads from the cache made
+	 * by the current thread. Only one listener is active per thread; the
+	 * previous listener is returned so that it can be restored.
+	 * 
+	 * @param listener
+	 *            The CacheAccessListener to be informed of reads; may be null
+	 *            to stop informing any listener
+	 * @return The CacheAccessListener previously informed of reads made by the
+	 *         current thread
+	 */
+	public static CacheAccessListener setReadListener(
+		CacheAccessListener listener)
+	{
+		CacheAccessListener old = READ_LISTENER.get();
+		if (listener == null)
+		{
+			READ_LISTENER.remove();
+		}
+		else
+		{
+			READ_LISTENER.set(listener);
+		}
+		if (old == null && listener != null)
+		{
+			READ_LISTENER_COUNT.incrementAndGet();
+		}
+		else if (old != null && listener == null)
+		{
+			READ_LISTENER_COUNT.decrementAndGet();
+		}
+		return old;
+	}
+
+	/**
+	 * Registers the CacheAccessListener to be informed of changes to the
+	 * information stored in the cache for the given resource. The listener is
+	 * only weakly referenced. Any number of listeners may be registered for a
+	 * resource; they are held by the FacetCache of that resource.
+	 * 
+	 * @param id
+	 *            The PCGenIdentifier for which changes should be reported
+	 * @param listener
+	 *            The CacheAccessListener to be informed of the changes
+	 */
+	public static void addChangeListener(PCGenIdentifier id,
+		CacheAccessListener listener)
+	{
+		id.getFacetCache().addChangeListener(listener);
+	}
+
+	/**
+	 * Removes a CacheAccessListener registered for the given resource.
+	 * 
+	 * @param id
+	 *            The PCGenIdentifier for which changes should no longer be
+	 *            reported
+	 * @param listener
+	 *            The CacheAccessListener which should no longer be informed of
+	 *            the changes
+	 */
+	public static void removeChangeListener(PCGenIdentifier id,
+		CacheAccessListener listener)
+	{
+		id.getFacetCache().removeChangeListener(listener);
 	}
 
 	/**
@@ -181,8 +392,10 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 			throw new IllegalArgumentException(
 				"PCGenIdentifier #2 cannot be null in areEqualCache");
 		}
-		Set<Class<?>> set1 = CACHE.getSecondaryKeySet(id1);
-		Set<Class<?>> set2 = CACHE.getSecondaryKeySet(id2);
+		Map<Class<?>, Object> cache1 = id1.getFacetCache().getReadOnlyMap();
+		Map<Class<?>, Object> cache2 = id2.getFacetCache().getReadOnlyMap();
+		Set<Class<?>> set1 = cache1.keySet();
+		Set<Class<?>> set2 = cache2.keySet();
 		if (!set1.equals(set2))
 		{
 			List<Class<?>> l1 = new ArrayList<Class<?>>(set1);
@@ -194,8 +407,8 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 		}
 		for (Class<?> cl : set1)
 		{
-			Object obj1 = CACHE.get(id1, cl);
-			Object obj2 = CACHE.get(id2, cl);
+			Object obj1 = cache1.get(cl);
+			Object obj2 = cache2.get(cl);
 			String equal = t.testEquality(obj1, obj2, cl + "/");
 			if (equal != null)
 			{
@@ -216,7 +429,7 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 	 * returned Map is transferred to the caller, although since it is
 	 * read-only, that is perhaps only relevant for determining the garbage
 	 * collection time of the decorator that makes the returned Map an
-	 * unmodifiable view into this DoubleKeyMap.
+	 * unmodifiable view into the FacetCache.
 	 * 
 	 * Note that while this is a read-only map, there is no guarantee that this
 	 * returned map is thread-safe. Use in threaded situations with caution.
@@ -233,6 +446,6 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 			throw new IllegalArgumentException(
 				"PCGenIdentifier cannot be null in peekAtCache");
 		}
-		return CACHE.getReadOnlyMapFor(id);
+		return id.getFacetCache().getReadOnlyMap();
 	}
 }
@@ -498,6 +498,7 @@ public class AbstractSubScopeFacet<S1, S2, T> extends
 	protected void fireSubScopeFacetChangeEvent(CharID id, S1 scope1,
 		S2 scope2, T node, int type)
 	{
+		fireCacheChanged(id);
 		for (SubScopeFacetChangeListener<? super S1, ? super S2, ? super T>[] dfclArray : listeners
 			.values())
 		{
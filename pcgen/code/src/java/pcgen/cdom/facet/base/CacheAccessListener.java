@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA
+ */
+package pcgen.cdom.facet.base;
+
+import pcgen.cdom.base.PCGenIdentifier;
+
+/**
+ * A CacheAccessListener is informed when facets read or change the information
+ * they store in the CDOM cache. This allows a consumer (such as a formula
+ * cache) to record which facets a calculation depended upon, and to discard
+ * the results of that calculation when one of those facets later changes.
+ *
+ * Reads are reported to the listener registered for the current thread using
+ * AbstractStorageFacet.setReadListener(). A listener which replaces another
+ * for the duration of a calculation should pass the reads on to the listener
+ * it replaced. Changes are reported to each listener registered for the
+ * changed resource using AbstractStorageFacet.addChangeListener().
+ */
+public interface CacheAccessListener
+{
+	/**
+	 * Called when a facet retrieves its information from the cache.
+	 *
+	 * @param id
+	 *            The PCGenIdentifier of the resource whose information was read
+	 * @param facetClass
+	 *            The class of the facet which read the information
+	 * @param changeTracked
+	 *            true if the facet reports every change to its information
+	 *            through cacheChanged; false if changes may be made to the
+	 *            information without notification
+	 */
+	public void cacheRead(PCGenIdentifier id, Class<?> facetClass,
+		boolean changeTracked);
+
+	/**
+	 * Called when a facet has changed the information it stores in the cache.
+	 *
+	 * @param id
+	 *            The PCGenIdentifier of the resource whose information changed
+	 * @param facetClass
+	 *            The class of the facet which changed the information
+	 */
+	public void cacheChanged(PCGenIdentifier id, Class<?> facetClass);
+}
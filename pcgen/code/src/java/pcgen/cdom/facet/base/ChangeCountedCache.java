@@ -0,0 +1,202 @@
+/*
+ * ChangeCountedCache.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.cdom.facet.base;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import pcgen.cdom.base.PCGenIdentifier;
+
+/**
+ * A ChangeCountedCache holds values calculated for a resource (such as a
+ * Player Character), keyed by the identity of an object and of a second,
+ * optional, object. Every value is discarded when the serial of the resource
+ * changes or one of its facets reports a change.
+ * 
+ * Each discard increments a change count. A value should be calculated as
+ * follows: get the change count, calculate the value, then put it with the
+ * change count. The value is only held if nothing was discarded in between,
+ * so a value calculated from information that changed part way through is
+ * never held.
+ * 
+ * Changes are only reported while the cache is listening. A cache which is
+ * not listening may still hold values, so it should be cleared when it
+ * starts to listen again.
+ * 
+ * @param <V>
+ *            The type of value held by the cache
+ */
+public final class ChangeCountedCache<V> implements CacheAccessListener
+{
+	private final PCGenIdentifier id;
+
+	private final Map<Object, Map<Object, V>> values =
+			new IdentityHashMap<Object, Map<Object, V>>();
+
+	private int serial = -1;
+
+	private long changes;
+
+	/**
+	 * Create a new, empty, cache for the resource identified by the given
+	 * PCGenIdentifier. The cache does not listen for changes until
+	 * startListening is called.
+	 * 
+	 * @param id
+	 *            The PCGenIdentifier of the resource the values are
+	 *            calculated for
+	 */
+	public ChangeCountedCache(PCGenIdentifier id)
+	{
+		this.id = id;
+	}
+
+	/**
+	 * Discard any held values and start listening for changes to the facets
+	 * of the resource.
+	 */
+	public void startListening()
+	{
+		clear();
+		AbstractStorageFacet.addChangeListener(id, this);
+	}
+
+	/**
+	 * Stop listening for changes to the facets of the resource and discard
+	 * any held values.
+	 */
+	public void stopListening()
+	{
+		AbstractStorageFacet.removeChangeListener(id, this);
+		clear();
+	}
+
+	/**
+	 * Retrieves the value held for an object.
+	 * 
+	 * @param key
+	 *            The object the value was calculated for
+	 * @param subKey
+	 *            The second object the value was calculated for, or null if
+	 *            none
+	 * @param currentSerial
+	 *            The current serial of the resource
+	 * @return The value, or null if no current value is held
+	 */
+	public synchronized V get(Object key, Object subKey, int currentSerial)
+	{
+		checkSerial(currentSerial);
+		Map<Object, V> subValues = values.get(key);
+		return (subValues == null) ? null : subValues.get(subKey);
+	}
+
+	/**
+	 * Returns the count of the values discarded so far, to be passed to put
+	 * once a value has been calculated.
+	 * 
+	 * @param currentSerial
+	 *            The current serial of the resource
+	 * @return The change count
+	 */
+	public synchronized long getChangeCount(int currentSerial)
+	{
+		checkSerial(currentSerial);
+		return changes;
+	}
+
+	/**
+	 * Holds the value calculated for an object, unless values have been
+	 * discarded since the calculation started.
+	 * 
+	 * @param key
+	 *            The object the value was calculated for
+	 * @param subKey
+	 *            The second object the value was calculated for, or null if
+	 *            none
+	 * @param changeCount
+	 *            The change count when the calculation started
+	 * @param currentSerial
+	 *            The serial of the resource now the calculation is complete
+	 * @param value
+	 *            The calculated value
+	 * @return true if the value is held; false otherwise
+	 */
+	public synchronized boolean put(Object key, Object subKey,
+		long changeCount, int currentSerial, V value)
+	{
+		checkSerial(currentSerial);
+		if (changeCount != changes)
+		{
+			return false;
+		}
+		Map<Object, V> subValues = values.get(key);
+		if (subValues == null)
+		{
+			subValues = new IdentityHashMap<Object, V>();
+			values.put(key, subValues);
+		}
+		subValues.put(subKey, value);
+		return true;
+	}
+
+	/**
+	 * Discards every held value.
+	 */
+	public synchronized void clear()
+	{
+		values.clear();
+		changes++;
+	}
+
+	/**
+	 * @return The number of objects for which values are held.
+	 */
+	public synchronized int size()
+	{
+		return values.size();
+	}
+
+	private void checkSerial(int currentSerial)
+	{
+		if (serial != currentSerial)
+		{
+			serial = currentSerial;
+			clear();
+		}
+	}
+
+	/**
+	 * @see pcgen.cdom.facet.base.CacheAccessListener#cacheRead(pcgen.cdom.base.PCGenIdentifier, java.lang.Class, boolean)
+	 */
+	@Override
+	public void cacheRead(PCGenIdentifier readId, Class<?> facetClass,
+		boolean changeTracked)
+	{
+		// Changes are detected through cacheChanged
+	}
+
+	/**
+	 * @see pcgen.cdom.facet.base.CacheAccessListener#cacheChanged(pcgen.cdom.base.PCGenIdentifier, java.lang.Class)
+	 */
+	@Override
+	public void cacheChanged(PCGenIdentifier changedId, Class<?> facetClass)
+	{
+		clear();
+	}
+}
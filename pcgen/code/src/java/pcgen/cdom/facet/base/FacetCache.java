@@ -0,0 +1,577 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA
+ */
+package pcgen.cdom.facet.base;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import pcgen.cdom.base.PCGenIdentifier;
+
+/**
+ * A FacetCache holds the information stored by each AbstractStorageFacet for a
+ * single resource (such as a PlayerCharacter). Each facet class is assigned a
+ * slot when the first facet of that class is constructed (normally during
+ * FacetInitialization), and the information stored by that facet for the
+ * resource is held in that slot of an array.
+ *
+ * A FacetCache is owned by the PCGenIdentifier of the resource, so the
+ * information for different resources is never stored in a shared structure
+ * and independent resources may be processed on different threads. As with
+ * the information stored by the facets themselves, a FacetCache is not
+ * thread-safe; a single resource must only be processed by one thread at a
+ * time.
+ *
+ * The contents of one FacetCache may be copied into another as a deferred
+ * copy, where each slot is only copied when it is first accessed in either
+ * FacetCache. Until then the slot is effectively shared, which allows a
+ * short-lived copy of a resource to be made cheaply. Deferred copies are
+ * coordinated by a single lock, so a resource and a deferred copy of it may
+ * be processed on different threads.
+ *
+ * A FacetCache also holds the CacheAccessListener objects informed of changes
+ * to the information stored for its resource. Registration of those listeners
+ * is synchronized on the FacetCache itself, so it never contends with work on
+ * other resources.
+ *
+ * Only AbstractStorageFacet may change the contents of a FacetCache.
+ */
+public final class FacetCache
+{
+
+	/**
+	 * The slot assigned to each facet class
+	 */
+	private static final Map<Class<?>, Integer> SLOTS =
+			new ConcurrentHashMap<Class<?>, Integer>();
+
+	/**
+	 * The facet classes, in order of their slots
+	 */
+	private static final List<Class<?>> SLOT_CLASSES =
+			new CopyOnWriteArrayList<Class<?>>();
+
+	/**
+	 * The information stored for this resource, indexed by slot. A null entry
+	 * indicates no information is stored by the facet class of that slot.
+	 */
+	private Object[] contents = new Object[SLOT_CLASSES.size()];
+
+	/**
+	 * The lock held while the slots of any deferred copy are copied.
+	 */
+	private static final Object DEFERRED_LOCK = new Object();
+
+	/**
+	 * The deferred copy which fills the slots of this FacetCache not yet
+	 * accessed; null if this FacetCache is not a deferred copy.
+	 */
+	private volatile DeferredCopy deferred;
+
+	/**
+	 * The deferred copies of this FacetCache which are not yet complete; null
+	 * if there are none.
+	 */
+	private volatile List<DeferredCopy> copies;
+
+	/**
+	 * The CacheAccessListener objects (weakly referenced) informed of changes
+	 * to the information stored in this FacetCache; null if there are none.
+	 * The list is replaced rather than modified, so it may be iterated without
+	 * holding a lock.
+	 */
+	private volatile List<WeakReference<CacheAccessListener>> changeListeners;
+
+	/**
+	 * Returns the slot for the given facet class, assigning the next free slot
+	 * if the class has not been given one already.
+	 *
+	 * @param cl
+	 *            The facet class for which the slot should be returned
+	 * @return The slot in which the information stored by the given facet
+	 *         class is held
+	 */
+	static int getSlot(Class<?> cl)
+	{
+		Integer slot = SLOTS.get(cl);
+		if (slot == null)
+		{
+			synchronized (SLOT_CLASSES)
+			{
+				slot = SLOTS.get(cl);
+				if (slot == null)
+				{
+					slot = SLOT_CLASSES.size();
+					SLOT_CLASSES.add(cl);
+					SLOTS.put(cl, slot);
+				}
+			}
+		}
+		return slot;
+	}
+
+	/**
+	 * Returns the information stored in the given slot.
+	 *
+	 * @param slot
+	 *            The slot of the facet class whose information should be
+	 *            returned
+	 * @return The information stored in the given slot; null if no
+	 *         information is stored
+	 */
+	Object get(int slot)
+	{
+		resolve(slot);
+		return (slot < contents.length) ? contents[slot] : null;
+	}
+
+	/**
+	 * Stores information in the given slot.
+	 *
+	 * @param slot
+	 *            The slot of the facet class whose information is being stored
+	 * @param o
+	 *            The information to be stored; may be null to remove the
+	 *            information in the slot
+	 * @return The information previously stored in the given slot; null if no
+	 *         information was stored
+	 */
+	Object put(int slot, Object o)
+	{
+		resolve(slot);
+		if (slot >= contents.length)
+		{
+			if (o == null)
+			{
+				return null;
+			}
+			/*
+			 * Facets constructed after this FacetCache (usually only in
+			 * testing) have slots beyond the array
+			 */
+			contents =
+					Arrays.copyOf(contents, Math.max(slot + 1, SLOT_CLASSES
+						.size()));
+		}
+		Object old = contents[slot];
+		contents[slot] = o;
+		return old;
+	}
+
+	/**
+	 * Completes any deferred copy of the given slot, either into this
+	 * FacetCache or from this FacetCache into another, so that the slot may be
+	 * accessed without affecting any other FacetCache.
+	 *
+	 * @param slot
+	 *            The slot about to be accessed
+	 */
+	private void resolve(int slot)
+	{
+		DeferredCopy d = deferred;
+		if (d != null)
+		{
+			d.copySlot(slot);
+		}
+		List<DeferredCopy> list = copies;
+		if (list != null)
+		{
+			for (DeferredCopy copy : list)
+			{
+				copy.copySlot(slot);
+			}
+		}
+	}
+
+	/**
+	 * Completes every deferred copy into or from this FacetCache.
+	 */
+	private void resolveAll()
+	{
+		DeferredCopy d = deferred;
+		if (d != null)
+		{
+			d.copyAll();
+		}
+		List<DeferredCopy> list = copies;
+		if (list != null)
+		{
+			for (DeferredCopy copy : list)
+			{
+				copy.copyAll();
+			}
+		}
+	}
+
+	/**
+	 * Sets up a deferred copy of the information stored by the given facets
+	 * from one resource to another. Each facet copies its information (using
+	 * copyContents) when its slot is first accessed for either resource, so
+	 * the result is the same as if every facet had copied its information
+	 * immediately.
+	 *
+	 * @param source
+	 *            The PCGenIdentifier of the resource from which information
+	 *            is to be copied
+	 * @param copy
+	 *            The PCGenIdentifier of the resource to which information is
+	 *            to be copied
+	 * @param facets
+	 *            The facets whose information is to be copied
+	 */
+	static void deferCopy(PCGenIdentifier source, PCGenIdentifier copy,
+		Collection<? extends AbstractStorageFacet> facets)
+	{
+		FacetCache target = copy.getFacetCache();
+		synchronized (DEFERRED_LOCK)
+		{
+			if (target.deferred != null)
+			{
+				throw new IllegalStateException(
+					"Resource already has a deferred copy in progress");
+			}
+			DeferredCopy d = new DeferredCopy(source, copy, facets);
+			if (d.remaining == 0)
+			{
+				return;
+			}
+			target.deferred = d;
+			FacetCache sourceCache = source.getFacetCache();
+			List<DeferredCopy> list = sourceCache.copies;
+			if (list == null)
+			{
+				list = new CopyOnWriteArrayList<DeferredCopy>();
+				sourceCache.copies = list;
+			}
+			list.add(d);
+		}
+	}
+
+	/**
+	 * Abandons any deferred copy into the given resource. Slots not yet copied
+	 * are left empty, so the resource should no longer be used.
+	 *
+	 * @param copy
+	 *            The PCGenIdentifier of the resource whose deferred copy should
+	 *            be abandoned
+	 */
+	static void discardDeferredCopy(PCGenIdentifier copy)
+	{
+		DeferredCopy d = copy.getFacetCache().deferred;
+		if (d != null)
+		{
+			synchronized (DEFERRED_LOCK)
+			{
+				d.finish();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of slots still waiting to be copied by a deferred
+	 * copy into the given resource.
+	 *
+	 * @param copy
+	 *            The PCGenIdentifier of the resource being copied into
+	 * @return The number of slots not yet copied, or zero if the resource
+	 *         has no deferred copy in progress
+	 */
+	static int getDeferredCount(PCGenIdentifier copy)
+	{
+		DeferredCopy d = copy.getFacetCache().deferred;
+		if (d == null)
+		{
+			return 0;
+		}
+		synchronized (DEFERRED_LOCK)
+		{
+			return d.remaining;
+		}
+	}
+
+	/**
+	 * Registers the given CacheAccessListener to be informed of changes to the
+	 * information stored in this FacetCache.
+	 *
+	 * @param listener
+	 *            The CacheAccessListener to be informed of the changes
+	 */
+	synchronized void addChangeListener(CacheAccessListener listener)
+	{
+		List<WeakReference<CacheAccessListener>> newRefs =
+				new ArrayList<WeakReference<CacheAccessListener>>();
+		if (changeListeners != null)
+		{
+			newRefs.addAll(changeListeners);
+		}
+		newRefs.add(new WeakReference<CacheAccessListener>(listener));
+		changeListeners = newRefs;
+	}
+
+	/**
+	 * Removes the given CacheAccessListener, along with any listener which is
+	 * no longer referenced elsewhere.
+	 *
+	 * @param listener
+	 *            The CacheAccessListener which should no longer be informed of
+	 *            changes
+	 */
+	synchronized void removeChangeListener(CacheAccessListener listener)
+	{
+		if (changeListeners != null)
+		{
+			List<WeakReference<CacheAccessListener>> newRefs =
+					new ArrayList<WeakReference<CacheAccessListener>>();
+			for (WeakReference<CacheAccessListener> ref : changeListeners)
+			{
+				CacheAccessListener l = ref.get();
+				if (l != null && l != listener)
+				{
+					newRefs.add(ref);
+				}
+			}
+			changeListeners = newRefs.isEmpty() ? null : newRefs;
+		}
+	}
+
+	/**
+	 * Returns the CacheAccessListener objects (weakly referenced) informed of
+	 * changes to the information stored in this FacetCache. The returned list
+	 * must not be modified.
+	 *
+	 * @return The registered CacheAccessListener objects; null if there are
+	 *         none
+	 */
+	List<WeakReference<CacheAccessListener>> getChangeListeners()
+	{
+		return changeListeners;
+	}
+
+	/**
+	 * Returns a read-only view of the information stored in this FacetCache,
+	 * by the class of the facet storing the information. The view reflects
+	 * later changes to this FacetCache.
+	 *
+	 * @return A read-only view of the information stored in this FacetCache
+	 */
+	public Map<Class<?>, Object> getReadOnlyMap()
+	{
+		return new ContentsMap();
+	}
+
+	/**
+	 * A read-only view of the slots of a FacetCache which contain information.
+	 */
+	private final class ContentsMap extends AbstractMap<Class<?>, Object>
+	{
+		@Override
+		public Object get(Object key)
+		{
+			Integer slot = SLOTS.get(key);
+			return (slot == null) ? null : FacetCache.this.get(slot);
+		}
+
+		@Override
+		public boolean containsKey(Object key)
+		{
+			return get(key) != null;
+		}
+
+		@Override
+		public Set<Map.Entry<Class<?>, Object>> entrySet()
+		{
+			resolveAll();
+			return new AbstractSet<Map.Entry<Class<?>, Object>>()
+			{
+				@Override
+				public Iterator<Map.Entry<Class<?>, Object>> iterator()
+				{
+					return new ContentsIterator();
+				}
+
+				@Override
+				public int size()
+				{
+					int size = 0;
+					for (Object o : contents)
+					{
+						if (o != null)
+						{
+							size++;
+						}
+					}
+					return size;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Iterates over the slots of a FacetCache which contain information.
+	 */
+	private final class ContentsIterator implements
+			Iterator<Map.Entry<Class<?>, Object>>
+	{
+		private int next = advance(0);
+
+		private int advance(int from)
+		{
+			int slot = from;
+			while (slot < contents.length && contents[slot] == null)
+			{
+				slot++;
+			}
+			return slot;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return next < contents.length;
+		}
+
+		@Override
+		public Map.Entry<Class<?>, Object> next()
+		{
+			if (!hasNext())
+			{
+				throw new NoSuchElementException();
+			}
+			Map.Entry<Class<?>, Object> entry =
+					new AbstractMap.SimpleImmutableEntry<Class<?>, Object>(
+						SLOT_CLASSES.get(next), contents[next]);
+			next = advance(next + 1);
+			return entry;
+		}
+
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException(
+				"FacetCache view is read-only");
+		}
+	}
+
+	/**
+	 * A copy of the information stored by a set of facets from one resource to
+	 * another, where each slot is copied when it is first accessed for either
+	 * resource. The copy is only weakly referenced by the source, so an unused
+	 * copy does not prevent the copied resource being garbage collected.
+	 */
+	private static final class DeferredCopy
+	{
+		private final PCGenIdentifier source;
+
+		private final WeakReference<PCGenIdentifier> copy;
+
+		/**
+		 * The facet which copies each slot; null once the slot is copied
+		 */
+		private final AbstractStorageFacet<?>[] facets;
+
+		private int remaining;
+
+		private DeferredCopy(PCGenIdentifier source, PCGenIdentifier copy,
+			Collection<? extends AbstractStorageFacet> facets)
+		{
+			this.source = source;
+			this.copy = new WeakReference<PCGenIdentifier>(copy);
+			this.facets = new AbstractStorageFacet<?>[SLOT_CLASSES.size()];
+			for (AbstractStorageFacet facet : facets)
+			{
+				int slot = facet.getSlot();
+				if (this.facets[slot] == null)
+				{
+					remaining++;
+				}
+				this.facets[slot] = facet;
+			}
+		}
+
+		private void copySlot(int slot)
+		{
+			synchronized (DEFERRED_LOCK)
+			{
+				if (slot >= facets.length || facets[slot] == null)
+				{
+					return;
+				}
+				@SuppressWarnings("unchecked")
+				AbstractStorageFacet<PCGenIdentifier> facet =
+						(AbstractStorageFacet<PCGenIdentifier>) facets[slot];
+				facets[slot] = null;
+				remaining--;
+				PCGenIdentifier target = copy.get();
+				if (remaining == 0 || target == null)
+				{
+					finish();
+				}
+				if (target != null)
+				{
+					facet.copyContents(source, target);
+				}
+			}
+		}
+
+		private void copyAll()
+		{
+			synchronized (DEFERRED_LOCK)
+			{
+				for (int slot = 0; slot < facets.length; slot++)
+				{
+					copySlot(slot);
+				}
+			}
+		}
+
+		/**
+		 * Ends this deferred copy; must be called holding DEFERRED_LOCK.
+		 */
+		private void finish()
+		{
+			Arrays.fill(facets, null);
+			remaining = 0;
+			FacetCache sourceCache = source.getFacetCache();
+			List<DeferredCopy> list = sourceCache.copies;
+			if (list != null)
+			{
+				list.remove(this);
+				if (list.isEmpty())
+				{
+					sourceCache.copies = null;
+				}
+			}
+			PCGenIdentifier target = copy.get();
+			if (target != null && target.getFacetCache().deferred == this)
+			{
+				target.getFacetCache().deferred = null;
+			}
+		}
+	}
+}
+
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA
+ */
+package pcgen.cdom.facet.event;
+
+import java.util.List;
+
+import pcgen.cdom.base.PCGenIdentifier;
+
+/**
+ * A DataFacetChangeBatchListener is a DataFacetChangeListener which can
+ * process the changes made to a DataFacet during a change batch in a single
+ * pass.
+ *
+ * When a change batch for a resource is committed, the changes made to each
+ * DataFacet during the batch are delivered to a DataFacetChangeBatchListener
+ * through dataChanged, rather than one at a time through dataAdded and
+ * dataRemoved. Changes made outside of a change batch are delivered one at a
+ * time as usual.
+ *
+ * @see pcgen.cdom.facet.base.AbstractDataFacet#beginChangeBatch(PCGenIdentifier)
+ */
+public interface DataFacetChangeBatchListener<IDT extends PCGenIdentifier, T>
+		extends DataFacetChangeListener<IDT, T>
+{
+	/**
+	 * Method called when a change batch is committed, with the changes made
+	 * during the batch to the source DataFacet to which this
+	 * DataFacetChangeBatchListener has been added.
+	 *
+	 * @param events
+	 *            The DataFacetChangeEvents for the changes, in the order the
+	 *            changes were made. The events all have the same source.
+	 *            Additions and removals of the same object which cancelled
+	 *            each other out during the batch are not included.
+	 */
+	public void dataChanged(List<DataFacetChangeEvent<IDT, T>> events);
+}
@@ -94,6 +94,7 @@ public class FactFacet extends AbstractStorageFacet<CharID>
 	public void set(CharID id, StringKey key, String s)
 	{
 		getConstructingInfo(id).put(key, s);
+		fireCacheChanged(id);
 	}
 
 	/**
@@ -154,4 +155,15 @@ public class FactFacet extends AbstractStorageFacet<CharID>
 		}
 	}
 
+	/**
+	 * FactFacet reports each change to the facts it stores for a Player
+	 * Character.
+	 * 
+	 * @see pcgen.cdom.facet.base.AbstractStorageFacet#isChangeTracked()
+	 */
+	@Override
+	protected boolean isChangeTracked()
+	{
+		return true;
+	}
 }
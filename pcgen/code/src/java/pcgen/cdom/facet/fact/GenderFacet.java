@@ -144,4 +144,16 @@ public class GenderFacet extends AbstractItemFacet<CharID, Gender>
 	{
 		this.templateFacet = templateFacet;
 	}
+
+	/**
+	 * The Gender is only ever replaced, never modified, so each change is
+	 * reported when it is set or removed.
+	 * 
+	 * @see pcgen.cdom.facet.base.AbstractStorageFacet#isChangeTracked()
+	 */
+	@Override
+	protected boolean isChangeTracked()
+	{
+		return true;
+	}
 }
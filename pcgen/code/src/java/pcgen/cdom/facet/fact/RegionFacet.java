@@ -106,6 +106,7 @@ public class RegionFacet extends AbstractDataFacet<CharID, String> implements
 	public void setRegion(CharID id, Region region)
 	{
 		getConstructingInfo(id).region = region;
+		fireCacheChanged(id);
 		updateRegion(id);
 	}
 
@@ -124,6 +125,7 @@ public class RegionFacet extends AbstractDataFacet<CharID, String> implements
 	public void setSubRegion(CharID id, SubRegion subregion)
 	{
 		getConstructingInfo(id).subregion = subregion;
+		fireCacheChanged(id);
 	}
 
 	/**
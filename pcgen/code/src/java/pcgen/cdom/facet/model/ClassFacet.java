@@ -112,6 +112,7 @@ public class ClassFacet extends AbstractDataFacet<CharID, PCClass>
 		}
 		PCClassLevel old = info.getClassLevel(pcc, pcl.get(IntegerKey.LEVEL));
 		boolean returnVal = info.setClassLevel(pcc, pcl);
+		fireCacheChanged(id);
 		support.fireClassLevelObjectChangeEvent(id, pcc, old, pcl);
 		return returnVal;
 	}
@@ -225,6 +226,7 @@ public class ClassFacet extends AbstractDataFacet<CharID, PCClass>
 		if (info != null)
 		{
 			info.replace(oldClass, newClass);
+			fireCacheChanged(id);
 		}
 	}
 
@@ -330,6 +332,7 @@ public class ClassFacet extends AbstractDataFacet<CharID, PCClass>
 	public void setLevel(CharID id, PCClass pcc, int level)
 	{
 		int oldLevel = getConstructingClassInfo(id).setLevel(pcc, level);
+		fireCacheChanged(id);
 		support.fireClassLevelChangeEvent(id, pcc, oldLevel, level);
 	}
 
@@ -160,6 +160,7 @@ public class SizeFacet extends AbstractDataFacet<CharID, SizeAdjustment> impleme
 		SizeAdjustment newSize = Globals.getContext().getReferenceContext().getItemInOrder(
 				SIZEADJUSTMENT_CLASS, sizeInt(id));
 		info.sizeAdj = newSize;
+		fireCacheChanged(id);
 		if (oldSize != newSize)
 		{
 			if (oldSize != null)
@@ -86,4 +86,16 @@ public class TemplateFacet extends AbstractSourcedListFacet<CharID, PCTemplate>
 		return new LinkedHashMap<PCTemplate, Set<Object>>();
 	}
 
+	/**
+	 * PCTemplates are not modified once loaded, so every change to the
+	 * templates of a Player Character is reported by the sourced list.
+	 * 
+	 * @see pcgen.cdom.facet.base.AbstractStorageFacet#isChangeTracked()
+	 */
+	@Override
+	protected boolean isChangeTracked()
+	{
+		return true;
+	}
+
 }
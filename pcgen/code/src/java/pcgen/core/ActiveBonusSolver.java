@@ -0,0 +1,907 @@
+/*
+ * ActiveBonusSolver.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import pcgen.base.util.WrappedMapSet;
+import pcgen.cdom.base.BonusContainer;
+import pcgen.cdom.base.PCGenIdentifier;
+import pcgen.cdom.enumeration.CharID;
+import pcgen.cdom.facet.base.AbstractStorageFacet;
+import pcgen.cdom.facet.base.CacheAccessListener;
+import pcgen.core.bonus.BonusObj;
+import pcgen.core.bonus.BonusPair;
+
+/**
+ * <code>ActiveBonusSolver</code> avoids repeating work in the passes made by
+ * PlayerCharacter.calcActiveBonuses() while the active bonuses of a character
+ * settle. Each pass activates the bonuses of every bonus container (checking
+ * their prerequisites) and then resolves the value of every active bonus. The
+ * solver records what each activation and each resolution read - bonus
+ * totals, facets, the active bonus list and cached variables - and in later
+ * passes of the same calculation only repeats the work whose inputs changed
+ * in the previous pass. The results of the remaining work are reused.
+ *
+ * Activations read the bonus totals of the previous pass, so they are
+ * repeated when one of those totals changed. Resolutions read the totals
+ * being built up in the current pass, so they are repeated when a bonus
+ * resolved earlier in the same pass changed, or when the bonuses are no
+ * longer resolved in the same order. Anything that cannot be tracked (such
+ * as information belonging to another character, or a facet which does not
+ * report its changes) causes the work to be repeated in every pass.
+ */
+final class ActiveBonusSolver implements CacheAccessListener
+{
+	/**
+	 * The solver recording on the current thread, if any.
+	 */
+	private static final ThreadLocal<ActiveBonusSolver> ACTIVE =
+			new ThreadLocal<ActiveBonusSolver>();
+
+	private static final String FLOAT_PREFIX = "F|";
+	private static final String STRING_PREFIX = "S|";
+
+	private final BonusManager manager;
+	private final PlayerCharacter pc;
+
+	private final Map<BonusContainer, Unit> activations =
+			new IdentityHashMap<BonusContainer, Unit>();
+
+	private final Map<BonusObj, Resolution> resolutions =
+			new IdentityHashMap<BonusObj, Resolution>();
+
+	/** The inputs of the variables cached in the current pass. */
+	private final Map<String, Inputs> cachedInputs =
+			new HashMap<String, Inputs>();
+
+	private final List<Inputs> frames = new ArrayList<Inputs>();
+
+	private List<CachedValue> unitValues;
+
+	private Set<Class<?>> facetsChanged = new HashSet<Class<?>>();
+	private Set<Class<?>> facetsChangedLastPass = new HashSet<Class<?>>();
+
+	private Set<String> bonusesChangedLastPass = Collections.emptySet();
+	private final Set<String> bonusesChangedInPass = new HashSet<String>();
+
+	private Set<BonusObj> changedBonuses = newBonusSet();
+	private Set<BonusObj> previousActive = newBonusSet();
+	private boolean activeSetChanged;
+	private boolean activeSetChangedLastPass;
+
+	private List<BonusObj> order = new ArrayList<BonusObj>();
+	private List<BonusObj> previousOrder = new ArrayList<BonusObj>();
+	private boolean orderChanged;
+
+	private int depth = 0;
+	private CharID id;
+	private CacheAccessListener previousListener;
+	private ActiveBonusSolver previousSolver;
+
+	private int evaluated;
+	private int reused;
+
+	/**
+	 * Create a new solver for the bonuses of a character.
+	 *
+	 * @param manager The BonusManager of the character
+	 * @param pc The character
+	 */
+	ActiveBonusSolver(BonusManager manager, PlayerCharacter pc)
+	{
+		this.manager = manager;
+		this.pc = pc;
+	}
+
+	private static Set<BonusObj> newBonusSet()
+	{
+		return new WrappedMapSet<BonusObj>(IdentityHashMap.class);
+	}
+
+	/**
+	 * Start a calculation of the active bonuses. Calculations may nest, in
+	 * which case the inner calculation continues the outer one.
+	 */
+	void begin()
+	{
+		if (depth++ > 0)
+		{
+			return;
+		}
+		id = pc.getCharID();
+		previousSolver = ACTIVE.get();
+		ACTIVE.set(this);
+		previousListener = AbstractStorageFacet.setReadListener(this);
+		AbstractStorageFacet.addChangeListener(id, this);
+		evaluated = 0;
+		reused = 0;
+		invalidate();
+	}
+
+	/**
+	 * End a calculation of the active bonuses. The recorded results are
+	 * discarded once the outermost calculation ends.
+	 */
+	void end()
+	{
+		if (--depth > 0)
+		{
+			return;
+		}
+		AbstractStorageFacet.removeChangeListener(id, this);
+		AbstractStorageFacet.setReadListener(previousListener);
+		if (previousSolver == null)
+		{
+			ACTIVE.remove();
+		}
+		else
+		{
+			ACTIVE.set(previousSolver);
+		}
+		previousListener = null;
+		previousSolver = null;
+		frames.clear();
+		invalidate();
+	}
+
+	/**
+	 * @return true if a calculation of the active bonuses is in progress.
+	 */
+	boolean isSolving()
+	{
+		return depth > 0;
+	}
+
+	/**
+	 * Discard all recorded results, so that the next pass repeats all of the
+	 * work. Used when the character has been changed in a way the solver
+	 * cannot see.
+	 */
+	void invalidate()
+	{
+		activations.clear();
+		resolutions.clear();
+		cachedInputs.clear();
+		facetsChanged = new HashSet<Class<?>>();
+		facetsChangedLastPass = new HashSet<Class<?>>();
+		bonusesChangedLastPass = Collections.emptySet();
+		bonusesChangedInPass.clear();
+		changedBonuses = newBonusSet();
+		previousActive = newBonusSet();
+		activeSetChanged = false;
+		activeSetChangedLastPass = false;
+		order = new ArrayList<BonusObj>();
+		previousOrder = new ArrayList<BonusObj>();
+		orderChanged = false;
+	}
+
+	/**
+	 * Start a pass of the calculation.
+	 */
+	void startPass()
+	{
+		if (!isSolving())
+		{
+			return;
+		}
+		facetsChangedLastPass = facetsChanged;
+		facetsChanged = new HashSet<Class<?>>();
+		// The variable cache is emptied for each pass
+		cachedInputs.clear();
+		bonusesChangedInPass.clear();
+		changedBonuses = newBonusSet();
+		activeSetChangedLastPass = activeSetChanged;
+		activeSetChanged = false;
+		previousOrder = order;
+		order = new ArrayList<BonusObj>();
+		orderChanged = false;
+	}
+
+	/**
+	 * End a pass of the calculation.
+	 *
+	 * @param changedKeys The bonuses whose totals changed in the pass, as
+	 *            returned by ActiveBonusStore.getChangedBonuses()
+	 */
+	void endPass(Collection<String> changedKeys)
+	{
+		if (!isSolving())
+		{
+			return;
+		}
+		Set<String> changed = new HashSet<String>();
+		for (String key : changedKeys)
+		{
+			changed.add(getNameInfo(key));
+		}
+		bonusesChangedLastPass = changed;
+	}
+
+	/**
+	 * Activate the bonuses of a bonus container, unless nothing its
+	 * activation read has changed since the bonuses were last activated.
+	 *
+	 * @param container The container whose bonuses are to be activated
+	 */
+	void activate(BonusContainer container)
+	{
+		if (!isSolving())
+		{
+			container.activateBonuses(pc);
+			return;
+		}
+		Unit previous = activations.get(container);
+		if (previous != null && reuse(previous))
+		{
+			return;
+		}
+		Unit unit = new Unit();
+		beginUnit(unit);
+		boolean complete = false;
+		try
+		{
+			container.activateBonuses(pc);
+			complete = true;
+		}
+		finally
+		{
+			endUnit();
+			if (complete)
+			{
+				activations.put(container, unit);
+			}
+			else
+			{
+				activations.remove(container);
+			}
+		}
+	}
+
+	/**
+	 * Prepare to resolve the active bonuses of the character. The bonuses
+	 * which are no longer active are treated as having changed.
+	 *
+	 * @param active The bonuses active in the current pass
+	 */
+	void startBuild(Collection<BonusObj> active)
+	{
+		if (!isSolving())
+		{
+			return;
+		}
+		Set<BonusObj> current = newBonusSet();
+		current.addAll(active);
+		activeSetChanged = !current.equals(previousActive);
+		if (activeSetChanged)
+		{
+			for (BonusObj bonus : previousActive)
+			{
+				if (!current.contains(bonus))
+				{
+					Resolution res = resolutions.remove(bonus);
+					if (res != null)
+					{
+						addChangedKeys(res);
+					}
+					changedBonuses.add(bonus);
+				}
+			}
+		}
+		previousActive = current;
+	}
+
+	/**
+	 * Resolve the value of a bonus, unless nothing its resolution read has
+	 * changed since it was last resolved.
+	 *
+	 * @param bonus The bonus to be resolved
+	 * @return The values of the bonus
+	 */
+	Resolution resolve(BonusObj bonus)
+	{
+		if (!isSolving())
+		{
+			Resolution res = new Resolution(null);
+			calculate(bonus, res);
+			return res;
+		}
+		int position = order.size();
+		order.add(bonus);
+		if (!orderChanged
+			&& (position >= previousOrder.size() || previousOrder
+				.get(position) != bonus))
+		{
+			orderChanged = true;
+		}
+		Resolution previous = resolutions.get(bonus);
+		if (previous != null && reuse(previous.unit))
+		{
+			return previous;
+		}
+		Resolution res = new Resolution(new Unit());
+		beginUnit(res.unit);
+		boolean complete = false;
+		try
+		{
+			calculate(bonus, res);
+			complete = true;
+		}
+		finally
+		{
+			endUnit();
+			if (complete)
+			{
+				resolutions.put(bonus, res);
+			}
+			else
+			{
+				resolutions.remove(bonus);
+			}
+		}
+		if (previous == null || !previous.hasSameValues(res))
+		{
+			if (previous != null)
+			{
+				addChangedKeys(previous);
+			}
+			addChangedKeys(res);
+			changedBonuses.add(bonus);
+		}
+		return res;
+	}
+
+	private void calculate(BonusObj bonus, Resolution res)
+	{
+		for (BonusPair bp : manager.getStringListFromBonus(bonus))
+		{
+			res.keys.add(bp.fullyQualifiedBonusType);
+			res.values.add(bp.resolve(pc).doubleValue());
+		}
+	}
+
+	private void addChangedKeys(Resolution res)
+	{
+		for (String key : res.keys)
+		{
+			if (key != null)
+			{
+				bonusesChangedInPass.add(getNameInfo(key));
+			}
+		}
+	}
+
+	/**
+	 * Identify if the result of a piece of work can be reused in the current
+	 * pass and, if it can, restore the variables it cached.
+	 */
+	private boolean reuse(Unit unit)
+	{
+		if (isChanged(unit.inputs))
+		{
+			return false;
+		}
+		VariableProcessor vp = pc.getVariableProcessor();
+		for (CachedValue cv : unit.values)
+		{
+			Object current = vp.getCurrentCachedValue(cv.lookup, cv.string);
+			if (current != null && !current.equals(cv.value))
+			{
+				// The variable was calculated differently earlier in the pass
+				return false;
+			}
+		}
+		for (CachedValue cv : unit.values)
+		{
+			if (cv.string)
+			{
+				vp.addCachedString(cv.lookup, (String) cv.value);
+			}
+			else
+			{
+				vp.addCachedVariable(cv.lookup, (Float) cv.value);
+			}
+			cachedInputs.put(cv.getKey(), cv.inputs);
+		}
+		reused++;
+		return true;
+	}
+
+	private boolean isChanged(Inputs in)
+	{
+		if (in.untracked)
+		{
+			return true;
+		}
+		if (in.activeList && (activeSetChanged || activeSetChangedLastPass))
+		{
+			return true;
+		}
+		if (!in.facets.isEmpty()
+			&& (!Collections.disjoint(in.facets, facetsChanged) || !Collections
+				.disjoint(in.facets, facetsChangedLastPass)))
+		{
+			return true;
+		}
+		if (!in.bonuses.isEmpty()
+			&& (orderChanged || readsAny(in.bonuses, bonusesChangedInPass)))
+		{
+			return true;
+		}
+		return readsAny(in.finalBonuses, bonusesChangedLastPass);
+	}
+
+	private static boolean readsAny(Set<String> reads, Set<String> changed)
+	{
+		if (reads.isEmpty() || changed.isEmpty())
+		{
+			return false;
+		}
+		for (String read : reads)
+		{
+			for (String name : changed)
+			{
+				// Similarly named bonuses (COMBAT.AC and COMBAT.ACCHECK) match
+				if (name.startsWith(read) || read.startsWith(name))
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Get the bonus name and info (e.g. COMBAT.AC) of a bonus key such as
+	 * COMBAT.AC:Armor.REPLACE.
+	 */
+	private static String getNameInfo(String key)
+	{
+		String name = key.toUpperCase();
+		int typeLoc = name.indexOf(':');
+		return (typeLoc < 0) ? name : name.substring(0, typeLoc);
+	}
+
+	private void beginUnit(Unit unit)
+	{
+		Inputs outer = currentFrame();
+		if (outer != null)
+		{
+			// The values cached by the outer work can no longer be restored
+			outer.untracked = true;
+		}
+		frames.add(unit.inputs);
+		unitValues = unit.values;
+	}
+
+	private void endUnit()
+	{
+		frames.remove(frames.size() - 1);
+		unitValues = null;
+		evaluated++;
+	}
+
+	private Inputs currentFrame()
+	{
+		return frames.isEmpty() ? null : frames.get(frames.size() - 1);
+	}
+
+	/**
+	 * Record that the work currently being done read the total of the
+	 * bonuses with the given prefix.
+	 *
+	 * @param prefix The bonus name and info read, e.g. COMBAT.AC
+	 * @param building true if the total was read from the totals being built
+	 *            up in the current pass
+	 */
+	void bonusRead(String prefix, boolean building)
+	{
+		Inputs frame = currentFrame();
+		if (frame != null)
+		{
+			if (building)
+			{
+				frame.bonuses.add(getNameInfo(prefix));
+			}
+			else
+			{
+				frame.finalBonuses.add(getNameInfo(prefix));
+			}
+		}
+	}
+
+	/**
+	 * Record that the work currently being done read the list of active
+	 * bonuses.
+	 */
+	void activeListRead()
+	{
+		Inputs frame = currentFrame();
+		if (frame != null)
+		{
+			frame.activeList = true;
+		}
+	}
+
+	/**
+	 * Start recording the inputs of a variable being calculated by the work
+	 * currently being done on this thread.
+	 *
+	 * @return The solver recording the inputs, to be passed to
+	 *         endEvaluation(), or null if nothing is being recorded
+	 */
+	static ActiveBonusSolver beginEvaluation()
+	{
+		ActiveBonusSolver solver = ACTIVE.get();
+		if (solver == null || solver.frames.isEmpty())
+		{
+			return null;
+		}
+		solver.frames.add(new Inputs());
+		return solver;
+	}
+
+	/**
+	 * Stop recording the inputs of a variable. The inputs are also added to
+	 * those of the enclosing calculation.
+	 *
+	 * @param solver The solver returned by beginEvaluation()
+	 */
+	static void endEvaluation(ActiveBonusSolver solver)
+	{
+		if (solver != null)
+		{
+			Inputs in = solver.frames.remove(solver.frames.size() - 1);
+			solver.currentFrame().addAll(in);
+		}
+	}
+
+	/**
+	 * Record that a variable was retrieved from the serial cache of a
+	 * variable processor by the work currently being done on this thread.
+	 *
+	 * @param vp The VariableProcessor holding the cache
+	 * @param lookup The cache key of the variable
+	 * @param string true if the value was retrieved from the String cache
+	 */
+	static void cacheHit(VariableProcessor vp, String lookup, boolean string)
+	{
+		ActiveBonusSolver solver = ACTIVE.get();
+		if (solver == null)
+		{
+			return;
+		}
+		Inputs frame = solver.currentFrame();
+		if (frame == null)
+		{
+			return;
+		}
+		Inputs in =
+				(vp == solver.pc.getVariableProcessor()) ? solver.cachedInputs
+					.get(getKey(lookup, string)) : null;
+		if (in == null)
+		{
+			// Calculated by another processor, or before the pass started
+			frame.untracked = true;
+		}
+		else
+		{
+			frame.addAll(in);
+		}
+	}
+
+	/**
+	 * Record that a variable was added to the serial cache of a variable
+	 * processor by the work currently being done on this thread.
+	 *
+	 * @param vp The VariableProcessor holding the cache
+	 * @param lookup The cache key of the variable
+	 * @param value The value of the variable
+	 * @param string true if the value was added to the String cache
+	 */
+	static void cachePut(VariableProcessor vp, String lookup, Object value,
+		boolean string)
+	{
+		ActiveBonusSolver solver = ACTIVE.get();
+		if (solver == null || vp != solver.pc.getVariableProcessor())
+		{
+			return;
+		}
+		Inputs frame = solver.currentFrame();
+		if (frame == null)
+		{
+			return;
+		}
+		// The current frame is the one in which the variable was calculated
+		Inputs in = new Inputs();
+		in.addAll(frame);
+		CachedValue cv = new CachedValue(lookup, value, string, in);
+		solver.cachedInputs.put(cv.getKey(), in);
+		if (solver.unitValues != null)
+		{
+			solver.unitValues.add(cv);
+		}
+	}
+
+	/**
+	 * Record that a value cached by its dependencies was retrieved by the
+	 * work currently being done on this thread.
+	 *
+	 * @param vp The VariableProcessor holding the cache
+	 * @param deps The dependencies of the value
+	 */
+	static void trackedHit(VariableProcessor vp,
+		VariableDependencyTracker.Dependencies deps)
+	{
+		ActiveBonusSolver solver = ACTIVE.get();
+		if (solver == null)
+		{
+			return;
+		}
+		Inputs frame = solver.currentFrame();
+		if (frame == null)
+		{
+			return;
+		}
+		if (deps == null || vp != solver.pc.getVariableProcessor())
+		{
+			frame.untracked = true;
+			return;
+		}
+		// Tracked values are never calculated from a partially built map
+		frame.facets.addAll(deps.getFacets());
+		for (String bonus : deps.getBonuses())
+		{
+			frame.finalBonuses.add(getNameInfo(bonus));
+		}
+	}
+
+	/**
+	 * Mark the work currently being done on this thread as reading
+	 * information whose changes cannot be tracked.
+	 */
+	static void markActiveUntracked()
+	{
+		ActiveBonusSolver solver = ACTIVE.get();
+		if (solver != null)
+		{
+			Inputs frame = solver.currentFrame();
+			if (frame != null)
+			{
+				frame.untracked = true;
+			}
+		}
+	}
+
+	/**
+	 * Mark the work currently being done on this thread as depending on the
+	 * information stored by the given facet for the given character.
+	 *
+	 * @param charId The CharID of the character whose facet is depended upon
+	 * @param facetClass The class of the facet the work depends upon
+	 */
+	static void markActiveFacetRead(CharID charId, Class<?> facetClass)
+	{
+		ActiveBonusSolver solver = ACTIVE.get();
+		if (solver != null)
+		{
+			Inputs frame = solver.currentFrame();
+			if (frame != null)
+			{
+				if (charId.equals(solver.id))
+				{
+					frame.facets.add(facetClass);
+				}
+				else
+				{
+					frame.untracked = true;
+				}
+			}
+		}
+	}
+
+	private static String getKey(String lookup, boolean string)
+	{
+		return (string ? STRING_PREFIX : FLOAT_PREFIX) + lookup;
+	}
+
+	/**
+	 * @return The number of activations and resolutions performed in the
+	 *         current calculation
+	 */
+	int getEvaluatedCount()
+	{
+		return evaluated;
+	}
+
+	/**
+	 * @return The number of activations and resolutions reused in the
+	 *         current calculation
+	 */
+	int getReusedCount()
+	{
+		return reused;
+	}
+
+	/**
+	 * @return The bonuses whose values or activation changed in the most
+	 *         recent pass
+	 */
+	Collection<BonusObj> getChangedBonuses()
+	{
+		return Collections.unmodifiableCollection(new ArrayList<BonusObj>(
+			changedBonuses));
+	}
+
+	/**
+	 * @see pcgen.cdom.facet.base.CacheAccessListener#cacheRead(pcgen.cdom.base.PCGenIdentifier, java.lang.Class, boolean)
+	 */
+	@Override
+	public void cacheRead(PCGenIdentifier readId, Class<?> facetClass,
+		boolean changeTracked)
+	{
+		if (previousListener != null)
+		{
+			previousListener.cacheRead(readId, facetClass, changeTracked);
+		}
+		Inputs frame = currentFrame();
+		if (frame == null)
+		{
+			return;
+		}
+		if (readId.equals(id))
+		{
+			if (changeTracked)
+			{
+				frame.facets.add(facetClass);
+			}
+			else
+			{
+				frame.untracked = true;
+			}
+		}
+		else if (readId instanceof CharID)
+		{
+			frame.untracked = true;
+		}
+		// Data set information does not change once loaded
+	}
+
+	/**
+	 * @see pcgen.cdom.facet.base.CacheAccessListener#cacheChanged(pcgen.cdom.base.PCGenIdentifier, java.lang.Class)
+	 */
+	@Override
+	public void cacheChanged(PCGenIdentifier changedId, Class<?> facetClass)
+	{
+		facetsChanged.add(facetClass);
+	}
+
+	/**
+	 * The information read while doing a piece of work.
+	 */
+	private static final class Inputs
+	{
+		/** Bonus totals read from the totals being built up. */
+		private final Set<String> bonuses = new HashSet<String>();
+		/** Bonus totals read from the totals of the previous pass. */
+		private final Set<String> finalBonuses = new HashSet<String>();
+		private final Set<Class<?>> facets = new HashSet<Class<?>>();
+		private boolean activeList = false;
+		private boolean untracked = false;
+
+		private void addAll(Inputs other)
+		{
+			bonuses.addAll(other.bonuses);
+			finalBonuses.addAll(other.finalBonuses);
+			facets.addAll(other.facets);
+			activeList |= other.activeList;
+			untracked |= other.untracked;
+		}
+	}
+
+	/**
+	 * A variable cached while doing a piece of work, which is cached again
+	 * when the work is reused.
+	 */
+	private static final class CachedValue
+	{
+		private final String lookup;
+		private final Object value;
+		private final boolean string;
+		private final Inputs inputs;
+
+		private CachedValue(String lookup, Object value, boolean string,
+			Inputs inputs)
+		{
+			this.lookup = lookup;
+			this.value = value;
+			this.string = string;
+			this.inputs = inputs;
+		}
+
+		private String getKey()
+		{
+			return ActiveBonusSolver.getKey(lookup, string);
+		}
+	}
+
+	/**
+	 * A piece of work done by the solver, along with what it read.
+	 */
+	private static class Unit
+	{
+		private final Inputs inputs = new Inputs();
+		private final List<CachedValue> values = new ArrayList<CachedValue>();
+	}
+
+	/**
+	 * The values of a bonus, by the fully qualified bonus type of each value.
+	 */
+	static final class Resolution
+	{
+		private final Unit unit;
+		private final List<String> keys = new ArrayList<String>();
+		private final List<Double> values = new ArrayList<Double>();
+
+		private Resolution(Unit unit)
+		{
+			this.unit = unit;
+		}
+
+		/**
+		 * @return The number of values of the bonus
+		 */
+		int size()
+		{
+			return keys.size();
+		}
+
+		/**
+		 * @param index The index of the value
+		 * @return The fully qualified bonus type of the value, e.g.
+		 *         STAT.DEX:LUCK
+		 */
+		String getBonusType(int index)
+		{
+			return keys.get(index);
+		}
+
+		/**
+		 * @param index The index of the value
+		 * @return The value
+		 */
+		double getValue(int index)
+		{
+			return values.get(index).doubleValue();
+		}
+
+		private boolean hasSameValues(Resolution other)
+		{
+			return keys.equals(other.keys) && values.equals(other.values);
+		}
+	}
+}
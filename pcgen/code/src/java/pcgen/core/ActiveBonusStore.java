@@ -0,0 +1,367 @@
+/*
+ * ActiveBonusStore.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.core;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import pcgen.cdom.base.Constants;
+
+/**
+ * <code>ActiveBonusStore</code> holds the totals of the active bonuses of a
+ * character. Totals are indexed by bonus name and info (e.g. COMBAT.AC), then
+ * by bonus type (e.g. Armor, or empty for an untyped bonus). Each type holds
+ * the plain total along with the .STACK and .REPLACE totals, so that the
+ * total for a bonus name and info is a direct lookup rather than a search of
+ * every bonus key.
+ *
+ * Bonus keys are given in the form used by BonusObj, e.g. COMBAT.AC,
+ * COMBAT.AC:Luck or COMBAT.AC:Armor.REPLACE, and are not case sensitive.
+ */
+final class ActiveBonusStore
+{
+	private static final String STACK_SUFFIX = ".STACK";
+	private static final String REPLACE_SUFFIX = ".REPLACE";
+
+	private final Map<String, Map<String, TypedTotal>> totals =
+			new ConcurrentHashMap<String, Map<String, TypedTotal>>();
+
+	/**
+	 * Set the total for a bonus key.
+	 *
+	 * @param fullyQualifiedBonusType The bonus key, e.g. COMBAT.AC:Luck
+	 * @param value The total of the bonuses for the key
+	 */
+	void put(String fullyQualifiedBonusType, double value)
+	{
+		String key = fullyQualifiedBonusType.toUpperCase();
+		int slot = TypedTotal.PLAIN;
+		if (key.endsWith(STACK_SUFFIX))
+		{
+			slot = TypedTotal.STACK;
+			key = key.substring(0, key.length() - STACK_SUFFIX.length());
+		}
+		else if (key.endsWith(REPLACE_SUFFIX))
+		{
+			slot = TypedTotal.REPLACE;
+			key = key.substring(0, key.length() - REPLACE_SUFFIX.length());
+		}
+		int typeLoc = key.indexOf(':');
+		String nameInfo = (typeLoc < 0) ? key : key.substring(0, typeLoc);
+		String type = (typeLoc < 0) ? "" : key.substring(typeLoc + 1);
+
+		Map<String, TypedTotal> types = totals.get(nameInfo);
+		if (types == null)
+		{
+			types = new ConcurrentHashMap<String, TypedTotal>();
+			totals.put(nameInfo, types);
+		}
+		TypedTotal total = types.get(type);
+		if (total == null)
+		{
+			total = new TypedTotal();
+			types.put(type, total);
+		}
+		total.values[slot] = value;
+	}
+
+	/**
+	 * Get the total of the bonuses to a bonus name and info, or to a single
+	 * type of bonus to the name and info. For each type the larger of the
+	 * plain and .REPLACE totals is used, and the .STACK total is added.
+	 *
+	 * @param bonusNameInfo The bonus name and info, e.g. COMBAT.AC, optionally
+	 *            followed by the bonus type, e.g. COMBAT.AC:Armor
+	 * @return The total bonus
+	 */
+	double getTotal(String bonusNameInfo)
+	{
+		String key = bonusNameInfo.toUpperCase();
+		int typeLoc = key.indexOf(':');
+		if (typeLoc >= 0)
+		{
+			Map<String, TypedTotal> types =
+					totals.get(key.substring(0, typeLoc));
+			TypedTotal total =
+					(types == null) ? null : types.get(key
+						.substring(typeLoc + 1));
+			return (total == null) ? 0 : total.getTotal();
+		}
+		Map<String, TypedTotal> types = totals.get(key);
+		if (types == null)
+		{
+			return 0;
+		}
+		double bonus = 0;
+		for (TypedTotal total : types.values())
+		{
+			bonus += total.getTotal();
+		}
+		return bonus;
+	}
+
+	/**
+	 * Get the type (including any .STACK or .REPLACE qualifier) of a bonus
+	 * to the given bonus name and info.
+	 *
+	 * @param bonusNameInfo The bonus name and info, e.g. CASTERLEVEL.Wizard
+	 * @return The type of a typed bonus, or an empty String if there are only
+	 *         untyped bonuses or no bonuses
+	 */
+	String getType(String bonusNameInfo)
+	{
+		Map<String, TypedTotal> types = totals.get(bonusNameInfo.toUpperCase());
+		if (types != null)
+		{
+			for (Map.Entry<String, TypedTotal> me : types.entrySet())
+			{
+				if (me.getKey().length() > 0)
+				{
+					return me.getKey() + me.getValue().getFirstSuffix();
+				}
+			}
+		}
+		return Constants.EMPTY_STRING;
+	}
+
+	/**
+	 * Get the totals for the given bonus name and info as bonus keys, sorted
+	 * by key.
+	 *
+	 * @param bonusNameInfo The bonus name and info, e.g. COMBAT.AC
+	 * @return The totals by bonus key, e.g. COMBAT.AC:ARMOR.REPLACE
+	 */
+	SortedMap<String, Double> getKeyedTotals(String bonusNameInfo)
+	{
+		String nameInfo = bonusNameInfo.toUpperCase();
+		SortedMap<String, Double> map = new TreeMap<String, Double>();
+		Map<String, TypedTotal> types = totals.get(nameInfo);
+		if (types != null)
+		{
+			addKeyedTotals(map, nameInfo, types);
+		}
+		return map;
+	}
+
+	/**
+	 * @return All the totals in this store as bonus keys and the text of their
+	 *         value
+	 */
+	Map<String, String> toStringMap()
+	{
+		Map<String, Double> map = new HashMap<String, Double>();
+		for (Map.Entry<String, Map<String, TypedTotal>> me : totals.entrySet())
+		{
+			addKeyedTotals(map, me.getKey(), me.getValue());
+		}
+		Map<String, String> stringMap = new HashMap<String, String>();
+		for (Map.Entry<String, Double> me : map.entrySet())
+		{
+			stringMap.put(me.getKey(), String.valueOf(me.getValue()
+				.floatValue()));
+		}
+		return stringMap;
+	}
+
+	private static void addKeyedTotals(Map<String, Double> map,
+		String nameInfo, Map<String, TypedTotal> types)
+	{
+		for (Map.Entry<String, TypedTotal> me : types.entrySet())
+		{
+			String type = me.getKey();
+			String prefix = (type.length() == 0) ? nameInfo : nameInfo + ':' + type;
+			double[] values = me.getValue().values;
+			if (!Double.isNaN(values[TypedTotal.PLAIN]))
+			{
+				map.put(prefix, values[TypedTotal.PLAIN]);
+			}
+			if (!Double.isNaN(values[TypedTotal.STACK]))
+			{
+				map.put(prefix + STACK_SUFFIX, values[TypedTotal.STACK]);
+			}
+			if (!Double.isNaN(values[TypedTotal.REPLACE]))
+			{
+				map.put(prefix + REPLACE_SUFFIX, values[TypedTotal.REPLACE]);
+			}
+		}
+	}
+
+	/**
+	 * Copy all of the totals from another store into this store.
+	 *
+	 * @param other The store to copy from
+	 */
+	void putAll(ActiveBonusStore other)
+	{
+		for (Map.Entry<String, Map<String, TypedTotal>> me : other.totals
+			.entrySet())
+		{
+			Map<String, TypedTotal> types =
+					new ConcurrentHashMap<String, TypedTotal>();
+			for (Map.Entry<String, TypedTotal> te : me.getValue().entrySet())
+			{
+				TypedTotal copy = new TypedTotal();
+				System.arraycopy(te.getValue().values, 0, copy.values, 0,
+					TypedTotal.SLOTS);
+				types.put(te.getKey(), copy);
+			}
+			totals.put(me.getKey(), types);
+		}
+	}
+
+	/**
+	 * Identify the bonuses whose totals differ between this store and
+	 * another store. Each changed bonus is identified by its name and info,
+	 * followed by its type if it is typed (e.g. COMBAT.AC:ARMOR).
+	 *
+	 * @param other The store to compare to
+	 * @return The name, info and type of the bonuses whose totals differ
+	 */
+	Set<String> getChangedBonuses(ActiveBonusStore other)
+	{
+		Set<String> changed = new HashSet<String>();
+		addChangedBonuses(changed, totals, other.totals);
+		addChangedBonuses(changed, other.totals, totals);
+		return changed;
+	}
+
+	private static void addChangedBonuses(Set<String> changed,
+		Map<String, Map<String, TypedTotal>> from,
+		Map<String, Map<String, TypedTotal>> to)
+	{
+		for (Map.Entry<String, Map<String, TypedTotal>> me : from.entrySet())
+		{
+			String nameInfo = me.getKey();
+			Map<String, TypedTotal> toTypes = to.get(nameInfo);
+			for (Map.Entry<String, TypedTotal> te : me.getValue().entrySet())
+			{
+				String type = te.getKey();
+				if (toTypes == null || !te.getValue().equals(toTypes.get(type)))
+				{
+					changed.add((type.length() == 0) ? nameInfo : nameInfo
+						+ ':' + type);
+				}
+			}
+		}
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		return (o instanceof ActiveBonusStore)
+			&& totals.equals(((ActiveBonusStore) o).totals);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return totals.hashCode();
+	}
+
+	@Override
+	public String toString()
+	{
+		return toStringMap().toString();
+	}
+
+	/**
+	 * The totals of one type of bonus to a bonus name and info. Totals which
+	 * have not been set are held as NaN.
+	 */
+	private static final class TypedTotal
+	{
+		private static final int PLAIN = 0;
+		private static final int STACK = 1;
+		private static final int REPLACE = 2;
+		private static final int SLOTS = 3;
+
+		private final double[] values = {Double.NaN, Double.NaN, Double.NaN};
+
+		private double getTotal()
+		{
+			double plain = values[PLAIN];
+			double replace = values[REPLACE];
+			double stack = values[STACK];
+			//
+			// Using NaNs in order to be able to get the max
+			// between an undefined bonus and a negative
+			//
+			double bonus;
+			if (Double.isNaN(plain))
+			{
+				bonus = Double.isNaN(replace) ? 0 : replace;
+			}
+			else if (Double.isNaN(replace))
+			{
+				bonus = plain;
+			}
+			else
+			{
+				bonus = Math.max(plain, replace);
+			}
+			// always add stackBonus
+			return Double.isNaN(stack) ? bonus : bonus + stack;
+		}
+
+		private String getFirstSuffix()
+		{
+			if (!Double.isNaN(values[PLAIN]))
+			{
+				return "";
+			}
+			return Double.isNaN(values[REPLACE]) ? STACK_SUFFIX
+				: REPLACE_SUFFIX;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof TypedTotal))
+			{
+				return false;
+			}
+			double[] other = ((TypedTotal) o).values;
+			for (int i = 0; i < SLOTS; i++)
+			{
+				if (Double.compare(values[i], other[i]) != 0)
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int hash = 0;
+			for (double d : values)
+			{
+				long bits = Double.doubleToLongBits(d);
+				hash = 31 * hash + (int) (bits ^ (bits >>> 32));
+			}
+			return hash;
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * BonusCalculationListener.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.core;
+
+import java.util.Collection;
+
+import pcgen.core.bonus.BonusObj;
+
+/**
+ * A BonusCalculationListener is informed of each calculation of the active
+ * bonuses of a character, so that the cost of the calculation can be
+ * measured and bonuses which never settle can be identified.
+ *
+ * @see BonusManager#addCalculationListener(BonusCalculationListener)
+ */
+public interface BonusCalculationListener
+{
+	/**
+	 * Called when a calculation of the active bonuses of a character has
+	 * finished.
+	 *
+	 * @param pc
+	 *            The character whose bonuses were calculated
+	 * @param passes
+	 *            The number of passes made over the bonuses
+	 * @param evaluated
+	 *            The number of bonus activations and bonus values calculated
+	 * @param reused
+	 *            The number of bonus activations and bonus values reused from
+	 *            an earlier pass as nothing they read had changed
+	 */
+	public void bonusesCalculated(PlayerCharacter pc, int passes,
+		int evaluated, int reused);
+
+	/**
+	 * Called when a calculation of the active bonuses of a character has been
+	 * abandoned because the bonuses did not settle within the limit on the
+	 * number of passes.
+	 *
+	 * @param pc
+	 *            The character whose bonuses were calculated
+	 * @param passes
+	 *            The number of passes made over the bonuses
+	 * @param cycle
+	 *            The bonuses whose value or activation changed in the last pass
+	 * @param changedBonuses
+	 *            The bonus totals changed by the last pass, by bonus name,
+	 *            info and type, e.g. COMBAT.AC:ARMOR
+	 */
+	public void bonusLoopDetected(PlayerCharacter pc, int passes,
+		Collection<BonusObj> cycle, Collection<String> changedBonuses);
+}
@@ -32,6 +32,7 @@ import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Pattern;
 
 import pcgen.base.formula.Formula;
@@ -69,9 +70,7 @@ public class BonusManager
 	private static final List<String> NO_ASSOC_LIST = Collections
 			.singletonList("");
 
-	private Map<String, String> activeBonusMap = new ConcurrentHashMap<String, String>();
-
-	private Map<String, Double> cachedActiveBonusSumsMap = new ConcurrentHashMap<String, Double>();
+	private ActiveBonusStore activeBonusMap = new ActiveBonusStore();
 
 	private Map<BonusObj, Object> activeBonusBySource = new IdentityHashMap<BonusObj, Object>();
 
@@ -80,163 +79,137 @@ public class BonusManager
 	private Set<String> tempBonusFilters = new TreeSet<String>();
 
 	private final PlayerCharacter pc;
-	private Map<String, String> checkpointMap;
+	private ActiveBonusStore checkpointMap;
+
+	/** True while the active bonus map is being built. */
+	private boolean building = false;
+
+	/** Reuses the work of earlier passes while the active bonuses settle. */
+	private final ActiveBonusSolver solver;
+
+	private static final List<BonusCalculationListener> CALCULATION_LISTENERS =
+			new CopyOnWriteArrayList<BonusCalculationListener>();
 
 	public BonusManager(PlayerCharacter p)
 	{
 		pc = p;
+		solver = new ActiveBonusSolver(this, p);
 	}
 
 	/**
-	 * @param fullyQualifiedBonusType
-	 * @return Total bonus for prefix from the activeBonus HashMap
+	 * Add a listener to be informed of each calculation of the active bonuses
+	 * of any character.
+	 * 
+	 * @param listener The listener to be added.
 	 */
-	private double sumActiveBonusMap(String fullyQualifiedBonusType)
+	public static void addCalculationListener(BonusCalculationListener listener)
 	{
-		double bonus = 0;
-		if (fullyQualifiedBonusType == null)
+		CALCULATION_LISTENERS.add(listener);
+	}
+
+	/**
+	 * Remove a listener previously added by addCalculationListener.
+	 * 
+	 * @param listener The listener to be removed.
+	 */
+	public static void removeCalculationListener(
+		BonusCalculationListener listener)
+	{
+		CALCULATION_LISTENERS.remove(listener);
+	}
+
+	/**
+	 * Start a calculation of the active bonuses, made up of repeated passes
+	 * of setActiveBonusList and buildActiveBonusMap until the bonuses settle.
+	 * Work done in one pass is reused in the next unless something it read
+	 * has changed, unless incremental bonus calculation has been turned off
+	 * in which case each pass recalculates everything.
+	 * 
+	 * @see SettingsHandler#isUseIncrementalBonusCalculation()
+	 */
+	void startBonusCalculation()
+	{
+		if (SettingsHandler.isUseIncrementalBonusCalculation())
 		{
-			Logging.errorPrint("Unable to sum BONUS when request is null");
-			return bonus;
+			solver.begin();
 		}
-			
-		fullyQualifiedBonusType = fullyQualifiedBonusType.toUpperCase();
-		if (cachedActiveBonusSumsMap.containsKey(fullyQualifiedBonusType))
+	}
+
+	/**
+	 * Finish a calculation of the active bonuses, informing the calculation
+	 * listeners.
+	 * 
+	 * @param passes The number of passes made.
+	 */
+	void endBonusCalculation(int passes)
+	{
+		int evaluated = 0;
+		int reused = 0;
+		if (solver.isSolving())
 		{
-			return cachedActiveBonusSumsMap.get(fullyQualifiedBonusType);
+			evaluated = solver.getEvaluatedCount();
+			reused = solver.getReusedCount();
+			solver.end();
 		}
-
-		final List<String> aList = new ArrayList<String>();
-
-		for (String fullyQualifedCurrentBonus : activeBonusMap.keySet())
+		if (Logging.isDebugMode())
 		{
-			// aKey is either of the form:
-			// COMBAT.AC
-			// or
-			// COMBAT.AC:Luck
-			// or
-			// COMBAT.AC:Armor.REPLACE
-			if (aList.contains(fullyQualifedCurrentBonus))
-			{
-				continue;
-			}
-
-			if (fullyQualifedCurrentBonus == null)
-			{
-				Logging.errorPrint("null BONUS: loaded into activeBonusMap. "
-					+ fullyQualifiedBonusType + " was requested");
-				continue;
-			}
-
-			String currentTypedBonusNameInfo = fullyQualifedCurrentBonus;
-
-			// rString could be something like:
-			// COMBAT.AC:Armor.REPLACE
-			// So need to remove the .STACK or .REPLACE
-			// to get a match for prefix like: COMBAT.AC:Armor
-			if (currentTypedBonusNameInfo.endsWith(".STACK"))
-			{
-				currentTypedBonusNameInfo = currentTypedBonusNameInfo.substring(0, currentTypedBonusNameInfo.length() - 6);
-			}
-			else if (currentTypedBonusNameInfo.endsWith(".REPLACE"))
-			{
-				currentTypedBonusNameInfo = currentTypedBonusNameInfo.substring(0, currentTypedBonusNameInfo.length() - 8);
-			}
-
-			if (currentTypedBonusNameInfo == null)
-			{
-				Logging.errorPrint("Unable to process BONUS: "
-					+ fullyQualifedCurrentBonus + " when "
-					+ fullyQualifiedBonusType + " was requested");
-				continue;
-			}
-			
-			// if prefix is of the form:
-			// COMBAT.AC
-			// then is must match rstring:
-			// COMBAT.AC
-			// COMBAT.AC:Luck
-			// COMBAT.AC:Armor.REPLACE
-			// However, it must not match
-			// COMBAT.ACCHECK
-			if ((currentTypedBonusNameInfo.length() > fullyQualifiedBonusType.length())
-					&& !currentTypedBonusNameInfo.startsWith(fullyQualifiedBonusType + ":"))
-			{
-				continue;
-			}
-
-			if (currentTypedBonusNameInfo.startsWith(fullyQualifiedBonusType))
-			{
-				aList.add(currentTypedBonusNameInfo);
-				aList.add(currentTypedBonusNameInfo + ".STACK");
-				aList.add(currentTypedBonusNameInfo + ".REPLACE");
-
-				final double aBonus = getActiveBonusForMapKey(currentTypedBonusNameInfo,
-						Double.NaN);
-				final double replaceBonus = getActiveBonusForMapKey(currentTypedBonusNameInfo
-						+ ".REPLACE", Double.NaN);
-				final double stackBonus = getActiveBonusForMapKey(currentTypedBonusNameInfo
-						+ ".STACK", 0);
-				//
-				// Using NaNs in order to be able to get the max
-				// between an undefined bonus and a negative
-				//
-				if (Double.isNaN(aBonus)) // no bonusKey
-				{
-					if (!Double.isNaN(replaceBonus))
-					{
-						// no bonusKey, but there
-						// is a replaceKey
-						bonus += replaceBonus;
-					}
-				}
-				else if (Double.isNaN(replaceBonus))
-				{
-					// is a bonusKey and no replaceKey
-					bonus += aBonus;
-				}
-				else
-				{
-					// is a bonusKey and a replaceKey
-					bonus += Math.max(aBonus, replaceBonus);
-				}
-
-				// always add stackBonus
-				bonus += stackBonus;
-			}
+			Logging.log(Logging.DEBUG, "Calculated " + evaluated
+				+ " and reused " + reused + " bonus activations and values");
+		}
+		for (BonusCalculationListener listener : CALCULATION_LISTENERS)
+		{
+			listener.bonusesCalculated(pc, passes, evaluated, reused);
 		}
-		
-		cachedActiveBonusSumsMap.put(fullyQualifiedBonusType, bonus);
-		return bonus;
 	}
 
 	/**
-	 * Searches the activeBonus HashMap for aKey
-	 * 
-	 * @param fullyQualifiedBonusType
-	 * @param defaultValue
+	 * Report that a calculation of the active bonuses is being abandoned as
+	 * the bonuses have not settled.
 	 * 
-	 * @return defaultValue if aKey not found
+	 * @param passes The number of passes made.
 	 */
-	private double getActiveBonusForMapKey(String fullyQualifiedBonusType,
-			final double defaultValue)
+	void reportBonusLoop(int passes)
 	{
-		fullyQualifiedBonusType = fullyQualifiedBonusType.toUpperCase();
+		Collection<BonusObj> cycle = solver.getChangedBonuses();
+		Set<String> changed = (checkpointMap == null) ? Collections
+			.<String> emptySet() : activeBonusMap
+			.getChangedBonuses(checkpointMap);
+		Logging.errorPrint("..Bonuses changing in the last round: " + cycle);
+		for (BonusCalculationListener listener : CALCULATION_LISTENERS)
+		{
+			listener.bonusLoopDetected(pc, passes, cycle, changed);
+		}
+	}
 
-		final String regVal = activeBonusMap.get(fullyQualifiedBonusType);
+	/**
+	 * Discard the work recorded in the current calculation of the active
+	 * bonuses, so that the next pass is done in full. Used when the character
+	 * has been changed in a way that cannot be tracked.
+	 */
+	void resetBonusCalculation()
+	{
+		solver.invalidate();
+	}
 
-		if (regVal != null)
+	/**
+	 * @param fullyQualifiedBonusType
+	 * @return Total bonus for prefix from the activeBonus store
+	 */
+	private double sumActiveBonusMap(String fullyQualifiedBonusType)
+	{
+		if (fullyQualifiedBonusType == null)
 		{
-			return Double.parseDouble(regVal);
+			Logging.errorPrint("Unable to sum BONUS when request is null");
+			return 0;
 		}
-
-		return defaultValue;
+		return activeBonusMap.getTotal(fullyQualifiedBonusType);
 	}
 
 	public double getBonusDueToType(String bonusName, String bonusInfo,
 			String bonusType)
 	{
 		final String typeString = bonusName + "." + bonusInfo + ":" + bonusType;
+		bonusRead(typeString);
 
 		return sumActiveBonusMap(typeString);
 	}
@@ -245,6 +218,7 @@ public class BonusManager
 	{
 		final String prefix = new StringBuilder(bonusName).append('.').append(
 				bonusInfo).toString();
+		bonusRead(prefix);
 
 		return sumActiveBonusMap(prefix);
 	}
@@ -254,66 +228,68 @@ public class BonusManager
 		String prefix = new StringBuilder(bonusName).append('.').append(
 				bonusInfo).toString();
 		prefix = prefix.toUpperCase();
+		bonusRead(prefix);
 
-		for (String fullyQualifedBonusType : activeBonusMap.keySet())
-		{
-			String typedBonusNameInfo = fullyQualifedBonusType;
+		return activeBonusMap.getType(prefix);
+	}
 
-			// rString could be something like:
-			// COMBAT.AC:Armor.REPLACE
-			// So need to remove the .STACK or .REPLACE
-			// to get a match for prefix like: COMBAT.AC:Armor
-			if (fullyQualifedBonusType.endsWith(".STACK"))
-			{
-				typedBonusNameInfo = fullyQualifedBonusType.substring(0, fullyQualifedBonusType.length() - 6);
-			}
-			else if (fullyQualifedBonusType.endsWith(".REPLACE"))
-			{
-				typedBonusNameInfo = fullyQualifedBonusType.substring(0, fullyQualifedBonusType.length() - 8);
-			}
+	/**
+	 * Build the bonus HashMap from all active BonusObj's
+	 */
+	void buildActiveBonusMap()
+	{
+		ActiveBonusStore previousMap = activeBonusMap;
+		building = true;
+		try
+		{
+			buildActiveBonusMapContents();
+		}
+		finally
+		{
+			building = false;
+		}
+		VariableProcessor vp = pc.getVariableProcessor();
+		if (vp.isDependencyTracked() || solver.isSolving())
+		{
+			Set<String> changed = activeBonusMap.getChangedBonuses(previousMap);
+			vp.bonusesChanged(changed);
+			solver.endPass(changed);
+		}
+	}
 
-			// if prefix is of the form:
-			// COMBAT.AC
-			// then it must match
-			// COMBAT.AC
-			// COMBAT.AC:Luck
-			// COMBAT.AC:Armor.REPLACE
-			// However, it must not match
-			// COMBAT.ACCHECK
-			if ((typedBonusNameInfo.length() > prefix.length())
-					&& !typedBonusNameInfo.startsWith(prefix + ":"))
+	/**
+	 * Report a read of the bonuses with the given prefix to the character's
+	 * variable processor, so that formulas reading them are discarded from
+	 * the cache when the bonuses change. The partial results seen while the
+	 * map is being built cannot be tracked.
+	 * 
+	 * @param prefix The bonus name and info read, e.g. COMBAT.AC
+	 */
+	private void bonusRead(String prefix)
+	{
+		solver.bonusRead(prefix, building);
+		VariableProcessor vp = pc.getVariableProcessor();
+		if (vp != null && vp.isRecordingDependencies())
+		{
+			if (building)
 			{
-				continue;
+				vp.markUntracked();
 			}
-
-			if (typedBonusNameInfo.startsWith(prefix))
+			else
 			{
-				final int typeIndex = typedBonusNameInfo.indexOf(":");
-				if (typeIndex > 0)
-				{
-					return (fullyQualifedBonusType.substring(typeIndex + 1)); // use aKey to get
-					// .REPLACE or
-					// .STACK
-				}
-				return Constants.EMPTY_STRING; // no type;
+				vp.bonusRead(prefix);
 			}
-
 		}
-
-		return Constants.EMPTY_STRING; // just return no type
 	}
 
-	/**
-	 * Build the bonus HashMap from all active BonusObj's
-	 */
-	void buildActiveBonusMap()
+	private void buildActiveBonusMapContents()
 	{
-		activeBonusMap = new ConcurrentHashMap<String, String>();
-		cachedActiveBonusSumsMap = new ConcurrentHashMap<String, Double>();
-		Map<String, String> nonStackMap = new ConcurrentHashMap<String, String>();
-		Map<String, String> stackMap = new ConcurrentHashMap<String, String>();
+		activeBonusMap = new ActiveBonusStore();
+		Map<String, Double> nonStackMap = new ConcurrentHashMap<String, Double>();
+		Map<String, Double> stackMap = new ConcurrentHashMap<String, Double>();
 		Set<BonusObj> processedBonuses = new WrappedMapSet<BonusObj>(
 				IdentityHashMap.class);
+		solver.startBuild(activeBonusBySource.keySet());
 
 		//Logging.log(Logging.INFO, "=== Start bonus processing.");
 		
@@ -344,13 +320,15 @@ public class BonusManager
 			// Keep track of which bonuses have been calculated
 			//Logging.log(Logging.INFO, "Processing bonus " + bonus + " - static.");
 			processedBonuses.add(bonus);
-			for (BonusPair bp : getStringListFromBonus(bonus))
+			ActiveBonusSolver.Resolution values = solver.resolve(bonus);
+			for (int i = 0; i < values.size(); i++)
 			{
-				final double iBonus = bp.resolve(pc).doubleValue();
-				setActiveBonusStack(iBonus, bp.fullyQualifiedBonusType,
+				final double iBonus = values.getValue(i);
+				final String fullyQualifiedBonusType = values.getBonusType(i);
+				setActiveBonusStack(iBonus, fullyQualifiedBonusType,
 					nonStackMap, stackMap);
-				totalBonusesForType(nonStackMap, stackMap,
-					bp.fullyQualifiedBonusType, activeBonusMap);
+				putActiveBonus(fullyQualifiedBonusType, totalBonusesForType(
+					nonStackMap, stackMap, fullyQualifiedBonusType));
 				
 				if (Logging.isDebugMode())
 				{
@@ -364,7 +342,7 @@ public class BonusManager
 						id = source.toString();
 					}
 					Logging.debugPrint("BONUS: " + id + " : " + iBonus + " : "
-							+ bp.fullyQualifiedBonusType);
+							+ fullyQualifiedBonusType);
 				}
 			}
 		}
@@ -410,32 +388,57 @@ public class BonusManager
 	 *            The map of stacking (i.e. total all) bonuses being built up.
 	 * @param fullyQualifiedBonusType
 	 *            The type of the bonus e.g. STAT.DEX:LUCK
-	 * @param targetMap
-	 *            The map of bonuses (stack+non-stack) being built up which will be populated with the total bonus.
+	 * @return The total bonus (stack+non-stack) for the bonus type.
 	 */
-	private void totalBonusesForType(Map<String, String> nonStackMap,
-		Map<String, String> stackMap, String fullyQualifiedBonusType,
-		Map<String, String> targetMap)
+	private float totalBonusesForType(Map<String, Double> nonStackMap,
+		Map<String, Double> stackMap, String fullyQualifiedBonusType)
 	{
 		if (fullyQualifiedBonusType != null)
 		{
 			fullyQualifiedBonusType = fullyQualifiedBonusType.toUpperCase();
 		}
-		String nonStackString = nonStackMap.get(fullyQualifiedBonusType);
-		Float nonStackVal =  nonStackString == null ? 0.0f : Float.valueOf(nonStackString);
-		String stackString = stackMap.get(fullyQualifiedBonusType);
-		Float stackVal =  stackString == null ? 0.0f : Float.valueOf(stackString);
-		Float FullValue = nonStackVal + stackVal;
-		putActiveBonusMap(fullyQualifiedBonusType, String.valueOf(FullValue), targetMap);
+		Double nonStack = nonStackMap.get(fullyQualifiedBonusType);
+		float nonStackVal =  nonStack == null ? 0.0f : nonStack.floatValue();
+		Double stack = stackMap.get(fullyQualifiedBonusType);
+		float stackVal =  stack == null ? 0.0f : stack.floatValue();
+		return nonStackVal + stackVal;
+	}
+
+	/**
+	 * Put the total for a bonus type into the active bonus store.
+	 * 
+	 * @param fullyQualifiedBonusType
+	 *            The type of the bonus e.g. STAT.DEX:LUCK
+	 * @param total
+	 *            The total bonus for the bonus type.
+	 */
+	private void putActiveBonus(String fullyQualifiedBonusType, float total)
+	{
+		//
+		// This is a bad idea...will add whatever the bonus is to ALL skills
+		//
+		if (fullyQualifiedBonusType.equalsIgnoreCase("SKILL.LIST"))
+		{
+			pc.setDisplayUpdate(true);
+			return;
+		}
+		/*
+		 * Totals are calculated as floats. Hold the decimal value of the float
+		 * (0.1 rather than 0.100000001) as the totals always have been.
+		 */
+		activeBonusMap.put(fullyQualifiedBonusType, Double.parseDouble(Float
+			.toString(total)));
 	}
 
 	public Collection<BonusObj> getActiveBonusList()
 	{
+		solver.activeListRead();
 		return activeBonusBySource.keySet();
 	}
 
 	public void setActiveBonusList()
 	{
+		solver.startPass();
 		activeBonusBySource = getAllActiveBonuses();
 	}
 
@@ -443,6 +446,7 @@ public class BonusManager
 	{
 		final String prefix = new StringBuilder(bonusName).append('.').append(
 				bonusInfo).toString();
+		bonusRead(prefix);
 		final StringBuilder buf = new StringBuilder();
 		final List<String> aList = new ArrayList<String>();
 
@@ -455,15 +459,9 @@ public class BonusManager
 		// TypedBonus.totalBonusesByType(bonuses);
 		// return CoreUtility.commaDelimit(bonusStrings);
 
-		final Set<String> keys = new TreeSet<String>();
-		for (String fullyQualifiedBonusType : activeBonusMap.keySet())
-		{
-			if (fullyQualifiedBonusType.startsWith(prefix))
-			{
-				keys.add(fullyQualifiedBonusType);
-			}
-		}
-		for (String fullyQualifiedBonusType : keys)
+		final Map<String, Double> keyedTotals =
+				activeBonusMap.getKeyedTotals(prefix);
+		for (String fullyQualifiedBonusType : keyedTotals.keySet())
 		{
 			// make a list of keys that end with .REPLACE
 			if (fullyQualifiedBonusType.endsWith(".REPLACE"))
@@ -479,7 +477,7 @@ public class BonusManager
 					reason = fullyQualifiedBonusType.substring(prefix.length() + 1);
 				}
 
-				final int b = (int) getActiveBonusForMapKey(fullyQualifiedBonusType, 0);
+				final int b = (int) getKeyedTotal(keyedTotals, fullyQualifiedBonusType);
 
 				if (b == 0)
 				{
@@ -506,10 +504,10 @@ public class BonusManager
 			{
 				final String aKey = fullyQualifiedBonusType_Replace.substring(0,
 						fullyQualifiedBonusType_Replace.length() - 8);
-				final double replaceBonus = getActiveBonusForMapKey(fullyQualifiedBonusType_Replace,
-						0);
-				double aBonus = getActiveBonusForMapKey(aKey, 0);
-				aBonus += getActiveBonusForMapKey(aKey + ".STACK", 0);
+				final double replaceBonus = getKeyedTotal(keyedTotals,
+						fullyQualifiedBonusType_Replace);
+				double aBonus = getKeyedTotal(keyedTotals, aKey);
+				aBonus += getKeyedTotal(keyedTotals, aKey + ".STACK");
 
 				final int b = (int) Math.max(aBonus, replaceBonus);
 
@@ -537,6 +535,13 @@ public class BonusManager
 		return buf.toString();
 	}
 
+	private static double getKeyedTotal(Map<String, Double> keyedTotals,
+		String fullyQualifiedBonusType)
+	{
+		final Double total = keyedTotals.get(fullyQualifiedBonusType);
+		return (total == null) ? 0 : total;
+	}
+
 	/**
 	 * - Get's a list of dependencies from aBonus - Finds all active bonuses
 	 * that add to those dependencies and have not been processed and
@@ -557,7 +562,7 @@ public class BonusManager
 	 */
 	private void processBonus(final BonusObj aBonus,
 		final Set<BonusObj> prevProcessed, Set<BonusObj> processedBonuses,
-		Map<String, String> nonStackMap, Map<String, String> stackMap)
+		Map<String, Double> nonStackMap, Map<String, Double> stackMap)
 	{
 		// Make sure we don't get into an infinite loop - can occur due to LST
 		// coding or best guess dependancy mapping
@@ -625,14 +630,16 @@ public class BonusManager
 		}
 
 		// calculate bonus and add to activeBonusMap
-		for (BonusPair bp : getStringListFromBonus(aBonus))
+		ActiveBonusSolver.Resolution values = solver.resolve(aBonus);
+		for (int i = 0; i < values.size(); i++)
 		{
-			final double iBonus = bp.resolve(pc).doubleValue();
-			setActiveBonusStack(iBonus, bp.fullyQualifiedBonusType, nonStackMap, stackMap);
-			totalBonusesForType(nonStackMap, stackMap,
-				bp.fullyQualifiedBonusType, activeBonusMap);
+			final double iBonus = values.getValue(i);
+			final String fullyQualifiedBonusType = values.getBonusType(i);
+			setActiveBonusStack(iBonus, fullyQualifiedBonusType, nonStackMap, stackMap);
+			putActiveBonus(fullyQualifiedBonusType, totalBonusesForType(
+				nonStackMap, stackMap, fullyQualifiedBonusType));
 //			Logging.debugPrint("vBONUS: " + anObj.getDisplayName() + " : "
-//					+ iBonus + " : " + bp.fullyQualifiedBonusType);
+//					+ iBonus + " : " + fullyQualifiedBonusType);
 		}
 		prevProcessed.remove(aBonus);
 	}
@@ -651,8 +658,8 @@ public class BonusManager
 	 *            The map of stacking (i.e. total all) bonuses being built up.
 	 */
 	private void setActiveBonusStack(double bonus,
-		String fullyQualifiedBonusType, Map<String, String> nonStackbonusMap,
-		Map<String, String> stackingBonusMap)
+		String fullyQualifiedBonusType, Map<String, Double> nonStackbonusMap,
+		Map<String, Double> stackingBonusMap)
 	{
 		if (fullyQualifiedBonusType != null)
 		{
@@ -723,33 +730,33 @@ public class BonusManager
 
 		if (index == -1) // a non-stacking bonus
 		{
-			final String aVal = nonStackbonusMap.get(fullyQualifiedBonusType);
+			final Double aVal = nonStackbonusMap.get(fullyQualifiedBonusType);
 
 			if (aVal == null)
 			{
-				putActiveBonusMap(fullyQualifiedBonusType, String.valueOf(bonus), nonStackbonusMap);
+				putActiveBonusMap(fullyQualifiedBonusType, bonus, nonStackbonusMap);
 			}
 			else
 			{
-				float existingBonus = Float.parseFloat(aVal);
-				putActiveBonusMap(fullyQualifiedBonusType, String.valueOf(Math.max(bonus,
-						existingBonus)), nonStackbonusMap);
+				float existingBonus = aVal.floatValue();
+				putActiveBonusMap(fullyQualifiedBonusType, Math.max(bonus,
+						existingBonus), nonStackbonusMap);
 			}
 		}
 		else
 		// a stacking bonus
 		{
-			final String aVal = stackingBonusMap.get(fullyQualifiedBonusType);
+			final Double aVal = stackingBonusMap.get(fullyQualifiedBonusType);
 
 			if (aVal == null)
 			{
 				putActiveBonusMap(fullyQualifiedBonusType,
-					String.valueOf(bonus), stackingBonusMap);
+					bonus, stackingBonusMap);
 			}
 			else
 			{
-				putActiveBonusMap(fullyQualifiedBonusType, String.valueOf(bonus
-						+ Float.parseFloat(aVal)), stackingBonusMap);
+				putActiveBonusMap(fullyQualifiedBonusType, bonus
+						+ aVal.floatValue(), stackingBonusMap);
 			}
 		}
 	}
@@ -766,7 +773,7 @@ public class BonusManager
 	 *            The map of bonuses being built.
 	 */
 	private void putActiveBonusMap(final String fullyQualifiedBonusType,
-		final String bonusValue, Map<String, String> bonusMap)
+		final double bonusValue, Map<String, Double> bonusMap)
 	{
 		//
 		// This is a bad idea...will add whatever the bonus is to ALL skills
@@ -784,9 +791,9 @@ public class BonusManager
 	{
 		String statAbbr = stat.getAbb();
 		final String prefix = "STAT." + statAbbr;
-		Map<String, String> bonusMap = new HashMap<String, String>();
-		Map<String, String> nonStackMap = new ConcurrentHashMap<String, String>();
-		Map<String, String> stackMap = new ConcurrentHashMap<String, String>();
+		Map<String, Float> bonusMap = new HashMap<String, Float>();
+		Map<String, Double> nonStackMap = new ConcurrentHashMap<String, Double>();
+		Map<String, Double> stackMap = new ConcurrentHashMap<String, Double>();
 
 		for (BonusObj bonus : getActiveBonusList())
 		{
@@ -855,8 +862,9 @@ public class BonusManager
 						{
 							setActiveBonusStack(bp.resolve(pc).doubleValue(),
 									bp.fullyQualifiedBonusType, nonStackMap, stackMap);
-							totalBonusesForType(nonStackMap, stackMap,
-								bp.fullyQualifiedBonusType, bonusMap);
+							bonusMap.put(bp.fullyQualifiedBonusType.toUpperCase(),
+								totalBonusesForType(nonStackMap, stackMap,
+									bp.fullyQualifiedBonusType));
 						}
 					}
 				}
@@ -864,9 +872,9 @@ public class BonusManager
 		}
 		// Sum the included bonuses to the stat to get our result.
 		int total = 0;
-		for (String bKey : bonusMap.keySet())
+		for (Float bonus : bonusMap.values())
 		{
-			total += Float.parseFloat(bonusMap.get(bKey));
+			total += bonus;
 		}
 		return total;
 	}
@@ -900,8 +908,10 @@ public class BonusManager
 	{
 		Map<String, String> returnMap = new HashMap<String, String>();
 		String prefix = bonusName + "." + bonusInfo + ".";
+		bonusRead(prefix);
 
-		for (Map.Entry<String, String> entry : activeBonusMap.entrySet())
+		for (Map.Entry<String, String> entry : activeBonusMap.toStringMap()
+			.entrySet())
 		{
 			String fullyQualifiedBonusType = entry.getKey();
 
@@ -1423,7 +1433,7 @@ public class BonusManager
 				}
 				if (use)
 				{
-					pobj.activateBonuses(pc);
+					solver.activate(pobj);
 					List<BonusObj> abs = pobj.getActiveBonuses(pc);
 					for (BonusObj bo : abs)
 					{
@@ -1445,8 +1455,10 @@ public class BonusManager
 	 */
 	public void logChangeFromCheckpoint()
 	{
-		Map<String, String> addedMap = new HashMap<String, String>(activeBonusMap);
-		for (Entry<String, String> prevEntry : checkpointMap.entrySet())
+		Map<String, String> activeMap = activeBonusMap.toStringMap();
+		Map<String, String> previousMap = checkpointMap.toStringMap();
+		Map<String, String> addedMap = new HashMap<String, String>(activeMap);
+		for (Entry<String, String> prevEntry : previousMap.entrySet())
 		{
 			String addedValue = addedMap.get(prevEntry.getKey());
 			if (prevEntry.getValue().equals(addedValue))
@@ -1454,8 +1466,8 @@ public class BonusManager
 				addedMap.remove(prevEntry.getKey());
 			}
 		}
-		Map<String, String> removedMap = new HashMap<String, String>(checkpointMap);
-		for (Entry<String, String> prevEntry : activeBonusMap.entrySet())
+		Map<String, String> removedMap = new HashMap<String, String>(previousMap);
+		for (Entry<String, String> prevEntry : activeMap.entrySet())
 		{
 			String addedValue = removedMap.get(prevEntry.getKey());
 			if (prevEntry.getValue().equals(addedValue))
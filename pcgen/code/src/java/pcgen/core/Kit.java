@@ -303,46 +303,54 @@ public final class Kit extends PObject implements Comparable<Object>, KitFacade
 		// We will create a copy of the PC since we may need to add classes and
 		// levels to the PC that the user may choose not to apply.
 		// NOTE: These methods need to be called in the correct order.
-		PlayerCharacter tempPC = subkit ? aPC : (PlayerCharacter) aPC.clone();
-		
-		for (KitStat kStat : getStats())
-		{
-			kStat.testApply(this, tempPC, warnings);
-		}
-
-		for (BaseKit bk : getSafeListFor(ListKey.KIT_TASKS))
+		PlayerCharacter tempPC = subkit ? aPC : aPC.createSnapshot();
+		try
 		{
-			if (!PrereqHandler
-				.passesAll(bk.getPrerequisiteList(), tempPC, this))
+			for (KitStat kStat : getStats())
 			{
-				continue;
+				kStat.testApply(this, tempPC, warnings);
 			}
-			if (selectValue != -1 && bk.isOptional()
-				&& !bk.isOption(tempPC, selectValue))
+
+			for (BaseKit bk : getSafeListFor(ListKey.KIT_TASKS))
 			{
-				continue;
+				if (!PrereqHandler
+					.passesAll(bk.getPrerequisiteList(), tempPC, this))
+				{
+					continue;
+				}
+				if (selectValue != -1 && bk.isOptional()
+					&& !bk.isOption(tempPC, selectValue))
+				{
+					continue;
+				}
+				if (bk.testApply(this, tempPC, warnings))
+				{
+					thingsToAdd.add(bk);
+				}
 			}
-			if (bk.testApply(this, tempPC, warnings))
+
+			BigDecimal totalCostToBeCharged = getTotalCostToBeCharged(tempPC);
+			if (totalCostToBeCharged != null)
 			{
-				thingsToAdd.add(bk);
+				BigDecimal pcGold = tempPC.getGold();
+				if (pcGold.compareTo(BigDecimal.ZERO) >= 0
+					&& pcGold.compareTo(totalCostToBeCharged) < 0)
+				{
+					warnings.add("Could not purchase kit. Not enough funds.");
+				}
+				else
+				{
+					tempPC.setGold(pcGold.subtract(totalCostToBeCharged));
+				}
 			}
 		}
-		
-		BigDecimal totalCostToBeCharged = getTotalCostToBeCharged(tempPC);
-		if (totalCostToBeCharged != null)
+		finally
 		{
-			BigDecimal pcGold = tempPC.getGold();
-			if (pcGold.compareTo(BigDecimal.ZERO) >= 0
-				&& pcGold.compareTo(totalCostToBeCharged) < 0)
+			if (!subkit)
 			{
-				warnings.add("Could not purchase kit. Not enough funds.");
-			}
-			else
-			{
-				tempPC.setGold(pcGold.subtract(totalCostToBeCharged));
+				tempPC.discardSnapshot();
 			}
 		}
-		
 	}
 
 	private static class ObjectTypeComparator implements Comparator<BaseKit>
@@ -157,6 +157,7 @@ import pcgen.cdom.facet.analysis.SpecialAbilityFacet;
 import pcgen.cdom.facet.analysis.StatLockFacet;
 import pcgen.cdom.facet.analysis.UnlockedStatFacet;
 import pcgen.cdom.facet.analysis.VariableFacet;
+import pcgen.cdom.facet.base.AbstractDataFacet;
 import pcgen.cdom.facet.base.AbstractStorageFacet;
 import pcgen.cdom.facet.fact.AgeFacet;
 import pcgen.cdom.facet.fact.AllowDebtFacet;
@@ -251,6 +252,7 @@ import pcgen.core.chooser.ChooserUtilities;
 import pcgen.core.display.CharacterDisplay;
 import pcgen.core.display.SkillDisplay;
 import pcgen.core.pclevelinfo.PCLevelInfo;
+import pcgen.core.prereq.PrerequisiteCache;
 import pcgen.core.spell.Spell;
 import pcgen.core.utils.CoreUtility;
 import pcgen.core.utils.MessageType;
@@ -400,6 +402,7 @@ public class PlayerCharacter  implements Cloneable, VariableContainer
 	private SpellProhibitorFacet spellProhibitorFacet = FacetLibrary.getFacet(SpellProhibitorFacet.class);
 
 	private ObjectCache cache = new ObjectCache();
+	private final PrerequisiteCache prereqCache;
 	private AssociationSupport assocSupt = new AssociationSupport();
 	private BonusManager bonusManager = new BonusManager(this);
 	private BonusChangeFacet bonusChangeFacet = FacetLibrary.getFacet(BonusChangeFacet.class);
@@ -533,6 +536,8 @@ public class PlayerCharacter  implements Cloneable, VariableContainer
 		trackingFacet.associatePlayerCharacter(id, this);
 
 		variableProcessor = new VariableProcessorPC(this);
+		variableProcessor.setDependencyTracked(SettingsHandler.isUseDependencyTrackedCache());
+		prereqCache = new PrerequisiteCache(id);
 
 		for (int i = 0; i < Constants.NUMBER_OF_AGESET_KIT_SELECTIONS; i++)
 		{
@@ -994,6 +999,44 @@ public class PlayerCharacter  implements Cloneable, VariableContainer
 		return serial;
 	}
 
+	/**
+	 * Returns the results of the prerequisites tested against this character
+	 * since it last changed. The cache is only used while enabled, and
+	 * records how many tests it has answered.
+	 * 
+	 * @return The PrerequisiteCache of the character
+	 */
+	public PrerequisiteCache getPrerequisiteCache()
+	{
+		return prereqCache;
+	}
+
+	/**
+	 * Begins a batch of changes to the character. Until the batch is
+	 * committed, the facets of the character hold their change events rather
+	 * than informing the facets derived from them, which then process the
+	 * changes from each facet together. Batches may be nested, and each call
+	 * must be matched by a call to commitChangeBatch (normally in a finally
+	 * block).
+	 * 
+	 * The facets derived from the changed facets are not updated until the
+	 * batch is committed, so only changes which do not depend upon each other
+	 * should be made in a batch.
+	 */
+	public void beginChangeBatch()
+	{
+		AbstractDataFacet.beginChangeBatch(id);
+	}
+
+	/**
+	 * Commits a batch of changes begun by beginChangeBatch, informing the
+	 * derived facets of the changes once the outermost batch is committed.
+	 */
+	public void commitChangeBatch()
+	{
+		AbstractDataFacet.commitChangeBatch(id);
+	}
+
 	/**
 	 * set display update TODO - This probably doesn't belong here. It seems to
 	 * only be used by InfoSkills.
@@ -2798,6 +2841,10 @@ public class PlayerCharacter  implements Cloneable, VariableContainer
 		} catch (IllegalArgumentException e)
 		{
 			//Built in variable
+			// Results depending on this not being a variable must be
+			// discarded should it later be defined
+			getVariableProcessor().facetRead(VariableFacet.class);
+			ActiveBonusSolver.markActiveFacetRead(id, VariableFacet.class);
 			return false;
 		}
 	}
@@ -5138,31 +5185,45 @@ public class PlayerCharacter  implements Cloneable, VariableContainer
 		// that depends on variable B that will not be the correct
 		// value until after the map has been completely created.
 
+		// Only the bonuses (and bonus prerequisites) whose inputs changed in
+		// the previous loop are recalculated in the next loop.
+
 		int count = 0;
-		do
+		bonusManager.startBonusCalculation();
+		try
 		{
-			if (count >= 29)
+			do
 			{
-				Logging
-					.errorPrint("Active bonus loop exceeded reasonable limit of "
-						+ count + ".");
-				bonusManager.logChangeFromCheckpoint();
-				if (count > 31)
+				if (count >= 29)
 				{
-					break;
+					Logging
+						.errorPrint("Active bonus loop exceeded reasonable limit of "
+							+ count + ".");
+					bonusManager.logChangeFromCheckpoint();
+					if (count > 31)
+					{
+						bonusManager.reportBonusLoop(count);
+						break;
+					}
 				}
-			}
-			bonusManager.checkpointBonusMap();
-			setDirty(true);
-			count++;
-			calcActiveBonusLoop();
-			if (Globals.checkRule(RuleConstants.RETROSKILL))
-			{
-				checkSkillModChange();
-			}
-		} while (!bonusManager.compareToCheckpoint());
-		// If the newly calculated bonus map is different to the old one
-		// loop again until they are the same.
+				bonusManager.checkpointBonusMap();
+				setDirty(true);
+				count++;
+				calcActiveBonusLoop();
+				if (Globals.checkRule(RuleConstants.RETROSKILL)
+					&& checkSkillModChange())
+				{
+					// Skill points are held in the level info without notice
+					bonusManager.resetBonusCalculation();
+				}
+			} while (!bonusManager.compareToCheckpoint());
+			// If the newly calculated bonus map is different to the old one
+			// loop again until they are the same.
+		}
+		finally
+		{
+			bonusManager.endBonusCalculation(count);
+		}
 		if (Logging.isDebugMode())
 		{
 			Logging.log(Logging.DEBUG, "Ran " + count
@@ -7713,6 +7774,41 @@ public class PlayerCharacter  implements Cloneable, VariableContainer
 	 */
 	@Override
 	public PlayerCharacter clone()
+	{
+		return copyCharacter(false);
+	}
+
+	/**
+	 * Returns a snapshot of the PlayerCharacter, for use as a short-lived
+	 * working copy (such as when testing a kit or previewing a change). The
+	 * snapshot behaves as a deep copy made by clone(), but the information
+	 * held in each facet is only copied when it is first read or changed on
+	 * either character, so the snapshot is much cheaper to make when only a
+	 * part of the character is examined before the snapshot is discarded.
+	 * <p>
+	 * Unlike clone(), the snapshot is not recalculated when it is made; it
+	 * starts with the bonuses, movement and equipped items already calculated
+	 * for this character, and is recalculated when it is next changed or
+	 * prepared for output.
+	 * 
+	 * @return a new copy-on-access snapshot of the <code>PlayerCharacter</code>
+	 */
+	public PlayerCharacter createSnapshot()
+	{
+		return copyCharacter(true);
+	}
+
+	/**
+	 * Discards a snapshot made by createSnapshot, so that the character the
+	 * snapshot was taken from no longer needs to copy information into it.
+	 * The snapshot must not be used after it has been discarded.
+	 */
+	public void discardSnapshot()
+	{
+		AbstractStorageFacet.discardDeferredCopy(id);
+	}
+
+	private PlayerCharacter copyCharacter(boolean snapshot)
 	{
 		PlayerCharacter aClone = null;
 
@@ -7731,9 +7827,16 @@ public class PlayerCharacter  implements Cloneable, VariableContainer
 			Logging.errorPrint("PlayerCharacter.clone failed", e);
 		}
 		Collection<AbstractStorageFacet> beans = SpringHelper.getStorageBeans();
-		for (AbstractStorageFacet bean : beans)
+		if (snapshot)
 		{
-			bean.copyContents(id, aClone.id);
+			AbstractStorageFacet.deferCopyContents(id, aClone.id, beans);
+		}
+		else
+		{
+			for (AbstractStorageFacet bean : beans)
+			{
+				bean.copyContents(id, aClone.id);
+			}
 		}
 		aClone.bonusManager = bonusManager.buildDeepClone(aClone);
 
@@ -7757,8 +7860,12 @@ public class PlayerCharacter  implements Cloneable, VariableContainer
 		List<Equipment> equipmentMasterList = aClone.getEquipmentMasterList();
 		aClone.userEquipmentFacet.removeAll(aClone.id);
 		aClone.equipmentFacet.removeAll(aClone.id);
-		aClone.equippedFacet.removeAll(aClone.id);
-		FacetLibrary.getFacet(SourcedEquipmentFacet.class).removeAll(aClone.id);
+		if (!snapshot)
+		{
+			aClone.equippedFacet.removeAll(aClone.id);
+			FacetLibrary.getFacet(SourcedEquipmentFacet.class).removeAll(
+				aClone.id);
+		}
 		for (Equipment equip : equipmentMasterList)
 		{
 			aClone.addEquipment(equip.clone());
@@ -7802,12 +7909,21 @@ public class PlayerCharacter  implements Cloneable, VariableContainer
 		aClone.spellLevelTemp = spellLevelTemp;
 		aClone.pointBuyPoints = pointBuyPoints;
 
-		aClone.adjustMoveRates();
-		//This mod set is necessary to trigger certain calculations to ensure correct output
-		//modSkillPointsBuffer = Integer.MIN_VALUE;
-		aClone.calcActiveBonuses();
-		//Just to be safe
-		aClone.equippedFacet.reset(aClone.id);
+		/*
+		 * A snapshot keeps the equipped items and calculated state it was
+		 * given (which match the copied bonuses) until it is next
+		 * recalculated, as recalculating here would copy nearly every facet
+		 * the snapshot defers.
+		 */
+		if (!snapshot)
+		{
+			aClone.adjustMoveRates();
+			//This mod set is necessary to trigger certain calculations to ensure correct output
+			//modSkillPointsBuffer = Integer.MIN_VALUE;
+			aClone.calcActiveBonuses();
+			//Just to be safe
+			aClone.equippedFacet.reset(aClone.id);
+		}
 		
 		aClone.serial = serial;
 
@@ -9013,6 +9129,12 @@ public class PlayerCharacter  implements Cloneable, VariableContainer
 			hml = availSpellFacet.getSpellLevelInfo(id, sp);
 			cache.addToMapFor(MapKey.SPELL_PC_INFO, sp, hml);
 		}
+		else
+		{
+			// Held until the character is next marked dirty
+			getVariableProcessor().markUntracked();
+			ActiveBonusSolver.markActiveUntracked();
+		}
 		HashMapToList<CDOMList<Spell>, Integer> newhml = new HashMapToList<CDOMList<Spell>, Integer>();
 		newhml.addAllLists(hml);
 		return newhml;
@@ -9921,11 +10043,18 @@ public class PlayerCharacter  implements Cloneable, VariableContainer
 		}
 	}
 
-	public void checkSkillModChange()
+	/**
+	 * Recalculate the skill points gained at each level of the character,
+	 * adjusting the skill points remaining for any change.
+	 * 
+	 * @return true if the skill points of any level changed
+	 */
+	public boolean checkSkillModChange()
 	{
 		List<PCClass> newClasses = getClassList();
 		Collection<PCLevelInfo> levelInfo = getLevelInfo();
 		int levelIndex = 1;
+		boolean changed = false;
 		
 		for (PCLevelInfo lvlInfo : levelInfo)
 		{
@@ -9940,14 +10069,21 @@ public class PlayerCharacter  implements Cloneable, VariableContainer
 			{
 				Logging.errorPrint("No PCClass found for '" + classKeyName + "' in character's class list: "
 						+ newClasses);
-				return;
+				return changed;
 			}
 			PCClassLevel classLevel = getActiveClassLevel(currClass, lvlInfo.getClassLevel());
-			checkSkillModChangeForLevel(currClass, lvlInfo, classLevel, levelIndex++);
+			changed |= checkSkillModChangeForLevel(currClass, lvlInfo, classLevel, levelIndex++);
 		}
+		return changed;
 	}
 
-	public void checkSkillModChangeForLevel(PCClass pcClass, PCLevelInfo pi,
+	/**
+	 * Recalculate the skill points gained at a level of the character,
+	 * adjusting the skill points remaining for any change.
+	 * 
+	 * @return true if the skill points of the level changed
+	 */
+	public boolean checkSkillModChangeForLevel(PCClass pcClass, PCLevelInfo pi,
 		PCClassLevel classLevel, int characterLevel)
 	{
 		int newSkillPointsGained =
@@ -9964,8 +10100,10 @@ public class PlayerCharacter  implements Cloneable, VariableContainer
 					+ newSkillPointsGained - formerGained);
 				setSkillPool(pcClass, pcClass.getSkillPool(this)
 					+ newSkillPointsGained - formerGained);
+				return true;
 			}
 		}
+		return false;
 	}
 
 	/**
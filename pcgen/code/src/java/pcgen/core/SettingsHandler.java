@@ -168,6 +168,7 @@ public final class SettingsHandler
 	private static String selectedSpellSheet = ""; //$NON-NLS-1$
 	private static boolean showFeatDialogAtLevelUp = true;
 	private static boolean showHPDialogAtLevelUp = true;
+	private static final ThreadLocal<Boolean> threadShowHPDialogAtLevelUp = new ThreadLocal<Boolean>();
 	private static boolean showStatDialogAtLevelUp = true;
 	private static boolean showToolBar = true;
 	private static boolean showSkillModifier = false;
@@ -183,7 +184,9 @@ public final class SettingsHandler
 	private static int tabPlacement = SwingConstants.BOTTOM;
 	private static final String tmpPath = System.getProperty("java.io.tmpdir"); //$NON-NLS-1$
 	private static final File tempPath = new File(getTmpPath());
+	private static boolean useDependencyTrackedCache = false;
 	private static boolean useHigherLevelSlotsDefault = false;
+	private static boolean useIncrementalBonusCalculation = true;
 	private static boolean wantToLoadMasterworkAndMagic = false;
 	private static int nameDisplayStyle = Constants.DISPLAY_STYLE_NAME;
 	private static boolean weaponProfPrintout = Constants.DEFAULT_PRINTOUT_WEAPONPROF;
@@ -997,7 +1000,9 @@ public final class SettingsHandler
 		setSkinLFThemePack(getPCGenOption("skinLFThemePack", "")); //$NON-NLS-1$ //$NON-NLS-2$
 		setSpellMarketPriceAdjusted(getPCGenOption("spellMarketPriceAdjusted", false)); //$NON-NLS-1$
 		setTabPlacement(getOptionTabPlacement("tabPlacement", SwingConstants.BOTTOM)); //$NON-NLS-1$
+		setUseDependencyTrackedCache(getPCGenOption("useDependencyTrackedCache", false)); //$NON-NLS-1$
 		setUseHigherLevelSlotsDefault(getPCGenOption("useHigherLevelSlotsDefault", false)); //$NON-NLS-1$
+		setUseIncrementalBonusCalculation(getPCGenOption("useIncrementalBonusCalculation", true)); //$NON-NLS-1$
 		setUseWaitCursor(getPCGenOption("useWaitCursor", true)); //$NON-NLS-1$
 		setWantToLoadMasterworkAndMagic(getPCGenOption("loadMasterworkAndMagicFromLst", false)); //$NON-NLS-1$
 		setWeaponProfPrintout(getPCGenOption("weaponProfPrintout",
@@ -1233,7 +1238,9 @@ public final class SettingsHandler
 		setPCGenOption("sourceDisplay", Globals.getSourceDisplay().ordinal()); //$NON-NLS-1$
 		setPCGenOption("spellMarketPriceAdjusted", isSpellMarketPriceAdjusted()); //$NON-NLS-1$
 		setPCGenOption("tabPlacement", convertTabPlacementToString(tabPlacement)); //$NON-NLS-1$
+		setPCGenOption("useDependencyTrackedCache", isUseDependencyTrackedCache()); //$NON-NLS-1$
 		setPCGenOption("useHigherLevelSlotsDefault", isUseHigherLevelSlotsDefault()); //$NON-NLS-1$
+		setPCGenOption("useIncrementalBonusCalculation", isUseIncrementalBonusCalculation()); //$NON-NLS-1$
 		setPCGenOption("useWaitCursor", getUseWaitCursor()); //$NON-NLS-1$
 		setPCGenOption("validateBonuses", validateBonuses); //$NON-NLS-1$
 		setPCGenOption("weaponProfPrintout", SettingsHandler.getWeaponProfPrintout()); //$NON-NLS-1$
@@ -1751,6 +1758,11 @@ public final class SettingsHandler
 	 */
 	public static void setShowHPDialogAtLevelUp(final boolean argShowHPDialogAtLevelUp)
 	{
+		if (threadShowHPDialogAtLevelUp.get() != null)
+		{
+			threadShowHPDialogAtLevelUp.set(argShowHPDialogAtLevelUp);
+			return;
+		}
 		showHPDialogAtLevelUp = argShowHPDialogAtLevelUp;
 	}
 
@@ -1760,7 +1772,27 @@ public final class SettingsHandler
 	 */
 	public static boolean getShowHPDialogAtLevelUp()
 	{
-		return showHPDialogAtLevelUp;
+		Boolean threadValue = threadShowHPDialogAtLevelUp.get();
+		return (threadValue == null) ? showHPDialogAtLevelUp : threadValue;
+	}
+
+	/**
+	 * Gives the current thread its own setting for whether the hit point 
+	 * dialog should be shown at level up. While the thread has its own 
+	 * setting, changes made on the thread only affect that thread. 
+	 * @param threadValue The setting for the current thread, or null to 
+	 * return the thread to the shared setting.
+	 */
+	public static void setThreadShowHPDialogAtLevelUp(final Boolean threadValue)
+	{
+		if (threadValue == null)
+		{
+			threadShowHPDialogAtLevelUp.remove();
+		}
+		else
+		{
+			threadShowHPDialogAtLevelUp.set(threadValue);
+		}
 	}
 
 	/**
@@ -1849,6 +1881,28 @@ public final class SettingsHandler
 		return isShowToolBar();
 	}
 
+	/**
+	 * Identify if characters created from now on should invalidate their
+	 * cached formula results by the facets and bonuses each formula read,
+	 * rather than discarding all cached results whenever the character
+	 * changes.
+	 * 
+	 * @return Returns the useDependencyTrackedCache.
+	 */
+	public static boolean isUseDependencyTrackedCache()
+	{
+		return useDependencyTrackedCache;
+	}
+
+	/**
+	 * @param useDependencyTrackedCache The useDependencyTrackedCache to set.
+	 */
+	public static void setUseDependencyTrackedCache(
+		boolean useDependencyTrackedCache)
+	{
+		SettingsHandler.useDependencyTrackedCache = useDependencyTrackedCache;
+	}
+
 	/**
 	 * @return Returns the useHigherLevelSlotsDefault.
 	 */
@@ -1866,6 +1920,29 @@ public final class SettingsHandler
 		SettingsHandler.useHigherLevelSlotsDefault = useHigherLevelSlotsDefault;
 	}
 
+	/**
+	 * Identify if the active bonuses should be calculated incrementally,
+	 * reusing the work of a previous pass when nothing it read has changed.
+	 * When false every pass recalculates all of the bonuses, which is slower
+	 * but does not depend on the changes to the character being reported.
+	 * 
+	 * @return Returns the useIncrementalBonusCalculation.
+	 */
+	public static boolean isUseIncrementalBonusCalculation()
+	{
+		return useIncrementalBonusCalculation;
+	}
+
+	/**
+	 * @param useIncrementalBonusCalculation The useIncrementalBonusCalculation to set.
+	 */
+	public static void setUseIncrementalBonusCalculation(
+		boolean useIncrementalBonusCalculation)
+	{
+		SettingsHandler.useIncrementalBonusCalculation =
+				useIncrementalBonusCalculation;
+	}
+
 	public static void setUseWaitCursor(final boolean b)
 	{
 		useWaitCursor = b;
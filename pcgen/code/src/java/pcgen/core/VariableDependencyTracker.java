@@ -0,0 +1,444 @@
+/*
+ * VariableDependencyTracker.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import pcgen.cdom.base.PCGenIdentifier;
+import pcgen.cdom.enumeration.CharID;
+import pcgen.cdom.facet.base.AbstractStorageFacet;
+import pcgen.cdom.facet.base.CacheAccessListener;
+
+/**
+ * <code>VariableDependencyTracker</code> holds the cached formula results of
+ * a character along with the facets and bonuses each result was calculated
+ * from. When one of those facets changes, or the value of one of those
+ * bonuses changes, only the results which read it are discarded; the rest of
+ * the cache survives the change.
+ *
+ * While a formula is being evaluated the tracker records the facets read
+ * (through the CDOM cache) and the bonuses read (through the BonusManager).
+ * Evaluations nest, so the dependencies of an inner formula are also
+ * dependencies of the formula that used it. A formula which reads anything
+ * that cannot be tracked - information belonging to another character, an
+ * output token, a facet which modifies its information without reporting it
+ * or a result cached by serial - is marked untracked, and its result must be
+ * cached by serial as before.
+ *
+ * @see SettingsHandler#isUseDependencyTrackedCache()
+ */
+final class VariableDependencyTracker implements CacheAccessListener
+{
+	/**
+	 * The tracker recording on the current thread, if any.
+	 */
+	private static final ThreadLocal<VariableDependencyTracker> ACTIVE =
+			new ThreadLocal<VariableDependencyTracker>();
+
+	private final CharID id;
+
+	private final Map<String, Dependencies> values =
+			new HashMap<String, Dependencies>();
+
+	private final Map<Class<?>, Set<String>> facetDependents =
+			new HashMap<Class<?>, Set<String>>();
+
+	private final Map<String, Set<String>> bonusDependents =
+			new HashMap<String, Set<String>>();
+
+	private final List<Dependencies> frames = new ArrayList<Dependencies>();
+
+	private CacheAccessListener previousListener;
+
+	private VariableDependencyTracker previousTracker;
+
+	/**
+	 * Create a new tracker for the character identified by the given CharID.
+	 * The tracker is registered to receive the changes made to the facets of
+	 * that character.
+	 *
+	 * @param id The CharID of the character whose formulas are tracked.
+	 */
+	VariableDependencyTracker(CharID id)
+	{
+		this.id = id;
+		AbstractStorageFacet.addChangeListener(id, this);
+	}
+
+	/**
+	 * Stop receiving changes made to the facets of the character and discard
+	 * all cached results.
+	 */
+	void dispose()
+	{
+		AbstractStorageFacet.removeChangeListener(id, this);
+		clear();
+	}
+
+	/**
+	 * Start recording the dependencies of a formula evaluation.
+	 */
+	void begin()
+	{
+		boolean displaced = false;
+		if (frames.isEmpty())
+		{
+			previousTracker = ACTIVE.get();
+			if (previousTracker != null && previousTracker != this)
+			{
+				/*
+				 * Another character's formula is using a value from this
+				 * character, which that character cannot be told about.
+				 */
+				previousTracker.markUntracked();
+			}
+			ACTIVE.set(this);
+			previousListener = AbstractStorageFacet.setReadListener(this);
+		}
+		else
+		{
+			// Reads are currently being reported to another character
+			displaced = ACTIVE.get() != this;
+		}
+		Dependencies deps = new Dependencies();
+		deps.untracked = displaced;
+		frames.add(deps);
+	}
+
+	/**
+	 * Stop recording the dependencies of the current formula evaluation. The
+	 * dependencies are also added to those of any enclosing evaluation.
+	 *
+	 * @return The dependencies of the evaluation
+	 */
+	Dependencies end()
+	{
+		Dependencies deps = frames.remove(frames.size() - 1);
+		if (frames.isEmpty())
+		{
+			AbstractStorageFacet.setReadListener(previousListener);
+			if (previousTracker == null)
+			{
+				ACTIVE.remove();
+			}
+			else
+			{
+				ACTIVE.set(previousTracker);
+			}
+			previousListener = null;
+			previousTracker = null;
+		}
+		else
+		{
+			frames.get(frames.size() - 1).addAll(deps);
+		}
+		return deps;
+	}
+
+	/**
+	 * @return true if the dependencies of a formula evaluation are being
+	 *         recorded.
+	 */
+	boolean isRecording()
+	{
+		return !frames.isEmpty();
+	}
+
+	/**
+	 * Mark the formula currently being evaluated as depending on information
+	 * that cannot be tracked.
+	 */
+	void markUntracked()
+	{
+		if (!frames.isEmpty())
+		{
+			frames.get(frames.size() - 1).untracked = true;
+		}
+	}
+
+	/**
+	 * Mark the formula currently being evaluated on this thread (for any
+	 * character) as depending on information that cannot be tracked.
+	 */
+	static void markActiveUntracked()
+	{
+		VariableDependencyTracker active = ACTIVE.get();
+		if (active != null)
+		{
+			active.markUntracked();
+		}
+	}
+
+	/**
+	 * Record that the formula currently being evaluated depends on the
+	 * information stored by the given facet, even though it did not read that
+	 * information through the facet cache. This is used where the absence of
+	 * information is established some other way.
+	 *
+	 * @param facetClass The class of the facet the result depends upon
+	 */
+	void facetRead(Class<?> facetClass)
+	{
+		if (!frames.isEmpty())
+		{
+			frames.get(frames.size() - 1).facets.add(facetClass);
+		}
+	}
+
+	/**
+	 * Record that the formula currently being evaluated read the bonuses with
+	 * the given name.
+	 *
+	 * @param bonusName The bonus name, such as COMBAT.AC
+	 */
+	void bonusRead(String bonusName)
+	{
+		if (!frames.isEmpty())
+		{
+			frames.get(frames.size() - 1).bonuses.add(bonusName.toUpperCase());
+		}
+	}
+
+	/**
+	 * Retrieve a cached result. The dependencies of the result are added to
+	 * those of the formula currently being evaluated.
+	 *
+	 * @param lookup The cache key of the formula
+	 * @return The cached result, or null if no result is cached
+	 */
+	Float get(String lookup)
+	{
+		Dependencies cached = values.get(lookup);
+		if (cached == null)
+		{
+			return null;
+		}
+		if (!frames.isEmpty())
+		{
+			frames.get(frames.size() - 1).addAll(cached);
+		}
+		return cached.value;
+	}
+
+	/**
+	 * Retrieve the dependencies of a cached result, without adding them to
+	 * those of the formula currently being evaluated.
+	 *
+	 * @param lookup The cache key of the formula
+	 * @return The dependencies of the cached result, or null if no result is
+	 *         cached
+	 */
+	Dependencies getDependencies(String lookup)
+	{
+		return values.get(lookup);
+	}
+
+	/**
+	 * Cache the result of a formula. The result will be discarded when any
+	 * of the given dependencies change.
+	 *
+	 * @param lookup The cache key of the formula
+	 * @param value The result of the formula
+	 * @param deps The dependencies recorded while evaluating the formula;
+	 *            must not be untracked
+	 */
+	void put(String lookup, Float value, Dependencies deps)
+	{
+		deps.value = value;
+		values.put(lookup, deps);
+		for (Class<?> facetClass : deps.facets)
+		{
+			addDependent(facetDependents, facetClass, lookup);
+		}
+		for (String bonusName : deps.bonuses)
+		{
+			addDependent(bonusDependents, bonusName, lookup);
+		}
+	}
+
+	private static <K> void addDependent(Map<K, Set<String>> map, K key,
+		String lookup)
+	{
+		Set<String> set = map.get(key);
+		if (set == null)
+		{
+			set = new HashSet<String>();
+			map.put(key, set);
+		}
+		set.add(lookup);
+	}
+
+	/**
+	 * Discard the cached results which read any of the given bonuses. Each
+	 * bonus is given as its key in the active bonus map, such as
+	 * COMBAT.AC:Armor.REPLACE.
+	 *
+	 * @param bonusKeys The keys of the bonuses whose value changed
+	 */
+	void bonusesChanged(Collection<String> bonusKeys)
+	{
+		if (bonusKeys.isEmpty() || bonusDependents.isEmpty())
+		{
+			return;
+		}
+		for (Iterator<Map.Entry<String, Set<String>>> it =
+				bonusDependents.entrySet().iterator(); it.hasNext();)
+		{
+			Map.Entry<String, Set<String>> entry = it.next();
+			String bonusName = entry.getKey();
+			for (String key : bonusKeys)
+			{
+				/*
+				 * Matching on the prefix may discard results for a similarly
+				 * named bonus (COMBAT.ACCHECK for COMBAT.AC), which is safe.
+				 */
+				if (key.toUpperCase().startsWith(bonusName))
+				{
+					evict(entry.getValue());
+					it.remove();
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Discard all cached results.
+	 */
+	void clear()
+	{
+		values.clear();
+		facetDependents.clear();
+		bonusDependents.clear();
+	}
+
+	/**
+	 * @return The number of results currently cached.
+	 */
+	int size()
+	{
+		return values.size();
+	}
+
+	private void evict(Set<String> lookups)
+	{
+		for (String lookup : lookups)
+		{
+			values.remove(lookup);
+		}
+	}
+
+	/**
+	 * @see pcgen.cdom.facet.base.CacheAccessListener#cacheRead(pcgen.cdom.base.PCGenIdentifier, java.lang.Class, boolean)
+	 */
+	@Override
+	public void cacheRead(PCGenIdentifier readId, Class<?> facetClass,
+		boolean changeTracked)
+	{
+		if (previousListener != null)
+		{
+			previousListener.cacheRead(readId, facetClass, changeTracked);
+		}
+		if (frames.isEmpty())
+		{
+			return;
+		}
+		if (id.equals(readId))
+		{
+			if (changeTracked)
+			{
+				frames.get(frames.size() - 1).facets.add(facetClass);
+			}
+			else
+			{
+				markUntracked();
+			}
+		}
+		else if (readId instanceof CharID)
+		{
+			markUntracked();
+		}
+		// Data set information does not change once loaded
+	}
+
+	/**
+	 * @see pcgen.cdom.facet.base.CacheAccessListener#cacheChanged(pcgen.cdom.base.PCGenIdentifier, java.lang.Class)
+	 */
+	@Override
+	public void cacheChanged(PCGenIdentifier changedId, Class<?> facetClass)
+	{
+		Set<String> lookups = facetDependents.remove(facetClass);
+		if (lookups != null)
+		{
+			evict(lookups);
+		}
+	}
+
+	/**
+	 * The facets and bonuses read while evaluating a formula, and (once
+	 * cached) the result of the formula.
+	 */
+	static final class Dependencies
+	{
+		private final Set<Class<?>> facets = new HashSet<Class<?>>();
+		private final Set<String> bonuses = new HashSet<String>();
+		private boolean untracked = false;
+		private Float value;
+
+		private void addAll(Dependencies other)
+		{
+			facets.addAll(other.facets);
+			bonuses.addAll(other.bonuses);
+			untracked |= other.untracked;
+		}
+
+		/**
+		 * @return true if the formula read information that cannot be
+		 *         tracked, so its result must be cached by serial
+		 */
+		boolean isUntracked()
+		{
+			return untracked;
+		}
+
+		/**
+		 * @return The classes of the facets read by the formula
+		 */
+		Set<Class<?>> getFacets()
+		{
+			return Collections.unmodifiableSet(facets);
+		}
+
+		/**
+		 * @return The names of the bonuses read by the formula
+		 */
+		Set<String> getBonuses()
+		{
+			return Collections.unmodifiableSet(bonuses);
+		}
+	}
+}
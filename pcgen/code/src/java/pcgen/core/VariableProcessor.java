@@ -24,17 +24,20 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.StringTokenizer;
 
+import org.nfunk.jep.Variable;
+
 import pcgen.core.character.CachedVariable;
 import pcgen.core.character.CharacterSpell;
 import pcgen.core.utils.CoreUtility;
 import pcgen.io.ExportHandler;
 import pcgen.util.Logging;
 import pcgen.util.PJEP;
+import pcgen.util.ParsedFormula;
 import pcgen.util.PjepPool;
 
 /**
@@ -66,6 +69,9 @@ public abstract class VariableProcessor
 	private Map<String, CachedVariable<Float>>  fVariableCache = 
 			new HashMap<String, CachedVariable<Float>>();
 
+	/** Caches formula results by their dependencies, if enabled. */
+	private VariableDependencyTracker tracker;
+
 	protected Float convertToFloat(String element, String foo)
 	{
 		Float d = null;
@@ -145,16 +151,39 @@ public abstract class VariableProcessor
 				
 		if (null == result)
 		{
-			result = processBrokenParser(
-					aSpell,
-					varString,
-					src,
-					spellLevelTemp);
-			
-			String cacheString =
-					makeCacheString(aSpell == null ? null : aSpell, varString, src, spellLevelTemp);
+			ActiveBonusSolver solver = ActiveBonusSolver.beginEvaluation();
+			try
+			{
+				if (tracker != null)
+				{
+					tracker.begin();
+				}
+				VariableDependencyTracker.Dependencies deps = null;
+				try
+				{
+					result = processBrokenParser(
+							aSpell,
+							varString,
+							src,
+							spellLevelTemp);
+				}
+				finally
+				{
+					if (tracker != null)
+					{
+						deps = tracker.end();
+					}
+				}
+				
+				String cacheString =
+						makeCacheString(aSpell == null ? null : aSpell, varString, src, spellLevelTemp);
 
-			addCachedVariable(cacheString, result);
+				addCachedVariable(cacheString, result, deps);
+			}
+			finally
+			{
+				ActiveBonusSolver.endEvaluation(solver);
+			}
 		}
 
 		return result;
@@ -190,22 +219,102 @@ public abstract class VariableProcessor
 		String cacheString =
 				makeCacheString(aSpell == null ? null : aSpell, varString, src, spellLevelTemp);
 
-		Float total = getCachedVariable(cacheString);
+		if (tracker == null)
+		{
+			// Values of this processor cannot be tracked for any character
+			VariableDependencyTracker.markActiveUntracked();
+		}
+
+		Float total = getTrackedVariable(cacheString);
 		if (total != null)
 		{
 			return total;
 		}
 
-		CachableResult cRes = processJepFormula(aSpell, varString, src);
-		if (cRes != null)
+		ActiveBonusSolver solver = ActiveBonusSolver.beginEvaluation();
+		try
 		{
-			if (cRes.cachable)
+			if (tracker != null)
+			{
+				tracker.begin();
+			}
+			CachableResult cRes;
+			VariableDependencyTracker.Dependencies deps = null;
+			try
 			{
-				addCachedVariable(cacheString, cRes.result);
+				cRes = processJepFormula(aSpell, varString, src);
+			}
+			finally
+			{
+				if (tracker != null)
+				{
+					deps = tracker.end();
+				}
 			}
-			return cRes.result;
+			if (cRes != null)
+			{
+				if (cRes.cachable)
+				{
+					addCachedVariable(cacheString, cRes.result, deps);
+				}
+				else
+				{
+					// Nor can any formula using this result be kept
+					markUntracked();
+				}
+				return cRes.result;
+			}
+			return null;
+		}
+		finally
+		{
+			ActiveBonusSolver.endEvaluation(solver);
+		}
+	}
+
+	/**
+	 * Attempt to retrieve a cached value of a formula, whether cached by its
+	 * dependencies or by serial.
+	 *
+	 * @param lookup The cache key of the formula.
+	 * @return The value of the formula, or null if no current value is cached.
+	 */
+	private Float getTrackedVariable(final String lookup)
+	{
+		if (tracker != null && !isCachePaused())
+		{
+			Float value = tracker.get(lookup);
+			if (value != null)
+			{
+				ActiveBonusSolver.trackedHit(this, tracker
+					.getDependencies(lookup));
+				return value;
+			}
+		}
+		return getCachedVariable(lookup);
+	}
+
+	/**
+	 * Add the value of a formula to the cache. If the dependencies of the
+	 * formula were fully tracked the value is kept until one of them
+	 * changes, otherwise it is cached by serial.
+	 *
+	 * @param lookup The cache key of the formula.
+	 * @param value The value of the formula.
+	 * @param deps The dependencies recorded while evaluating the formula, or
+	 *            null if they were not recorded.
+	 */
+	private void addCachedVariable(final String lookup, final Float value,
+		VariableDependencyTracker.Dependencies deps)
+	{
+		if (deps == null || deps.isUntracked())
+		{
+			addCachedVariable(lookup, value);
+		}
+		else if (!isCachePaused())
+		{
+			tracker.put(lookup, value, deps);
 		}
-		return null;
 	}
 
 	private String makeCacheString(CharacterSpell aSpell, String varString,
@@ -521,8 +630,8 @@ public abstract class VariableProcessor
 		try
 		{
 			parser = PjepPool.getInstance().aquire(this, src);
-			parser.parseExpression(formula);
-			if (parser.hasError())
+			final ParsedFormula parsed = parser.getParsedFormula(formula);
+			if (!parsed.isValid())
 			{
 				if (Logging.isLoggable(Logging.DEBUG) && formula.startsWith(DEBUG_FORMULA_PREFIX))
 				{
@@ -532,22 +641,12 @@ public abstract class VariableProcessor
 				return null;
 			}
 
-			for (Iterator<String> iter = parser.getSymbolTable().keySet().iterator(); iter.hasNext();)
+			for (Variable var : parsed.getVariables())
 			{
-				final String element = iter.next();
-				if (
-					"e".equals(element) ||
-					"FALSE".equals(element) ||
-					"pi".equals(element) ||
-					"TRUE".equals(element))
-				{
-					continue;
-				}
-
-				Float d = lookupVariable(element, src, spell);
+				Float d = lookupVariable(var.getName(), src, spell);
 				if (d != null)
 				{
-					parser.addVariable(element, d.doubleValue());
+					var.setValue(d.doubleValue());
 				}
 				else
 				{
@@ -557,7 +656,7 @@ public abstract class VariableProcessor
 				}
 			}
 
-			final Object result = parser.getValueAsObject();
+			final Object result = parser.getValueAsObject(parsed);
 			if (result != null)
 			{
 				if (Logging.isLoggable(Logging.DEBUG) && formula.startsWith(DEBUG_FORMULA_PREFIX))
@@ -568,7 +667,7 @@ public abstract class VariableProcessor
 				try
 				{
 					return new CachableResult(new Float(result.toString()),
-						parser.isResultCachable());
+						parsed.isResultCachable());
 				}
 				catch (NumberFormatException nfe)
 				{
@@ -672,6 +771,8 @@ public abstract class VariableProcessor
 		{
 			if (cached.getSerial()>=getSerial())
 			{
+				markUntracked();
+				ActiveBonusSolver.cacheHit(this, lookup, false);
 				return cached.getValue();
 			}
 			fVariableCache.remove(lookup);
@@ -700,6 +801,32 @@ public abstract class VariableProcessor
 //		}
 
 		fVariableCache.put(lookup, cached);
+		ActiveBonusSolver.cachePut(this, lookup, value, false);
+	}
+
+	/**
+	 * Retrieve the current value of a variable from the cache, without
+	 * removing expired values or recording the retrieval.
+	 *
+	 * @param lookup The name of the variable (or the formula) to retrieve.
+	 * @param string True to look in the String cache, false to look in the
+	 *            cache of numeric values.
+	 * @return The value, or null if a current value is not present.
+	 */
+	Object getCurrentCachedValue(final String lookup, boolean string)
+	{
+		if (isCachePaused())
+		{
+			return null;
+		}
+		final CachedVariable<?> cached =
+				string ? sVariableCache.get(lookup) : fVariableCache
+					.get(lookup);
+		if (cached != null && cached.getSerial() >= getSerial())
+		{
+			return cached.getValue();
+		}
+		return null;
 	}
 
 	/**
@@ -773,6 +900,8 @@ public abstract class VariableProcessor
 		{
 			if (cached.getSerial()>=getSerial())
 			{
+				markUntracked();
+				ActiveBonusSolver.cacheHit(this, lookup, true);
 				return cached.getValue();
 			}
 			sVariableCache.remove(lookup);
@@ -798,6 +927,7 @@ public abstract class VariableProcessor
 		cached.setValue(value);
 
 		sVariableCache.put(lookup, cached);
+		ActiveBonusSolver.cachePut(this, lookup, value, true);
 	}
 
 
@@ -842,6 +972,111 @@ public abstract class VariableProcessor
 		return result;
 	}
 
+	/**
+	 * Set whether formula results should be cached by the facets and bonuses
+	 * they read, rather than by serial. When enabled, a change to the
+	 * character only discards the results which read the changed facet or
+	 * bonus. Results which read information that cannot be tracked are still
+	 * cached by serial.
+	 *
+	 * @param tracked true to cache formula results by their dependencies.
+	 */
+	public void setDependencyTracked(boolean tracked)
+	{
+		if (tracker != null)
+		{
+			tracker.dispose();
+			tracker = null;
+		}
+		if (tracked)
+		{
+			tracker = new VariableDependencyTracker(pc.getCharID());
+		}
+	}
+
+	/**
+	 * Identify if formula results are cached by their dependencies.
+	 * @return True if formula results are cached by their dependencies.
+	 */
+	public boolean isDependencyTracked()
+	{
+		return tracker != null;
+	}
+
+	/**
+	 * @return The number of formula results cached by their dependencies.
+	 */
+	int getDependencyTrackedCount()
+	{
+		return tracker == null ? 0 : tracker.size();
+	}
+
+	/**
+	 * Inform the processor that the value of some of the character's bonuses
+	 * has changed, so that cached formula results which read them can be
+	 * discarded.
+	 *
+	 * @param bonusKeys The keys of the changed bonuses in the active bonus
+	 *            map, such as COMBAT.AC:Armor.REPLACE
+	 */
+	void bonusesChanged(Collection<String> bonusKeys)
+	{
+		if (tracker != null)
+		{
+			tracker.bonusesChanged(bonusKeys);
+		}
+	}
+
+	/**
+	 * Record that the formula currently being evaluated read the bonuses with
+	 * the given name.
+	 *
+	 * @param bonusName The name of the bonus, such as COMBAT.AC
+	 */
+	void bonusRead(String bonusName)
+	{
+		if (tracker != null)
+		{
+			tracker.bonusRead(bonusName);
+		}
+	}
+
+	/**
+	 * Record that the formula currently being evaluated depends on the
+	 * information stored by the given facet for this character.
+	 *
+	 * @param facetClass The class of the facet the result depends upon
+	 */
+	void facetRead(Class<?> facetClass)
+	{
+		if (tracker != null)
+		{
+			tracker.facetRead(facetClass);
+		}
+	}
+
+	/**
+	 * Identify if the character's formula results are being tracked and
+	 * recorded by their dependencies.
+	 * @return True if bonus reads need to be reported.
+	 */
+	boolean isRecordingDependencies()
+	{
+		return tracker != null && tracker.isRecording();
+	}
+
+	/**
+	 * Mark the formula currently being evaluated as depending on information
+	 * whose changes cannot be tracked, so that its result is cached by serial.
+	 */
+	void markUntracked()
+	{
+		if (tracker != null)
+		{
+			tracker.markUntracked();
+		}
+	}
+
 	/**
 	 * Retrieve the PlayerCharacter object that this VariableProcessor
 	 * instance serves.
@@ -0,0 +1,340 @@
+/*
+ * BulkNPCGenerator.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.core.npcgen;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import pcgen.base.util.RandomUtil;
+import pcgen.cdom.base.Constants;
+import pcgen.cdom.content.RollMethod;
+import pcgen.core.Campaign;
+import pcgen.core.PlayerCharacter;
+import pcgen.core.SettingsHandler;
+import pcgen.gui2.UIPropertyContext;
+import pcgen.util.Logging;
+import pcgen.util.chooser.ChooserFactory;
+import pcgen.util.chooser.RandomChooser;
+
+/**
+ * <code>BulkNPCGenerator</code> generates a number of NPCs from a single set
+ * of generator options, several at a time, without any user interaction.
+ * <p>
+ * Creating a PlayerCharacter registers it with shared structures which are
+ * not thread-safe, so each NPC is created on the calling thread. The NPC is
+ * then generated on a worker thread with its own random chooser, settings and
+ * random number generator, so the NPCs being generated do not affect each
+ * other or any character being edited at the same time. The random number
+ * generator for each NPC is seeded from the seed of the BulkNPCGenerator and
+ * the index of the NPC, and is used both to create and to generate that NPC,
+ * so generating NPCs with the same seed, options and data produces the same
+ * NPCs regardless of the number of threads used.
+ * <p>
+ * The NPCs are passed back on the calling thread as each one is completed.
+ * Only a few NPCs more than the number of threads are created ahead of those
+ * completed, so they need not all be held in memory at once. The NPCs are not
+ * added to the list of loaded characters.
+ */
+public class BulkNPCGenerator
+{
+	/**
+	 * Receives the NPCs made by a BulkNPCGenerator as they are generated.
+	 */
+	public interface NPCReceiver
+	{
+		/**
+		 * Called on the thread which called generate as each NPC is
+		 * completed. NPCs are not necessarily completed in order.
+		 *
+		 * @param index The index of the NPC, from 0 to one less than the
+		 *            number of NPCs requested
+		 * @param npc The generated NPC
+		 */
+		void npcGenerated(int index, PlayerCharacter npc);
+	}
+
+	/** Spreads the seeds of successive NPCs across the range of longs. */
+	private static final long SEED_STEP = 0x9E3779B97F4A7C15L;
+
+	private final NPCGenerator theGenerator;
+	private final Collection<Campaign> theCampaigns;
+	private final AlignGeneratorOption theAlign;
+	private final RaceGeneratorOption theRace;
+	private final GenderGeneratorOption theGender;
+	private final List<ClassGeneratorOption> theClassList;
+	private final List<LevelGeneratorOption> theLevels;
+	private final RollMethod theRollMethod;
+
+	private long theSeed = System.currentTimeMillis();
+	private int theThreads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Creates a new BulkNPCGenerator for the current game mode.
+	 *
+	 * @param campaigns The loaded campaigns to be recorded in each NPC
+	 * @param align Alignment options to choose from
+	 * @param aRace Race options to choose from
+	 * @param aGender Gender options to choose from
+	 * @param classList <tt>List</tt> of class options to choose from
+	 * @param levels <tt>List</tt> of level choices
+	 * @param aRollMethod the RollMethod to use for stats
+	 */
+	public BulkNPCGenerator(final Collection<Campaign> campaigns,
+		final AlignGeneratorOption align, final RaceGeneratorOption aRace,
+		final GenderGeneratorOption aGender,
+		final List<ClassGeneratorOption> classList,
+		final List<LevelGeneratorOption> levels, final RollMethod aRollMethod)
+	{
+		if (classList.size() != levels.size())
+		{
+			throw new IllegalArgumentException(
+				"Each class option must have a level option");
+		}
+		theGenerator = NPCGenerator.getInst();
+		theCampaigns = new ArrayList<Campaign>(campaigns);
+		theAlign = align;
+		theRace = aRace;
+		theGender = aGender;
+		theClassList = new ArrayList<ClassGeneratorOption>(classList);
+		theLevels = new ArrayList<LevelGeneratorOption>(levels);
+		theRollMethod = aRollMethod;
+	}
+
+	/**
+	 * Sets the seed from which the random number generator of each NPC is
+	 * seeded. By default the seed is taken from the time the
+	 * BulkNPCGenerator was created.
+	 *
+	 * @param seed The seed for the NPCs to be generated
+	 */
+	public void setSeed(final long seed)
+	{
+		theSeed = seed;
+	}
+
+	/**
+	 * Sets the number of NPCs to be generated at once. By default this is the
+	 * number of processors available.
+	 *
+	 * @param threads The number of threads to generate NPCs on
+	 */
+	public void setThreads(final int threads)
+	{
+		theThreads = Math.max(1, threads);
+	}
+
+	/**
+	 * Generates a number of NPCs, passing each to the receiver as it is
+	 * completed. This returns once every NPC has been generated or has
+	 * failed; any failures are logged.
+	 *
+	 * @param count The number of NPCs to generate
+	 * @param receiver The NPCReceiver to be given the NPCs
+	 * @return The number of NPCs successfully generated
+	 * @throws InterruptedException If the calling thread is interrupted
+	 *             while waiting for the NPCs
+	 */
+	public int generate(final int count, final NPCReceiver receiver)
+		throws InterruptedException
+	{
+		ExecutorService executor =
+				Executors.newFixedThreadPool(Math.min(theThreads, Math.max(
+					1, count)), new ThreadFactory()
+				{
+					@Override
+					public Thread newThread(Runnable r)
+					{
+						Thread thread = new Thread(r);
+						thread.setDaemon(true);
+						thread.setName("npc-generator-thread"); //$NON-NLS-1$
+						return thread;
+					}
+				});
+		int generated = 0;
+		try
+		{
+			CompletionService<GeneratedNPC> completion =
+					new ExecutorCompletionService<GeneratedNPC>(executor);
+			int window = 2 * Math.max(1, theThreads);
+			int next = 0;
+			int pending = 0;
+			while (next < count && pending < window)
+			{
+				if (submit(completion, next++))
+				{
+					pending++;
+				}
+			}
+			while (pending > 0)
+			{
+				try
+				{
+					GeneratedNPC result = completion.take().get();
+					receiver.npcGenerated(result.index, result.npc);
+					generated++;
+				}
+				catch (ExecutionException e)
+				{
+					Logging.errorPrint("Problem generation NPC", e.getCause());
+				}
+				pending--;
+				while (next < count && pending < window)
+				{
+					if (submit(completion, next++))
+					{
+						pending++;
+					}
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		return generated;
+	}
+
+	/**
+	 * Creates an NPC on the calling thread and submits its generation to the
+	 * worker threads.
+	 *
+	 * @param completion The CompletionService to submit the generation to
+	 * @param index The index of the NPC
+	 * @return true if the NPC was submitted; false if it could not be created
+	 */
+	private boolean submit(final CompletionService<GeneratedNPC> completion,
+		final int index)
+	{
+		Random random = new Random(getSeed(index));
+		PlayerCharacter npc;
+		beginQuietProcess(random);
+		try
+		{
+			npc = new PlayerCharacter(false, theCampaigns);
+		}
+		catch (RuntimeException e)
+		{
+			Logging.errorPrint("Problem generation NPC", e);
+			return false;
+		}
+		finally
+		{
+			endQuietProcess();
+		}
+		completion.submit(new GenerateTask(index, npc, random));
+		return true;
+	}
+
+	/**
+	 * Forces a quiet process which affects only the current thread.
+	 *
+	 * @param random The random number generator for the current thread
+	 */
+	private static void beginQuietProcess(final Random random)
+	{
+		RandomUtil.setThreadRandom(random);
+		ChooserFactory.setThreadChooserClassname(RandomChooser.class
+			.getName());
+		SettingsHandler.setThreadShowHPDialogAtLevelUp(Boolean.FALSE);
+		UIPropertyContext.setThreadSingleChoiceAction(Constants.
+			CHOOSER_SINGLE_CHOICE_METHOD_SELECT_EXIT);
+	}
+
+	/**
+	 * Restores the settings changed by beginQuietProcess for the current
+	 * thread.
+	 */
+	private static void endQuietProcess()
+	{
+		UIPropertyContext.setThreadSingleChoiceAction(null);
+		SettingsHandler.setThreadShowHPDialogAtLevelUp(null);
+		ChooserFactory.setThreadChooserClassname(null);
+		RandomUtil.setThreadRandom(null);
+	}
+
+	/**
+	 * Returns the seed of the random number generator for a single NPC.
+	 *
+	 * @param index The index of the NPC
+	 * @return The seed for the NPC
+	 */
+	long getSeed(final int index)
+	{
+		return theSeed ^ (index * SEED_STEP);
+	}
+
+	/**
+	 * Generates a single NPC, already created on the calling thread, on a
+	 * worker thread.
+	 */
+	private final class GenerateTask implements Callable<GeneratedNPC>
+	{
+		private final int index;
+		private final PlayerCharacter npc;
+		private final Random random;
+
+		private GenerateTask(final int index, final PlayerCharacter npc,
+			final Random random)
+		{
+			this.index = index;
+			this.npc = npc;
+			this.random = random;
+		}
+
+		@Override
+		public GeneratedNPC call()
+		{
+			beginQuietProcess(random);
+			try
+			{
+				theGenerator.generateNPC(npc, theAlign, theRace, theGender,
+					theClassList, theLevels, theRollMethod);
+				return new GeneratedNPC(index, npc);
+			}
+			finally
+			{
+				endQuietProcess();
+			}
+		}
+	}
+
+	/**
+	 * An NPC generated by a GenerateTask.
+	 */
+	private static final class GeneratedNPC
+	{
+		private final int index;
+		private final PlayerCharacter npc;
+
+		private GeneratedNPC(final int index, final PlayerCharacter npc)
+		{
+			this.index = index;
+			this.npc = npc;
+		}
+	}
+}
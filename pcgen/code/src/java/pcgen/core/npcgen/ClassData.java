@@ -92,7 +92,7 @@ public class ClassData
 	/**
 	 * @return <tt>WeightedCollection</tt> of stat abbreviations.
 	 */
-	public WeightedCollection<PCStat> getStatWeights()
+	public synchronized WeightedCollection<PCStat> getStatWeights()
 	{
 		// Make sure that we have all the stats
 		for (final PCStat stat : Globals.getContext().getReferenceContext()
@@ -217,7 +217,7 @@ public class ClassData
 		theDeityWeights.add(aDeity, aWeight);
 	}
 	
-	public WeightedCollection<Deity> getDeityWeights()
+	public synchronized WeightedCollection<Deity> getDeityWeights()
 	{
 		if ( theDeityWeights == null )
 		{
@@ -244,7 +244,7 @@ public class ClassData
 		domains.add(aDomain, aWeight);
 	}
 	
-	public WeightedCollection<Domain> getDomainWeights( final String aDeityKey ) 
+	public synchronized WeightedCollection<Domain> getDomainWeights( final String aDeityKey ) 
 	{
 		if ( theDomainWeights == null )
 		{
@@ -297,7 +297,7 @@ public class ClassData
 		}
 	}
 	
-	public WeightedCollection<Spell> getKnownSpellWeights( final int aLevel, PlayerCharacter pc ) 
+	public synchronized WeightedCollection<Spell> getKnownSpellWeights( final int aLevel, PlayerCharacter pc ) 
 	{
 		if ( theKnownSpellWeights == null )
 		{
@@ -349,7 +349,7 @@ public class ClassData
 		}
 	}
 	
-	public WeightedCollection<Spell> getPreparedSpellWeights( final int aLevel, PlayerCharacter pc ) 
+	public synchronized WeightedCollection<Spell> getPreparedSpellWeights( final int aLevel, PlayerCharacter pc ) 
 	{
 		if ( thePreparedSpellWeights == null )
 		{
@@ -378,7 +378,7 @@ public class ClassData
 		theSubClassWeights.add(aKey, aWeight);
 	}
 	
-	public WeightedCollection<String> getSubClassWeights()
+	public synchronized WeightedCollection<String> getSubClassWeights()
 	{
 		if ( theSubClassWeights == null )
 		{
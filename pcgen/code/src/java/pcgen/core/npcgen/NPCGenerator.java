@@ -103,7 +103,7 @@ public class NPCGenerator
 	
 	public static int getSubSkillWeightAdd()
 	{
-		return getInst().theSubSkillWeightAdd;
+		return theInstance.theSubSkillWeightAdd;
 	}
 	
 	/**
@@ -184,6 +184,27 @@ public class NPCGenerator
 		return WeightedCollection;
 	}
 
+	private WeightedCollection<SkillChoice> copySkillWeights(final WeightedCollection<SkillChoice> aSkillList)
+	{
+		// Selecting a skill from a choice changes the choice, so copy those too.
+		final WeightedCollection<SkillChoice> ret = new WeightedCollection<SkillChoice>();
+		for (Iterator<SkillChoice> iterator = aSkillList.unweightedIterator(); iterator.hasNext();)
+		{
+			final SkillChoice choice = iterator.next();
+			ret.add(new SkillChoice(choice), aSkillList.getWeight(choice));
+		}
+		return ret;
+	}
+
+	private String getRandomItem(final List<String> aList)
+	{
+		if (aList.isEmpty())
+		{
+			return Constants.EMPTY_STRING;
+		}
+		return aList.get(RandomUtil.getRandomInt(aList.size()));
+	}
+
 	private void selectSkills(final PlayerCharacter aPC, final WeightedCollection<SkillChoice> skillList,
 									 final PCClass aClass, final int level)
 	{
@@ -395,7 +416,9 @@ public class NPCGenerator
 	
 	private void selectDomains( final PlayerCharacter aPC, final PCClass aClass )
 	{
-		final WeightedCollection<Domain> domains = theConfiguration.getDomainWeights(aPC.getDeity().getKeyName(), aClass.getKeyName());
+		// Make a copy of the list because we are going to modify it.
+		final WeightedCollection<Domain> domains = new WeightedCollection<Domain>(
+				theConfiguration.getDomainWeights(aPC.getDeity().getKeyName(), aClass.getKeyName()));
 		for (Iterator<Domain> iterator = domains.iterator(); iterator.hasNext();)
 		{
 			Domain domain = iterator.next();
@@ -550,217 +573,243 @@ public class NPCGenerator
 
 		try
 		{
-			final int MAX_RETRIES = 5;
-			for ( int i = 0; i < MAX_RETRIES; i++ )
+			generateNPC(aPC, align, aRace, aGender, classList, levels,
+				aRollMethod);
+		}
+		catch (Exception e)
+		{
+			Logging.errorPrint("Problem generation NPC", e);
+		}
+		finally
+		{
+			SettingsHandler.setShowHPDialogAtLevelUp(tempShowHP);
+			UIPropertyContext.setSingleChoiceAction(tempChoicePref);
+			ChooserFactory.popChooserClassname();
+		}
+	}
+
+	/**
+	 * Generate a new NPC using the choosers and settings of the current
+	 * thread, which must already be set up to make choices without any
+	 * interaction. Nothing shared with other NPCs being generated is
+	 * changed, so several NPCs can be generated at once on separate threads.
+	 * 
+	 * @param aPC The PlayerCharacter to fill in options for
+	 * @param align Alignment options to choose from
+	 * @param aRace Race options to choose from
+	 * @param aGender Gender options to choose from
+	 * @param classList <tt>List</tt> of class options to choose from
+	 * @param levels <tt>List</tt> of level choices
+	 * @param aRollMethod the RollMethod to use for stats
+	 */
+	void generateNPC(	final PlayerCharacter aPC, 
+						final AlignGeneratorOption align,
+						final RaceGeneratorOption aRace, 
+						final GenderGeneratorOption aGender,
+						final List<ClassGeneratorOption> classList, 
+						final List<LevelGeneratorOption> levels,
+						final RollMethod aRollMethod)
+	{
+		final int MAX_RETRIES = 5;
+		for ( int i = 0; i < MAX_RETRIES; i++ )
+		{
+			PCAlignment randAlign = getAlignment( align );
+			if (randAlign != null)
 			{
-				PCAlignment randAlign = getAlignment( align );
-				if (randAlign != null)
-				{
-					Logging
-						.debugPrint("NPCGenerator: Selected " + randAlign + " for alignment " + align); //$NON-NLS-1$//$NON-NLS-2$
-					aPC.setAlignment(randAlign);
-				}
-				
-				final Race r = getRace(aRace);
-				if (r == null)
-				{
-					Logging.debugPrint( "NPCGenerator: Got null race.  Retrying." ); //$NON-NLS-1$
-					continue;
-				}
-				Logging.debugPrint( "NPCGenerator: Selected " + r + " for race " + aRace ); //$NON-NLS-1$ //$NON-NLS-2$
-				if (r.qualifies(aPC, r))
-				{
-					Logging.debugPrint( "NPCGenerator: PC qualifies for race " + r ); //$NON-NLS-1$
-					aPC.setRace(r);
-					break;
-				}
+				Logging
+					.debugPrint("NPCGenerator: Selected " + randAlign + " for alignment " + align); //$NON-NLS-1$//$NON-NLS-2$
+				aPC.setAlignment(randAlign);
 			}
-			if ( aPC.getRace() == Globals.s_EMPTYRACE )
+			
+			final Race r = getRace(aRace);
+			if (r == null)
 			{
-				Logging.errorPrint("Unable to select race");
-				return;
+				Logging.debugPrint( "NPCGenerator: Got null race.  Retrying." ); //$NON-NLS-1$
+				continue;
 			}
-			
-			final Gender gender = getGender( aGender );
-			Logging.debugPrint( "NPCGenerator: Selecting " + gender + " for gender " + aGender ); //$NON-NLS-1$ //$NON-NLS-2$
-			aPC.setGender(gender);
+			Logging.debugPrint( "NPCGenerator: Selected " + r + " for race " + aRace ); //$NON-NLS-1$ //$NON-NLS-2$
+			if (r.qualifies(aPC, r))
+			{
+				Logging.debugPrint( "NPCGenerator: PC qualifies for race " + r ); //$NON-NLS-1$
+				aPC.setRace(r);
+				break;
+			}
+		}
+		if ( aPC.getRace() == Globals.s_EMPTYRACE )
+		{
+			Logging.errorPrint("Unable to select race");
+			return;
+		}
+		
+		final Gender gender = getGender( aGender );
+		Logging.debugPrint( "NPCGenerator: Selecting " + gender + " for gender " + aGender ); //$NON-NLS-1$ //$NON-NLS-2$
+		aPC.setGender(gender);
 
-			boolean doneRacialClasses = false;
-			for (int i = 0; i < classList.size(); i++)
+		boolean doneRacialClasses = false;
+		for (int i = 0; i < classList.size(); i++)
+		{
+			int numLevels = getLevel(levels.get(i));
+			Logging.debugPrint( "NPCGenerator: Selecting " + numLevels + " for level " + levels.get(i) ); //$NON-NLS-1$ //$NON-NLS-2$
+			PCClass aClass = null;
+			
+			if ( !doneRacialClasses && aPC.hasClass())
 			{
-				int numLevels = getLevel(levels.get(i));
-				Logging.debugPrint( "NPCGenerator: Selecting " + numLevels + " for level " + levels.get(i) ); //$NON-NLS-1$ //$NON-NLS-2$
-				PCClass aClass = null;
-				
-				if ( !doneRacialClasses && aPC.hasClass())
-				{
-					aClass = aPC.getClassList().get(0);
-					numLevels = aPC.getLevel(aClass);
-					doneRacialClasses = true;
-					i--;
-				}
-				else
+				aClass = aPC.getClassList().get(0);
+				numLevels = aPC.getLevel(aClass);
+				doneRacialClasses = true;
+				i--;
+			}
+			else
+			{
+				doneRacialClasses = true;
+				for ( ; ; )
 				{
-					doneRacialClasses = true;
-					for ( ; ; )
+					aClass = getClass(classList.get(i));
+					if (aClass == null)
 					{
-						aClass = getClass(classList.get(i));
-						if (aClass == null)
-						{
-							break;
-						}
-						if (aClass.getSafe(ObjectKey.VISIBILITY).equals(Visibility.DEFAULT)
-							&& aClass.qualifies(aPC, aClass))
-						{
-							Logging.debugPrint( "NPCGenerator: Selecting " + aClass + " for class " + classList.get(i) ); //$NON-NLS-1$ //$NON-NLS-2$
-							break;
-						}
-						// TODO Remove a failed class from the list.
-						Logging.errorPrint("Counld not add a level of " + aClass);
-						aClass = null;
 						break;
 					}
+					if (aClass.getSafe(ObjectKey.VISIBILITY).equals(Visibility.DEFAULT)
+						&& aClass.qualifies(aPC, aClass))
+					{
+						Logging.debugPrint( "NPCGenerator: Selecting " + aClass + " for class " + classList.get(i) ); //$NON-NLS-1$ //$NON-NLS-2$
+						break;
+					}
+					// TODO Remove a failed class from the list.
+					Logging.errorPrint("Counld not add a level of " + aClass);
+					aClass = null;
+					break;
 				}
-				if (aClass == null)
-				{
-					continue;
-				}
-				
-				final PCClass classCopy = aClass.clone();
-				if ( classCopy.containsListFor(ListKey.SUB_CLASS) )
-				{
-					selectSubClass(aPC, classCopy);
-				}
-				if (i == 0)
+			}
+			if (aClass == null)
+			{
+				continue;
+			}
+			
+			final PCClass classCopy = aClass.clone();
+			if ( classCopy.containsListFor(ListKey.SUB_CLASS) )
+			{
+				selectSubClass(aPC, classCopy);
+			}
+			if (i == 0)
+			{
+				generateStats(aPC, classCopy, aRollMethod);
+				selectDeity(aPC, classCopy);
+			}
+
+			int highestSpellLevel = aPC.getSpellSupport(aClass).getHighestLevelSpell(aPC);
+			final int[] selectedSpells = new int[highestSpellLevel + 1];
+			for ( int k = 0; k < highestSpellLevel; k++ ) { selectedSpells[k] = 0; }
+			
+			final int[] bonusSpells = new int[highestSpellLevel + 1];
+			for ( int k = 0; k < highestSpellLevel; k++ ) { bonusSpells[k] = 0; }
+
+			// Make a copy of the list because we are going to modify it.
+			WeightedCollection<SkillChoice> skillList = copySkillWeights(getSkillWeights(classCopy, aPC));
+			WeightedCollection<Ability> featList = new WeightedCollection<Ability>(getFeatWeights(classCopy));
+			for (int j = 0; j < numLevels; j++)
+			{
+				if ( i >= 0 )
 				{
-					generateStats(aPC, classCopy, aRollMethod);
-					selectDeity(aPC, classCopy);
+					aPC.incrementClassLevel(1, classCopy, true);
 				}
 
-				int highestSpellLevel = aPC.getSpellSupport(aClass).getHighestLevelSpell(aPC);
-				final int[] selectedSpells = new int[highestSpellLevel + 1];
-				for ( int k = 0; k < highestSpellLevel; k++ ) { selectedSpells[k] = 0; }
+				final PCClass pcClass = aPC.getClassKeyed(classCopy.getKeyName());
+				selectSkills(aPC, skillList, pcClass, j + 1);
+				selectFeats(aPC, featList);
 				
-				final int[] bonusSpells = new int[highestSpellLevel + 1];
-				for ( int k = 0; k < highestSpellLevel; k++ ) { bonusSpells[k] = 0; }
-
-				// Make a copy of the list because we are going to modify it.
-				WeightedCollection<SkillChoice> skillList = new WeightedCollection<SkillChoice>(getSkillWeights(classCopy, aPC));
-				WeightedCollection<Ability> featList = new WeightedCollection<Ability>(getFeatWeights(classCopy));
-				for (int j = 0; j < numLevels; j++)
+				selectDomains( aPC, pcClass );
+				
+				if (pcClass.get(StringKey.SPELLTYPE) != null)
 				{
-					if ( i >= 0 )
-					{
-						aPC.incrementClassLevel(1, classCopy, true);
-					}
-
-					final PCClass pcClass = aPC.getClassKeyed(classCopy.getKeyName());
-					selectSkills(aPC, skillList, pcClass, j + 1);
-					selectFeats(aPC, featList);
-					
-					selectDomains( aPC, pcClass );
-					
-					if (pcClass.get(StringKey.SPELLTYPE) != null)
+					// This is a spellcasting class.  We may have to select
+					// spells of some sort (known or prepared).
+					if ( aPC.getSpellSupport(pcClass).hasKnownList() || aPC.getSpellSupport(pcClass).hasKnownSpells(aPC) )
 					{
-						// This is a spellcasting class.  We may have to select
-						// spells of some sort (known or prepared).
-						if ( aPC.getSpellSupport(pcClass).hasKnownList() || aPC.getSpellSupport(pcClass).hasKnownSpells(aPC) )
+						Logging.debugPrint("NPCGenerator: known spells to select"); //$NON-NLS-1$
+						for (int lvl = 0; lvl <= highestSpellLevel; ++lvl)
 						{
-							Logging.debugPrint("NPCGenerator: known spells to select"); //$NON-NLS-1$
-							for (int lvl = 0; lvl <= highestSpellLevel; ++lvl)
+							if (aPC.availableSpells(lvl, pcClass, Globals.getDefaultSpellBook(), true, true))
 							{
-								if (aPC.availableSpells(lvl, pcClass, Globals.getDefaultSpellBook(), true, true))
+								final int a = aPC.getSpellSupport(pcClass).getKnownForLevel(lvl, "null", aPC);
+								//final int bonus = aPC.getSpellSupport(pcClass).getSpecialtyKnownForLevel(lvl, aPC);
+								Logging.debugPrint("NPCGenerator: " + a + "known spells to select"); //$NON-NLS-1$ //$NON-NLS-2$
+								
+								final WeightedCollection<Spell> spellChoices = getKnownSpellWeights(aPC, pcClass, lvl);
+
+								final int numToSelect = a - selectedSpells[lvl];
+								for ( int sp = 0; sp < numToSelect; sp ++ )
 								{
-									final int a = aPC.getSpellSupport(pcClass).getKnownForLevel(lvl, "null", aPC);
-									//final int bonus = aPC.getSpellSupport(pcClass).getSpecialtyKnownForLevel(lvl, aPC);
-									Logging.debugPrint("NPCGenerator: " + a + "known spells to select"); //$NON-NLS-1$ //$NON-NLS-2$
-									
-									final WeightedCollection<Spell> spellChoices = getKnownSpellWeights(aPC, pcClass, lvl);
-
-									final int numToSelect = a - selectedSpells[lvl];
-									for ( int sp = 0; sp < numToSelect; sp ++ )
-									{
-										selectSpell( aPC, pcClass, null, Globals.getDefaultSpellBook(), spellChoices, lvl );
-										selectedSpells[lvl]++;
-									}
-									
+									selectSpell( aPC, pcClass, null, Globals.getDefaultSpellBook(), spellChoices, lvl );
+									selectedSpells[lvl]++;
 								}
+								
 							}
 						}
-						else
+					}
+					else
+					{
+						// Prepared spells?
+						Logging.debugPrint("NPCGenerator: prepared spells to select"); //$NON-NLS-1$
+						
+						aPC.addSpellBook("Prepared Spells");
+						for (int lvl = 0; lvl <= highestSpellLevel; ++lvl)
 						{
-							// Prepared spells?
-							Logging.debugPrint("NPCGenerator: prepared spells to select"); //$NON-NLS-1$
+							final int castTot = aPC.getSpellSupport(pcClass).getCastForLevel(lvl, "Prepared Spells", true, true, aPC);
+							final int castNon = aPC.getSpellSupport(pcClass).getCastForLevel(lvl, "Prepared Spells", false, true, aPC);
+							final int castSpec = castTot - castNon;
+							Logging.debugPrint("NPCGenerator: " + castTot + "+" + castSpec + " prepared spells to select"); //$NON-NLS-1$ //$NON-NLS-2$
+							if ( castSpec - bonusSpells[lvl] > 0 )
+							{
+								selectDomainSpell( aPC, pcClass, lvl );
+								bonusSpells[lvl]++;
+							}
 							
-							aPC.addSpellBook("Prepared Spells");
-							for (int lvl = 0; lvl <= highestSpellLevel; ++lvl)
+							if (castTot > 0)
 							{
-								final int castTot = aPC.getSpellSupport(pcClass).getCastForLevel(lvl, "Prepared Spells", true, true, aPC);
-								final int castNon = aPC.getSpellSupport(pcClass).getCastForLevel(lvl, "Prepared Spells", false, true, aPC);
-								final int castSpec = castTot - castNon;
-								Logging.debugPrint("NPCGenerator: " + castTot + "+" + castSpec + " prepared spells to select"); //$NON-NLS-1$ //$NON-NLS-2$
-								if ( castSpec - bonusSpells[lvl] > 0 )
+								final WeightedCollection<Spell> spellChoices = getPreparedSpellWeights(aPC, pcClass, lvl);
+
+								final int numToSelect = castNon - selectedSpells[lvl];
+								for ( int sp = 0; sp < numToSelect; sp ++ )
 								{
-									selectDomainSpell( aPC, pcClass, lvl );
-									bonusSpells[lvl]++;
+									selectSpell( aPC, pcClass, null, "Prepared Spells", spellChoices, lvl );
+									selectedSpells[lvl]++;
 								}
 								
-								if (castTot > 0)
-								{
-									final WeightedCollection<Spell> spellChoices = getPreparedSpellWeights(aPC, pcClass, lvl);
-
-									final int numToSelect = castNon - selectedSpells[lvl];
-									for ( int sp = 0; sp < numToSelect; sp ++ )
-									{
-										selectSpell( aPC, pcClass, null, "Prepared Spells", spellChoices, lvl );
-										selectedSpells[lvl]++;
-									}
-									
-								}
 							}
 						}
 					}
 				}
 			}
-			
-			final String randBioString = "EYES.HAIR.SKIN.HT.WT.AGE."; //$NON-NLS-1$
-			aPC.getBioSet().randomize(randBioString, aPC);
-			
-			final List<String> globalHairStyleList = SystemCollections.getUnmodifiableHairStyleList();
-			aPC.setHairStyle(globalHairStyleList.get(RandomUtil.getRandomInt(globalHairStyleList.size())));
-			final List<String> speechList = SystemCollections.getUnmodifiableSpeechList();
-			aPC.setSpeechTendency(speechList.get(RandomUtil.getRandomInt(speechList.size())));
-			final List<String> globalPhobiaList = SystemCollections.getUnmodifiablePhobiaList();
-			aPC.setPhobias(globalPhobiaList.get(RandomUtil.getRandomInt(globalPhobiaList.size())));
-			final List<String> globalInterestsList = SystemCollections.getUnmodifiableInterestsList();
-			aPC.setInterests(globalInterestsList.get(RandomUtil.getRandomInt(globalInterestsList.size())));
-			final List<String> globalPhraseList = SystemCollections.getUnmodifiablePhraseList();
-			aPC.setCatchPhrase(globalPhraseList.get(RandomUtil.getRandomInt(globalPhraseList.size())));
-			final List<String> globalTraitList = SystemCollections.getUnmodifiableTraitList();
-			aPC.setTrait1(globalTraitList.get(RandomUtil.getRandomInt(globalTraitList.size())));
-			aPC.setTrait2(globalTraitList.get(RandomUtil.getRandomInt(globalTraitList.size())));
-
-			final List<String> globalCityList = SystemCollections.getUnmodifiableCityList();
-			aPC.setResidence(globalCityList.get(RandomUtil.getRandomInt(globalCityList.size())));
-			final List<String> globalLocationList = SystemCollections.getUnmodifiableLocationList();
-			aPC.setLocation(globalLocationList.get(RandomUtil.getRandomInt(globalLocationList.size())));
-			final List<String> globalBirthplaceList = SystemCollections.getUnmodifiableBirthplaceList();
-			aPC.setBirthplace(globalBirthplaceList.get(RandomUtil.getRandomInt(globalBirthplaceList.size())));
-			
-			//TODO: Link in with the doomsday book name generator
+		}
+		
+		final String randBioString = "EYES.HAIR.SKIN.HT.WT.AGE."; //$NON-NLS-1$
+		aPC.getBioSet().randomize(randBioString, aPC);
+		
+		final List<String> globalHairStyleList = SystemCollections.getUnmodifiableHairStyleList();
+		aPC.setHairStyle(getRandomItem(globalHairStyleList));
+		final List<String> speechList = SystemCollections.getUnmodifiableSpeechList();
+		aPC.setSpeechTendency(getRandomItem(speechList));
+		final List<String> globalPhobiaList = SystemCollections.getUnmodifiablePhobiaList();
+		aPC.setPhobias(getRandomItem(globalPhobiaList));
+		final List<String> globalInterestsList = SystemCollections.getUnmodifiableInterestsList();
+		aPC.setInterests(getRandomItem(globalInterestsList));
+		final List<String> globalPhraseList = SystemCollections.getUnmodifiablePhraseList();
+		aPC.setCatchPhrase(getRandomItem(globalPhraseList));
+		final List<String> globalTraitList = SystemCollections.getUnmodifiableTraitList();
+		aPC.setTrait1(getRandomItem(globalTraitList));
+		aPC.setTrait2(getRandomItem(globalTraitList));
+
+		final List<String> globalCityList = SystemCollections.getUnmodifiableCityList();
+		aPC.setResidence(getRandomItem(globalCityList));
+		final List<String> globalLocationList = SystemCollections.getUnmodifiableLocationList();
+		aPC.setLocation(getRandomItem(globalLocationList));
+		final List<String> globalBirthplaceList = SystemCollections.getUnmodifiableBirthplaceList();
+		aPC.setBirthplace(getRandomItem(globalBirthplaceList));
+		
+		//TODO: Link in with the doomsday book name generator
 //			final Names nameGen = Names.getInstance();
 //			nameGen.init(aNameChoice, aPC);
 //			aPC.setName(nameGen.getRandomName());
-		}
-		catch (Exception e)
-		{
-			Logging.errorPrint("Problem generation NPC", e);
-		}
-		finally
-		{
-			SettingsHandler.setShowHPDialogAtLevelUp(tempShowHP);
-			UIPropertyContext.setSingleChoiceAction(tempChoicePref);
-			ChooserFactory.popChooserClassname();
-		}
 	}
 }
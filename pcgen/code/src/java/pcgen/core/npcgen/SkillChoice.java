@@ -70,6 +70,18 @@ public class SkillChoice
 		}
 	}
 	
+	/**
+	 * Creates a copy of a SkillChoice. Selecting skills from the copy does not
+	 * change the weights of the skills in the original.
+	 * 
+	 * @param aChoice The SkillChoice to copy
+	 */
+	public SkillChoice(final SkillChoice aChoice)
+	{
+		theKey = aChoice.theKey;
+		theSkillList = new WeightedCollection<Skill>(aChoice.theSkillList);
+	}
+	
 	/**
 	 * Gets the skill associated with this chioce.  If this choice is a group
 	 * of choices, the specific skill will be selected randomly.
@@ -128,7 +128,9 @@ public final class PrereqHandler
 	}
 
 	/**
-	 * Returns true if the character passes the prereq.
+	 * Returns true if the character passes the prereq. If the character's
+	 * PrerequisiteCache is enabled, the result is held so that the prereq is
+	 * only tested again for the same caller once the character has changed.
 	 * @param prereq The prerequisite to test.
 	 * @param aPC The character to test against
 	 * @param caller The CDOMObject that is calling this method
@@ -139,10 +141,47 @@ public final class PrereqHandler
 		final PlayerCharacter aPC,
 		final Object caller)
 	{
-		if (aPC == null && prereq.isCharacterRequired())
+		if (aPC == null)
 		{
-			return true;
+			return prereq.isCharacterRequired() || test(prereq, aPC, caller);
+		}
+		final PrerequisiteCache cache = aPC.getPrerequisiteCache();
+		if (!cache.isEnabled() || aPC.getVariableProcessor().isCachePaused())
+		{
+			return test(prereq, aPC, caller);
 		}
+		final Boolean held = cache.get(prereq, caller, aPC.getSerial());
+		if (held != null)
+		{
+			return held.booleanValue();
+		}
+		final PrerequisiteCache.Evaluation eval = cache.beginEvaluation(aPC.getSerial());
+		final boolean result;
+		try
+		{
+			result = test(prereq, aPC, caller);
+		}
+		finally
+		{
+			eval.end();
+		}
+		cache.put(prereq, caller, eval, aPC.getSerial(), result);
+		return result;
+	}
+
+	/**
+	 * Tests if the character passes the prereq, without reference to any
+	 * held result.
+	 * @param prereq The prerequisite to test.
+	 * @param aPC The character to test against
+	 * @param caller The CDOMObject that is calling this method
+	 * @return true if the character passes the prereq
+	 */
+	private static boolean test(
+		final Prerequisite prereq,
+		final PlayerCharacter aPC,
+		final Object caller)
+	{
 		final PrerequisiteTestFactory factory = PrerequisiteTestFactory.getInstance();
 		final PrerequisiteTest test = factory.getTest(prereq.getKind());
 
@@ -0,0 +1,264 @@
+/*
+ * PrerequisiteCache.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.core.prereq;
+
+import pcgen.cdom.base.PCGenIdentifier;
+import pcgen.cdom.enumeration.CharID;
+import pcgen.cdom.facet.base.AbstractStorageFacet;
+import pcgen.cdom.facet.base.CacheAccessListener;
+import pcgen.cdom.facet.base.ChangeCountedCache;
+
+/**
+ * <code>PrerequisiteCache</code> holds the results of the prerequisites
+ * tested against a single character, so that the same prerequisite tested for
+ * the same caller is only evaluated once while the character is unchanged.
+ * <p>
+ * Results are held by the identity of the Prerequisite and of the caller.
+ * Prerequisites loaded from the data are not changed once loaded, so a result
+ * remains valid until the character changes. Every result is discarded when
+ * the serial of the character changes or one of its facets reports a change.
+ * A result is only held if neither happened while the prerequisite was being
+ * evaluated.
+ * <p>
+ * Not every change to a character is reflected in its serial or reported by
+ * its facets (the equipment carried, for example, may change in place). The
+ * facets read while a prerequisite is evaluated are therefore recorded, and
+ * the result is only held if every facet read reports all of its changes and
+ * belongs to this character. The cache is enabled while the character is
+ * being exported.
+ *
+ * @see ChangeCountedCache
+ */
+public final class PrerequisiteCache
+{
+	private final CharID id;
+
+	private final ChangeCountedCache<Boolean> results;
+
+	private boolean enabled = false;
+
+	private long hits;
+
+	private long misses;
+
+	/**
+	 * Create a new, disabled, cache for the character identified by the
+	 * given CharID.
+	 *
+	 * @param id The CharID of the character whose results are to be held.
+	 */
+	public PrerequisiteCache(CharID id)
+	{
+		this.id = id;
+		results = new ChangeCountedCache<Boolean>(id);
+	}
+
+	/**
+	 * Enables or disables the cache. Any held results are discarded.
+	 *
+	 * @param enable true to hold the results of prerequisite tests.
+	 */
+	public void setEnabled(boolean enable)
+	{
+		synchronized (this)
+		{
+			if (enabled == enable)
+			{
+				return;
+			}
+			enabled = enable;
+		}
+		if (enable)
+		{
+			results.startListening();
+		}
+		else
+		{
+			results.stopListening();
+		}
+	}
+
+	/**
+	 * @return true if the results of prerequisite tests are being held.
+	 */
+	public synchronized boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * Retrieves the result of a prerequisite tested for a caller, if the
+	 * result was held at the given serial.
+	 *
+	 * @param prereq The prerequisite being tested.
+	 * @param caller The object the character is being tested for.
+	 * @param currentSerial The current serial of the character.
+	 * @return The result of the test, or null if no current result is held.
+	 */
+	Boolean get(Prerequisite prereq, Object caller, int currentSerial)
+	{
+		Boolean result = results.get(prereq, caller, currentSerial);
+		synchronized (this)
+		{
+			if (result == null)
+			{
+				misses++;
+			}
+			else
+			{
+				hits++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Starts recording the facets read on this thread while a prerequisite
+	 * is evaluated. The returned Evaluation must be ended (in a finally
+	 * block) once the prerequisite has been tested, and then passed to put.
+	 *
+	 * @param currentSerial The current serial of the character.
+	 * @return The Evaluation recording the reads.
+	 */
+	Evaluation beginEvaluation(int currentSerial)
+	{
+		Evaluation eval =
+				new Evaluation(results.getChangeCount(currentSerial));
+		eval.previousListener = AbstractStorageFacet.setReadListener(eval);
+		return eval;
+	}
+
+	/**
+	 * Holds the result of a prerequisite tested for a caller. The result is
+	 * not held if the character has changed since the test started, or if
+	 * the test read anything whose changes are not reported.
+	 *
+	 * @param prereq The prerequisite which was tested.
+	 * @param caller The object the character was tested for.
+	 * @param eval The Evaluation which recorded the test.
+	 * @param currentSerial The serial of the character now the test is complete.
+	 * @param result The result of the test.
+	 */
+	void put(Prerequisite prereq, Object caller, Evaluation eval,
+		int currentSerial, boolean result)
+	{
+		if (isEnabled() && !eval.untracked)
+		{
+			results.put(prereq, caller, eval.changeCount, currentSerial,
+				Boolean.valueOf(result));
+		}
+	}
+
+	/**
+	 * Discards every held result, such as after a change to the character
+	 * which is not reflected in its serial.
+	 */
+	public void clear()
+	{
+		results.clear();
+	}
+
+	/**
+	 * @return The number of tests answered from the held results.
+	 */
+	public synchronized long getHitCount()
+	{
+		return hits;
+	}
+
+	/**
+	 * @return The number of tests which had to be evaluated while the cache
+	 *         was enabled.
+	 */
+	public synchronized long getMissCount()
+	{
+		return misses;
+	}
+
+	/**
+	 * @return The fraction of tests answered from the held results, from 0 to
+	 *         1; 0 if no tests have been made.
+	 */
+	public synchronized double getHitRate()
+	{
+		long total = hits + misses;
+		return (total == 0) ? 0.0 : ((double) hits) / total;
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return "PrerequisiteCache [hits=" + hits + " misses=" + misses //$NON-NLS-1$ //$NON-NLS-2$
+			+ " held=" + results.size() + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Records the facets read on one thread while a prerequisite is tested.
+	 * Reads are passed on to the listener that was installed before, so an
+	 * enclosing evaluation (or formula) also sees them.
+	 */
+	final class Evaluation implements CacheAccessListener
+	{
+		private final long changeCount;
+
+		private CacheAccessListener previousListener;
+
+		private boolean untracked = false;
+
+		private Evaluation(long changeCount)
+		{
+			this.changeCount = changeCount;
+		}
+
+		/**
+		 * Stop recording and restore the listener which was installed when
+		 * the evaluation began.
+		 */
+		void end()
+		{
+			AbstractStorageFacet.setReadListener(previousListener);
+		}
+
+		@Override
+		public void cacheRead(PCGenIdentifier readId, Class<?> facetClass,
+			boolean changeTracked)
+		{
+			if (previousListener != null)
+			{
+				previousListener.cacheRead(readId, facetClass, changeTracked);
+			}
+			if (id.equals(readId))
+			{
+				untracked |= !changeTracked;
+			}
+			else if (readId instanceof CharID)
+			{
+				// Changes to another character are not reported to this cache
+				untracked = true;
+			}
+			// Data set information does not change once loaded
+		}
+
+		@Override
+		public void cacheChanged(PCGenIdentifier charID, Class<?> facetClass)
+		{
+			// Only registered for reads
+		}
+	}
+}
@@ -20,6 +20,8 @@
  */
 package pcgen.facade.core;
 
+import java.util.List;
+
 /**
  *
  * @author Connor Petty <cpmeister@users.sourceforge.net>
@@ -118,6 +120,14 @@ public interface InfoFactory
 	 */
 	public String getHTMLInfo(InfoFacade facade);
 
+	/**
+	 * Prepare the HTML information strings of facades which are likely to be
+	 * requested soon, such as those next to the selected row of a table, so
+	 * that they can be returned without delay when requested.
+	 * @param facades The objects to be described.
+	 */
+	public void prefetchHTMLInfo(List<? extends InfoFacade> facades);
+
 	/**
 	 * Produce the HTML information string for spell book or spell list.
 	 * @param name The spell book or spell list.
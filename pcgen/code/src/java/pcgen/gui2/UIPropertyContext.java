@@ -67,6 +67,8 @@ public final class UIPropertyContext extends PropertyContext
 	 */
 	public static final String C_PROP_INITIAL_TAB = "initialTab";
 	private static UIPropertyContext instance = null;
+	private static final ThreadLocal<Integer> THREAD_SINGLE_CHOICE_ACTION =
+			new ThreadLocal<Integer>();
 
 	private UIPropertyContext()
 	{
@@ -223,14 +225,45 @@ public final class UIPropertyContext extends PropertyContext
 
 	public static int getSingleChoiceAction()
 	{
+		Integer threadAction = THREAD_SINGLE_CHOICE_ACTION.get();
+		if (threadAction != null)
+		{
+			return threadAction;
+		}
 		return getInstance().initInt(SINGLE_CHOICE_ACTION,
 			Constants.CHOOSER_SINGLE_CHOICE_METHOD_NONE);
 	}
 	
 	public static void setSingleChoiceAction(int action)
 	{
+		if (THREAD_SINGLE_CHOICE_ACTION.get() != null)
+		{
+			THREAD_SINGLE_CHOICE_ACTION.set(action);
+			return;
+		}
 		getInstance().setInt(SINGLE_CHOICE_ACTION, action);
 	}
+
+	/**
+	 * Gives the current thread its own single choice action. While the thread
+	 * has its own action, changes made on the thread only affect that thread,
+	 * so characters can be processed in the background without changing the
+	 * preference.
+	 * 
+	 * @param action The single choice action for the current thread, or null
+	 * to return the thread to the shared preference.
+	 */
+	public static void setThreadSingleChoiceAction(Integer action)
+	{
+		if (action == null)
+		{
+			THREAD_SINGLE_CHOICE_ACTION.remove();
+		}
+		else
+		{
+			THREAD_SINGLE_CHOICE_ACTION.set(action);
+		}
+	}
 	
 	/**
 	 * Attempts to create the property key for this character for the given property.
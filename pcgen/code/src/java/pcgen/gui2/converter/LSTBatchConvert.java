@@ -0,0 +1,278 @@
+/*
+ * LSTBatchConvert.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.gui2.converter;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Level;
+
+import org.apache.commons.lang.SystemUtils;
+
+import pcgen.cdom.enumeration.IntegerKey;
+import pcgen.cdom.enumeration.ListKey;
+import pcgen.core.Campaign;
+import pcgen.core.GameMode;
+import pcgen.core.Globals;
+import pcgen.core.SettingsHandler;
+import pcgen.core.SystemCollections;
+import pcgen.io.PCGFile;
+import pcgen.persistence.CampaignFileLoader;
+import pcgen.persistence.GameModeFileLoader;
+import pcgen.persistence.lst.CampaignSourceEntry;
+import pcgen.rules.context.EditorLoadContext;
+import pcgen.system.ConfigurationSettings;
+import pcgen.system.Main;
+import pcgen.system.PCGenPropBundle;
+import pcgen.system.PCGenSettings;
+import pcgen.system.PropertyContextFactory;
+import pcgen.util.Logging;
+
+/**
+ * <code>LSTBatchConvert</code> runs the data converter without a user
+ * interface, converting every campaign for a game mode in a source directory.
+ * Source files are read and converted files written on a pool of worker
+ * threads, and the time taken and the number of tokens changed is reported
+ * for each file.
+ * <p>
+ * Usage: LSTBatchConvert gameMode sourceDir outputDir [threads]
+ * <p>
+ * Where the conversion needs a decision the default choice is taken, and
+ * where it needs input an error is logged so the converted file can be
+ * corrected by hand.
+ */
+public final class LSTBatchConvert implements ConversionDecider
+{
+
+	private LSTBatchConvert()
+	{
+		// Only run from main
+	}
+
+	private static void printUsage()
+	{
+		System.err.println("Usage: LSTBatchConvert gameMode sourceDir " //$NON-NLS-1$
+			+ "outputDir [threads]"); //$NON-NLS-1$
+	}
+
+	public static void main(String[] args)
+	{
+		if (args.length < 3)
+		{
+			printUsage();
+			System.exit(1);
+		}
+		int threads = Runtime.getRuntime().availableProcessors();
+		if (args.length > 3)
+		{
+			try
+			{
+				threads = Integer.parseInt(args[3]);
+			}
+			catch (NumberFormatException e)
+			{
+				threads = 0;
+			}
+			if (threads < 1)
+			{
+				System.err.println("The number of threads must be a whole " //$NON-NLS-1$
+					+ "number of at least 1: " + args[3]); //$NON-NLS-1$
+				printUsage();
+				System.exit(1);
+			}
+		}
+
+		Logging.log(Level.INFO, "Starting PCGen Data Converter v" //$NON-NLS-1$
+			+ PCGenPropBundle.getVersionNumber() + " in batch mode"); //$NON-NLS-1$
+		PropertyContextFactory configFactory =
+				new PropertyContextFactory(SystemUtils.USER_DIR);
+		configFactory.registerAndLoadPropertyContext(ConfigurationSettings
+			.getInstance());
+		Main.loadProperties(false);
+		Main.createLoadPluginTask().execute();
+		new GameModeFileLoader().execute();
+		new CampaignFileLoader().execute();
+
+		GameMode mode = SystemCollections.getGameModeNamed(args[0]);
+		if (mode == null)
+		{
+			Logging.errorPrint("Unknown game mode " + args[0]); //$NON-NLS-1$
+			System.exit(1);
+		}
+		File rootDir = new File(args[1]).getAbsoluteFile();
+		File outDir = new File(args[2]).getAbsoluteFile();
+
+		boolean success =
+				new LSTBatchConvert().convert(mode, rootDir, outDir, threads);
+		System.exit(success ? 0 : 1);
+	}
+
+	private boolean convert(GameMode mode, File rootDir, File outDir,
+		int threads)
+	{
+		List<Campaign> campaigns = getCampaigns(mode, rootDir);
+		if (campaigns.isEmpty())
+		{
+			Logging.errorPrint("No " + mode.getName() //$NON-NLS-1$
+				+ " campaigns found in " + rootDir); //$NON-NLS-1$
+			return false;
+		}
+
+		EditorLoadContext context = new EditorLoadContext();
+		SettingsHandler.setGame(mode.getName());
+		//Necessary for "good" behavior
+		mode.resolveInto(context.getReferenceContext());
+		//Necessary for those still using Globals.getContext
+		mode.resolveInto(mode.getContext().getReferenceContext());
+
+		String changeLogName =
+				PCGenSettings.getInstance().initProperty(
+					PCGenSettings.CONVERT_DATA_LOG_FILE, "dataChanges.log"); //$NON-NLS-1$
+		Writer changeLogWriter;
+		try
+		{
+			changeLogWriter = new FileWriter(changeLogName);
+			SimpleDateFormat simpleDateFormat =
+					new SimpleDateFormat("yyyy-MM-dd HH:mm"); //$NON-NLS-1$
+			changeLogWriter.append("PCGen Data Converter v"
+				+ PCGenPropBundle.getVersionNumber()
+				+ " - batch conversion started at "
+				+ simpleDateFormat.format(new Date()) + "\n");
+			changeLogWriter.append("Outputting files to " + outDir + "\n");
+		}
+		catch (IOException e)
+		{
+			Logging.errorPrint("Failed to initialise LSTConverter", e);
+			return false;
+		}
+
+		long start = System.currentTimeMillis();
+		LSTConverter converter =
+				new LSTConverter(context, rootDir, outDir.getAbsolutePath(),
+					this, changeLogWriter);
+		converter.initCampaigns(campaigns);
+		converter.processCampaigns(campaigns, threads);
+		boolean success = true;
+		try
+		{
+			new ObjectInjector(context, outDir, rootDir, converter)
+				.writeInjectedObjects(campaigns);
+		}
+		catch (IOException e)
+		{
+			Logging.errorPrint("Failed to write injected objects", e);
+			success = false;
+		}
+		try
+		{
+			changeLogWriter.close();
+		}
+		catch (IOException e)
+		{
+			Logging.errorPrint("LSTConverter.wrapUp failed", e);
+		}
+
+		int tokensChanged = 0;
+		List<LSTConverter.FileConversion> conversions =
+				converter.getFileConversions();
+		for (LSTConverter.FileConversion conversion : conversions)
+		{
+			tokensChanged += conversion.getTokensChanged();
+		}
+		Logging.log(Logging.INFO, "Converted " + conversions.size()
+			+ " files in " + (System.currentTimeMillis() - start) + " ms, "
+			+ tokensChanged + " tokens changed. See " + changeLogName
+			+ " for a log of all data changes.");
+		return success;
+	}
+
+	/**
+	 * Gather the campaigns for the game mode in the source directory,
+	 * together with the campaigns they include, in rank order.
+	 */
+	private static List<Campaign> getCampaigns(GameMode mode, File rootDir)
+	{
+		List<String> gameModeList = new ArrayList<String>();
+		gameModeList.addAll(mode.getAllowedModes());
+		String folderName = rootDir.toURI().toString();
+
+		List<Campaign> campaigns = new ArrayList<Campaign>();
+		for (Campaign campaign : Globals.getCampaignList())
+		{
+			if (campaign.containsAnyInList(ListKey.GAME_MODE, gameModeList)
+				&& campaign.getSourceURI().toString().startsWith(folderName))
+			{
+				campaigns.add(campaign);
+			}
+		}
+		for (Campaign campaign : new ArrayList<Campaign>(campaigns))
+		{
+			// Add all sub-files to the main campaign, regardless of exclusions
+			for (CampaignSourceEntry fName : campaign
+				.getSafeListFor(ListKey.FILE_PCC))
+			{
+				if (PCGFile.isPCGenCampaignFile(fName.getURI()))
+				{
+					Campaign c = Globals.getCampaignByURI(fName.getURI(), false);
+					if (c != null && !campaigns.contains(c))
+					{
+						campaigns.add(c);
+					}
+				}
+			}
+		}
+		Collections.sort(campaigns, new Comparator<Campaign>()
+		{
+			@Override
+			public int compare(Campaign c1, Campaign c2)
+			{
+				return c1.getSafe(IntegerKey.CAMPAIGN_RANK)
+					- c2.getSafe(IntegerKey.CAMPAIGN_RANK);
+			}
+		});
+		return campaigns;
+	}
+
+	@Override
+	public String getConversionDecision(String overallDescription,
+		List<String> choiceDescriptions, List<String> choiceTokenResults,
+		int defaultChoice)
+	{
+		Logging.log(Logging.LST_WARNING, overallDescription
+			+ " - batch conversion chose: "
+			+ choiceDescriptions.get(defaultChoice));
+		return choiceTokenResults.get(defaultChoice);
+	}
+
+	@Override
+	public String getConversionInput(String overallDescription)
+	{
+		Logging.log(Logging.LST_ERROR, overallDescription
+			+ " - no input is available in batch conversion, "
+			+ "the converted data must be corrected by hand.");
+		return "";
+	}
+}
@@ -24,12 +24,21 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.net.URI;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Observable;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import pcgen.base.util.DoubleKeyMapToList;
 import pcgen.cdom.base.CDOMObject;
@@ -64,15 +73,29 @@ import pcgen.util.Logging;
 
 public class LSTConverter extends Observable
 {
+	/**
+	 * The number of files per worker thread which processCampaigns will read
+	 * ahead of the file being converted, or hold waiting to be written.
+	 */
+	private static final int FILES_AHEAD_PER_THREAD = 2;
+
 	private final AbilityCategoryLoader catLoader = new AbilityCategoryLoader();
 	private final EditorLoadContext context;
 	private List<Loader> loaders;
 	private Set<URI> written = new HashSet<URI>();
 	private final String outDir;
 	private final File rootDir;
-	private final DoubleKeyMapToList<Loader, URI, CDOMObject> injected = new DoubleKeyMapToList<Loader, URI, CDOMObject>();
+	/*
+	 * Linked maps keep the injected objects in the order the files were
+	 * converted, so the injected files are the same from run to run.
+	 */
+	private final DoubleKeyMapToList<Loader, URI, CDOMObject> injected =
+			new DoubleKeyMapToList<Loader, URI, CDOMObject>(
+				LinkedHashMap.class, LinkedHashMap.class);
 	private final ConversionDecider decider;
 	private Writer changeLogWriter;
+	private final List<FileConversion> conversions =
+			new ArrayList<FileConversion>();
 	
 	public LSTConverter(EditorLoadContext lc, File root, String outputDir,
 			ConversionDecider cd, Writer changeLogWriter) 
@@ -132,88 +155,160 @@ public class LSTConverter extends Observable
 		startItem(campaign);
 	}
 
-	private void startItem(final Campaign campaign)
+	/**
+	 * Convert the files of several campaigns, reading the source files and
+	 * writing the converted files on a pool of worker threads. The tokens
+	 * are still converted one file at a time, in the same order as
+	 * processCampaign would convert them, as the load context and the token
+	 * converters are not thread safe and a file may refer to objects from
+	 * the files converted before it.
+	 * <p>
+	 * Only a few files per thread are read ahead of the file being
+	 * converted, and only as many converted files are held waiting to be
+	 * written, so the whole data set is never held in memory at once.
+	 * 
+	 * @param campaigns The campaigns to be converted, in order.
+	 * @param threads The number of worker threads to read and write files.
+	 */
+	public void processCampaigns(List<Campaign> campaigns, int threads)
 	{
-		for (final Loader loader : loaders)
+		List<ConversionJob> jobs = new ArrayList<ConversionJob>();
+		for (Campaign campaign : campaigns)
 		{
-			List<CampaignSourceEntry> files = loader.getFiles(campaign);
-			for (final CampaignSourceEntry cse : files)
+			for (final Loader loader : loaders)
 			{
-				final URI uri = cse.getURI();
-				setChanged();
-				notifyObservers(uri);
-				if (!"file".equalsIgnoreCase(uri.getScheme()))
+				for (final CampaignSourceEntry cse : loader.getFiles(campaign))
 				{
-					Logging.log(Logging.WARNING, "Skipping campaign " + uri
-						+ " from " + campaign.getSourceURI()
-						+ " as it is not a local file.");
-					continue;
+					File outFile = getOutputFile(campaign, cse);
+					if (outFile != null)
+					{
+						jobs.add(new ConversionJob(loader, cse.getURI(),
+							outFile));
+					}
 				}
-				File in = new File(uri);
-				// Use canonical name to stop reruns for the same file referred to using .. 
-				URI canonicalUri;
+			}
+		}
+
+		int poolSize = Math.max(1, threads);
+		int window = poolSize * FILES_AHEAD_PER_THREAD;
+		ExecutorService pool = Executors.newFixedThreadPool(poolSize);
+		try
+		{
+			Deque<Future<StringBuilder>> reads =
+					new ArrayDeque<Future<StringBuilder>>(window);
+			int nextRead = 0;
+			while (nextRead < jobs.size() && reads.size() < window)
+			{
+				reads.add(submitRead(pool, jobs.get(nextRead++)));
+			}
+
+			Deque<Future<?>> writes = new ArrayDeque<Future<?>>(window);
+			for (ConversionJob job : jobs)
+			{
+				setChanged();
+				notifyObservers(job.uri);
+				StringBuilder dataBuffer;
 				try
 				{
-					canonicalUri = in.getCanonicalFile().toURI();
-				}
-				catch (IOException e1)
-				{
-					Logging.log(
-						Logging.WARNING,
-						"Skipping campaign " + uri + " from "
-							+ campaign.getSourceURI()
-							+ " as it could not be made canonical. "
-							+ e1.getMessage());
-					continue;
+					dataBuffer = reads.remove().get();
 				}
-				if (written.contains(canonicalUri))
+				catch (ExecutionException e)
 				{
+					logLoadError(job.uri, e.getCause());
 					continue;
 				}
-				written.add(canonicalUri);
-				File base = findSubRoot(rootDir, in);
-				if (base == null)
+				finally
 				{
-					Logging.log(Logging.WARNING, "Skipping campaign " + uri
-						+ " from " + campaign.getSourceURI()
-						+ " as it is not in the selected source directory.");
-					continue;
+					if (nextRead < jobs.size())
+					{
+						reads.add(submitRead(pool, jobs.get(nextRead++)));
+					}
 				}
-				String relative = in.toString().substring(
-						base.toString().length() + 1);
-				if (!in.exists())
+				final String result = convertFile(job.loader, job.uri,
+					new File(job.uri), dataBuffer);
+				if (result != null)
 				{
-					Logging.log(Logging.WARNING, "Skipping campaign " + uri
-						+ " from " + campaign.getSourceURI()
-						+ " as it does not exist. Campaign is "
-						+ cse.getCampaign().getSourceURI());
-					continue;
+					if (writes.size() >= window)
+					{
+						awaitWrite(writes.remove());
+					}
+					final File outFile = job.outFile;
+					writes.add(pool.submit(new Callable<Void>()
+					{
+						@Override
+						public Void call() throws IOException
+						{
+							writeAtomically(outFile, result);
+							return null;
+						}
+					}));
 				}
-				File outFile = new File(outDir, File.separator + relative);
-				if (outFile.exists())
+			}
+			while (!writes.isEmpty())
+			{
+				awaitWrite(writes.remove());
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Logging.errorPrint("Conversion interrupted", e);
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	private static Future<StringBuilder> submitRead(ExecutorService pool,
+		final ConversionJob job)
+	{
+		return pool.submit(new Callable<StringBuilder>()
+		{
+			@Override
+			public StringBuilder call() throws Exception
+			{
+				return LstFileLoader.readFromURI(job.uri);
+			}
+		});
+	}
+
+	private static void awaitWrite(Future<?> write)
+		throws InterruptedException
+	{
+		try
+		{
+			write.get();
+		}
+		catch (ExecutionException e)
+		{
+			Logging.errorPrint("Failed to write converted file", e.getCause());
+		}
+	}
+
+	private void startItem(final Campaign campaign)
+	{
+		for (final Loader loader : loaders)
+		{
+			List<CampaignSourceEntry> files = loader.getFiles(campaign);
+			for (final CampaignSourceEntry cse : files)
+			{
+				final URI uri = cse.getURI();
+				setChanged();
+				notifyObservers(uri);
+				File outFile = getOutputFile(campaign, cse);
+				if (outFile == null)
 				{
-					Logging.log(Logging.WARNING, "Won't overwrite: " + outFile);
 					continue;
 				}
-				ensureParents(outFile.getParentFile());
 				try
 				{
-					changeLogWriter.append("\nProcessing " + in + "\n");
 					String result = load(uri, loader);
 					if (result != null)
 					{
-						Writer out =
-								new BufferedWriter(new OutputStreamWriter(
-									new FileOutputStream(outFile), "UTF-8"));
-						out.write(result);
-						out.close();
+						writeAtomically(outFile, result);
 					}
 				}
-				catch (PersistenceLayerException e)
-				{
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
 				catch (InterruptedException e)
 				{
 					// TODO Auto-generated catch block
@@ -228,6 +323,108 @@ public class LSTConverter extends Observable
 		}
 	}
 
+	/**
+	 * Identify the file a source file is to be converted to, and make sure
+	 * its directory exists. Each source file is only converted once.
+	 * 
+	 * @param campaign The campaign referring to the source file.
+	 * @param cse The source file entry.
+	 * @return The file to write the converted source to, or null if the
+	 *         source file is not to be converted.
+	 */
+	private File getOutputFile(Campaign campaign, CampaignSourceEntry cse)
+	{
+		final URI uri = cse.getURI();
+		if (!"file".equalsIgnoreCase(uri.getScheme()))
+		{
+			Logging.log(Logging.WARNING, "Skipping campaign " + uri
+				+ " from " + campaign.getSourceURI()
+				+ " as it is not a local file.");
+			return null;
+		}
+		File in = new File(uri);
+		// Use canonical name to stop reruns for the same file referred to using .. 
+		URI canonicalUri;
+		try
+		{
+			canonicalUri = in.getCanonicalFile().toURI();
+		}
+		catch (IOException e1)
+		{
+			Logging.log(
+				Logging.WARNING,
+				"Skipping campaign " + uri + " from "
+					+ campaign.getSourceURI()
+					+ " as it could not be made canonical. "
+					+ e1.getMessage());
+			return null;
+		}
+		if (written.contains(canonicalUri))
+		{
+			return null;
+		}
+		written.add(canonicalUri);
+		File base = findSubRoot(rootDir, in);
+		if (base == null)
+		{
+			Logging.log(Logging.WARNING, "Skipping campaign " + uri
+				+ " from " + campaign.getSourceURI()
+				+ " as it is not in the selected source directory.");
+			return null;
+		}
+		String relative = in.toString().substring(
+				base.toString().length() + 1);
+		if (!in.exists())
+		{
+			Logging.log(Logging.WARNING, "Skipping campaign " + uri
+				+ " from " + campaign.getSourceURI()
+				+ " as it does not exist. Campaign is "
+				+ cse.getCampaign().getSourceURI());
+			return null;
+		}
+		File outFile = new File(outDir, File.separator + relative);
+		if (outFile.exists())
+		{
+			Logging.log(Logging.WARNING, "Won't overwrite: " + outFile);
+			return null;
+		}
+		ensureParents(outFile.getParentFile());
+		return outFile;
+	}
+
+	/**
+	 * Write a converted file. The contents are written to a temporary file
+	 * alongside the output file, which is then renamed, so an output file
+	 * is never left partly written.
+	 * 
+	 * @param outFile The file to be written.
+	 * @param contents The converted contents.
+	 * @throws IOException If the file cannot be written.
+	 */
+	static void writeAtomically(File outFile, String contents)
+		throws IOException
+	{
+		File tempFile =
+				new File(outFile.getParentFile(), outFile.getName() + ".tmp");
+		Writer out =
+				new BufferedWriter(new OutputStreamWriter(new FileOutputStream(
+					tempFile), "UTF-8"));
+		try
+		{
+			out.write(contents);
+		}
+		finally
+		{
+			out.close();
+		}
+		if (!tempFile.renameTo(outFile))
+		{
+			tempFile.delete();
+			throw new IOException("Unable to rename " + tempFile + " to "
+				+ outFile);
+		}
+	}
+
 	private List<Loader> setupLoaders(EditorLoadContext context, Writer changeLogWriter)
 	{
 		List<Loader> loaderList = new ArrayList<Loader>();
@@ -294,29 +491,78 @@ public class LSTConverter extends Observable
 		return findSubRoot(root, parent);
 	}
 
-	private String load(URI uri, Loader loader) throws InterruptedException,
-			PersistenceLayerException
+	private String load(URI uri, Loader loader) throws InterruptedException
 	{
 		StringBuilder dataBuffer;
-		context.setSourceURI(uri);
-		context.setExtractURI(uri);
 		try
 		{
 			dataBuffer = LstFileLoader.readFromURI(uri);
 		}
 		catch (PersistenceLayerException ple)
 		{
-			String message = LanguageBundle.getFormattedString(
-					"Errors.LstFileLoader.LoadError", //$NON-NLS-1$
-					uri, ple.getMessage());
-			Logging.errorPrint(message);
+			logLoadError(uri, ple);
+			return null;
+		}
+		return convertFile(loader, uri, new File(uri), dataBuffer);
+	}
+
+	private static void logLoadError(URI uri, Throwable t)
+	{
+		String message = LanguageBundle.getFormattedString(
+				"Errors.LstFileLoader.LoadError", //$NON-NLS-1$
+				uri, t.getMessage());
+		Logging.errorPrint(message);
+	}
+
+	/**
+	 * Convert the contents of a file, recording the time taken and the
+	 * number of tokens changed.
+	 * 
+	 * @return The converted contents, or null if the conversion failed.
+	 */
+	private String convertFile(Loader loader, URI uri, File in,
+		StringBuilder dataBuffer) throws InterruptedException
+	{
+		long start = System.nanoTime();
+		try
+		{
+			changeLogWriter.append("\nProcessing " + in + "\n");
+		}
+		catch (IOException e)
+		{
+			Logging.errorPrint("Unable to log change", e);
+		}
+		FileConversion conversion = new FileConversion(uri);
+		String result;
+		try
+		{
+			result = convert(uri, loader, dataBuffer, conversion);
+		}
+		catch (PersistenceLayerException e)
+		{
+			Logging.errorPrint("Failed to convert " + uri, e);
 			return null;
 		}
+		conversion.millis = (System.nanoTime() - start) / 1000000L;
+		conversions.add(conversion);
+		Logging.log(Logging.INFO, "Converted " + uri + " in "
+			+ conversion.millis + " ms: " + conversion.lines + " lines, "
+			+ conversion.tokensChanged + " tokens changed");
+		return result;
+	}
+
+	private String convert(URI uri, Loader loader, StringBuilder dataBuffer,
+		FileConversion conversion) throws InterruptedException,
+		PersistenceLayerException
+	{
+		context.setSourceURI(uri);
+		context.setExtractURI(uri);
 
 		StringBuilder resultBuffer = new StringBuilder(dataBuffer.length());
 		final String aString = dataBuffer.toString();
 
 		String[] fileLines = aString.split(LstFileLoader.LINE_SEPARATOR_REGEXP);
+		conversion.lines = fileLines.length;
 		for (int line = 0; line < fileLines.length; line++)
 		{
 			String lineString = fileLines[line];
@@ -328,8 +574,12 @@ public class LSTConverter extends Observable
 			}
 			else
 			{
+				int lineStart = resultBuffer.length();
 				List<CDOMObject> newObj = loader.process(resultBuffer, line,
 						lineString, decider);
+				conversion.tokensChanged +=
+						countChangedTokens(lineString,
+							resultBuffer.substring(lineStart));
 				if (newObj != null)
 				{
 					for (CDOMObject cdo : newObj)
@@ -343,6 +593,36 @@ public class LSTConverter extends Observable
 		return resultBuffer.toString();
 	}
 
+	/**
+	 * Count the tab separated tokens which differ between a line and its
+	 * conversion. Tokens added or removed by the conversion are counted as
+	 * changed.
+	 */
+	static int countChangedTokens(String original, String converted)
+	{
+		String[] before = original.split("\t", -1);
+		String[] after = converted.split("\t", -1);
+		int common = Math.min(before.length, after.length);
+		int changed = Math.abs(before.length - after.length);
+		for (int i = 0; i < common; i++)
+		{
+			if (!before[i].equals(after[i]))
+			{
+				changed++;
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * @return The files converted so far, in the order they were converted,
+	 *         with the time taken and number of tokens changed for each.
+	 */
+	public List<FileConversion> getFileConversions()
+	{
+		return Collections.unmodifiableList(conversions);
+	}
+
 	public Collection<Loader> getInjectedLoaders()
 	{
 		return injected.getKeySet();
@@ -357,4 +637,69 @@ public class LSTConverter extends Observable
 	{
 		return injected.getListFor(l, uri);
 	}
+
+	/**
+	 * A source file waiting to be converted by processCampaigns.
+	 */
+	private static final class ConversionJob
+	{
+		private final Loader loader;
+		private final URI uri;
+		private final File outFile;
+
+		private ConversionJob(Loader loader, URI uri, File outFile)
+		{
+			this.loader = loader;
+			this.uri = uri;
+			this.outFile = outFile;
+		}
+	}
+
+	/**
+	 * The time taken and the number of tokens changed in converting a file.
+	 */
+	public static final class FileConversion
+	{
+		private final URI uri;
+		private long millis;
+		private int lines;
+		private int tokensChanged;
+
+		private FileConversion(URI uri)
+		{
+			this.uri = uri;
+		}
+
+		/**
+		 * @return The source file which was converted.
+		 */
+		public URI getURI()
+		{
+			return uri;
+		}
+
+		/**
+		 * @return The time taken to convert the file, in milliseconds.
+		 */
+		public long getMillis()
+		{
+			return millis;
+		}
+
+		/**
+		 * @return The number of lines in the file.
+		 */
+		public int getLines()
+		{
+			return lines;
+		}
+
+		/**
+		 * @return The number of tokens changed by the conversion.
+		 */
+		public int getTokensChanged()
+		{
+			return tokensChanged;
+		}
+	}
 }
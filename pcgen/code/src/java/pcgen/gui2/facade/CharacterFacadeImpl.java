@@ -32,8 +32,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -286,11 +288,64 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 
 	private int lastExportCharSerial = 0;
 	private PlayerCharacter lastExportChar = null;
+	/** The number of exports still writing each export character. */
+	private final Map<PlayerCharacter, Integer> exportCharUsers =
+			new IdentityHashMap<PlayerCharacter, Integer>();
 	private LanguageListener langListener;
 	private TemplateListener templateListener;
 	private XPListener xpListener;
 	private AutoEquipListener autoEquipListener;
 
+	/** The time in milliseconds to wait for further edits before refreshing. */
+	private static final int REFRESH_DELAY = 100;
+
+	private final RefreshScheduler<RefreshTask> refreshScheduler =
+			new RefreshScheduler<RefreshTask>(RefreshTask.class,
+				new RefreshScheduler.TaskRunner<RefreshTask>()
+				{
+					@Override
+					public void run(RefreshTask task)
+					{
+						runRefreshTask(task);
+					}
+				}, REFRESH_DELAY);
+
+	/**
+	 * The aspects of the character which, when changed, require some of the
+	 * models presented to the UI to be refreshed.
+	 */
+	enum CharacterAspect
+	{
+		ABILITIES, LEVELS, RACE, STATS, EQUIPPED, GRANTED_EQUIPMENT, DOMAINS,
+		LANGUAGES
+	}
+
+	/**
+	 * The refreshes of the models presented to the UI, in the order they are
+	 * run, with the aspects of the character each depends on.
+	 */
+	enum RefreshTask
+	{
+		KIT_LIST(CharacterAspect.ABILITIES, CharacterAspect.LEVELS),
+		TEMP_BONUSES(CharacterAspect.ABILITIES, CharacterAspect.LEVELS,
+			CharacterAspect.RACE, CharacterAspect.EQUIPPED),
+		EQUIPMENT(CharacterAspect.ABILITIES, CharacterAspect.LEVELS,
+			CharacterAspect.RACE, CharacterAspect.GRANTED_EQUIPMENT),
+		HEIGHT_WEIGHT(CharacterAspect.LEVELS, CharacterAspect.RACE),
+		STAT_SCORES(CharacterAspect.LEVELS, CharacterAspect.RACE,
+			CharacterAspect.STATS),
+		KNOWN_SPELLS(CharacterAspect.LEVELS, CharacterAspect.RACE,
+			CharacterAspect.DOMAINS),
+		LANGUAGES(CharacterAspect.LEVELS, CharacterAspect.LANGUAGES);
+
+		private final EnumSet<CharacterAspect> dependencies;
+
+		private RefreshTask(CharacterAspect first, CharacterAspect... rest)
+		{
+			dependencies = EnumSet.of(first, rest);
+		}
+	}
+
 	/**
 	 * Create a new character facade for an existing character.
 	 * 
@@ -316,6 +371,11 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
     @Override
 	public void closeCharacter()
 	{
+		refreshScheduler.dispose();
+		synchronized (this)
+		{
+			retireExportCharacter();
+		}
 		FacetLibrary.getFacet(LanguageFacet.class)
 			.removeDataFacetChangeListener(langListener);
 		FacetLibrary.getFacet(TemplateFacet.class)
@@ -333,7 +393,6 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 			.handleMessage(
 				new PlayerCharacterWasClosedMessage(this, theCharacter));
 		Globals.getPCList().remove(theCharacter);
-		lastExportChar = null;
 		/*
 		 * Unfortunately, a dummy rather than null is necessary because the UI
 		 * does model swaps and such that do not pause events in the UI so that
@@ -506,6 +565,70 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		allowDebt = false;
 	}
 
+	/**
+	 * Refresh the models which depend on the changed aspects of the character.
+	 * Each model is refreshed once, after the current batch of changes, or
+	 * once the user pauses if changed from the UI.
+	 * 
+	 * @param aspects The aspects of the character which have changed.
+	 */
+	private void aspectsChanged(CharacterAspect... aspects)
+	{
+		refreshScheduler.request(getRefreshTasks(aspects));
+	}
+
+	/**
+	 * Identify the models which depend on the changed aspects of the
+	 * character.
+	 * 
+	 * @param aspects The aspects of the character which have changed.
+	 * @return The refresh tasks for the models to be refreshed.
+	 */
+	static EnumSet<RefreshTask> getRefreshTasks(CharacterAspect... aspects)
+	{
+		EnumSet<CharacterAspect> changed = EnumSet.noneOf(CharacterAspect.class);
+		Collections.addAll(changed, aspects);
+		EnumSet<RefreshTask> tasks = EnumSet.noneOf(RefreshTask.class);
+		for (RefreshTask task : RefreshTask.values())
+		{
+			if (!Collections.disjoint(task.dependencies, changed))
+			{
+				tasks.add(task);
+			}
+		}
+		return tasks;
+	}
+
+	private void runRefreshTask(RefreshTask task)
+	{
+		switch (task)
+		{
+			case KIT_LIST:
+				refreshKitList();
+				break;
+			case TEMP_BONUSES:
+				refreshAvailableTempBonuses();
+				break;
+			case EQUIPMENT:
+				refreshEquipment();
+				break;
+			case HEIGHT_WEIGHT:
+				refreshHeightWeight();
+				break;
+			case STAT_SCORES:
+				refreshStatScores();
+				break;
+			case KNOWN_SPELLS:
+				spellSupportFacade.refreshAvailableKnownSpells();
+				break;
+			case LANGUAGES:
+				refreshLanguageList();
+				break;
+			default:
+				break;
+		}
+	}
+
 	/**
 	 * Build up the list of kits that the character has.
 	 */
@@ -675,11 +798,9 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 	public void addAbility(AbilityCategoryFacade category, AbilityFacade ability)
 	{
 		characterAbilities.addAbility(category, ability);
-		refreshKitList();
-		refreshAvailableTempBonuses();
+		aspectsChanged(CharacterAspect.ABILITIES);
 		buildAvailableDomainsList();
 		companionSupportFacade.refreshCompanionData();
-		refreshEquipment();
 		hpRef.setReference(theCharacter.hitPoints());
 	}
 
@@ -690,7 +811,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 	public void removeAbility(AbilityCategoryFacade category, AbilityFacade ability)
 	{
 		characterAbilities.removeAbility(category, ability);
-		refreshKitList();
+		aspectsChanged(CharacterAspect.ABILITIES);
 		companionSupportFacade.refreshCompanionData();
 		hpRef.setReference(theCharacter.hitPoints());
 	}
@@ -797,6 +918,19 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 	 */
 	@Override
 	public void addCharacterLevels(ClassFacade[] classes)
+	{
+		refreshScheduler.beginBatch();
+		try
+		{
+			addLevels(classes);
+		}
+		finally
+		{
+			refreshScheduler.endBatch();
+		}
+	}
+
+	private void addLevels(ClassFacade[] classes)
 	{
 		SettingsHandler.setShowHPDialogAtLevelUp(false);
 		//SettingsHandler.setShowStatDialogAtLevelUp(false);
@@ -846,6 +980,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 			refreshClassLevelModel();
 		}
 		postLevellingUpdates();
+		refreshScheduler.flush();
 		delegate.showLevelUpInfo(this, oldLevel);
 	}
 
@@ -856,22 +991,16 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 	{
 		characterAbilities.rebuildAbilityLists();
 		companionSupportFacade.refreshCompanionData();
-		refreshKitList();
-		refreshAvailableTempBonuses();
-		refreshEquipment();
 		currentXP.setReference(charDisplay.getXP());
 		xpForNextlevel.setReference(charDisplay.minXPForNextECL());
 		xpTableName.setReference(charDisplay.getXPTableName());
 		hpRef.setReference(theCharacter.hitPoints());
 		age.setReference(charDisplay.getAge());
-		refreshHeightWeight();
-		refreshStatScores();
 
 		updateLevelTodo();
 		buildAvailableDomainsList();
-		spellSupportFacade.refreshAvailableKnownSpells();
 		updateScorePurchasePool(false);
-		refreshLanguageList();
+		aspectsChanged(CharacterAspect.LEVELS);
 	}
 
 	/**
@@ -880,7 +1009,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 	void postEquippingUpdates()
 	{
 		characterAbilities.rebuildAbilityLists();
-		refreshAvailableTempBonuses();
+		aspectsChanged(CharacterAspect.EQUIPPED);
 		hpRef.setReference(theCharacter.hitPoints());
 	}
 
@@ -897,6 +1026,19 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 	 */
 	@Override
 	public void removeCharacterLevels(int levels)
+	{
+		refreshScheduler.beginBatch();
+		try
+		{
+			removeLevels(levels);
+		}
+		finally
+		{
+			refreshScheduler.endBatch();
+		}
+	}
+
+	private void removeLevels(int levels)
 	{
 		for (int i = levels; i > 0 && !pcClassLevels.isEmpty(); i--)
 		{
@@ -1287,7 +1429,6 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		}
 		
 		appliedTempBonuses.addElement(appliedTempBonus);
-		refreshStatScores();
 		postLevellingUpdates();
 	}
 
@@ -1312,7 +1453,6 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		TempBonusHelper.removeBonusFromCharacter(theCharacter, aEq, originObj);
 
 		appliedTempBonuses.removeElement(tempBonus);
-		refreshStatScores();
 		postLevellingUpdates();
 	}
 
@@ -1338,7 +1478,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		}
 		tempBonus.setActive(active);
 		appliedTempBonuses.modifyElement(tempBonus);
-		refreshStatScores();
+		aspectsChanged(CharacterAspect.STATS);
 	}
 	
 	/**
@@ -1375,7 +1515,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		{
 			theCharacter.setAlignment((PCAlignment) alignment);
 		}
-		refreshLanguageList();
+		aspectsChanged(CharacterAspect.LANGUAGES);
 
 	}
 
@@ -1528,7 +1668,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		Gender newGender = charDisplay.getGenderObject();
 		this.selectedGender = newGender.toString();
 		this.gender.setReference(newGender);
-		refreshLanguageList();
+		aspectsChanged(CharacterAspect.LANGUAGES);
 	}
 
 	@Override
@@ -1732,7 +1872,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		theCharacter.saveStatIncrease(pcStat, score - baseScore, false);
 		theCharacter.calcActiveBonuses();
 		hpRef.setReference(theCharacter.hitPoints());
-		refreshLanguageList();
+		aspectsChanged(CharacterAspect.LANGUAGES);
 
 		updateScorePurchasePool(true);
 		if (charLevelsFacade != null)
@@ -1804,7 +1944,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		theCharacter.rollStats(rollMethod);
 		//XXX This is here to stop the stat mod from being stale. Can be removed once we merge with CDOM
 		theCharacter.calcActiveBonuses();
-		refreshStatScores();
+		aspectsChanged(CharacterAspect.STATS);
 		updateScorePurchasePool(true);
 	}
 
@@ -1888,6 +2028,19 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 	 */
 	@Override
 	public void setRace(RaceFacade race)
+	{
+		refreshScheduler.beginBatch();
+		try
+		{
+			changeRace(race);
+		}
+		finally
+		{
+			refreshScheduler.endBatch();
+		}
+	}
+
+	private void changeRace(RaceFacade race)
 	{
 		// TODO: We don't have a HP dialog implemented yet, so don't try to show it
 		SettingsHandler.setShowHPDialogAtLevelUp(false);
@@ -1910,7 +2063,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 				raceList.addElement(race);
 			}
 		}
-		refreshLanguageList();
+		aspectsChanged(CharacterAspect.LANGUAGES);
 		if (selectedGender != null)
 		{
 			setGender(selectedGender);
@@ -1919,6 +2072,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 
 		if (oldLevel != charLevelsFacade.getSize())
 		{
+			refreshScheduler.flush();
 			delegate.showLevelUpInfo(this, oldLevel);
 		}
 	}
@@ -1947,24 +2101,20 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 			}
 		}
 		refreshClassLevelModel();
-		refreshStatScores();
+		aspectsChanged(CharacterAspect.RACE);
 		age.setReference(charDisplay.getAge());
 		updateAgeCategoryForAge();
-		refreshHeightWeight();
 		characterAbilities.rebuildAbilityLists();
 		currentXP.setReference(charDisplay.getXP());
 		xpForNextlevel.setReference(charDisplay.minXPForNextECL());
 		xpTableName.setReference(charDisplay.getXPTableName());
 		hpRef.setReference(theCharacter.hitPoints());
 		alignment.setReference(charDisplay.getPCAlignment());
-		refreshAvailableTempBonuses();
 		companionSupportFacade.refreshCompanionData();
 
 		updateLevelTodo();
 		buildAvailableDomainsList();
-		spellSupportFacade.refreshAvailableKnownSpells();
 		updateScorePurchasePool(false);
-		refreshEquipment();
 
 		if (charDisplay.getRace() == null || Constants.NONESELECTED.equals(charDisplay.getRace().getKeyName()))
 		{
@@ -2162,7 +2312,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		{
 			theCharacter.setDeity((Deity) deity);
 		}
-		refreshLanguageList();
+		aspectsChanged(CharacterAspect.LANGUAGES);
 		buildAvailableDomainsList();
 	}
 
@@ -2218,7 +2368,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 
 			remainingDomains.setReference(theCharacter.getMaxCharacterDomains() - charDisplay.getDomainCount());
 			updateDomainTodo();
-			spellSupportFacade.refreshAvailableKnownSpells();
+			aspectsChanged(CharacterAspect.DOMAINS);
 			companionSupportFacade.refreshCompanionData();
 		}
 	}
@@ -2244,7 +2394,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		theCharacter.removeDomain(((DomainFacadeImpl) domain).getRawObject());
 		remainingDomains.setReference(theCharacter.getMaxCharacterDomains() - charDisplay.getDomainCount());
 		updateDomainTodo();
-		spellSupportFacade.refreshAvailableKnownSpells();
+		aspectsChanged(CharacterAspect.DOMAINS);
 	}
 
 	/**
@@ -2611,6 +2761,8 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 	 */
 	private ChooseDriver getLaguageOwner(LanguageFacade lang)
 	{
+		// The bonus languages must reflect any pending changes
+		refreshScheduler.flush();
 		if (currBonusLangs.contains(lang))
 		{
 			return theCharacter.getBonusLanguageAbility();
@@ -2648,9 +2800,12 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 	
 	/**
 	 * Retrieve a copy of the current character suitable for export. This 
-	 * attempts to minimise the expensive cloning function, by returning the 
-	 * previously cloned character if the base character has not changed in 
-	 * the meantime. 
+	 * attempts to minimise the expensive copying, by returning the previously
+	 * copied character if the base character has not changed in the
+	 * meantime. The copy is a snapshot, which only copies the parts of the
+	 * character that are read or changed, and is discarded once it has been
+	 * replaced and no export is still writing it. Each call must be matched
+	 * by a call to releaseExportCharacter.
 	 * @return A copy of the current character.
 	 */
 	private synchronized PlayerCharacter getExportCharacter()
@@ -2658,16 +2813,17 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		PlayerCharacter exportPc = lastExportChar;
 		if (exportPc == null || theCharacter.getSerial() != lastExportCharSerial)
 		{
+			retireExportCharacter();
 			// Calling preparePCForOutput will mark export character as modified, so compare original character serial when checking for real changes
 			// Get serial at beginning so we can detect if a change occurs during clone and preparePCForOutput
 			lastExportCharSerial = theCharacter.getSerial();
-			exportPc = theCharacter.clone();
+			exportPc = theCharacter.createSnapshot();
 
 			// Get the PC all up to date, (equipment and active bonuses etc)
 			exportPc.preparePCForOutput();
-			
+
 			lastExportChar = exportPc;
-			
+
 			// It is possible another thread changed PC during export; log for now, the next export will rebuild
 			int countSerialChanges = theCharacter.getSerial() - lastExportCharSerial;
 			if (countSerialChanges > 0)
@@ -2677,8 +2833,47 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 						+ countSerialChanges + " times during export.");
 			}
 		}
+		Integer users = exportCharUsers.get(exportPc);
+		exportCharUsers.put(exportPc, users == null ? 1 : users + 1);
 		return exportPc;
 	}
+
+	/**
+	 * Record that an export has finished writing a character returned by
+	 * getExportCharacter, discarding the character if it has since been
+	 * replaced and no other export is writing it.
+	 * @param exportPc The character the export has finished with.
+	 */
+	private synchronized void releaseExportCharacter(PlayerCharacter exportPc)
+	{
+		Integer users = exportCharUsers.get(exportPc);
+		if (users == null || users <= 1)
+		{
+			exportCharUsers.remove(exportPc);
+			if (exportPc != lastExportChar)
+			{
+				exportPc.discardSnapshot();
+			}
+		}
+		else
+		{
+			exportCharUsers.put(exportPc, users - 1);
+		}
+	}
+
+	/**
+	 * Stop reusing the last export character, discarding it unless an export
+	 * is still writing it. Must be called while synchronized on this facade.
+	 */
+	private void retireExportCharacter()
+	{
+		if (lastExportChar != null
+			&& !exportCharUsers.containsKey(lastExportChar))
+		{
+			lastExportChar.discardSnapshot();
+		}
+		lastExportChar = null;
+	}
 	
 	/* (non-Javadoc)
 	 * @see pcgen.core.facade.CharacterFacade#export(pcgen.io.ExportHandler, java.io.BufferedWriter)
@@ -2694,7 +2889,14 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 				Logging.log(Logging.DEBUG, "Starting export at serial " + theCharacter.getSerial() + " to " + theHandler.getTemplateFile());
 				PlayerCharacter exportPc =  getExportCharacter();
 				//PlayerCharacter exportPc =  theCharacter;
-				theHandler.write(exportPc, buf);
+				try
+				{
+					theHandler.write(exportPc, buf);
+				}
+				finally
+				{
+					releaseExportCharacter(exportPc);
+				}
 				Logging.log(Logging.DEBUG, "Finished export at serial " + theCharacter.getSerial() + " to " + theHandler.getTemplateFile());
 				return;
 			} catch (ConcurrentModificationException e)
@@ -3040,8 +3242,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		theCharacter.setAge(age);
 		this.age.setReference(age);
 		updateAgeCategoryForAge();
-		refreshStatScores();
-		refreshLanguageList();
+		aspectsChanged(CharacterAspect.STATS, CharacterAspect.LANGUAGES);
 	}
 
 	/**
@@ -3105,8 +3306,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 					Globals.getBioSet().randomize("AGECAT" + Integer.toString(idx), theCharacter);
 					age.setReference(charDisplay.getAge());
 					ageCategory.setReference(ageCat);
-					refreshStatScores();
-					refreshLanguageList();
+					aspectsChanged(CharacterAspect.STATS, CharacterAspect.LANGUAGES);
 				}
 			}
 		}
@@ -4110,6 +4310,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 
 				if (oldLevel != charLevelsFacade.getSize())
 				{
+					refreshScheduler.flush();
 					delegate.showLevelUpInfo(this, oldLevel);
 				}
 			}
@@ -4342,6 +4543,19 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 	 */
 	@Override
 	public void addKit(KitFacade obj)
+	{
+		refreshScheduler.beginBatch();
+		try
+		{
+			applyKit(obj);
+		}
+		finally
+		{
+			refreshScheduler.endBatch();
+		}
+	}
+
+	private void applyKit(KitFacade obj)
 	{
 		if (obj == null || !(obj instanceof Kit))
 		{
@@ -4385,7 +4599,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		deity.setReference(charDisplay.getDeity());
 		buildAvailableDomainsList();
 		
-		refreshStatScores();
+		aspectsChanged(CharacterAspect.STATS);
 	}
 
 	/**
@@ -4601,7 +4815,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 			{
 				return;
 			}
-			refreshLanguageList();
+			aspectsChanged(CharacterAspect.LANGUAGES);
 		}
 
 		/**
@@ -4614,7 +4828,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 			{
 				return;
 			}
-			refreshLanguageList();
+			aspectsChanged(CharacterAspect.LANGUAGES);
 		}
 		
 	}
@@ -4697,7 +4911,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 			{
 				return;
 			}
-			refreshEquipment();
+			aspectsChanged(CharacterAspect.GRANTED_EQUIPMENT);
 		}
 
 		/**
@@ -4710,7 +4924,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 			{
 				return;
 			}
-			refreshEquipment();
+			aspectsChanged(CharacterAspect.GRANTED_EQUIPMENT);
 		}
 		
 	}
@@ -27,16 +27,20 @@ import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
+import javax.swing.SwingUtilities;
+
 import org.apache.commons.lang.StringUtils;
 
 import pcgen.base.formula.Formula;
@@ -44,11 +48,13 @@ import pcgen.base.lang.StringUtil;
 import pcgen.cdom.base.CDOMObject;
 import pcgen.cdom.base.CDOMReference;
 import pcgen.cdom.base.ChooseInformation;
+import pcgen.cdom.base.PCGenIdentifier;
 import pcgen.cdom.content.CNAbility;
 import pcgen.cdom.content.CNAbilityFactory;
 import pcgen.cdom.content.HitDie;
 import pcgen.cdom.content.LevelCommandFactory;
 import pcgen.cdom.enumeration.AspectName;
+import pcgen.cdom.enumeration.CharID;
 import pcgen.cdom.enumeration.FormulaKey;
 import pcgen.cdom.enumeration.IntegerKey;
 import pcgen.cdom.enumeration.ListKey;
@@ -60,6 +66,9 @@ import pcgen.cdom.enumeration.RaceSubType;
 import pcgen.cdom.enumeration.RaceType;
 import pcgen.cdom.enumeration.SourceFormat;
 import pcgen.cdom.enumeration.StringKey;
+import pcgen.cdom.facet.base.AbstractStorageFacet;
+import pcgen.cdom.facet.base.CacheAccessListener;
+import pcgen.cdom.facet.base.ChangeCountedCache;
 import pcgen.cdom.helper.Aspect;
 import pcgen.cdom.reference.ReferenceUtilities;
 import pcgen.core.Ability;
@@ -148,6 +157,9 @@ public class Gui2InfoFactory implements InfoFactory
 
 	private final PlayerCharacter pc;
 	private final CharacterDisplay charDisplay;
+	private final ChangeCountedCache<String> infoCache;
+	private List<Object> cachedPreferences;
+	private int prefetchGeneration = 0;
 	
 	/**
 	 * Create a new Gui2InfoFactory instance for the character.
@@ -157,6 +169,177 @@ public class Gui2InfoFactory implements InfoFactory
 	{
 		this.pc = pc;
 		this.charDisplay = pc ==  null ? null : pc.getDisplay();
+		if (pc == null)
+		{
+			this.infoCache = null;
+		}
+		else
+		{
+			this.infoCache = new ChangeCountedCache<String>(pc.getCharID());
+			infoCache.startListening();
+		}
+	}
+
+	/*
+	 * The information rendered for an object is held (by the identity of the
+	 * object and of its parent, if any) until the character changes or one of
+	 * the preferences used in the information is changed. As with the
+	 * PrerequisiteCache, the facets read while the information is rendered
+	 * are recorded, and the information is only held if every facet read
+	 * reports all of its changes and belongs to this character. Equipment is
+	 * modified in place without the character being told, so the information
+	 * for equipment and equipment modifiers is not held.
+	 */
+	private String getCachedInfo(Object facade, Object parent)
+	{
+		if (infoCache == null)
+		{
+			return null;
+		}
+		checkPreferences();
+		return infoCache.get(facade, parent, pc.getSerial());
+	}
+
+	/**
+	 * Discard the held information if any of the preferences used in the
+	 * information have changed since it was rendered.
+	 */
+	private void checkPreferences()
+	{
+		boolean showModBreakdown =
+				PCGenSettings.OPTIONS_CONTEXT.getBoolean(
+					PCGenSettings.OPTION_SHOW_SKILL_MOD_BREAKDOWN, false);
+		boolean showRankBreakdown =
+				PCGenSettings.OPTIONS_CONTEXT.getBoolean(
+					PCGenSettings.OPTION_SHOW_SKILL_RANK_BREAKDOWN, false);
+		List<Object> preferences =
+				Arrays.<Object> asList(showModBreakdown, showRankBreakdown,
+					SettingsHandler.getPrereqFailColor(),
+					Globals.getSourceDisplay());
+		synchronized (infoCache)
+		{
+			if (!preferences.equals(cachedPreferences))
+			{
+				cachedPreferences = preferences;
+				infoCache.clear();
+			}
+		}
+	}
+
+	/**
+	 * Start recording the facets read on this thread while information is
+	 * rendered. The returned InfoRender must be ended (in a finally block)
+	 * once the information has been rendered, and then passed to cacheInfo.
+	 */
+	private InfoRender beginRender()
+	{
+		InfoRender render =
+				new InfoRender(infoCache == null ? 0 : infoCache
+					.getChangeCount(pc.getSerial()));
+		render.previousListener = AbstractStorageFacet.setReadListener(render);
+		return render;
+	}
+
+	private void cacheInfo(Object facade, Object parent, InfoRender render,
+		String info)
+	{
+		if (infoCache != null && !render.untracked)
+		{
+			infoCache.put(facade, parent, render.changeCount, pc.getSerial(),
+				info);
+		}
+	}
+
+	/**
+	 * Records the facets read on one thread while information is rendered.
+	 * Reads are passed on to the listener that was installed before, so an
+	 * enclosing evaluation also sees them.
+	 */
+	private final class InfoRender implements CacheAccessListener
+	{
+		private final long changeCount;
+
+		private CacheAccessListener previousListener;
+
+		private boolean untracked = false;
+
+		private InfoRender(long changeCount)
+		{
+			this.changeCount = changeCount;
+		}
+
+		/**
+		 * Stop recording and restore the listener which was installed when
+		 * the rendering began.
+		 */
+		private void end()
+		{
+			AbstractStorageFacet.setReadListener(previousListener);
+		}
+
+		@Override
+		public void cacheRead(PCGenIdentifier readId, Class<?> facetClass,
+			boolean changeTracked)
+		{
+			if (previousListener != null)
+			{
+				previousListener.cacheRead(readId, facetClass, changeTracked);
+			}
+			if (pc.getCharID().equals(readId))
+			{
+				untracked |= !changeTracked;
+			}
+			else if (readId instanceof CharID)
+			{
+				// Changes to another character are not reported to this cache
+				untracked = true;
+			}
+			// Data set information does not change once loaded
+		}
+
+		@Override
+		public void cacheChanged(PCGenIdentifier charID, Class<?> facetClass)
+		{
+			// Only registered for reads
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The information is rendered on the event dispatch thread, one object
+	 * per event so that user input is not held up. The objects of any earlier
+	 * request which have not yet been rendered are dropped. This must be
+	 * called on the event dispatch thread.
+	 */
+	@Override
+	public void prefetchHTMLInfo(List<? extends InfoFacade> facades)
+	{
+		if (infoCache == null)
+		{
+			return;
+		}
+		final int generation = ++prefetchGeneration;
+		final Iterator<InfoFacade> iterator =
+				new ArrayList<InfoFacade>(facades).iterator();
+		SwingUtilities.invokeLater(new Runnable()
+		{
+
+			@Override
+			public void run()
+			{
+				if (generation != prefetchGeneration || !iterator.hasNext())
+				{
+					return;
+				}
+				getHTMLInfo(iterator.next());
+				if (iterator.hasNext())
+				{
+					SwingUtilities.invokeLater(this);
+				}
+			}
+
+		});
 	}
 
 	/* (non-Javadoc)
@@ -178,6 +361,25 @@ public class Gui2InfoFactory implements InfoFactory
 	 */
 	@Override
 	public String getHTMLInfo(RaceFacade raceFacade)
+	{
+		String info = getCachedInfo(raceFacade, null);
+		if (info == null)
+		{
+			InfoRender render = beginRender();
+			try
+			{
+				info = buildHTMLInfo(raceFacade);
+			}
+			finally
+			{
+				render.end();
+			}
+			cacheInfo(raceFacade, null, render, info);
+		}
+		return info;
+	}
+
+	private String buildHTMLInfo(RaceFacade raceFacade)
 	{
 		if (!(raceFacade instanceof Race))
 		{
@@ -250,6 +452,26 @@ public class Gui2InfoFactory implements InfoFactory
 	@Override
 	public String getHTMLInfo(ClassFacade classFacade,
 		ClassFacade parentClassFacade)
+	{
+		String info = getCachedInfo(classFacade, parentClassFacade);
+		if (info == null)
+		{
+			InfoRender render = beginRender();
+			try
+			{
+				info = buildHTMLInfo(classFacade, parentClassFacade);
+			}
+			finally
+			{
+				render.end();
+			}
+			cacheInfo(classFacade, parentClassFacade, render, info);
+		}
+		return info;
+	}
+
+	private String buildHTMLInfo(ClassFacade classFacade,
+		ClassFacade parentClassFacade)
 	{
 		if (!(classFacade instanceof PCClass))
 		{
@@ -374,6 +596,25 @@ public class Gui2InfoFactory implements InfoFactory
 	 */
 	@Override
 	public String getHTMLInfo(SkillFacade skillFacade)
+	{
+		String info = getCachedInfo(skillFacade, null);
+		if (info == null)
+		{
+			InfoRender render = beginRender();
+			try
+			{
+				info = buildHTMLInfo(skillFacade);
+			}
+			finally
+			{
+				render.end();
+			}
+			cacheInfo(skillFacade, null, render, info);
+		}
+		return info;
+	}
+
+	private String buildHTMLInfo(SkillFacade skillFacade)
 	{
 		if (!(skillFacade instanceof Skill))
 		{
@@ -457,6 +698,25 @@ public class Gui2InfoFactory implements InfoFactory
 	 */
 	@Override
 	public String getHTMLInfo(AbilityFacade abilityFacade)
+	{
+		String info = getCachedInfo(abilityFacade, null);
+		if (info == null)
+		{
+			InfoRender render = beginRender();
+			try
+			{
+				info = buildHTMLInfo(abilityFacade);
+			}
+			finally
+			{
+				render.end();
+			}
+			cacheInfo(abilityFacade, null, render, info);
+		}
+		return info;
+	}
+
+	private String buildHTMLInfo(AbilityFacade abilityFacade)
 	{
 		if (!(abilityFacade instanceof Ability))
 		{
@@ -543,6 +803,25 @@ public class Gui2InfoFactory implements InfoFactory
 	 */
 	@Override
 	public String getHTMLInfo(DeityFacade deityFacade)
+	{
+		String info = getCachedInfo(deityFacade, null);
+		if (info == null)
+		{
+			InfoRender render = beginRender();
+			try
+			{
+				info = buildHTMLInfo(deityFacade);
+			}
+			finally
+			{
+				render.end();
+			}
+			cacheInfo(deityFacade, null, render, info);
+		}
+		return info;
+	}
+
+	private String buildHTMLInfo(DeityFacade deityFacade)
 	{
 		if (!(deityFacade instanceof Deity))
 		{
@@ -632,6 +911,25 @@ public class Gui2InfoFactory implements InfoFactory
 	 */
 	@Override
 	public String getHTMLInfo(DomainFacade domainFacade)
+	{
+		String info = getCachedInfo(domainFacade, null);
+		if (info == null)
+		{
+			InfoRender render = beginRender();
+			try
+			{
+				info = buildHTMLInfo(domainFacade);
+			}
+			finally
+			{
+				render.end();
+			}
+			cacheInfo(domainFacade, null, render, info);
+		}
+		return info;
+	}
+
+	private String buildHTMLInfo(DomainFacade domainFacade)
 	{
 		if (!(domainFacade instanceof DomainFacadeImpl))
 		{
@@ -694,6 +992,11 @@ public class Gui2InfoFactory implements InfoFactory
 	 */
 	@Override
 	public String getHTMLInfo(EquipmentFacade equipFacade)
+	{
+		return buildHTMLInfo(equipFacade);
+	}
+
+	private String buildHTMLInfo(EquipmentFacade equipFacade)
 	{
 		if (equipFacade == null || !(equipFacade instanceof Equipment))
 		{
@@ -997,6 +1300,11 @@ public class Gui2InfoFactory implements InfoFactory
 	 */
 	@Override
 	public String getHTMLInfo(EquipModFacade equipModFacade, EquipmentFacade equipFacade)
+	{
+		return buildHTMLInfo(equipModFacade, equipFacade);
+	}
+
+	private String buildHTMLInfo(EquipModFacade equipModFacade, EquipmentFacade equipFacade)
 	{
 		if (equipModFacade == null
 			|| !(equipModFacade instanceof EquipmentModifier)
@@ -1124,6 +1432,25 @@ public class Gui2InfoFactory implements InfoFactory
 	 */
 	@Override
 	public String getHTMLInfo(TemplateFacade templateFacade)
+	{
+		String info = getCachedInfo(templateFacade, null);
+		if (info == null)
+		{
+			InfoRender render = beginRender();
+			try
+			{
+				info = buildHTMLInfo(templateFacade);
+			}
+			finally
+			{
+				render.end();
+			}
+			cacheInfo(templateFacade, null, render, info);
+		}
+		return info;
+	}
+
+	private String buildHTMLInfo(TemplateFacade templateFacade)
 	{
 		if (templateFacade == null)
 		{
@@ -1190,6 +1517,25 @@ public class Gui2InfoFactory implements InfoFactory
 	 */
 	@Override
 	public String getHTMLInfo(KitFacade kitFacade)
+	{
+		String info = getCachedInfo(kitFacade, null);
+		if (info == null)
+		{
+			InfoRender render = beginRender();
+			try
+			{
+				info = buildHTMLInfo(kitFacade);
+			}
+			finally
+			{
+				render.end();
+			}
+			cacheInfo(kitFacade, null, render, info);
+		}
+		return info;
+	}
+
+	private String buildHTMLInfo(KitFacade kitFacade)
 	{
 		if (kitFacade == null)
 		{
@@ -1263,6 +1609,25 @@ public class Gui2InfoFactory implements InfoFactory
 	 */
 	@Override
 	public String getHTMLInfo(TempBonusFacade tempBonusFacade)
+	{
+		String info = getCachedInfo(tempBonusFacade, null);
+		if (info == null)
+		{
+			InfoRender render = beginRender();
+			try
+			{
+				info = buildHTMLInfo(tempBonusFacade);
+			}
+			finally
+			{
+				render.end();
+			}
+			cacheInfo(tempBonusFacade, null, render, info);
+		}
+		return info;
+	}
+
+	private String buildHTMLInfo(TempBonusFacade tempBonusFacade)
 	{
 		if (tempBonusFacade == null)
 		{
@@ -1653,6 +2018,25 @@ public class Gui2InfoFactory implements InfoFactory
 
 	@Override
 	public String getHTMLInfo(SpellFacade spell)
+	{
+		String info = getCachedInfo(spell, null);
+		if (info == null)
+		{
+			InfoRender render = beginRender();
+			try
+			{
+				info = buildHTMLInfo(spell);
+			}
+			finally
+			{
+				render.end();
+			}
+			cacheInfo(spell, null, render, info);
+		}
+		return info;
+	}
+
+	private String buildHTMLInfo(SpellFacade spell)
 	{
 		if (spell == null || !(spell instanceof SpellFacadeImplem))
 		{
@@ -0,0 +1,217 @@
+/*
+ * RefreshScheduler.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.gui2.facade;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Iterator;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * <code>RefreshScheduler</code> collects the refresh tasks requested while a
+ * character is being changed, so that each task is run once however many
+ * times it is requested.
+ * <p>
+ * Tasks requested during a batch are run when the outermost batch ends.
+ * Tasks requested on the event dispatch thread are held until no more have
+ * been requested for a short time, so a rapid series of edits results in a
+ * single refresh. Tasks requested on any other thread are run immediately.
+ * Pending tasks are run in the order of their declaration.
+ *
+ * @param <T> The enumeration of the refresh tasks.
+ */
+final class RefreshScheduler<T extends Enum<T>>
+{
+
+	/**
+	 * Runs a refresh task.
+	 */
+	interface TaskRunner<T>
+	{
+		/**
+		 * Run the refresh task.
+		 * @param task The task to be run.
+		 */
+		public void run(T task);
+	}
+
+	private final EnumSet<T> pending;
+	private final TaskRunner<T> runner;
+	private final Timer timer;
+	private int batchDepth = 0;
+	private boolean running = false;
+
+	/**
+	 * Create a new scheduler.
+	 *
+	 * @param taskClass The class of the refresh tasks.
+	 * @param runner The runner which will run the tasks.
+	 * @param delay The time in milliseconds to wait for further requests on
+	 *            the event dispatch thread before running the tasks.
+	 */
+	RefreshScheduler(Class<T> taskClass, TaskRunner<T> runner, int delay)
+	{
+		this.pending = EnumSet.noneOf(taskClass);
+		this.runner = runner;
+		this.timer = new Timer(delay, new ActionListener()
+		{
+
+			@Override
+			public void actionPerformed(ActionEvent e)
+			{
+				flush();
+			}
+
+		});
+		timer.setRepeats(false);
+	}
+
+	/**
+	 * Request that the tasks be run.
+	 *
+	 * @param tasks The tasks to be run.
+	 */
+	void request(Collection<T> tasks)
+	{
+		synchronized (pending)
+		{
+			pending.addAll(tasks);
+		}
+		schedule();
+	}
+
+	/**
+	 * Start a batch of changes. Tasks requested before the matching call to
+	 * endBatch are not run until then.
+	 */
+	void beginBatch()
+	{
+		synchronized (pending)
+		{
+			batchDepth++;
+		}
+	}
+
+	/**
+	 * End a batch of changes, scheduling any tasks requested during the batch
+	 * if this ends the outermost batch.
+	 */
+	void endBatch()
+	{
+		synchronized (pending)
+		{
+			batchDepth--;
+		}
+		schedule();
+	}
+
+	private void schedule()
+	{
+		synchronized (pending)
+		{
+			if (batchDepth > 0 || running || pending.isEmpty())
+			{
+				return;
+			}
+		}
+		if (SwingUtilities.isEventDispatchThread())
+		{
+			timer.restart();
+		}
+		else
+		{
+			flush();
+		}
+	}
+
+	/**
+	 * Run any pending tasks now, even during a batch. Tasks requested while
+	 * the pending tasks are being run are run before this returns.
+	 */
+	void flush()
+	{
+		timer.stop();
+		synchronized (pending)
+		{
+			if (running)
+			{
+				return;
+			}
+			running = true;
+		}
+		try
+		{
+			T task = nextTask();
+			while (task != null)
+			{
+				runner.run(task);
+				task = nextTask();
+			}
+		}
+		finally
+		{
+			synchronized (pending)
+			{
+				running = false;
+			}
+		}
+	}
+
+	private T nextTask()
+	{
+		synchronized (pending)
+		{
+			Iterator<T> it = pending.iterator();
+			if (!it.hasNext())
+			{
+				return null;
+			}
+			T task = it.next();
+			it.remove();
+			return task;
+		}
+	}
+
+	/**
+	 * @return true if any tasks are waiting to be run.
+	 */
+	boolean hasPendingTasks()
+	{
+		synchronized (pending)
+		{
+			return !pending.isEmpty();
+		}
+	}
+
+	/**
+	 * Discard any pending tasks, such as when the character is closed.
+	 */
+	void dispose()
+	{
+		timer.stop();
+		synchronized (pending)
+		{
+			pending.clear();
+		}
+	}
+}
@@ -44,9 +44,10 @@ import org.apache.commons.lang.ArrayUtils;
  * is a filter which contains a set of other DisplayableFilters. At the bottom of a FilterBar is a
  * region of space with an arrow at the center. When this is clicked all of the children filters will
  * be hidden from view.
+ * A FilterBar containing a SearchFilter acts as that SearchFilter.
  * @author Connor Petty <cpmeister@users.sourceforge.net>
  */
-public class FilterBar<C, E> extends JPanel implements DisplayableFilter<C, E>
+public class FilterBar<C, E> extends JPanel implements DisplayableFilter<C, E>, SearchFilter
 {
 
 	private JPanel filterPanel = new JPanel(new FilterLayout());
@@ -118,6 +119,43 @@ public class FilterBar<C, E> extends JPanel implements DisplayableFilter<C, E>
 		return true;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getSearchText()
+	{
+		for (DisplayableFilter<? super C, ? super E> displayableFilter : filters)
+		{
+			if (displayableFilter instanceof SearchFilter)
+			{
+				String text = ((SearchFilter) displayableFilter).getSearchText();
+				if (text.length() > 0)
+				{
+					return text;
+				}
+			}
+		}
+		return ""; //$NON-NLS-1$
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isSearchRefilter()
+	{
+		for (DisplayableFilter<? super C, ? super E> displayableFilter : filters)
+		{
+			if (displayableFilter instanceof SearchFilter
+				&& ((SearchFilter) displayableFilter).isSearchRefilter())
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private static class ArrowButton extends JButton
 	{
 
@@ -22,6 +22,7 @@ package pcgen.gui2.filter;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import pcgen.facade.util.event.ListEvent;
 import pcgen.facade.util.event.ListListener;
@@ -29,6 +30,10 @@ import pcgen.facade.util.AbstractListFacade;
 import pcgen.facade.util.ListFacade;
 
 /**
+ * A list holding the elements of a delegate list which are accepted by a
+ * filter. When the filter is a SearchFilter, the search text of the delegate's
+ * elements is indexed so that searching does not test every element, and a
+ * search which extends the previous one only tests the elements already found.
  *
  * @author Connor Petty <cpmeister@users.sourceforge.net>
  */
@@ -39,6 +44,8 @@ public class FilteredListFacade<C, E> extends AbstractListFacade<E> implements L
 	private ListFacade<E> delegate = null;
 	private Filter<? super C, ? super E> filter = null;
 	private C context = null;
+	private SearchIndex<E> searchIndex = null;
+	private String lastSearch = null;
 
 	@Override
 	public E getElementAt(int index)
@@ -80,6 +87,7 @@ public class FilteredListFacade<C, E> extends AbstractListFacade<E> implements L
 			oldList.removeListListener(this);
 		}
 		this.delegate = list;
+		searchIndex = null;
 		if (list != null)
 		{
 			list.addListListener(this);
@@ -89,60 +97,130 @@ public class FilteredListFacade<C, E> extends AbstractListFacade<E> implements L
 
 	public void refilter()
 	{
-		data.clear();
+		String search = getSearchText();
+		List<E> list = new ArrayList<E>();
 		if (delegate != null)
 		{
-			List<E> list = new ArrayList<E>(delegate.getSize());
-			for (E element : delegate)
+			if (lastSearch != null && search.contains(lastSearch)
+				&& isSearchRefilter())
+			{
+				// Only the elements found by the last search can match
+				for (E element : data)
+				{
+					if (filter.accept(context, element))
+					{
+						list.add(element);
+					}
+				}
+			}
+			else
 			{
-				if (filter == null || filter.accept(context, element))
+				Set<E> found = null;
+				if (search.length() > 0)
+				{
+					if (searchIndex == null)
+					{
+						searchIndex = new SearchIndex<E>();
+						searchIndex.rebuild(delegate);
+					}
+					found = searchIndex.find(search);
+				}
+				for (E element : delegate)
 				{
-					list.add(element);
+					if ((found == null || found.contains(element))
+						&& (filter == null || filter.accept(context, element)))
+					{
+						list.add(element);
+					}
 				}
 			}
-			data.addAll(list);
+			lastSearch = search;
+		}
+		else
+		{
+			lastSearch = null;
 		}
+		data.clear();
+		data.addAll(list);
 		fireElementsChanged(this);
 	}
 
+	private String getSearchText()
+	{
+		if (filter instanceof SearchFilter)
+		{
+			return ((SearchFilter) filter).getSearchText();
+		}
+		return ""; //$NON-NLS-1$
+	}
+
+	private boolean isSearchRefilter()
+	{
+		return filter instanceof SearchFilter
+			&& ((SearchFilter) filter).isSearchRefilter();
+	}
+
 	@Override
 	public void elementAdded(ListEvent<E> e)
 	{
-		if (filter == null || filter.accept(context, e.getElement()))
+		if (searchIndex != null)
+		{
+			searchIndex.add(e.getElement());
+		}
+		addIfAccepted(e.getElement());
+	}
+
+	private void addIfAccepted(E element)
+	{
+		if (filter == null || filter.accept(context, element))
 		{
 			int size = data.size();
-			data.add(e.getElement());
-			fireElementAdded(this, e.getElement(), size);
+			data.add(element);
+			fireElementAdded(this, element, size);
 		}
 	}
 
 	@Override
 	public void elementRemoved(ListEvent<E> e)
 	{
-		int index = data.indexOf(e.getElement());
-		data.remove(e.getElement());
-		fireElementRemoved(this, e.getElement(), index);
+		if (searchIndex != null)
+		{
+			searchIndex.remove(e.getElement());
+		}
+		removeElement(e.getElement());
+	}
+
+	private void removeElement(E element)
+	{
+		int index = data.indexOf(element);
+		data.remove(element);
+		fireElementRemoved(this, element, index);
 	}
 
 	@Override
 	public void elementsChanged(ListEvent<E> e)
 	{
+		searchIndex = null;
 		refilter();
 	}
 
 	@Override
 	public void elementModified(ListEvent<E> e)
 	{
+		if (searchIndex != null)
+		{
+			searchIndex.update(e.getElement());
+		}
 		if (data.contains(e.getElement()))
 		{
 			if (filter != null && !filter.accept(context, e.getElement()))
 			{
-				elementRemoved(e);
+				removeElement(e.getElement());
 			}
 		}
 		else
 		{
-			elementAdded(e);
+			addIfAccepted(e.getElement());
 		}
 
 	}
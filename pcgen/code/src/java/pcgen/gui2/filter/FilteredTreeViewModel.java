@@ -22,6 +22,7 @@ package pcgen.gui2.filter;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import pcgen.facade.util.event.ListEvent;
 import pcgen.facade.util.event.ListListener;
@@ -33,6 +34,11 @@ import pcgen.gui2.util.treeview.TreeView;
 import pcgen.gui2.util.treeview.TreeViewModel;
 
 /**
+ * A TreeViewModel holding the elements of a base model which are accepted by a
+ * filter. When the filter is a SearchFilter, the search text of the base
+ * model's elements is indexed so that searching does not test every element,
+ * and a search which extends the previous one only tests the elements already
+ * found.
  *
  * @author Connor Petty <cpmeister@users.sourceforge.net>
  */
@@ -44,6 +50,8 @@ public class FilteredTreeViewModel<C, E>
 	private Filter<C, E> filter;
 	private TreeViewModel<E> model;
 	private C context;
+	private SearchIndex<E> searchIndex = null;
+	private String lastSearch = null;
 
 	@Override
 	public ListFacade<? extends TreeView<E>> getTreeViews()
@@ -76,6 +84,8 @@ public class FilteredTreeViewModel<C, E>
 			this.model.getDataModel().removeListListener(this);
 		}
 		this.model = model;
+		searchIndex = null;
+		lastSearch = null;
 		if (this.model != null)
 		{
 			this.model.getDataModel().addListListener(this);
@@ -109,20 +119,69 @@ public class FilteredTreeViewModel<C, E>
 	public void refilter()
 	{
 		ListFacade<E> base = model.getDataModel();
-		List<E> list = new ArrayList<E>(base.getSize());
-		for (E element : base)
+		String search = getSearchText();
+		List<E> list;
+		if (lastSearch != null && search.contains(lastSearch)
+			&& isSearchRefilter())
 		{
-			if (filter == null || filter.accept(context, element))
+			// Only the elements found by the last search can match
+			list = new ArrayList<E>(data.getSize());
+			for (E element : data)
 			{
-				list.add(element);
+				if (filter.accept(context, element))
+				{
+					list.add(element);
+				}
 			}
 		}
+		else
+		{
+			Set<E> found = null;
+			if (search.length() > 0)
+			{
+				if (searchIndex == null)
+				{
+					searchIndex = new SearchIndex<E>();
+					searchIndex.rebuild(base);
+				}
+				found = searchIndex.find(search);
+			}
+			list = new ArrayList<E>(base.getSize());
+			for (E element : base)
+			{
+				if ((found == null || found.contains(element))
+					&& (filter == null || filter.accept(context, element)))
+				{
+					list.add(element);
+				}
+			}
+		}
+		lastSearch = search;
 		data.updateContents(list);
 	}
 
+	private String getSearchText()
+	{
+		if (filter instanceof SearchFilter)
+		{
+			return ((SearchFilter) filter).getSearchText();
+		}
+		return ""; //$NON-NLS-1$
+	}
+
+	private boolean isSearchRefilter()
+	{
+		return filter instanceof SearchFilter
+			&& ((SearchFilter) filter).isSearchRefilter();
+	}
+
 	@Override
 	public void elementAdded(ListEvent<E> e)
 	{
+		if (searchIndex != null)
+		{
+			searchIndex.add(e.getElement());
+		}
 		if (filter == null || filter.accept(context, e.getElement()))
 		{
 			data.addElement(e.getElement());
@@ -132,18 +191,27 @@ public class FilteredTreeViewModel<C, E>
 	@Override
 	public void elementRemoved(ListEvent<E> e)
 	{
+		if (searchIndex != null)
+		{
+			searchIndex.remove(e.getElement());
+		}
 		data.removeElement(e.getElement());
 	}
 
 	@Override
 	public void elementsChanged(ListEvent<E> e)
 	{
+		searchIndex = null;
 		refilter();
 	}
 
 	@Override
 	public void elementModified(ListEvent<E> e)
 	{
+		if (searchIndex != null)
+		{
+			searchIndex.update(e.getElement());
+		}
 		if (!filter.accept(context, e.getElement()))
 		{
 			data.removeElement(e.getElement());
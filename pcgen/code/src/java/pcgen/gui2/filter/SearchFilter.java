@@ -0,0 +1,48 @@
+/*
+ * SearchFilter.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.gui2.filter;
+
+/**
+ * A <code>SearchFilter</code> is a filter which only accepts the elements
+ * whose search text contains the text being searched for (as well as meeting
+ * any other conditions of the filter). A list being filtered by a
+ * SearchFilter can use a SearchIndex to find the elements which may be
+ * accepted without testing every element.
+ *
+ * @see SearchIndex
+ */
+public interface SearchFilter
+{
+
+	/**
+	 * @return The lower case text being searched for; empty if the filter is
+	 *         not searching.
+	 */
+	public String getSearchText();
+
+	/**
+	 * Identifies if the refilter in progress was caused only by a change to
+	 * the text being searched for. If so, and the new search text extends the
+	 * previous one, only the elements accepted by the previous filtering can
+	 * be accepted.
+	 *
+	 * @return true if only the search text has changed since the last refilter
+	 */
+	public boolean isSearchRefilter();
+}
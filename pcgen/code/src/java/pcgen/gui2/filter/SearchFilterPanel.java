@@ -29,20 +29,18 @@ import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
+import javax.swing.Timer;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 
-import org.apache.commons.lang.StringUtils;
-
-import pcgen.facade.core.CampaignFacade;
-import pcgen.facade.core.InfoFacade;
 import pcgen.gui2.tools.Icons;
 import pcgen.system.LanguageBundle;
 
 /**
  * A text search filtering bar including the title, the text field and a clear 
  * button. When text is typed into the field the table contents will be 
- * filtered to only those matching the search text.
+ * filtered to only those matching the search text. The table is refiltered
+ * once typing pauses, rather than after every key stroke.
  *
  * <br/>
  * Last Editor: $Author:  $
@@ -52,15 +50,32 @@ import pcgen.system.LanguageBundle;
  * @version $Revision:  $
  */
 public class SearchFilterPanel extends JPanel
-		implements DisplayableFilter<Object, Object>, DocumentListener, ActionListener
+		implements DisplayableFilter<Object, Object>, SearchFilter, DocumentListener, ActionListener
 {
 
+	/** The delay in milliseconds after the last key stroke before refiltering. */
+	private static final int REFRESH_DELAY = 150;
+
 	private FilterHandler filterHandler;
 	private JTextField searchField = new JTextField();
 	private JButton clearButton = new JButton(Icons.CloseX9.getImageIcon());
+	private final Timer refreshTimer;
+	private String searchText = ""; //$NON-NLS-1$
+	private boolean searchRefilter = false;
 
 	public SearchFilterPanel()
 	{
+		refreshTimer = new Timer(REFRESH_DELAY, new ActionListener()
+		{
+
+			@Override
+			public void actionPerformed(ActionEvent e)
+			{
+				refreshFilter();
+			}
+
+		});
+		refreshTimer.setRepeats(false);
 		searchField.getDocument().addDocumentListener(this);
 		clearButton.addActionListener(this);
 		setLayout(new BorderLayout());
@@ -72,47 +87,69 @@ public class SearchFilterPanel extends JPanel
 	@Override
 	public void insertUpdate(DocumentEvent e)
 	{
-		refreshFilter();
+		refreshTimer.restart();
 	}
 
 	@Override
 	public void removeUpdate(DocumentEvent e)
 	{
-		refreshFilter();
+		refreshTimer.restart();
 	}
 
 	@Override
 	public void changedUpdate(DocumentEvent e)
 	{
-		refreshFilter();
+		refreshTimer.restart();
 	}
 
 	private void refreshFilter()
 	{
-		String text = searchField.getText();
-		filterHandler.setSearchEnabled(text != null && text.length() > 0);
-		filterHandler.refilter();
+		String text = SearchIndex.toSearchString(searchField.getText());
+		if (text.equals(searchText))
+		{
+			return;
+		}
+		searchText = text;
+		if (filterHandler == null)
+		{
+			return;
+		}
+		filterHandler.setSearchEnabled(text.length() > 0);
+		searchRefilter = true;
+		try
+		{
+			filterHandler.refilter();
+		}
+		finally
+		{
+			searchRefilter = false;
+		}
 		filterHandler.scrollToTop();
 	}
 
 	@Override
 	public boolean accept(Object context, Object element)
 	{
-		String typeStr = ""; //$NON-NLS-1$
-		String abbStr = ""; //$NON-NLS-1$
-		if (element instanceof InfoFacade)
-		{
-			typeStr = ((InfoFacade)element).getType();
-		}
-		else if (element instanceof CampaignFacade)
-		{
-			typeStr = ((CampaignFacade)element).getBookTypes();
-			abbStr = ((CampaignFacade)element).getSourceShort();
-		}
-		final String searchText = searchField.getText();
-		return StringUtils.containsIgnoreCase(element.toString(), searchText)
-			|| StringUtils.containsIgnoreCase(typeStr, searchText)
-			|| StringUtils.containsIgnoreCase(abbStr, searchText);
+		return searchText.length() == 0
+			|| SearchIndex.getSearchText(element).contains(searchText);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getSearchText()
+	{
+		return searchText;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isSearchRefilter()
+	{
+		return searchRefilter;
 	}
 
 	@Override
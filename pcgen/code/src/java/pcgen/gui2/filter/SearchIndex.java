@@ -0,0 +1,314 @@
+/*
+ * SearchIndex.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.gui2.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import pcgen.facade.core.CampaignFacade;
+import pcgen.facade.core.InfoFacade;
+
+/**
+ * A <code>SearchIndex</code> holds the search text of each element of a list
+ * in lower case, along with an index of the three letter sequences in those
+ * texts, so that the elements containing a search string can be found without
+ * testing every element of the list.
+ * <p>
+ * The search text of an element is its name, its type and, for a campaign, its
+ * short source name, as searched by the SearchFilterPanel. The index is kept
+ * up to date by calling add, remove and update as the list changes.
+ */
+public class SearchIndex<E>
+{
+
+	private static final int GRAM_LENGTH = 3;
+
+	/** Separates the fields of a search text, so no match can span two. */
+	private static final char FIELD_SEPARATOR = '\n';
+
+	private final List<E> elements = new ArrayList<E>();
+	private final List<String> texts = new ArrayList<String>();
+	private final Map<E, Slot> slots = new HashMap<E, Slot>();
+	private final Map<String, Postings> grams = new HashMap<String, Postings>();
+	private int emptySlots = 0;
+
+	/**
+	 * Returns the lower case text searched for the given element.
+	 *
+	 * @param element The element to be searched
+	 * @return The search text of the element
+	 */
+	public static String getSearchText(Object element)
+	{
+		String typeStr = ""; //$NON-NLS-1$
+		String abbStr = ""; //$NON-NLS-1$
+		if (element instanceof InfoFacade)
+		{
+			typeStr = ((InfoFacade) element).getType();
+		}
+		else if (element instanceof CampaignFacade)
+		{
+			typeStr = ((CampaignFacade) element).getBookTypes();
+			abbStr = ((CampaignFacade) element).getSourceShort();
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.valueOf(element));
+		sb.append(FIELD_SEPARATOR).append(typeStr == null ? "" : typeStr); //$NON-NLS-1$
+		sb.append(FIELD_SEPARATOR).append(abbStr == null ? "" : abbStr); //$NON-NLS-1$
+		return sb.toString().toLowerCase(Locale.ENGLISH);
+	}
+
+	/**
+	 * Converts the text typed by the user into the form held by the index.
+	 *
+	 * @param text The text to be searched for
+	 * @return The lower case search string
+	 */
+	public static String toSearchString(String text)
+	{
+		return (text == null) ? "" : text.toLowerCase(Locale.ENGLISH); //$NON-NLS-1$
+	}
+
+	/**
+	 * Replaces the contents of the index with the given elements.
+	 *
+	 * @param list The elements to be indexed
+	 */
+	public void rebuild(Iterable<? extends E> list)
+	{
+		clear();
+		for (E element : list)
+		{
+			add(element);
+		}
+	}
+
+	/**
+	 * Removes every element from the index.
+	 */
+	public void clear()
+	{
+		elements.clear();
+		texts.clear();
+		slots.clear();
+		grams.clear();
+		emptySlots = 0;
+	}
+
+	/**
+	 * Adds an element to the index. An element may be added more than once,
+	 * in which case it must be removed the same number of times.
+	 *
+	 * @param element The element to be indexed
+	 */
+	public void add(E element)
+	{
+		Slot slot = slots.get(element);
+		if (slot != null)
+		{
+			slot.count++;
+			return;
+		}
+		int index = elements.size();
+		String text = getSearchText(element);
+		elements.add(element);
+		texts.add(text);
+		slots.put(element, new Slot(index));
+		for (int i = 0; i + GRAM_LENGTH <= text.length(); i++)
+		{
+			String gram = text.substring(i, i + GRAM_LENGTH);
+			Postings postings = grams.get(gram);
+			if (postings == null)
+			{
+				postings = new Postings();
+				grams.put(gram, postings);
+			}
+			postings.add(index);
+		}
+	}
+
+	/**
+	 * Removes an element from the index.
+	 *
+	 * @param element The element to be removed
+	 */
+	public void remove(E element)
+	{
+		Slot slot = slots.get(element);
+		if (slot == null)
+		{
+			return;
+		}
+		slot.count--;
+		if (slot.count > 0)
+		{
+			return;
+		}
+		slots.remove(element);
+		elements.set(slot.index, null);
+		texts.set(slot.index, null);
+		emptySlots++;
+		if (emptySlots > 32 && emptySlots > elements.size() / 2)
+		{
+			compact();
+		}
+	}
+
+	/**
+	 * Updates the search text of an element which has been modified.
+	 *
+	 * @param element The element which has changed
+	 */
+	public void update(E element)
+	{
+		Slot slot = slots.get(element);
+		if (slot != null
+			&& !getSearchText(element).equals(texts.get(slot.index)))
+		{
+			int count = slot.count;
+			slot.count = 1;
+			remove(element);
+			for (int i = 0; i < count; i++)
+			{
+				add(element);
+			}
+		}
+	}
+
+	/**
+	 * Finds the indexed elements whose search text contains the given string.
+	 *
+	 * @param search The lower case string to search for
+	 * @return The matching elements
+	 */
+	public Set<E> find(String search)
+	{
+		Set<E> found = new HashSet<E>();
+		if (search.length() < GRAM_LENGTH)
+		{
+			for (int i = 0; i < texts.size(); i++)
+			{
+				addIfMatch(found, i, search);
+			}
+			return found;
+		}
+		// Only the elements with the rarest sequence in the search can match
+		Postings rarest = null;
+		for (int i = 0; i + GRAM_LENGTH <= search.length(); i++)
+		{
+			Postings postings =
+					grams.get(search.substring(i, i + GRAM_LENGTH));
+			if (postings == null)
+			{
+				return found;
+			}
+			if (rarest == null || postings.size < rarest.size)
+			{
+				rarest = postings;
+			}
+		}
+		for (int i = 0; i < rarest.size; i++)
+		{
+			addIfMatch(found, rarest.slots[i], search);
+		}
+		return found;
+	}
+
+	/**
+	 * @return The number of distinct elements in the index.
+	 */
+	public int size()
+	{
+		return slots.size();
+	}
+
+	private void addIfMatch(Set<E> found, int index, String search)
+	{
+		String text = texts.get(index);
+		if (text != null && text.contains(search))
+		{
+			found.add(elements.get(index));
+		}
+	}
+
+	private void compact()
+	{
+		List<E> live = new ArrayList<E>(slots.size());
+		List<Integer> counts = new ArrayList<Integer>(slots.size());
+		for (E element : elements)
+		{
+			if (element != null)
+			{
+				live.add(element);
+				counts.add(slots.get(element).count);
+			}
+		}
+		clear();
+		for (int i = 0; i < live.size(); i++)
+		{
+			E element = live.get(i);
+			add(element);
+			slots.get(element).count = counts.get(i);
+		}
+	}
+
+	/**
+	 * The position of an element in the index and the number of times it has
+	 * been added.
+	 */
+	private static final class Slot
+	{
+		private final int index;
+		private int count = 1;
+
+		private Slot(int index)
+		{
+			this.index = index;
+		}
+	}
+
+	/**
+	 * The positions of the elements containing a sequence, in ascending order.
+	 */
+	private static final class Postings
+	{
+		private int[] slots = new int[4];
+		private int size = 0;
+
+		private void add(int index)
+		{
+			if (size > 0 && slots[size - 1] == index)
+			{
+				// The sequence appears more than once in the same text
+				return;
+			}
+			if (size == slots.length)
+			{
+				slots = Arrays.copyOf(slots, size * 2);
+			}
+			slots[size++] = index;
+		}
+	}
+}
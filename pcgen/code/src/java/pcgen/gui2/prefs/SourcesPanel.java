@@ -77,6 +77,8 @@ public class SourcesPanel extends PCGenPrefsPanel
 	private JCheckBox skipSourceSelect = new JCheckBox();
 	private JCheckBox useAdvancedSourceSelect = new JCheckBox();
 	private JCheckBox allowMultiLineObjectsSelect = new JCheckBox();
+	private JCheckBox parallelLoadSelect = new JCheckBox();
+	private JCheckBox useSnapshotSelect = new JCheckBox();
 
 	/**
 	 * Instantiates a new monster panel.
@@ -182,6 +184,16 @@ public class SourcesPanel extends PCGenPrefsPanel
 		gridbag.setConstraints(allowMultiLineObjectsSelect, c);
 		this.add(allowMultiLineObjectsSelect);
 
+		Utility.buildConstraints(c, 0, 14, GridBagConstraints.REMAINDER, 1, 0, 0);
+		parallelLoadSelect.setText(LanguageBundle.getString("in_Prefs_parallelLoadSelect")); //$NON-NLS-1$
+		gridbag.setConstraints(parallelLoadSelect, c);
+		this.add(parallelLoadSelect);
+
+		Utility.buildConstraints(c, 0, 15, GridBagConstraints.REMAINDER, 1, 0, 0);
+		useSnapshotSelect.setText(LanguageBundle.getString("in_Prefs_useSnapshotSelect")); //$NON-NLS-1$
+		gridbag.setConstraints(useSnapshotSelect, c);
+		this.add(useSnapshotSelect);
+
 		Utility.buildConstraints(c, 5, 20, GridBagConstraints.REMAINDER, 1, 1, 1);
 		c.fill = GridBagConstraints.BOTH;
 		label = new JLabel();
@@ -234,6 +246,12 @@ public class SourcesPanel extends PCGenPrefsPanel
 		PCGenSettings.OPTIONS_CONTEXT.setBoolean(
 			PCGenSettings.OPTION_SOURCES_ALLOW_MULTI_LINE,
 			allowMultiLineObjectsSelect.isSelected());
+		PCGenSettings.OPTIONS_CONTEXT.setBoolean(
+			PCGenSettings.OPTION_SOURCES_PARALLEL_LOAD,
+			parallelLoadSelect.isSelected());
+		PCGenSettings.OPTIONS_CONTEXT.setBoolean(
+			PCGenSettings.OPTION_SOURCES_USE_SNAPSHOT,
+			useSnapshotSelect.isSelected());
 
 		switch (sourceOptions.getSelectedIndex())
 		{
@@ -296,6 +314,10 @@ public class SourcesPanel extends PCGenPrefsPanel
 				.getBoolean(UIPropertyContext.SOURCE_USE_BASIC_KEY));
 		allowMultiLineObjectsSelect.setSelected(PCGenSettings.OPTIONS_CONTEXT
 			.getBoolean(PCGenSettings.OPTION_SOURCES_ALLOW_MULTI_LINE));
+		parallelLoadSelect.setSelected(PCGenSettings.OPTIONS_CONTEXT
+			.getBoolean(PCGenSettings.OPTION_SOURCES_PARALLEL_LOAD));
+		useSnapshotSelect.setSelected(PCGenSettings.OPTIONS_CONTEXT
+			.getBoolean(PCGenSettings.OPTION_SOURCES_USE_SNAPSHOT));
 		
 		switch (Globals.getSourceDisplay())
 		{
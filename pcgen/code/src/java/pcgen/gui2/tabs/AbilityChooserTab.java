@@ -23,6 +23,7 @@ package pcgen.gui2.tabs;
 import java.awt.BorderLayout;
 import java.awt.Component;
 import java.awt.event.ActionEvent;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Hashtable;
 import java.util.List;
@@ -374,6 +375,9 @@ public class AbilityChooserTab extends FlippingSplitPane implements StateEditabl
 	private class InfoHandler implements ListSelectionListener
 	{
 
+		/** The number of rows either side of the selection to prefetch. */
+		private static final int PREFETCH_ROWS = 2;
+
 		private CharacterFacade character;
 		private final ListFacade<AbilityCategoryFacade> categories;
 		private String text;
@@ -412,6 +416,8 @@ public class AbilityChooserTab extends FlippingSplitPane implements StateEditabl
 				if (e.getSource() == availableTreeViewPanel.getSelectionModel())
 				{
 					data = availableTreeViewPanel.getSelectedObject();
+					prefetchAdjacentRows(availableTreeViewPanel,
+						availableTreeViewPanel.getSelectedRow());
 				}
 				else if (e.getSource() == selectedTreeViewPanel.getSelectionModel())
 				{
@@ -420,6 +426,7 @@ public class AbilityChooserTab extends FlippingSplitPane implements StateEditabl
 					{
 						data = selectedTreeViewPanel.getModel().getValueAt(index, 0);
 					}
+					prefetchAdjacentRows(selectedTreeViewPanel, index);
 				}
 				else
 				{
@@ -454,6 +461,31 @@ public class AbilityChooserTab extends FlippingSplitPane implements StateEditabl
 			}
 		}
 
+		/**
+		 * Prepare the information of the abilities in the rows either side of
+		 * the selected row, so it is ready if the selection moves to them.
+		 */
+		private void prefetchAdjacentRows(JTable table, int row)
+		{
+			if (row == -1)
+			{
+				return;
+			}
+			List<AbilityFacade> adjacent = new ArrayList<AbilityFacade>();
+			for (int i = row - PREFETCH_ROWS; i <= row + PREFETCH_ROWS; i++)
+			{
+				if (i != row && i >= 0 && i < table.getRowCount())
+				{
+					Object value = table.getModel().getValueAt(i, 0);
+					if (value instanceof AbilityFacade)
+					{
+						adjacent.add((AbilityFacade) value);
+					}
+				}
+			}
+			character.getInfoFactory().prefetchHTMLInfo(adjacent);
+		}
+
 	}
 //
 //	private final class AbilityTransferHandler extends TransferHandler
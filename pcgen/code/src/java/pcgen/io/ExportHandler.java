@@ -44,6 +44,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -65,6 +66,7 @@ import pcgen.core.character.CharacterSpell;
 import pcgen.core.character.Follower;
 import pcgen.core.display.CharacterDisplay;
 import pcgen.core.display.SkillDisplay;
+import pcgen.core.prereq.PrerequisiteCache;
 import pcgen.core.utils.CoreUtility;
 import pcgen.io.exporttoken.AbilityListToken;
 import pcgen.io.exporttoken.AbilityToken;
@@ -86,10 +88,12 @@ import pcgen.io.freemarker.PCBooleanFunction;
 import pcgen.io.freemarker.PCStringDirective;
 import pcgen.io.freemarker.PCVarFunction;
 import pcgen.io.freemarker.PCHasVarFunction;
+import pcgen.io.freemarker.TemplateFileLoader;
 import pcgen.system.PluginLoader;
 import pcgen.util.Delta;
 import pcgen.util.Logging;
 import pcgen.util.enumeration.View;
+import freemarker.cache.MruCacheStorage;
 import freemarker.template.Configuration;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
@@ -112,14 +116,42 @@ public final class ExportHandler
 	/** A constant stating that we are using JEP parsing */
 	private static final Float JEP_TRUE = new Float(1.0);
 
-	/** A map of output tokens to export */
-	private static Map<String, Token> tokenMap = new HashMap<String, Token>();
+	/**
+	 * A map of output tokens to export. Characters may be exported on several
+	 * threads at once, so the map must be safe to read while it is populated.
+	 */
+	private static final Map<String, Token> tokenMap =
+			new ConcurrentHashMap<String, Token>();
 
 	/** 
 	 * A variable to hold the state of whether or not the output token map to
-	 * be exported is populated or not. 
+	 * be exported is populated or not. Only set once the map is populated, so
+	 * a thread which sees it set also sees the populated map.
+	 */
+	private static volatile boolean tokenMapPopulated;
+
+	/**
+	 * The parsed legacy templates, by template file. These are shared by all
+	 * ExportHandlers, so the tree of a template must not be changed once it
+	 * has been parsed.
+	 */
+	private static final Map<File, ParsedTemplate> parsedTemplates =
+			new ConcurrentHashMap<File, ParsedTemplate>();
+
+	/** The number of parsed Freemarker templates always kept in the cache. */
+	private static final int FREEMARKER_STRONG_CACHE_SIZE = 20;
+
+	/** The number of parsed Freemarker templates kept while memory allows. */
+	private static final int FREEMARKER_SOFT_CACHE_SIZE = 100;
+
+	/**
+	 * The Freemarker configuration shared by every export, so that each
+	 * template is only parsed once unless the file is changed. Only objects
+	 * which hold no character are shared variables; everything tied to the
+	 * character being exported is passed in the data model.
 	 */
-	private static boolean tokenMapPopulated;
+	private static final Configuration freemarkerConfig =
+			createFreemarkerConfiguration();
 
 	/**
 	 * ExportEngine describes a possible templating engine to be used to 
@@ -211,6 +243,27 @@ public final class ExportHandler
 	 * @throws ExportException If the export fails.
 	 */
 	public void write(PlayerCharacter aPC, BufferedWriter out) throws ExportException
+	{
+		/*
+		 * The export rarely changes the character (only to output each
+		 * equipment set), so the same prerequisites need only be tested once
+		 * in between. The cache discards results when the character changes.
+		 */
+		PrerequisiteCache prereqCache = aPC.getPrerequisiteCache();
+		boolean wasCached = prereqCache.isEnabled();
+		prereqCache.setEnabled(true);
+		try
+		{
+			writeCharacter(aPC, out);
+		}
+		finally
+		{
+			prereqCache.setEnabled(wasCached);
+		}
+	}
+
+	private void writeCharacter(PlayerCharacter aPC, BufferedWriter out)
+		throws ExportException
 	{
 		if (templateFile == null)
 		{
@@ -229,29 +282,13 @@ public final class ExportHandler
 		// Set an output filter based on the type of template in use.
 		FileAccess.setCurrentOutputFilter(templateFile.getName());
 
-		BufferedReader br = null;
-		FileInputStream fis = null;
-		InputStreamReader isr = null;
 		try
 		{
-			fis = new FileInputStream(templateFile);
-			isr = new InputStreamReader(fis, "UTF-8");
-			br = new BufferedReader(isr);
-
-			// A Buffer to hold the result of the preparation
-			StringBuilder template = prepareTemplate(br);
-
-			// Create a tokenizer based on EOL characters
-			// 03-Nov-2008 Karianna, changed to use line separator instead of /r/n
-			final StringTokenizer tokenizer =
-					new StringTokenizer(template.toString(),
-						Constants.LINE_SEPARATOR, false);
+			// Get FOR loops and IIF statements
+			final FORNode root = getParsedTemplate(templateFile);
 
 			final FileAccess fileAccess = new FileAccess();
 
-			// Get FOR loops and IIF statements
-			final FORNode root = parseFORsAndIIFs(tokenizer);
-
 			// TODO Not sure what these lines are for
 			loopVariables.put(null, "0");
 			existsOnly = false;
@@ -270,22 +307,6 @@ public final class ExportHandler
 		}
 		finally
 		{
-			// Close off the reader
-			if (br != null)
-			{
-				try
-				{
-					br.close();
-				}
-				catch (IOException e)
-				{
-					Logging
-						.errorPrint(
-							"Error closing off the character sheet template in ExportHandler::write",
-							e);
-				}
-			}
-
 			if (out != null)
 			{
 				try
@@ -313,27 +334,23 @@ public final class ExportHandler
 	 */
 	private void exportCharacterUsingFreemarker(PlayerCharacter aPC, BufferedWriter outputWriter) throws ExportException
 	{
-		Configuration cfg = new Configuration();
-
 		try
 		{
-			// Set Directory for templates
-			cfg.setDirectoryForTemplateLoading(templateFile.getParentFile());
-			cfg.setIncompatibleImprovements(new Version("2.3.20"));
-			
 			// load template
-			Template template = cfg.getTemplate(templateFile.getName());
-
-			// Configure our custom directives and functions.
-			cfg.setSharedVariable("pcstring", new PCStringDirective(aPC, this));
-			cfg.setSharedVariable("pcvar", new PCVarFunction(aPC));
-			cfg.setSharedVariable("pcboolean", new PCBooleanFunction(aPC, this));
-			cfg.setSharedVariable("pchasvar", new PCHasVarFunction(aPC, this));
-			cfg.setSharedVariable("loop", new LoopDirective());
-			cfg.setSharedVariable("equipsetloop", new EquipSetLoopDirective(aPC));
-			
+			Template template =
+					freemarkerConfig.getTemplate(TemplateFileLoader
+						.getTemplateName(templateFile));
+
 			// data-model
 			Map<String, Object> input = new HashMap<String, Object>();
+
+			// Our custom directives and functions for this character.
+			input.put("pcstring", new PCStringDirective(aPC, this));
+			input.put("pcvar", new PCVarFunction(aPC));
+			input.put("pcboolean", new PCBooleanFunction(aPC, this));
+			input.put("pchasvar", new PCHasVarFunction(aPC, this));
+			input.put("equipsetloop", new EquipSetLoopDirective(aPC));
+
 //			input.put("pc", aPC);
 //			input.put("exportHandler", this);
 //			input.put("gameModeVarCountMap", gameModeVarCountMap);
@@ -371,6 +388,81 @@ public final class ExportHandler
 	}
 	
 	
+	/**
+	 * Create the Freemarker configuration shared by every export. Templates
+	 * are loaded from any directory, up to FREEMARKER_STRONG_CACHE_SIZE
+	 * parsed templates are always kept and each is checked for changes to
+	 * its file whenever it is used.
+	 * 
+	 * @return The shared configuration.
+	 */
+	private static Configuration createFreemarkerConfiguration()
+	{
+		Configuration cfg = new Configuration();
+		cfg.setIncompatibleImprovements(new Version("2.3.20"));
+		cfg.setTemplateLoader(new TemplateFileLoader());
+		cfg.setCacheStorage(new MruCacheStorage(FREEMARKER_STRONG_CACHE_SIZE,
+			FREEMARKER_SOFT_CACHE_SIZE));
+		cfg.setTemplateUpdateDelay(0);
+		cfg.setSharedVariable("loop", new LoopDirective());
+		return cfg;
+	}
+
+	/**
+	 * Returns the tree of FOR and IIF sections of a legacy template. A 
+	 * template is only read and parsed once, unless the file is changed, and
+	 * the resulting tree is then shared by every export using the template.
+	 * 
+	 * @param template The template file
+	 * @return The root FORNode of the template
+	 * @throws IOException If the template cannot be read
+	 */
+	private static FORNode getParsedTemplate(File template) throws IOException
+	{
+		File key = template.getAbsoluteFile();
+		long lastModified = key.lastModified();
+		long length = key.length();
+		ParsedTemplate parsed = parsedTemplates.get(key);
+		if (parsed == null || parsed.lastModified != lastModified
+			|| parsed.length != length)
+		{
+			BufferedReader br =
+					new BufferedReader(new InputStreamReader(
+						new FileInputStream(key), "UTF-8"));
+			try
+			{
+				// A Buffer to hold the result of the preparation
+				StringBuilder prepared = prepareTemplate(br);
+
+				// Create a tokenizer based on EOL characters
+				// 03-Nov-2008 Karianna, changed to use line separator instead of /r/n
+				final StringTokenizer tokenizer =
+						new StringTokenizer(prepared.toString(),
+							Constants.LINE_SEPARATOR, false);
+
+				parsed =
+						new ParsedTemplate(lastModified, length,
+							parseFORsAndIIFs(tokenizer));
+			}
+			finally
+			{
+				try
+				{
+					br.close();
+				}
+				catch (IOException e)
+				{
+					Logging
+						.errorPrint(
+							"Error closing off the character sheet template in ExportHandler::write",
+							e);
+				}
+			}
+			parsedTemplates.put(key, parsed);
+		}
+		return parsed.root;
+	}
+
 	/**
 	 * A helper method to prepare the template for exporting
 	 * 
@@ -380,7 +472,7 @@ public final class ExportHandler
 	 * @param br The BufferedReader containing the template
 	 * @throws IOException
 	 */
-	private StringBuilder prepareTemplate(BufferedReader br) throws IOException
+	private static StringBuilder prepareTemplate(BufferedReader br) throws IOException
 	{
 		// A pattern to replace || with | | to stop StringTokenizer from merging them
 		Pattern pat = Pattern.compile(Pattern.quote("||"));
@@ -1603,7 +1695,7 @@ public final class ExportHandler
 	 * @param tokens
 	 * @return a FORNode object
 	 */
-	private FORNode parseFORsAndIIFs(StringTokenizer tokens)
+	private static FORNode parseFORsAndIIFs(StringTokenizer tokens)
 	{
 		// A FORNode that will hold a 'tree' of all of the FOR and IIF sections found
 		final FORNode root = new FORNode(null, "0", "0", "1", false);
@@ -1660,7 +1752,7 @@ public final class ExportHandler
 	 * @param tokens
 	 * @return A FORNode of the parsed tokens
 	 */
-	private FORNode parseFORs(String forLine, StringTokenizer tokens)
+	private static FORNode parseFORs(String forLine, StringTokenizer tokens)
 	{
 		final List<String> forVars = getParameters(forLine);
 		final String var = forVars.get(1);
@@ -1765,7 +1857,7 @@ public final class ExportHandler
 	 * @param tokens
 	 * @return IIFNode representing the parsed tokens
 	 */
-	private IIFNode parseIIFs(String expr, StringTokenizer tokens)
+	private static IIFNode parseIIFs(String expr, StringTokenizer tokens)
 	{
 		final IIFNode node = new IIFNode(expr);
 
@@ -1855,20 +1947,26 @@ public final class ExportHandler
 	{
 		if (!tokenMapPopulated)
 		{
-			addToTokenMap(new AbilityToken());
-			addToTokenMap(new AbilityListToken());
-			addToTokenMap(new BonusToken());
-			addToTokenMap(new EqToken());
-			addToTokenMap(new EqTypeToken());
-			addToTokenMap(new GameModeToken());
-			addToTokenMap(new MovementToken());
-			addToTokenMap(new SkillToken());
-			addToTokenMap(new SkillpointsToken());
-			addToTokenMap(new StatToken());
-			addToTokenMap(new TotalToken());
-			addToTokenMap(new WeaponToken());
-			addToTokenMap(new WeaponhToken());
-			tokenMapPopulated = true;
+			synchronized (tokenMap)
+			{
+				if (!tokenMapPopulated)
+				{
+					addToTokenMap(new AbilityToken());
+					addToTokenMap(new AbilityListToken());
+					addToTokenMap(new BonusToken());
+					addToTokenMap(new EqToken());
+					addToTokenMap(new EqTypeToken());
+					addToTokenMap(new GameModeToken());
+					addToTokenMap(new MovementToken());
+					addToTokenMap(new SkillToken());
+					addToTokenMap(new SkillpointsToken());
+					addToTokenMap(new StatToken());
+					addToTokenMap(new TotalToken());
+					addToTokenMap(new WeaponToken());
+					addToTokenMap(new WeaponhToken());
+					tokenMapPopulated = true;
+				}
+			}
 		}
 	}
 
@@ -3908,6 +4006,24 @@ public final class ExportHandler
 		}
 	}
 
+	/**
+	 * The parsed tree of a legacy template, with the details of the template
+	 * file when it was parsed.
+	 */
+	private static final class ParsedTemplate
+	{
+		private final long lastModified;
+		private final long length;
+		private final FORNode root;
+
+		private ParsedTemplate(long lastModified, long length, FORNode root)
+		{
+			this.lastModified = lastModified;
+			this.length = length;
+			this.root = root;
+		}
+	}
+
 	private static final class PartyForParser
 	{
 		final PStringTokenizer pTok;
@@ -21,6 +21,7 @@
 package pcgen.io;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -32,6 +33,7 @@ import java.util.List;
 final class FORNode
 {
 	private List<Object> children;
+	private List<Object> childrenView;
 	private String max;
 	private String min;
 	private String step;
@@ -50,6 +52,7 @@ final class FORNode
 	FORNode(String _var, String _min, String _max, String _step, boolean _exists)
 	{
 		children = new ArrayList<Object>();
+		childrenView = Collections.unmodifiableList(children);
 		var = _var;
 		min = _min;
 		max = _max;
@@ -68,11 +71,11 @@ final class FORNode
 
 	/**
 	 * Return the children of this node
-	 * @return the children of this node
+	 * @return a read-only list of the children of this node
 	 */
 	public List<?> children()
 	{
-		return children;
+		return childrenView;
 	}
 
 	/**
@@ -21,6 +21,7 @@
 package pcgen.io;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -33,6 +34,8 @@ class IIFNode
 {
 	private List<Object> falseChildren;
 	private List<Object> trueChildren;
+	private List<Object> falseChildrenView;
+	private List<Object> trueChildrenView;
 	private String expr;
 
 	IIFNode(String _expr)
@@ -40,6 +43,8 @@ class IIFNode
 		expr = _expr;
 		trueChildren = new ArrayList<Object>();
 		falseChildren = new ArrayList<Object>();
+		trueChildrenView = Collections.unmodifiableList(trueChildren);
+		falseChildrenView = Collections.unmodifiableList(falseChildren);
 	}
 
 	/**
@@ -53,11 +58,11 @@ class IIFNode
 
 	/**
 	 * List the nodes that are truly children
-	 * @return the nodes that are truly children
+	 * @return a read-only list of the nodes that are truly children
 	 */
 	public final List<?> trueChildren()
 	{
-		return trueChildren;
+		return trueChildrenView;
 	}
 
 	/**
@@ -80,10 +85,10 @@ class IIFNode
 
 	/**
 	 * List the false children
-	 * @return the false children
+	 * @return a read-only list of the false children
 	 */
 	public final List<?> falseChildren()
 	{
-		return falseChildren;
+		return falseChildrenView;
 	}
 }
@@ -26,6 +26,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 
 import pcgen.core.GameMode;
@@ -185,7 +187,8 @@ public abstract class IOHandler
 
 	/**
 	 * Create a backup of the specified file, but only if backups are enabled, 
-	 * the file exists and the file is not empty.
+	 * the file exists and the file is not empty. The file is copied rather
+	 * than moved, so it remains in place until it is replaced.
 	 *  
 	 * @param outFile The file to be backed up.
 	 */
@@ -204,11 +207,16 @@ public abstract class IOHandler
 			}
 			File bakFile = new File(backupPcgPath, file + BAK_PREFIX);
 
-			if (bakFile.exists() && outFile.exists() && outFile.length() > 0)
+			try
 			{
-				bakFile.delete();
+				Files.copy(outFile.toPath(), bakFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (IOException e)
+			{
+				Logging.errorPrint("Could not create backup " + bakFile
+					+ " in IOHandler::createBackupForFile", e);
 			}
-			outFile.renameTo(bakFile);
 		}
 	}
 
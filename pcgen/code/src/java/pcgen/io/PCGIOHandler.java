@@ -36,6 +36,10 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.math.BigDecimal;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -210,19 +214,17 @@ public final class PCGIOHandler extends IOHandler
 	{
 		warnings.clear();
 
-		final List<String> lines = readPcgLines(in);
-		boolean isPCGVersion2 = isPCGCersion2(lines);
+		final PCGParser parser = new PCGVer2Parser(pcToBeRead);
+		boolean isPCGVersion2 = readPcgLines(parser, in);
 
 		pcToBeRead.setImporting(true);
 
-		final String[] pcgLines = lines.toArray(new String[lines.size()]);
 		if (isPCGVersion2)
 		{
-			final PCGParser parser = new PCGVer2Parser(pcToBeRead);
 			try
 			{
 				// parse it all
-				parser.parsePCG(pcgLines);
+				parser.parsePCG();
 			}
 			catch (PCGParseException pcgex)
 			{
@@ -257,25 +259,17 @@ public final class PCGIOHandler extends IOHandler
 		}
 	}
 
-	private boolean isPCGCersion2(List<String> lines)
-	{
-		for (String aLine : lines)
-		{
-			if (aLine.startsWith(IOConstants.TAG_PCGVERSION))
-			{
-				return true;
-			}
-		}
-		return false;
-	}
-
 	/**
-	 * @param in
-	 * @return
+	 * Read the lines of a .pcg file straight into the parser, so the file is
+	 * never held in memory as a list of lines as well as by the parser.
+	 * 
+	 * @param parser The parser to receive the lines.
+	 * @param in The stream to be read from.
+	 * @return true if the file is in PCG version 2 format.
 	 */
-	private List<String> readPcgLines(InputStream in)
+	private boolean readPcgLines(PCGParser parser, InputStream in)
 	{
-		final List<String> lines = new ArrayList<String>();
+		boolean isPCGVersion2 = false;
 
 		// try reading in all the lines in the .pcg file
 		BufferedReader br = null;
@@ -283,14 +277,7 @@ public final class PCGIOHandler extends IOHandler
 		try
 		{
 			br = new BufferedReader(new InputStreamReader(in, "UTF-8"));
-
-			String aLine;
-
-			while ((aLine = br.readLine()) != null)
-			{
-				lines.add(aLine);
-				//isPCGVersion2 |= aLine.startsWith(IOConstants.TAG_PCGVERSION);
-			}
+			isPCGVersion2 = parser.readPCG(br);
 		}
 		catch (IOException ioe)
 		{
@@ -310,7 +297,7 @@ public final class PCGIOHandler extends IOHandler
 								   e);
 			}
 		}
-		return lines;
+		return isPCGVersion2;
 	}
 
 	/**
@@ -326,15 +313,12 @@ public final class PCGIOHandler extends IOHandler
     @Override
 	public void write(PlayerCharacter pcToBeWritten, GameMode mode, List<CampaignFacade> campaigns, OutputStream out)
 	{
-		final String pcgString;
-		pcgString = (new PCGVer2Creator(pcToBeWritten, mode, campaigns)).createPCGString();
-
 		BufferedWriter bw = null;
 
 		try
 		{
 			bw = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"));
-			bw.write(pcgString);
+			new PCGVer2Creator(pcToBeWritten, mode, campaigns).writePCG(bw);
 			bw.flush();
 
 			pcToBeWritten.setDirty(false);
@@ -362,54 +346,105 @@ public final class PCGIOHandler extends IOHandler
 	/**
 	 * Writes the contents of the given PlayerCharacter to a file. This method also includes
 	 * safely backing up the original character file, but only once we know we have 
-	 * successfully exported the character to a string ready for writing. This means that if 
-	 * the save fails, the file system is untouched.
+	 * successfully written the character to a temporary file alongside it. This means that if 
+	 * the save fails, the original file is untouched.
 	 * 
 	 * @param pcToBeWritten the PlayerCharacter to write
 	 * @param out           the stream to be written to
 	 * @param mode          The character's game mode.
 	 * @param campaigns     The character's sources.
 	 * @param outFile       The file to write the character to.
+	 * @throws IOException If the character could not be written or the
+	 *             original file could not be replaced.
 	 */
 	public void write(PlayerCharacter pcToBeWritten, GameMode mode, List<CampaignFacade> campaigns, File outFile)
+		throws IOException
 	{
-		final String pcgString;
-		pcgString = (new PCGVer2Creator(pcToBeWritten, mode, campaigns)).createPCGString();
-
-		// Do backup now that we have the character ready to save
-		createBackupForFile(outFile);
-		
-		// Now save the character
+		// Write the character section by section to a file alongside the
+		// original, so the whole character is never held as one string
+		File tempFile =
+				new File(outFile.getAbsoluteFile().getParentFile(),
+					outFile.getName() + ".tmp"); //$NON-NLS-1$
 		BufferedWriter bw = null;
+		boolean written = false;
 
 		try
 		{
-			FileOutputStream out = new FileOutputStream(outFile);
+			FileOutputStream out = new FileOutputStream(tempFile);
 			bw = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"));
-			bw.write(pcgString);
+			new PCGVer2Creator(pcToBeWritten, mode, campaigns).writePCG(bw);
 			bw.flush();
-
-			pcToBeWritten.setDirty(false);
+			bw.close();
+			bw = null;
+			written = true;
 		}
 		catch (IOException ioe)
 		{
 			Logging.errorPrint("Exception in PCGIOHandler::write", ioe);
+			throw ioe;
 		}
 		finally
 		{
-			try
+			if (bw != null)
 			{
-				if (bw != null)
+				try
 				{
 					bw.close();
 				}
+				catch (IOException e)
+				{
+					Logging.errorPrint(
+						"Couldn't close file in PCGIOHandler.write", e);
+				}
 			}
-			catch (IOException e)
+			if (!written)
 			{
-				Logging.errorPrint("Couldn't close file in PCGIOHandler.write",
-								   e);
+				tempFile.delete();
 			}
 		}
+
+		// Do backup now that we have the character safely saved
+		createBackupForFile(outFile);
+
+		// Now replace the character, so the file is either the original or
+		// the complete new character
+		replaceFile(tempFile, outFile);
+		pcToBeWritten.setDirty(false);
+	}
+
+	/**
+	 * Replace a file with another, atomically where the file system allows
+	 * it. The source file is deleted if it cannot be moved.
+	 * 
+	 * @param source The file holding the new contents.
+	 * @param target The file to be replaced.
+	 * @throws IOException If the target file could not be replaced.
+	 */
+	static void replaceFile(File source, File target) throws IOException
+	{
+		Path sourcePath = source.toPath();
+		Path targetPath = target.toPath();
+		try
+		{
+			try
+			{
+				Files.move(sourcePath, targetPath,
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e)
+			{
+				Files.move(sourcePath, targetPath,
+					StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch (IOException e)
+		{
+			Logging.errorPrint("Couldn't replace " + target + " with "
+				+ source + " in PCGIOHandler.write", e);
+			Files.deleteIfExists(sourcePath);
+			throw e;
+		}
 	}
 
 	/*
@@ -642,22 +677,18 @@ public final class PCGIOHandler extends IOHandler
 
 	private SourceSelectionFacade internalReadSources(InputStream in)
 	{
-		// Read lines from file
-		final List<String> lines = readPcgLines(in);
-
-		// Verify it is ver2
-		boolean isPCGVersion2 = isPCGCersion2(lines);
+		//PlayerCharacter aPC = new PlayerCharacter();
+		final PCGParser parser = new PCGVer2Parser(null);
 
-		final String[] pcgLines = lines.toArray(new String[lines.size()]);
+		// Read lines from file and verify it is ver2
+		boolean isPCGVersion2 = readPcgLines(parser, in);
 
 		if (isPCGVersion2)
 		{
-			//PlayerCharacter aPC = new PlayerCharacter();
-			final PCGParser parser = new PCGVer2Parser(null);
 			try
 			{
 				// Extract list of sources
-				return parser.parcePCGSourceOnly(pcgLines);
+				return parser.parcePCGSourceOnly();
 			}
 			catch (PCGParseException pcgex)
 			{
@@ -20,6 +20,8 @@
  */
 package pcgen.io;
 
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.util.List;
 
 import pcgen.facade.core.SourceSelectionFacade;
@@ -60,6 +62,33 @@ interface PCGParser
 	 * @throws PCGParseException If the lines are invalid 
 	 */
 	public SourceSelectionFacade parcePCGSourceOnly(String[] lines) throws PCGParseException;
+
+	/**
+	 * Read the lines of a PCG file, ready to be parsed by parsePCG() or
+	 * parcePCGSourceOnly(). Each line is kept only once, with the other lines
+	 * for its tag, as it is read.
+	 *
+	 * @param in The reader supplying the PCG file.
+	 * @return true if the file is in PCG version 2 format.
+	 * @throws IOException If the file cannot be read.
+	 */
+	public boolean readPCG(BufferedReader in) throws IOException;
+
+	/**
+	 * Parse the lines read by readPCG.
+	 *
+	 * @throws PCGParseException
+	 */
+	public void parsePCG() throws PCGParseException;
+
+	/**
+	 * Check the game mode and then build a list of campaigns the character
+	 * requires to be loaded, from the lines read by readPCG.
+	 *
+	 * @return The list of campaigns.
+	 * @throws PCGParseException If the lines are invalid
+	 */
+	public SourceSelectionFacade parcePCGSourceOnly() throws PCGParseException;
 	
 
 	/**
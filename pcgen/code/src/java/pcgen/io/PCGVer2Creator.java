@@ -27,6 +27,7 @@ package pcgen.io;
 
 import java.awt.Rectangle;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -155,6 +156,31 @@ public final class PCGVer2Creator implements IOConstants
 	public String createPCGString()
 	{
 		// Guess that this should be about 1000
+		StringBuilder out = new StringBuilder(1000);
+		try
+		{
+			writePCG(out);
+		}
+		catch (IOException e)
+		{
+			// A StringBuilder does not throw IOException
+			throw new IllegalStateException(e);
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Write the character in PCG format to the given destination. Each
+	 * section of the file is passed on as soon as it has been created, so the
+	 * whole file is never held in memory. The output is the same as
+	 * createPCGString.
+	 *
+	 * @param out The destination for the PCG text, such as a Writer.
+	 * @throws IOException If the destination cannot be written to.
+	 */
+	public void writePCG(Appendable out) throws IOException
+	{
+		// Holds the section being created
 		StringBuilder buffer = new StringBuilder(1000);
 
 		appendPCGVersionLine(buffer);
@@ -175,6 +201,7 @@ public final class PCGVer2Creator implements IOConstants
 		 * hmmm, better have
 		 * CAMPAIGNS:>campaign_name<|CAMPAIGNS:>campaign_name<|...
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("System Information", buffer); //$NON-NLS-1$
 
@@ -222,6 +249,7 @@ public final class PCGVer2Creator implements IOConstants
 		 * INTERESTS:text
 		 * CATCHPHRASE:text
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Character Bio", buffer); //$NON-NLS-1$
 		appendCharacterNameLine(buffer);
@@ -262,6 +290,7 @@ public final class PCGVer2Creator implements IOConstants
 		 * hmmm better have
 		 * STAT:STR|SCORE:18
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Character Attributes", buffer); //$NON-NLS-1$
 		appendStatLines(buffer);
@@ -282,6 +311,7 @@ public final class PCGVer2Creator implements IOConstants
 		 * CLASS:Fighter|LEVEL:3|SKILLPOOL:0
 		 * CLASS:Wizard|LEVEL:1|SKILLPOOL:0|CANCASTPERDAY:1,1
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Character Class(es)", buffer); //$NON-NLS-1$
 		appendClassLines(buffer);
@@ -290,6 +320,7 @@ public final class PCGVer2Creator implements IOConstants
 		 * #Character Experience
 		 * EXPERIENCE:6000
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Character Experience", buffer); //$NON-NLS-1$
 		appendExperienceLine(buffer);
@@ -299,10 +330,12 @@ public final class PCGVer2Creator implements IOConstants
 		 * #Character Templates
 		 * TEMPLATESAPPLIED:If any, else this would just have the comment line, and skip to the next
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Character Templates", buffer); //$NON-NLS-1$
 		appendTemplateLines(buffer);
 
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Character Region", buffer); //$NON-NLS-1$
 		appendRegionLine(buffer);
@@ -320,6 +353,7 @@ public final class PCGVer2Creator implements IOConstants
 		 * SKILL:Alchemy|SYNERGY:....|OUTPUTORDER:1|CLASSBOUGHT:[CLASS:FIGHTER|RANKS:7|COST:2|CLASSSKILL:N]
 		 * SKILL:Spellcraft|SYNERGY:....|OUTPUTORDER:1|CLASSBOUGHT:[CLASS:WIZARD|RANKS:7|COST:1|CLASSSKILL:Y]
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Character Skills", buffer); //$NON-NLS-1$
 		appendSkillLines(buffer);
@@ -327,6 +361,7 @@ public final class PCGVer2Creator implements IOConstants
 		/*
 		 * #Character Languages
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Character Languages", buffer); //$NON-NLS-1$
 		appendLanguageLine(buffer);
@@ -341,10 +376,12 @@ public final class PCGVer2Creator implements IOConstants
 		 * hmmm, better have colons and pipes encoded as entities
 		 * FEAT:Alertness|TYPE:General|SAVE:BONUS&colon;SKILL&pipe;Listen,Spot&pipe;2|DESC:+2 on Listen and Spot checks
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Character Feats", buffer); //$NON-NLS-1$
 		appendFeatLines(buffer);
 
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Character Abilities", buffer); //$NON-NLS-1$
 		appendAbilityLines(buffer);
@@ -352,6 +389,7 @@ public final class PCGVer2Creator implements IOConstants
 		/*
 		 * #Character Weapon proficiencies
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Character Weapon proficiencies", buffer); //$NON-NLS-1$
 		appendWeaponProficiencyLines(buffer);
@@ -365,6 +403,7 @@ public final class PCGVer2Creator implements IOConstants
 		 * EQUIPNAME:Backpack|OUTPUTORDER:9|COST:5|WT:5
 		 * EQUIPNAME:Rope (Silk)|OUTPUTORDER:-1|COST:5|WT:5
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Character Equipment", buffer); //$NON-NLS-1$
 		appendMoneyLine(buffer);
@@ -374,6 +413,7 @@ public final class PCGVer2Creator implements IOConstants
 		/*
 		 * Append Temporary Bonuses
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Temporary Bonuses", buffer); //$NON-NLS-1$
 		appendTempBonuses(buffer);
@@ -381,6 +421,7 @@ public final class PCGVer2Creator implements IOConstants
 		/*
 		 * Append EquipSet Temp Bonuses
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("EquipSet Temp Bonuses", buffer); //$NON-NLS-1$
 		appendEqSetBonuses(buffer);
@@ -395,6 +436,7 @@ public final class PCGVer2Creator implements IOConstants
 		 * DEITY:Yondalla|DEITYDOMAINS:[DOMAIN:Good|DOMAIN:Law|DOMAIN:Protection]|...
 		 * DOMAINSPELLS:GOOD|SPELLLIST:(>list of level by level spells)
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Character Deity/Domain", buffer); //$NON-NLS-1$
 		appendDeityLine(buffer);
@@ -409,6 +451,7 @@ public final class PCGVer2Creator implements IOConstants
 		 *
 		 * hmmm, moved CANCASTPERDAY to standard class line
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Character Spells Information", buffer); //$NON-NLS-1$
 		appendSpellBookLines(buffer);
@@ -420,6 +463,7 @@ public final class PCGVer2Creator implements IOConstants
 		 * CHARACTERBIO:any text that's in the BIO field
 		 * CHARACTERDESC:any text that's in the BIO field
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Character Description/Bio/History", buffer); //$NON-NLS-1$
 		appendCharacterBioLine(buffer);
@@ -432,6 +476,7 @@ public final class PCGVer2Creator implements IOConstants
 		/*
 		 * #Kits
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Kits", buffer); //$NON-NLS-1$
 		appendKitLines(buffer);
@@ -441,6 +486,7 @@ public final class PCGVer2Creator implements IOConstants
 		 * MASTER:Mynex|TYPE:Follower|HITDICE:20|FILE:E$\DnD\dnd-chars\ravenlock.pcg
 		 * FOLLOWER:Raven|TYPE:Animal Companion|HITDICE:5|FILE:E$\DnD\dnd-chars\raven.pcg
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Character Master/Follower", buffer); //$NON-NLS-1$
 		appendFollowerLines(buffer);
@@ -448,6 +494,7 @@ public final class PCGVer2Creator implements IOConstants
 		/*
 		 * #Character Notes Tab
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Character Notes Tab", buffer); //$NON-NLS-1$
 		appendNotesLines(buffer);
@@ -455,6 +502,7 @@ public final class PCGVer2Creator implements IOConstants
 		/*
 		 * #AgeSet Kit selections
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Age Set Selections", buffer); //$NON-NLS-1$
 		appendAgeSetLine(buffer);
@@ -462,6 +510,7 @@ public final class PCGVer2Creator implements IOConstants
 		/*
 		 * #Campaign History
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Campaign History", buffer); //$NON-NLS-1$
 		appendCampaignHistoryLines(buffer);
@@ -469,6 +518,7 @@ public final class PCGVer2Creator implements IOConstants
 		/*
 		 * #Suppressed fields
 		 */
+		endSection(buffer, out);
 		appendNewline(buffer);
 		appendComment("Suppressed Biography Fields", buffer); //$NON-NLS-1$
 		appendSuppressBioFieldLines(buffer);
@@ -479,7 +529,18 @@ public final class PCGVer2Creator implements IOConstants
 		appendNewline(buffer);
 
 		// All done!
-		return buffer.toString();
+		endSection(buffer, out);
+	}
+
+	/**
+	 * Pass the section created so far on to the destination, and empty the
+	 * buffer ready for the next section.
+	 */
+	private static void endSection(StringBuilder buffer, Appendable out)
+		throws IOException
+	{
+		out.append(buffer);
+		buffer.setLength(0);
 	}
 
 	private void appendCampaignLine(StringBuilder buffer)
@@ -26,7 +26,9 @@
 package pcgen.io;
 
 import java.awt.Rectangle;
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -168,6 +170,12 @@ final class PCGVer2Parser implements PCGParser, IOConstants
 
 	private static final String TAG_PCTEMPLATE = "PCTEMPLATE";
 
+	/**
+	 * The number of distinct tags a PCG file is expected to hold, used to
+	 * size the tag cache when the number of lines is not known in advance.
+	 */
+	private static final int EXPECTED_TAG_COUNT = 128;
+
 	private RaceInputFacet raceInputFacet = FacetLibrary
 			.getFacet(RaceInputFacet.class);
 	private DomainInputFacet domainInputFacet = FacetLibrary
@@ -230,7 +238,34 @@ final class PCGVer2Parser implements PCGParser, IOConstants
 	public void parsePCG(String[] lines) throws PCGParseException
 	{
 		buildPcgLineCache(lines);
+		parsePCG();
+	}
+
+	/**
+	 * @see pcgen.io.PCGParser#readPCG(java.io.BufferedReader)
+	 */
+    @Override
+	public boolean readPCG(BufferedReader in) throws IOException
+	{
+		initCache(EXPECTED_TAG_COUNT);
+
+		boolean isPCGVersion2 = false;
+		String line = in.readLine();
+		while (line != null)
+		{
+			isPCGVersion2 |= line.startsWith(TAG_PCGVERSION);
+			cacheIfData(line);
+			line = in.readLine();
+		}
+		return isPCGVersion2;
+	}
 
+	/**
+	 * @see pcgen.io.PCGParser#parsePCG()
+	 */
+    @Override
+	public void parsePCG() throws PCGParseException
+	{
 		parseCachedLines();
 		resolveLanguages();
 	}
@@ -248,7 +283,15 @@ final class PCGVer2Parser implements PCGParser, IOConstants
 		throws PCGParseException
 	{
 		buildPcgLineCache(lines);
+		return parcePCGSourceOnly();
+	}
 
+	/**
+	 * @see pcgen.io.PCGParser#parcePCGSourceOnly()
+	 */
+    @Override
+	public SourceSelectionFacade parcePCGSourceOnly() throws PCGParseException
+	{
 		/*
 		 * VERSION:x.x.x
 		 */
@@ -316,10 +359,22 @@ final class PCGVer2Parser implements PCGParser, IOConstants
 
 		for (int i = 0; i < lines.length; ++i)
 		{
-			if ((lines[i].trim().length() > 0) && !isComment(lines[i]))
-			{
-				cacheLine(lines[i].trim());
-			}
+			cacheIfData(lines[i]);
+		}
+	}
+
+	/**
+	 * Keep a line of the PCG file with the other lines for its tag, unless it
+	 * is blank or a comment.
+	 *
+	 * @param line The line as read from the file.
+	 */
+	private void cacheIfData(String line)
+	{
+		String trimmed = line.trim();
+		if ((trimmed.length() > 0) && !isComment(trimmed))
+		{
+			cacheLine(trimmed);
 		}
 	}
 
@@ -0,0 +1,181 @@
+/*
+ * PipedExport.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.io;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.Reader;
+
+import pcgen.util.Logging;
+
+/**
+ * <code>PipedExport</code> runs an export on a separate thread and makes its
+ * output available to be read as it is produced, so that the output can be
+ * passed straight on to a consumer (such as FOP) without the whole of the
+ * output being written to a temporary file or held in memory.
+ * <p>
+ * The export is written into a fixed size buffer, and waits whenever the
+ * buffer is full until the consumer reads from it. Usage is:
+ * <ol>
+ * <li>create the PipedExport and pass its reader to the consumer,</li>
+ * <li>call start() to start the export,</li>
+ * <li>run the consumer on the current thread,</li>
+ * <li>call close() once the consumer has finished, and</li>
+ * <li>call checkError() to report any failure of the export.</li>
+ * </ol>
+ */
+public abstract class PipedExport implements Runnable
+{
+	/** The number of characters buffered between the export and consumer. */
+	private static final int PIPE_SIZE = 64 * 1024;
+
+	private final PipedReader reader;
+
+	private final PipedWriter writer;
+
+	private Thread thread;
+
+	private volatile Exception error;
+
+	/**
+	 * Create a new PipedExport, ready to be started.
+	 *
+	 * @throws IOException If the pipe cannot be created.
+	 */
+	public PipedExport() throws IOException
+	{
+		reader = new PipedReader(PIPE_SIZE);
+		writer = new PipedWriter(reader);
+	}
+
+	/**
+	 * Performs the export. This is called on the export thread.
+	 *
+	 * @param out The writer to which the output is to be written.
+	 * @throws IOException If the output cannot be written.
+	 * @throws ExportException If the export fails.
+	 */
+	protected abstract void export(BufferedWriter out) throws IOException,
+		ExportException;
+
+	/**
+	 * @return The reader from which the output of the export is to be read.
+	 */
+	public Reader getReader()
+	{
+		return reader;
+	}
+
+	/**
+	 * Starts the export on a new thread.
+	 */
+	public void start()
+	{
+		thread = new Thread(this, "piped-export-thread"); //$NON-NLS-1$
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Runs the export, closing the pipe when it is complete so that the
+	 * consumer sees the end of the output. This should only be called by
+	 * start().
+	 */
+	@Override
+	public void run()
+	{
+		BufferedWriter out = new BufferedWriter(writer, PIPE_SIZE);
+		try
+		{
+			export(out);
+			out.flush();
+		}
+		catch (IOException e)
+		{
+			error = e;
+		}
+		catch (ExportException e)
+		{
+			error = e;
+		}
+		catch (RuntimeException e)
+		{
+			error = e;
+		}
+		finally
+		{
+			try
+			{
+				out.close();
+			}
+			catch (IOException e)
+			{
+				// The consumer has already stopped reading
+			}
+		}
+	}
+
+	/**
+	 * Closes the reader and waits for the export to complete. If the consumer
+	 * stopped reading before the end of the output, the export will fail when
+	 * it next writes to the pipe.
+	 */
+	public void close()
+	{
+		try
+		{
+			reader.close();
+		}
+		catch (IOException e)
+		{
+			Logging.errorPrint("Unable to close export pipe", e); //$NON-NLS-1$
+		}
+		if (thread != null)
+		{
+			try
+			{
+				thread.join();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Reports any failure of the export. This should be called after close().
+	 *
+	 * @throws ExportException If the export failed.
+	 */
+	public void checkError() throws ExportException
+	{
+		if (error instanceof ExportException)
+		{
+			throw (ExportException) error;
+		}
+		if (error != null)
+		{
+			throw new ExportException(error, "Export failed: " //$NON-NLS-1$
+				+ error.getLocalizedMessage());
+		}
+	}
+}
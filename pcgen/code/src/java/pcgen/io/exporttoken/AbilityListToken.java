@@ -24,6 +24,7 @@
 package pcgen.io.exporttoken;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.StringTokenizer;
@@ -58,12 +59,12 @@ public class AbilityListToken extends Token
 {
 	private static final String DELIM = ", ";
 
-	//TODO: Should these be static to enable the caching?
-	private MapToList<Ability, CNAbility> abilityMap = null;
-	private PlayerCharacter lastPC = null;
-	private int lastPCSerial;
-	private String lastType = "";
-	private AbilityCategory lastCategory = null;
+	/**
+	 * The list of abilities last built, keyed by the ability category and
+	 * the token.
+	 */
+	private final CharacterTokenCache<MapToList<Ability, CNAbility>> abilityCache =
+			new CharacterTokenCache<MapToList<Ability, CNAbility>>();
 
 	/** Token Name */
 	public static final String TOKENNAME = "ABILITYLIST";
@@ -117,14 +118,13 @@ public class AbilityListToken extends Token
 		// If we haven't cached some of the processign data, then do so, this is so that 
 		// if the Output Sheet loops over this token we don't process one-off stuff more than 
 		// once
-		if (lastPC != pc || !aCategory.equals(lastCategory)
-			|| lastPCSerial != pc.getSerial() || !tokenString.equals(lastType))
+		List<Object> cacheKey = Arrays.<Object> asList(aCategory, tokenString);
+		MapToList<Ability, CNAbility> abilityMap =
+				abilityCache.get(pc, cacheKey);
+		if (abilityMap == null)
 		{
 			abilityMap = getAbilityList(pc, aCategory);
-			lastPC = pc;
-			lastCategory = aCategory;
-			lastPCSerial = pc.getSerial();
-			lastType = tokenString;
+			abilityCache.put(pc, cacheKey, abilityMap);
 		}
 
 		// Default values
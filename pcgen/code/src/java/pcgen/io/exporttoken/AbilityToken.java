@@ -24,6 +24,7 @@
 package pcgen.io.exporttoken;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -81,23 +82,15 @@ public class AbilityToken extends Token
 	/** Token Name */
 	public static final String TOKENNAME = "ABILITY";
 
-	/** The list of abilities to get the ability from */
-	private MapToList<Ability, CNAbility> abilityList = new HashMapToList<Ability, CNAbility>();
+	/** The visibility filtering to apply when the token does not give one */
+	private View defaultView = View.VISIBLE_EXPORT;
 
-	/** The current visibility filtering to apply */
-	private View view = View.VISIBLE_EXPORT;
-
-	/** The cached PC */
-	private PlayerCharacter cachedPC = null;
-
-	/** The cached PC serial (serial holds whether a PC has been changed) */
-	private int cachedPcSerial = 0;
-
-	/** The last token in the list of abilities */
-	private String lastToken = null;
-
-	/** The last ability category in the list of abilities */
-	private AbilityCategory lastCategory = null;
+	/**
+	 * The list of abilities last built, keyed by the ability category and
+	 * the token.
+	 */
+	private final CharacterTokenCache<MapToList<Ability, CNAbility>> abilityCache =
+			new CharacterTokenCache<MapToList<Ability, CNAbility>>();
 
 	/**
 	 * Get the TOKENNAME
@@ -154,22 +147,20 @@ public class AbilityToken extends Token
 		PlayerCharacter pc, ExportHandler eh, final StringTokenizer aTok,
 		final String tokenString, final AbilityCategory aCategory)
 	{
-		boolean cacheAbilityProcessingData =
-				(cachedPC != pc || !aCategory.equals(lastCategory)
-					|| cachedPcSerial != pc.getSerial() || !tokenString
-					.equals(lastToken));
+		List<Object> cacheKey = Arrays.<Object> asList(aCategory, tokenString);
+		MapToList<Ability, CNAbility> abilityList =
+				abilityCache.get(pc, cacheKey);
 
 		// As this method can effectively be called by an OS FOR token, there 
 		// is a performance saving in caching some of the one-off processing data 
-		if (cacheAbilityProcessingData)
+		if (abilityList == null)
 		{
 			// Overridden by subclasses to return the right list.
 			abilityList = getAbilityList(pc, aCategory);
-			cachedPC = pc;
-			lastCategory = aCategory;
-			cachedPcSerial = pc.getSerial();
-			lastToken = tokenString;
+			abilityCache.put(pc, cacheKey, abilityList);
 		}
+		// The visibility given by this token only applies to this token
+		View view = defaultView;
 
 		// Ability Types Filter List
 		List<String> types = new ArrayList<String>();
@@ -798,20 +789,20 @@ public class AbilityToken extends Token
 	}
 
 	/**
-	 * @return the visibility
+	 * @return the visibility used when the token does not give one
 	 */
 	protected View getView()
 	{
-		return view;
+		return defaultView;
 	}
 
 	/**
 	 * @param visibility
-	 *            the visibility to set
+	 *            the visibility to use when the token does not give one
 	 */
 	protected void setView(View v)
 	{
-		this.view = v;
+		this.defaultView = v;
 	}
 
 }
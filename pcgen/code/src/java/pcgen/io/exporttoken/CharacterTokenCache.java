@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.     See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.io.exporttoken;
+
+import pcgen.core.PlayerCharacter;
+
+/**
+ * Holds the last value an export token built for a character, so that an
+ * output sheet looping over the token does not build it again for each
+ * entry. The value is dropped once the character changes or a different key
+ * is asked for.
+ * <p>
+ * A single instance of each token is shared by every export, and characters
+ * may be exported on several threads at once, so each thread holds its own
+ * value.
+ *
+ * @param <V> The type of value held.
+ */
+public final class CharacterTokenCache<V>
+{
+	private final ThreadLocal<Entry<V>> entry = new ThreadLocal<Entry<V>>();
+
+	/**
+	 * Get the value held for the character and key on this thread.
+	 *
+	 * @param pc The character being exported.
+	 * @param key What the value was built for, compared using equals.
+	 * @return The value, or null if no value is held for the character as it
+	 *         is now and the key.
+	 */
+	public V get(PlayerCharacter pc, Object key)
+	{
+		Entry<V> current = entry.get();
+		if (current != null && current.pc == pc
+			&& current.serial == pc.getSerial() && current.key.equals(key))
+		{
+			return current.value;
+		}
+		return null;
+	}
+
+	/**
+	 * Hold a value for the character and key on this thread, replacing any
+	 * value held before.
+	 *
+	 * @param pc The character being exported.
+	 * @param key What the value was built for.
+	 * @param value The value to be held.
+	 */
+	public void put(PlayerCharacter pc, Object key, V value)
+	{
+		entry.set(new Entry<V>(pc, pc.getSerial(), key, value));
+	}
+
+	private static final class Entry<V>
+	{
+		private final PlayerCharacter pc;
+		private final int serial;
+		private final Object key;
+		private final V value;
+
+		private Entry(PlayerCharacter pc, int serial, Object key, V value)
+		{
+			this.pc = pc;
+			this.serial = serial;
+			this.key = key;
+			this.value = value;
+		}
+	}
+}
@@ -55,10 +55,9 @@ public class EqToken extends Token
 {
 	/** Token Name */
 	public static final String TOKENNAME = "EQ";
-	private static String cachedString = null;
-	private static List<Equipment> cachedList = null;
-	private static int cachedSerial = 0;
-	private static PlayerCharacter cachedPC = null;
+	/** The equipment list last built, keyed by the token up to its index. */
+	private static final CharacterTokenCache<List<Equipment>> LIST_CACHE =
+			new CharacterTokenCache<List<Equipment>>();
 
 	/**
 	 * @see pcgen.io.exporttoken.Token#getTokenName()
@@ -133,18 +132,16 @@ public class EqToken extends Token
 		// check to see if this was the same as the last list we were asked to export.
 		//
 		String comparatorString = tokenSource.split("[0-9]+")[0];
-		List<Equipment> eqList = null;
+		List<Equipment> eqList = LIST_CACHE.get(pc, comparatorString);
 		StringTokenizer aTok = null;
 		int temp = -1;
-		if (comparatorString.equals(cachedString) && pc == cachedPC
-			&& pc.getSerial() == cachedSerial)
+		if (eqList != null)
 		{
 			//			cacheHit++;
 			//			if (cacheHit%100==0) {
 			//				System.out.println("cacheHit"+cacheHit + ", cacheMiss="+cacheMiss);
 			//			}
 
-			eqList = cachedList;
 			tokenSource = tokenSource.substring(comparatorString.length());
 			aTok = new StringTokenizer(tokenSource, ".", false);
 			String token = aTok.nextToken();
@@ -226,10 +223,7 @@ public class EqToken extends Token
 
 			}
 
-			cachedList = eqList;
-			cachedString = comparatorString;
-			cachedPC = pc;
-			cachedSerial = pc.getSerial();
+			LIST_CACHE.put(pc, comparatorString, eqList);
 		}
 
 		// Now that we have the list, get the token for the appropriate element
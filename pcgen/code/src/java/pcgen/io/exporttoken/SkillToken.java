@@ -88,9 +88,8 @@ public class SkillToken extends Token
 	public static final int SKILL_CLASSES= 17;
 
 	// Cache the skill list as it is expensive to build
-	private List<Skill> cachedSkillList = null;
-	private PlayerCharacter lastPC = null;
-	private int lastPCSerial;
+	private final CharacterTokenCache<List<Skill>> skillListCache =
+			new CharacterTokenCache<List<Skill>>();
 	
 	/**
 	 * @see pcgen.io.exporttoken.Token#getTokenName()
@@ -171,19 +170,18 @@ public class SkillToken extends Token
 		return skill;
 	}
 
-	private synchronized List<Skill> getSkillList(PlayerCharacter pc)
+	private List<Skill> getSkillList(PlayerCharacter pc)
 	{
-		if (pc == lastPC && pc.getSerial() == lastPCSerial)
+		List<Skill> pcSkills = skillListCache.get(pc, TOKENNAME);
+		if (pcSkills != null)
 		{
-			return cachedSkillList;
+			return pcSkills;
 		}
 		
-		final List<Skill> pcSkills =
+		pcSkills =
 				SkillDisplay.getSkillListInOutputOrder(pc, pc.getDisplay()
 					.getPartialSkillList(View.VISIBLE_EXPORT));
-		cachedSkillList = pcSkills;
-		lastPC = pc;
-		lastPCSerial = pc.getSerial();
+		skillListCache.put(pc, TOKENNAME, pcSkills);
 		return pcSkills;
 	}
 
@@ -89,7 +89,9 @@ public class EquipSetLoopDirective implements TemplateDirectiveModel
 
 		for (EquipSet equipSet : eqSetList)
 		{
+			// Equip the items of the set so the body reflects it
 			pc.setCalcEquipSetId(equipSet.getIdPath());
+			pc.setCalcEquipmentList();
 
 			// Executes the nested body (same as <#nested> in FTL). In this
 			// case we don't provide a special writer as the parameter:
@@ -100,6 +102,10 @@ public class EquipSetLoopDirective implements TemplateDirectiveModel
 		{
 			pc.setCalcEquipSetId(currSet.getIdPath());
 		}
+		if (!eqSetList.isEmpty())
+		{
+			pc.setCalcEquipmentList();
+		}
 	}
 
 }
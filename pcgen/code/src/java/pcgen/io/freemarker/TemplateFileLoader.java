@@ -0,0 +1,95 @@
+/*
+ * TemplateFileLoader.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.io.freemarker;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+
+import freemarker.cache.TemplateLoader;
+
+/**
+ * TemplateFileLoader loads Freemarker templates from anywhere in the file
+ * system, so that a single Freemarker Configuration, and its cache of parsed
+ * templates, can serve output sheets from any directory.
+ * <p>
+ * Templates are named by file URI, as given by getTemplateName. Freemarker
+ * leaves such names untouched and resolves a relative include against the
+ * directory of the including template, so includes work as they did when
+ * each export loaded templates from the output sheet's own directory.
+ */
+public class TemplateFileLoader implements TemplateLoader
+{
+	private static final String FILE_URI_PREFIX = "file://"; //$NON-NLS-1$
+
+	/**
+	 * Returns the name by which the template in the given file is to be
+	 * requested from a Configuration using this loader.
+	 *
+	 * @param templateFile The file holding the template.
+	 * @return The template name.
+	 */
+	public static String getTemplateName(File templateFile)
+	{
+		return FILE_URI_PREFIX
+			+ templateFile.getAbsoluteFile().toURI().getRawPath();
+	}
+
+	@Override
+	public Object findTemplateSource(String name) throws IOException
+	{
+		if (!name.startsWith(FILE_URI_PREFIX))
+		{
+			return null;
+		}
+		File file;
+		try
+		{
+			file = new File(URI.create(name));
+		}
+		catch (IllegalArgumentException e)
+		{
+			return null;
+		}
+		return file.isFile() ? file : null;
+	}
+
+	@Override
+	public long getLastModified(Object templateSource)
+	{
+		return ((File) templateSource).lastModified();
+	}
+
+	@Override
+	public Reader getReader(Object templateSource, String encoding)
+		throws IOException
+	{
+		return new InputStreamReader(new FileInputStream(
+			(File) templateSource), encoding);
+	}
+
+	@Override
+	public void closeTemplateSource(Object templateSource)
+	{
+		// Nothing to close, the reader is closed by Freemarker
+	}
+}
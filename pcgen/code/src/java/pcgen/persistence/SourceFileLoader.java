@@ -83,6 +83,7 @@ import pcgen.persistence.lst.AbilityLoader;
 import pcgen.persistence.lst.BioSetLoader;
 import pcgen.persistence.lst.CampaignSourceEntry;
 import pcgen.persistence.lst.CompanionModLoader;
+import pcgen.persistence.lst.DatasetSnapshot;
 import pcgen.persistence.lst.FeatLoader;
 import pcgen.persistence.lst.GenericLoader;
 import pcgen.persistence.lst.KitLoader;
@@ -95,6 +96,7 @@ import pcgen.rules.context.LoadValidator;
 import pcgen.rules.context.ReferenceContextUtilities;
 import pcgen.system.ConfigurationSettings;
 import pcgen.system.LanguageBundle;
+import pcgen.system.PCGenPropBundle;
 import pcgen.system.PCGenSettings;
 import pcgen.system.PCGenTask;
 import pcgen.util.Logging;
@@ -214,6 +216,7 @@ public class SourceFileLoader extends PCGenTask implements Observer
 
 		LoadHandler handler = new LoadHandler();
 		Logging.registerHandler(handler);
+		Logging.resetParseMessageCounts();
 		try
 		{
 			loadCampaigns();
@@ -223,6 +226,7 @@ public class SourceFileLoader extends PCGenTask implements Observer
 			Logging.errorPrint("Failed to load sources", e);
 			uiDelegate.showErrorMessage(Constants.APPLICATION_NAME, "Failed to load sources, see log for details.");
 		}
+		Logging.logParseMessageCounts();
 		Logging.removeHandler(handler);
 	}
 
@@ -477,6 +481,11 @@ public class SourceFileLoader extends PCGenTask implements Observer
 		// 21 Nov 2002: Put load inside a try/finally block to make sure
 		// that file lines were cleared even if an exception occurred.
 		// -- sage_sam
+		boolean loaded = false;
+		if (DatasetSnapshot.isEnabled())
+		{
+			startSnapshot(uris);
+		}
 		try
 		{
 			LoadContext context = Globals.getContext();
@@ -511,6 +520,7 @@ public class SourceFileLoader extends PCGenTask implements Observer
 			 * context.setLoaded, not in finishLoad
 			 */
 			context.loadCampaignFacets();
+			loaded = true;
 
 			dataset = new DataSet(context, selectedGame, new DefaultListFacade<CampaignFacade>(selectedCampaigns));
 //			//  Show the licenses
@@ -522,6 +532,33 @@ public class SourceFileLoader extends PCGenTask implements Observer
 			Logging.errorPrint("Exception loading files.", thr);
 			uiDelegate.showErrorMessage(Constants.APPLICATION_NAME, "Failed to load campaigns, see log for details.");
 		}
+		finally
+		{
+			DatasetSnapshot.finishLoad(loaded);
+		}
+	}
+
+	/**
+	 * Starts the use of the snapshot of the source files of the selected game
+	 * mode and campaigns.
+	 * 
+	 * @param uris The URIs of the selected campaigns, in order of selection
+	 */
+	private void startSnapshot(List<URI> uris)
+	{
+		StringBuilder selection = new StringBuilder(selectedGame.getName());
+		for (URI uri : uris)
+		{
+			selection.append('\n').append(uri);
+		}
+		File dir = new File(ConfigurationSettings.getSettingsDir(), "snapshots");
+		if (!dir.isDirectory() && !dir.mkdirs())
+		{
+			Logging.errorPrint("Unable to create source snapshot directory " + dir);
+			return;
+		}
+		DatasetSnapshot.startLoad(dir, PCGenPropBundle.getVersionNumber(),
+			selection.toString());
 	}
 
 	private void loadCampaigns(GameMode gamemode, final List<Campaign> aSelectedCampaignsList,
@@ -0,0 +1,440 @@
+/*
+ * DatasetSnapshot.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.persistence.lst;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import pcgen.system.PCGenSettings;
+import pcgen.util.Logging;
+
+/**
+ * <code>DatasetSnapshot</code> holds the contents of every source file read
+ * while loading a selection of campaigns, in a single binary file. When the
+ * same selection is next loaded by the same version of PCGen, the source
+ * files are read from the snapshot rather than individually, provided none of
+ * them has changed since the snapshot was written.
+ *
+ * <p>
+ * A snapshot is identified by the game mode and campaigns selected. It records
+ * the size and modification time of each source file, which are checked when
+ * the snapshot is opened, and a checksum of the contents of each file, which
+ * is checked when the file is read from the snapshot. If any source file has
+ * changed the snapshot is not used and a new one is written once the sources
+ * have loaded successfully. Files read during a load that are not in the
+ * snapshot are read normally, and cause the snapshot to be discarded so that
+ * a complete snapshot is written by the next load.
+ *
+ * <p>
+ * Snapshots are only used if enabled in the preferences. Only one selection
+ * of campaigns is loaded at a time, so there is at most one snapshot in use.
+ * The contents of a snapshot may be read from several threads.
+ */
+public final class DatasetSnapshot
+{
+	private static final int MAGIC = 0x50434753;
+
+	private static final int FORMAT = 1;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+	private static final String SUFFIX = ".snapshot"; //$NON-NLS-1$
+
+	/** The snapshot for the load in progress, if any. */
+	private static volatile DatasetSnapshot current = null;
+
+	private final File file;
+
+	private final String header;
+
+	/** The files in the snapshot being read; null if recording. */
+	private final Map<URI, Entry> entries;
+
+	/** The open snapshot being read; null if recording. */
+	private final FileChannel channel;
+
+	/** The files recorded for a new snapshot, in the order they were read. */
+	private final Map<URI, Entry> recorded = new LinkedHashMap<URI, Entry>();
+
+	private DataOutputStream out;
+
+	private long position;
+
+	private volatile boolean stale = false;
+
+	private DatasetSnapshot(File file, String header,
+		Map<URI, Entry> entries, FileChannel channel)
+	{
+		this.file = file;
+		this.header = header;
+		this.entries = entries;
+		this.channel = channel;
+	}
+
+	/**
+	 * Identifies if source snapshots are to be used.
+	 *
+	 * @return true if snapshots have been enabled in the preferences
+	 */
+	public static boolean isEnabled()
+	{
+		return PCGenSettings.OPTIONS_CONTEXT.initBoolean(
+			PCGenSettings.OPTION_SOURCES_USE_SNAPSHOT, false);
+	}
+
+	/**
+	 * Starts the use of a snapshot for a load of sources. If a snapshot of the
+	 * selection is present and none of its files have changed, the source
+	 * files are read from it, otherwise the source files read are recorded for
+	 * a new snapshot.
+	 *
+	 * @param dir The directory holding the snapshots
+	 * @param version The version of PCGen loading the sources
+	 * @param selection The identity of the selected game mode and campaigns
+	 */
+	public static synchronized void startLoad(File dir, String version,
+		String selection)
+	{
+		finishLoad(false);
+		String header = version + '\n' + selection;
+		File file = new File(dir, getDigest(header) + SUFFIX);
+		DatasetSnapshot snapshot = null;
+		if (file.exists())
+		{
+			snapshot = open(file, header);
+		}
+		if (snapshot == null)
+		{
+			snapshot = new DatasetSnapshot(file, header, null, null);
+		}
+		current = snapshot;
+	}
+
+	/**
+	 * Ends the use of a snapshot for the load of sources. If the snapshot was
+	 * being recorded and the sources were successfully loaded, the snapshot is
+	 * written.
+	 *
+	 * @param successful true if the sources were loaded successfully
+	 */
+	public static synchronized void finishLoad(boolean successful)
+	{
+		DatasetSnapshot snapshot = current;
+		current = null;
+		if (snapshot != null)
+		{
+			snapshot.close(successful);
+		}
+	}
+
+	/**
+	 * Returns the contents of a source file from the snapshot in use.
+	 *
+	 * @param uri The URI of the source file
+	 * @return The contents of the source file; null if no snapshot is being
+	 *         read or the file is not held in the snapshot
+	 */
+	static String getContents(URI uri)
+	{
+		DatasetSnapshot snapshot = current;
+		return (snapshot == null) ? null : snapshot.read(uri);
+	}
+
+	/**
+	 * Records the contents of a source file read normally, for the snapshot
+	 * being recorded.
+	 *
+	 * @param uri The URI of the source file
+	 * @param contents The contents of the source file
+	 */
+	static void recordContents(URI uri, CharSequence contents)
+	{
+		DatasetSnapshot snapshot = current;
+		if (snapshot != null)
+		{
+			snapshot.record(uri, contents);
+		}
+	}
+
+	private static DatasetSnapshot open(File file, String header)
+	{
+		RandomAccessFile raf = null;
+		boolean valid = false;
+		try
+		{
+			raf = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+			if (raf.readInt() != MAGIC || raf.readInt() != FORMAT
+				|| !header.equals(raf.readUTF()))
+			{
+				return null;
+			}
+			raf.seek(raf.length() - 8);
+			raf.seek(raf.readLong());
+			int count = raf.readInt();
+			Map<URI, Entry> entries = new HashMap<URI, Entry>(count * 2);
+			for (int i = 0; i < count; i++)
+			{
+				URI uri = URI.create(raf.readUTF());
+				Entry entry =
+						new Entry(raf.readLong(), raf.readLong(), raf
+							.readLong(), raf.readInt(), raf.readLong());
+				if (!entry.matches(new File(uri)))
+				{
+					Logging.debugPrint("Source snapshot out of date: " + uri); //$NON-NLS-1$
+					return null;
+				}
+				entries.put(uri, entry);
+			}
+			valid = true;
+			return new DatasetSnapshot(file, header, entries, raf.getChannel());
+		}
+		catch (IOException e)
+		{
+			Logging.debugPrint("Unable to read source snapshot " + file, e); //$NON-NLS-1$
+			return null;
+		}
+		catch (IllegalArgumentException e)
+		{
+			Logging.debugPrint("Invalid source snapshot " + file, e); //$NON-NLS-1$
+			return null;
+		}
+		finally
+		{
+			if (!valid && raf != null)
+			{
+				try
+				{
+					raf.close();
+				}
+				catch (IOException e)
+				{
+					// Nothing more to be done
+				}
+			}
+		}
+	}
+
+	private String read(URI uri)
+	{
+		if (entries == null)
+		{
+			return null;
+		}
+		Entry entry = entries.get(uri);
+		if (entry != null)
+		{
+			try
+			{
+				ByteBuffer buffer = ByteBuffer.allocate(entry.byteLength);
+				long pos = entry.offset;
+				while (buffer.hasRemaining())
+				{
+					int n = channel.read(buffer, pos + buffer.position());
+					if (n < 0)
+					{
+						throw new IOException("Truncated source snapshot"); //$NON-NLS-1$
+					}
+				}
+				CRC32 crc = new CRC32();
+				crc.update(buffer.array());
+				if (crc.getValue() == entry.checksum)
+				{
+					return new String(buffer.array(), UTF_8);
+				}
+			}
+			catch (IOException e)
+			{
+				Logging.debugPrint("Unable to read " + uri //$NON-NLS-1$
+					+ " from source snapshot", e); //$NON-NLS-1$
+			}
+		}
+		stale = true;
+		return null;
+	}
+
+	private synchronized void record(URI uri, CharSequence contents)
+	{
+		if (entries != null)
+		{
+			// Read from a snapshot which does not hold this file
+			return;
+		}
+		if (stale || recorded.containsKey(uri)
+			|| !"file".equals(uri.getScheme())) //$NON-NLS-1$
+		{
+			return;
+		}
+		try
+		{
+			if (out == null)
+			{
+				out =
+						new DataOutputStream(new BufferedOutputStream(
+							new FileOutputStream(getTempFile())));
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT);
+				out.writeUTF(header);
+				position = out.size();
+			}
+			File source = new File(uri);
+			byte[] bytes = contents.toString().getBytes(UTF_8);
+			CRC32 crc = new CRC32();
+			crc.update(bytes);
+			recorded.put(uri, new Entry(source.length(), source
+				.lastModified(), position, bytes.length, crc.getValue()));
+			out.write(bytes);
+			position += bytes.length;
+		}
+		catch (IOException e)
+		{
+			Logging.errorPrint("Unable to record source snapshot " + file, e); //$NON-NLS-1$
+			stale = true;
+		}
+		catch (IllegalArgumentException e)
+		{
+			// Not a local file
+		}
+	}
+
+	private synchronized void close(boolean successful)
+	{
+		if (channel != null)
+		{
+			try
+			{
+				channel.close();
+			}
+			catch (IOException e)
+			{
+				// Nothing more to be done
+			}
+			if (stale)
+			{
+				file.delete();
+			}
+			return;
+		}
+		if (out == null)
+		{
+			return;
+		}
+		File temp = getTempFile();
+		boolean written = false;
+		try
+		{
+			if (successful && !stale)
+			{
+				out.writeInt(recorded.size());
+				for (Map.Entry<URI, Entry> me : recorded.entrySet())
+				{
+					Entry entry = me.getValue();
+					out.writeUTF(me.getKey().toString());
+					out.writeLong(entry.fileLength);
+					out.writeLong(entry.lastModified);
+					out.writeLong(entry.offset);
+					out.writeInt(entry.byteLength);
+					out.writeLong(entry.checksum);
+				}
+				out.writeLong(position);
+				written = true;
+			}
+			out.close();
+		}
+		catch (IOException e)
+		{
+			Logging.errorPrint("Unable to write source snapshot " + file, e); //$NON-NLS-1$
+			written = false;
+		}
+		out = null;
+		if (written)
+		{
+			file.delete();
+			written = temp.renameTo(file);
+		}
+		if (!written)
+		{
+			temp.delete();
+		}
+	}
+
+	private File getTempFile()
+	{
+		return new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+	}
+
+	private static String getDigest(String text)
+	{
+		try
+		{
+			MessageDigest md = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+			StringBuilder sb = new StringBuilder();
+			for (byte b : md.digest(text.getBytes(UTF_8)))
+			{
+				sb.append(Integer.toHexString((b & 0xFF) | 0x100).substring(1));
+			}
+			return sb.toString();
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			return Integer.toHexString(text.hashCode());
+		}
+	}
+
+	/**
+	 * The record of a single source file in a snapshot.
+	 */
+	private static final class Entry
+	{
+		private final long fileLength;
+		private final long lastModified;
+		private final long offset;
+		private final int byteLength;
+		private final long checksum;
+
+		private Entry(long fileLength, long lastModified, long offset,
+			int byteLength, long checksum)
+		{
+			this.fileLength = fileLength;
+			this.lastModified = lastModified;
+			this.offset = offset;
+			this.byteLength = byteLength;
+			this.checksum = checksum;
+		}
+
+		private boolean matches(File source)
+		{
+			return source.length() == fileLength
+				&& source.lastModified() == lastModified;
+		}
+	}
+}
@@ -30,6 +30,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 
 import pcgen.cdom.base.Constants;
@@ -97,53 +98,13 @@ public final class LstFileLoader
 					"LstFileLoader.readFromURI() could not convert parameter to a URL: "
 							+ e.getLocalizedMessage());
 		}
-		InputStream inputStream = null;
-
 		StringBuilder dataBuffer = null;
 		try
 		{
 			//only load local urls, unless loading of URLs is allowed
 			if (!CoreUtility.isNetURL(url) || SettingsHandler.isLoadURLs())
 			{
-				// try to make a buffer of sufficient size in one go to save on GC
-				int size = 2048;
-				if ("file".equals(url.getProtocol())) 
-				{
-					long fileSize = new File(url.getPath()).length();
-					if (fileSize > 0)
-					{
-						// this is an overestimate if the LST has wide 
-						// characters, but it's accurate for ASCII
-						size = (int) fileSize; 
-					}
-				}
-				dataBuffer = new StringBuilder(size);
-
-				// Get the URL and open the stream
-				inputStream = url.openStream();
-
-				// Read from the stream
-				final InputStreamReader ir =
-						new InputStreamReader(inputStream, "UTF-8"); //$NON-NLS-1$
-
-				// Buffer the stream content
-				final char[] b = new char[512];
-				int n;
-
-				n = ir.read(b, 0, 1);
-				/*
-				 * Take out the optional BOM: This is a pre-Java 1.6 workaround
-				 * for Sun B-U-G 4508058, see:
-				 * http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=4508058
-				 */
-				if (n == 1 && b[0] != '\uFEFF')
-				{
-					dataBuffer.append(b, 0, 1);
-				}
-				while ((n = ir.read(b)) > 0)
-				{
-					dataBuffer.append(b, 0, n);
-				}
+				dataBuffer = readFromURL(url);
 			}
 			else
 			{
@@ -164,9 +125,95 @@ public final class LstFileLoader
 			// Don't throw an exception here because a simple
 			// file not found will prevent ANY other files from
 			// being loaded/processed -- NOT what we want
-			Logging.errorPrint("ERROR:" + url + "\n" + "Exception type:"
-				+ ioe.getClass().getName() + "\n" + "Message:"
-				+ ioe.getMessage());
+			logReadError(url, ioe);
+		}
+		return dataBuffer == null ? new StringBuilder() : dataBuffer;
+	}
+
+	/**
+	 * This method reads the contents of the given URL, which must be either a
+	 * local URL or a URL the user has allowed to be loaded. Local files are
+	 * read from the DatasetSnapshot of the sources being loaded if possible.
+	 *
+	 * @param url The URL to read
+	 * @return The contents of the URL
+	 * @throws IOException if the URL cannot be read
+	 */
+	static StringBuilder readFromURL(URL url) throws IOException
+	{
+		URI uri = null;
+		if ("file".equals(url.getProtocol())) //$NON-NLS-1$
+		{
+			try
+			{
+				uri = url.toURI();
+			}
+			catch (URISyntaxException e)
+			{
+				// Not held in a snapshot
+			}
+		}
+		if (uri != null)
+		{
+			String contents = DatasetSnapshot.getContents(uri);
+			if (contents != null)
+			{
+				return new StringBuilder(contents);
+			}
+		}
+		StringBuilder dataBuffer = readFromStream(url);
+		if (uri != null)
+		{
+			DatasetSnapshot.recordContents(uri, dataBuffer);
+		}
+		return dataBuffer;
+	}
+
+	private static StringBuilder readFromStream(URL url) throws IOException
+	{
+		InputStream inputStream = null;
+		try
+		{
+			// try to make a buffer of sufficient size in one go to save on GC
+			int size = 2048;
+			if ("file".equals(url.getProtocol())) 
+			{
+				long fileSize = new File(url.getPath()).length();
+				if (fileSize > 0)
+				{
+					// this is an overestimate if the LST has wide 
+					// characters, but it's accurate for ASCII
+					size = (int) fileSize; 
+				}
+			}
+			StringBuilder dataBuffer = new StringBuilder(size);
+
+			// Get the URL and open the stream
+			inputStream = url.openStream();
+
+			// Read from the stream
+			final InputStreamReader ir =
+					new InputStreamReader(inputStream, "UTF-8"); //$NON-NLS-1$
+
+			// Buffer the stream content
+			final char[] b = new char[512];
+			int n;
+
+			n = ir.read(b, 0, 1);
+			/*
+			 * Take out the optional BOM: This is a pre-Java 1.6 workaround
+			 * for Sun B-U-G 4508058, see:
+			 * http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=4508058
+			 */
+			if (n == 1 && b[0] != '\uFEFF')
+			{
+				dataBuffer.append(b, 0, 1);
+			}
+			while ((n = ir.read(b)) > 0)
+			{
+				dataBuffer.append(b, 0, n);
+			}
+			return dataBuffer;
 		}
 		finally
 		{
@@ -184,6 +231,18 @@ public final class LstFileLoader
 				}
 			}
 		}
-		return dataBuffer == null ? new StringBuilder() : dataBuffer;
+	}
+
+	/**
+	 * Reports a failure to read the given URL.
+	 *
+	 * @param url The URL which could not be read
+	 * @param ioe The exception raised when reading the URL
+	 */
+	static void logReadError(URL url, IOException ioe)
+	{
+		Logging.errorPrint("ERROR:" + url + "\n" + "Exception type:"
+			+ ioe.getClass().getName() + "\n" + "Message:"
+			+ ioe.getMessage());
 	}
 }
@@ -0,0 +1,285 @@
+/*
+ * LstFileReader.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.persistence.lst;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import pcgen.system.PCGenSettings;
+
+/**
+ * <code>LstFileReader</code> reads a group of LST files on a shared pool of
+ * threads, ahead of the loader that processes them. Each file is read and
+ * split into lines, and the first token of each line is identified, in
+ * parallel with the processing of the files before it.
+ *
+ * <p>
+ * The loader still processes each file in turn on its own thread, taking the
+ * contents of the file from the LstFileReader, so the objects loaded into the
+ * LoadContext (including .COPY, .MOD and .FORGET processing) and the errors
+ * reported are the same as if the files were read one at a time. Only local
+ * files are read ahead; any other file is left for the loader to read.
+ *
+ * <p>
+ * Reading ahead is only performed if parallel loading has been enabled in the
+ * preferences.
+ */
+final class LstFileReader
+{
+	/** The pool shared by all LstFileReaders, created when first needed. */
+	private static ForkJoinPool pool;
+
+	private final Map<URI, ForkJoinTask<LstFileContents>> pending =
+			new HashMap<URI, ForkJoinTask<LstFileContents>>();
+
+	private LstFileReader()
+	{
+		// Created by readAhead
+	}
+
+	/**
+	 * Identifies if LST files are to be read ahead on several threads.
+	 *
+	 * @return true if parallel loading of sources has been enabled
+	 */
+	static boolean isParallelLoad()
+	{
+		return PCGenSettings.OPTIONS_CONTEXT.initBoolean(
+			PCGenSettings.OPTION_SOURCES_PARALLEL_LOAD, false);
+	}
+
+	/**
+	 * Starts reading the given files, if parallel loading is enabled.
+	 *
+	 * @param files The files which are about to be loaded
+	 * @param splitLines true if the contents of each file should be split into
+	 *            lines
+	 * @return The LstFileReader from which the contents of the files can be
+	 *         taken; null if the files are not being read ahead
+	 */
+	static LstFileReader readAhead(Collection<CampaignSourceEntry> files,
+		boolean splitLines)
+	{
+		if (files.size() < 2 || !isParallelLoad())
+		{
+			return null;
+		}
+		boolean allowMultiLine =
+				PCGenSettings.OPTIONS_CONTEXT.initBoolean(
+					PCGenSettings.OPTION_SOURCES_ALLOW_MULTI_LINE, false);
+		ForkJoinPool readPool = getPool();
+		LstFileReader reader = new LstFileReader();
+		for (CampaignSourceEntry cse : files)
+		{
+			URI uri = (cse == null) ? null : cse.getURI();
+			if (uri != null && "file".equals(uri.getScheme())
+				&& !reader.pending.containsKey(uri))
+			{
+				reader.pending.put(uri, readPool.submit(new ReadTask(uri,
+					splitLines, allowMultiLine)));
+			}
+		}
+		return reader;
+	}
+
+	private static synchronized ForkJoinPool getPool()
+	{
+		if (pool == null)
+		{
+			pool = new ForkJoinPool();
+		}
+		return pool;
+	}
+
+	/**
+	 * Takes the contents of a file read ahead by this LstFileReader. The
+	 * contents are only provided once; a second request for the same file
+	 * must read the file again.
+	 *
+	 * @param uri The URI of the file
+	 * @return The contents of the file, waiting for the read to complete if
+	 *         necessary; null if the file was not read ahead
+	 */
+	LstFileContents take(URI uri)
+	{
+		ForkJoinTask<LstFileContents> task = pending.remove(uri);
+		return (task == null) ? null : task.join();
+	}
+
+	/**
+	 * Abandons any files which have not been taken from this LstFileReader.
+	 */
+	void close()
+	{
+		for (ForkJoinTask<LstFileContents> task : pending.values())
+		{
+			task.cancel(false);
+		}
+		pending.clear();
+	}
+
+	/**
+	 * Splits the contents of an LST file into lines.
+	 *
+	 * @param contents The contents of the LST file
+	 * @param allowMultiLine true if lines starting with a tab continue the
+	 *            previous line
+	 * @return The lines of the file
+	 */
+	static String[] splitLines(String contents, boolean allowMultiLine)
+	{
+		String aString = contents;
+		if (allowMultiLine)
+		{
+			// Support the new file type. All lines that start with a tab belong to the previous line.
+			aString = aString.replaceAll("\r?\n\t", "\t");
+		}
+		return aString.split(LstFileLoader.LINE_SEPARATOR_REGEXP);
+	}
+
+	/**
+	 * Returns the first token (the text before the first field separator) of
+	 * an LST line.
+	 *
+	 * @param line The LST line
+	 * @return The first token of the line
+	 */
+	static String getFirstToken(String line)
+	{
+		int sepLoc = line.indexOf(LstObjectFileLoader.FIELD_SEPARATOR);
+		return (sepLoc == -1) ? line : line.substring(0, sepLoc);
+	}
+
+	/**
+	 * Reads and splits a single LST file.
+	 */
+	private static final class ReadTask implements Callable<LstFileContents>
+	{
+		private final URI uri;
+		private final boolean splitLines;
+		private final boolean allowMultiLine;
+
+		private ReadTask(URI uri, boolean splitLines, boolean allowMultiLine)
+		{
+			this.uri = uri;
+			this.splitLines = splitLines;
+			this.allowMultiLine = allowMultiLine;
+		}
+
+		@Override
+		public LstFileContents call() throws IOException
+		{
+			URL url = uri.toURL();
+			String data;
+			IOException error = null;
+			try
+			{
+				data = LstFileLoader.readFromURL(url).toString();
+			}
+			catch (IOException ioe)
+			{
+				data = "";
+				error = ioe;
+			}
+			return new LstFileContents(url, data, error, splitLines,
+				allowMultiLine);
+		}
+	}
+
+	/**
+	 * The contents of an LST file read ahead by an LstFileReader.
+	 */
+	static final class LstFileContents
+	{
+		private final URL url;
+		private final String data;
+		private final IOException error;
+		private final String[] lines;
+		private final String[] firstTokens;
+
+		private LstFileContents(URL url, String data, IOException error,
+			boolean splitLines, boolean allowMultiLine)
+		{
+			this.url = url;
+			this.data = data;
+			this.error = error;
+			if (splitLines)
+			{
+				lines = LstFileReader.splitLines(data, allowMultiLine);
+				firstTokens = new String[lines.length];
+				for (int i = 0; i < lines.length; i++)
+				{
+					firstTokens[i] = LstFileReader.getFirstToken(lines[i]);
+				}
+			}
+			else
+			{
+				lines = null;
+				firstTokens = null;
+			}
+		}
+
+		/**
+		 * Reports any error reading the file, as LstFileLoader.readFromURI
+		 * would have done had the file not been read ahead. This should be
+		 * called by the loader when it starts to process the file.
+		 */
+		void reportError()
+		{
+			if (error != null)
+			{
+				LstFileLoader.logReadError(url, error);
+			}
+		}
+
+		/**
+		 * @return The contents of the file; empty if it could not be read
+		 */
+		String getData()
+		{
+			return data;
+		}
+
+		/**
+		 * @return The lines of the file, if it was read to be split into lines
+		 */
+		String[] getLines()
+		{
+			return lines;
+		}
+
+		/**
+		 * Returns the first token of a line of the file.
+		 *
+		 * @param i The index of the line
+		 * @return The first token of the line
+		 */
+		String getFirstToken(int i)
+		{
+			return firstTokens[i];
+		}
+	}
+}
@@ -58,6 +58,9 @@ public abstract class LstLineFileLoader extends Observable
 	// TODO - Should be a constant.
 	protected String gameMode = "*"; //$NON-NLS-1$
 
+	/** The reader of the files being loaded, if they are being read ahead. */
+	private LstFileReader reader = null;
+
 	/**
 	 * Constructor
 	 */
@@ -74,8 +77,18 @@ public abstract class LstLineFileLoader extends Observable
 	 */
 	public void loadLstFile(LoadContext context, URI uri) throws PersistenceLayerException
 	{
-		StringBuilder dataBuffer = LstFileLoader.readFromURI(uri);
-		final String aString = dataBuffer.toString();
+		LstFileReader.LstFileContents contents =
+				(reader == null) ? null : reader.take(uri);
+		final String aString;
+		if (contents == null)
+		{
+			aString = LstFileLoader.readFromURI(uri).toString();
+		}
+		else
+		{
+			contents.reportError();
+			aString = contents.getData();
+		}
 		if (context != null)
 		{
 			context.setSourceURI(uri);
@@ -137,13 +150,25 @@ public abstract class LstLineFileLoader extends Observable
 		Set<CampaignSourceEntry> loadedFiles = new HashSet<CampaignSourceEntry>();
 
 		// Load the files themselves as thoroughly as possible
-		for (CampaignSourceEntry cse : fileList)
+		reader = LstFileReader.readAhead(fileList, false);
+		try
+		{
+			for (CampaignSourceEntry cse : fileList)
+			{
+				// Check if the CSE has already been loaded before loading it
+				if (!loadedFiles.contains(cse))
+				{
+					loadLstFile(context, cse.getURI());
+					loadedFiles.add(cse);
+				}
+			}
+		}
+		finally
 		{
-			// Check if the CSE has already been loaded before loading it
-			if (!loadedFiles.contains(cse))
+			if (reader != null)
 			{
-				loadLstFile(context, cse.getURI());
-				loadedFiles.add(cse);
+				reader.close();
+				reader = null;
 			}
 		}
 	}
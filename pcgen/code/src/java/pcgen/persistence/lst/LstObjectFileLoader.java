@@ -81,6 +81,8 @@ public abstract class LstObjectFileLoader<T extends CDOMObject> extends Observab
 	private List<String> forgetLineList = new ArrayList<String>();
 	private List<List<ModEntry>> modEntryList = new ArrayList<List<ModEntry>>();
 	private boolean processComplete = true;
+	/** The reader of the files being loaded, if they are being read ahead. */
+	private LstFileReader reader = null;
 	/** A list of objects that will not be included. */
 	protected List<String> excludedObjects = new ArrayList<String>();
 
@@ -104,18 +106,30 @@ public abstract class LstObjectFileLoader<T extends CDOMObject> extends Observab
 		Set<CampaignSourceEntry> loadedFiles = new HashSet<CampaignSourceEntry>();
 
 		// Load the files themselves as thoroughly as possible
-		for (CampaignSourceEntry sourceEntry : fileList)
+		reader = LstFileReader.readAhead(fileList, true);
+		try
 		{
-			if (sourceEntry == null)
+			for (CampaignSourceEntry sourceEntry : fileList)
 			{
-				continue;
-			}
+				if (sourceEntry == null)
+				{
+					continue;
+				}
 
-			// Check if the CSE has already been loaded before loading it
-			if (!loadedFiles.contains(sourceEntry))
+				// Check if the CSE has already been loaded before loading it
+				if (!loadedFiles.contains(sourceEntry))
+				{
+					loadLstFile(context, sourceEntry);
+					loadedFiles.add(sourceEntry);
+				}
+			}
+		}
+		finally
+		{
+			if (reader != null)
 			{
-				loadLstFile(context, sourceEntry);
-				loadedFiles.add(sourceEntry);
+				reader.close();
+				reader = null;
 			}
 		}
 
@@ -337,23 +351,40 @@ public abstract class LstObjectFileLoader<T extends CDOMObject> extends Observab
 		URI uri = sourceEntry.getURI();
 		notifyObservers(uri);
 
-		StringBuilder dataBuffer;
-
-		try
+		LstFileReader.LstFileContents contents =
+				(reader == null) ? null : reader.take(uri);
+		String[] fileLines;
+		if (contents == null)
 		{
-			dataBuffer = LstFileLoader.readFromURI(uri);
+			StringBuilder dataBuffer;
+
+			try
+			{
+				dataBuffer = LstFileLoader.readFromURI(uri);
+			}
+			catch (PersistenceLayerException ple)
+			{
+				String message = LanguageBundle.getFormattedString(
+					"Errors.LstFileLoader.LoadError", //$NON-NLS-1$
+					uri, ple.getMessage());
+				Logging.errorPrint(message);
+				setChanged();
+				return;
+			}
+
+			boolean allowMultiLine =
+					PCGenSettings.OPTIONS_CONTEXT.initBoolean(
+						PCGenSettings.OPTION_SOURCES_ALLOW_MULTI_LINE, false);
+			fileLines =
+					LstFileReader.splitLines(dataBuffer.toString(),
+						allowMultiLine);
 		}
-		catch (PersistenceLayerException ple)
+		else
 		{
-			String message = LanguageBundle.getFormattedString(
-				"Errors.LstFileLoader.LoadError", //$NON-NLS-1$
-				uri, ple.getMessage());
-			Logging.errorPrint(message);
-			setChanged();
-			return;
+			contents.reportError();
+			fileLines = contents.getLines();
 		}
 
-		String aString = dataBuffer.toString();
 		if (context != null)
 		{
 			context.setSourceURI(uri);
@@ -361,17 +392,6 @@ public abstract class LstObjectFileLoader<T extends CDOMObject> extends Observab
 		T target = null;
 		ArrayList<ModEntry> classModLines = null;
 
-		boolean allowMultiLine =
-				PCGenSettings.OPTIONS_CONTEXT.initBoolean(
-					PCGenSettings.OPTION_SOURCES_ALLOW_MULTI_LINE, false);
-		if (allowMultiLine)
-		{
-			// Support the new file type. All lines that start with a tab belong to the previous line.
-			aString = aString.replaceAll("\r?\n\t", "\t");
-		}
-		
-		String[] fileLines = aString.split(LstFileLoader.LINE_SEPARATOR_REGEXP);
-
 		for (int i = 0; i < fileLines.length; i++)
 		{
 			String line = fileLines[i];
@@ -380,16 +400,9 @@ public abstract class LstObjectFileLoader<T extends CDOMObject> extends Observab
 			{
 				continue;
 			}
-			int sepLoc = line.indexOf(FIELD_SEPARATOR);
-			String firstToken;
-			if (sepLoc == -1)
-			{
-				firstToken = line;
-			}
-			else
-			{
-				firstToken = line.substring(0, sepLoc);
-			}
+			String firstToken =
+					(contents == null) ? LstFileReader.getFirstToken(line)
+						: contents.getFirstToken(i);
 
 			// Check for continuation of class mods
 			if (classModLines != null)
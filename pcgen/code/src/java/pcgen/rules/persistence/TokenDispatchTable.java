@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.rules.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import pcgen.rules.persistence.TokenLibrary.SubTokenIterator;
+import pcgen.rules.persistence.TokenLibrary.TokenIterator;
+import pcgen.rules.persistence.token.CDOMToken;
+import pcgen.rules.persistence.util.TokenFamily;
+
+/**
+ * TokenDispatchTable holds, for one class of object, the tokens to be tried
+ * for each token name, in the order TokenLibrary.TokenIterator returns them.
+ *
+ * The table of primary tokens is built in full when the table is created, by
+ * gathering every token name registered for the class or its superclasses in
+ * any TokenFamily, and is not changed afterwards. Sub tokens are looked up
+ * the first time each is used. A table is only valid for the revision of the
+ * token registry it was built from; once plugins are loaded the registry no
+ * longer changes, so each table is built once and then only read.
+ */
+final class TokenDispatchTable
+{
+	private static final ConcurrentMap<Class<?>, TokenDispatchTable> TABLES =
+			new ConcurrentHashMap<Class<?>, TokenDispatchTable>();
+
+	private final Class<?> tokenClass;
+
+	private final int revision;
+
+	private final Map<String, List<CDOMToken<?>>> tokens;
+
+	private final ConcurrentMap<String, ConcurrentMap<String, List<CDOMToken<?>>>> subTokens =
+			new ConcurrentHashMap<String, ConcurrentMap<String, List<CDOMToken<?>>>>();
+
+	private TokenDispatchTable(Class<?> cl, int rev)
+	{
+		tokenClass = cl;
+		revision = rev;
+
+		Set<String> names = new HashSet<String>();
+		for (TokenFamily family : TokenLibrary.getTokenFamilies())
+		{
+			for (Class<?> actingClass = cl; actingClass != null; actingClass =
+					actingClass.getSuperclass())
+			{
+				for (CDOMToken<?> token : family.getTokens(actingClass))
+				{
+					names.add(token.getTokenName());
+				}
+			}
+		}
+		Map<String, List<CDOMToken<?>>> map =
+				new HashMap<String, List<CDOMToken<?>>>(names.size() * 2);
+		for (String name : names)
+		{
+			List<CDOMToken<?>> list = toList(new TokenIterator(cl, name));
+			if (!list.isEmpty())
+			{
+				map.put(name, list);
+			}
+		}
+		tokens = map;
+	}
+
+	/**
+	 * Returns the dispatch table for the given class, building it if there is
+	 * no table for the current revision of the token registry.
+	 *
+	 * @param cl
+	 *            The class of object being loaded
+	 * @return The dispatch table for the class
+	 */
+	static TokenDispatchTable getTable(Class<?> cl)
+	{
+		int rev = TokenLibrary.getRegistryRevision();
+		TokenDispatchTable table = TABLES.get(cl);
+		if (table == null || table.revision != rev)
+		{
+			table = new TokenDispatchTable(cl, rev);
+			TABLES.put(cl, table);
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the tokens to be tried for the given token name.
+	 *
+	 * @param name
+	 *            The name of the token
+	 * @return An unmodifiable list of the tokens, or null if there are none
+	 */
+	List<CDOMToken<?>> getTokens(String name)
+	{
+		return tokens.get(name);
+	}
+
+	/**
+	 * Returns the sub tokens to be tried for the given token and sub token
+	 * names.
+	 *
+	 * @param name
+	 *            The name of the parent token
+	 * @param subtoken
+	 *            The name of the sub token
+	 * @return An unmodifiable list of the sub tokens, or null if there are
+	 *         none
+	 */
+	List<CDOMToken<?>> getSubTokens(String name, String subtoken)
+	{
+		ConcurrentMap<String, List<CDOMToken<?>>> forName = subTokens.get(name);
+		if (forName == null)
+		{
+			forName = new ConcurrentHashMap<String, List<CDOMToken<?>>>();
+			ConcurrentMap<String, List<CDOMToken<?>>> existing =
+					subTokens.putIfAbsent(name, forName);
+			if (existing != null)
+			{
+				forName = existing;
+			}
+		}
+		List<CDOMToken<?>> list = forName.get(subtoken);
+		if (list == null)
+		{
+			list = toList(new SubTokenIterator(tokenClass, name, subtoken));
+			forName.putIfAbsent(subtoken, list);
+		}
+		return list.isEmpty() ? null : list;
+	}
+
+	private static List<CDOMToken<?>> toList(Iterator<?> it)
+	{
+		if (!it.hasNext())
+		{
+			return Collections.emptyList();
+		}
+		List<CDOMToken<?>> list = new ArrayList<CDOMToken<?>>(2);
+		while (it.hasNext())
+		{
+			list.add((CDOMToken<?>) it.next());
+		}
+		return Collections.unmodifiableList(list);
+	}
+}
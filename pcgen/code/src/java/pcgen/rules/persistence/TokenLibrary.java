@@ -19,6 +19,7 @@ package pcgen.rules.persistence;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -68,6 +69,12 @@ public final class TokenLibrary implements PluginLoader
 
 	private static TokenLibrary instance = null;
 
+	/*
+	 * Counts changes to the token families, so that dispatch tables built from
+	 * an earlier state of the registry can be identified and rebuilt.
+	 */
+	private static volatile int registryRevision = 0;
+
 	static
 	{
 		reset();
@@ -75,6 +82,7 @@ public final class TokenLibrary implements PluginLoader
 	
 	public static void reset()
 	{
+		registryRevision++;
 		POST_DEFERRED_TOKENS.clear();
 		QUALIFIER_MAP.clear();
 		PRIMITIVE_MAP.clear();
@@ -144,6 +152,7 @@ public final class TokenLibrary implements PluginLoader
 
 	public static void addToTokenMap(Object newToken)
 	{
+		registryRevision++;
 		if (newToken instanceof PostDeferredToken)
 		{
 			PostDeferredToken<?> pdt = (PostDeferredToken<?>) newToken;
@@ -174,6 +183,7 @@ public final class TokenLibrary implements PluginLoader
 
 	public static void loadFamily(TokenFamily family, Object newToken)
 	{
+		registryRevision++;
 		if (newToken instanceof DeferredToken)
 		{
 			family.addDeferredToken((DeferredToken<?>) newToken);
@@ -251,6 +261,23 @@ public final class TokenLibrary implements PluginLoader
 		}
 	}
 
+	/**
+	 * Returns the current revision of the token registry. The revision
+	 * changes whenever a token is added or the registry is reset.
+	 */
+	static int getRegistryRevision()
+	{
+		return registryRevision;
+	}
+
+	/**
+	 * Returns the token families known to the registry, in priority order.
+	 */
+	static Collection<TokenFamily> getTokenFamilies()
+	{
+		return Collections.unmodifiableSet(TOKEN_FAMILIES);
+	}
+
 	public static TokenLibrary getInstance()
 	{
 		if (instance == null)
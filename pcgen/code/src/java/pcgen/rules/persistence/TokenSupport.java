@@ -19,25 +19,18 @@ package pcgen.rules.persistence;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
 
-import pcgen.base.util.DoubleKeyMapToList;
-import pcgen.base.util.TripleKeyMapToList;
 import pcgen.base.util.WeightedCollection;
 import pcgen.cdom.base.Loadable;
 import pcgen.persistence.PersistenceLayerException;
 import pcgen.rules.context.LoadContext;
-import pcgen.rules.persistence.TokenLibrary.SubTokenIterator;
-import pcgen.rules.persistence.TokenLibrary.TokenIterator;
 import pcgen.rules.persistence.token.CDOMPrimaryToken;
 import pcgen.rules.persistence.token.CDOMSecondaryToken;
-import pcgen.rules.persistence.token.CDOMSubToken;
 import pcgen.rules.persistence.token.CDOMToken;
 import pcgen.rules.persistence.token.ComplexParseResult;
 import pcgen.rules.persistence.token.DeferredToken;
 import pcgen.rules.persistence.token.ParseResult;
-import pcgen.rules.persistence.util.Revision;
 import pcgen.rules.persistence.util.TokenFamily;
 import pcgen.rules.persistence.util.TokenFamilyIterator;
 import pcgen.rules.persistence.util.TokenFamilySubIterator;
@@ -45,14 +38,6 @@ import pcgen.util.Logging;
 
 public class TokenSupport
 {
-	private TokenFamily localTokens = new TokenFamily(new Revision(0, 0, 0));
-	
-	private DoubleKeyMapToList<Class<?>, String, CDOMToken<?>> tokenCache =
-		new DoubleKeyMapToList<Class<?>, String, CDOMToken<?>>();
-
-	private TripleKeyMapToList<Class<?>, String, String, CDOMToken<?>> subTokenCache =
-		new TripleKeyMapToList<Class<?>, String, String, CDOMToken<?>>();
-
 	public <T extends Loadable> boolean processToken(LoadContext context,
 		T derivative, String typeStr, String argument)
 		throws PersistenceLayerException
@@ -61,33 +46,42 @@ public class TokenSupport
 		List<? extends CDOMToken<T>> tokenList = getTokens(cl, typeStr);
 		if (tokenList != null)
 		{
-			for (CDOMToken<T> token : tokenList)
+			// Count any messages against this token
+			String outerToken = Logging.setParseToken(typeStr);
+			try
 			{
-				ParseResult parse;
-				try
-				{
-					parse = token.parseToken(context, derivative, argument);
-				}
-				catch (IllegalArgumentException e)
-				{
-					Logging.addParseMessage(
-						Logging.LST_ERROR,
-						"Token generated an IllegalArgumentException: "
-							+ e.getLocalizedMessage());
-					parse = new ParseResult.Fail("Token processing failed");
-				}
-				// Need to add messages as there may be warnings.
-				parse.addMessagesToLog();
-				if (parse.passed())
-				{
-					return true;
-				}
-				if (Logging.isLoggable(Logging.LST_INFO))
+				for (CDOMToken<T> token : tokenList)
 				{
-					Logging.addParseMessage(Logging.LST_INFO,
-						"Failed in parsing typeStr: " + typeStr + " " + argument);
+					ParseResult parse;
+					try
+					{
+						parse = token.parseToken(context, derivative, argument);
+					}
+					catch (IllegalArgumentException e)
+					{
+						Logging.addParseMessage(
+							Logging.LST_ERROR,
+							"Token generated an IllegalArgumentException: "
+								+ e.getLocalizedMessage());
+						parse = new ParseResult.Fail("Token processing failed");
+					}
+					// Need to add messages as there may be warnings.
+					parse.addMessagesToLog();
+					if (parse.passed())
+					{
+						return true;
+					}
+					if (Logging.isLoggable(Logging.LST_INFO))
+					{
+						Logging.addParseMessage(Logging.LST_INFO,
+							"Failed in parsing typeStr: " + typeStr + " " + argument);
+					}
 				}
 			}
+			finally
+			{
+				Logging.setParseToken(outerToken);
+			}
 		}
 		if (typeStr.startsWith(" "))
 		{
@@ -107,45 +101,14 @@ public class TokenSupport
 	public <T extends Loadable> List<? extends CDOMToken<T>> getTokens(Class<T> cl,
 		String name)
 	{
-		List list = tokenCache.getListFor(cl, name);
-		if (list == null)
-		{
-			CDOMToken<?> local = localTokens.getToken(cl, name);
-			if (local != null)
-			{
-				tokenCache.addToListFor(cl, name, local);
-			}
-			for (Iterator<? extends CDOMToken<T>> it =
-				new TokenIterator<T, CDOMToken<T>>(cl, name); it.hasNext();)
-			{
-				CDOMToken<T> token = it.next();
-				tokenCache.addToListFor(cl, name, token);
-			}
-			list = tokenCache.getListFor(cl, name);
-		}
+		List list = TokenDispatchTable.getTable(cl).getTokens(name);
 		return list;
 	}
 
 	public <T> List<? extends CDOMToken<T>> getTokens(
 		Class<T> cl, String name, String subtoken)
 	{
-		List list = subTokenCache.getListFor(cl, name, subtoken);
-		if (list == null)
-		{
-			CDOMToken<?> local = localTokens.getSubToken(cl, name, subtoken);
-			if (local != null)
-			{
-				subTokenCache.addToListFor(cl, name, subtoken, local);
-			}
-			for (Iterator<CDOMSubToken<T>> it =
-					new SubTokenIterator<T, CDOMSubToken<T>>(cl, name, subtoken); it
-				.hasNext();)
-			{
-				CDOMToken<T> token = it.next();
-				subTokenCache.addToListFor(cl, name, subtoken, token);
-			}
-			list = subTokenCache.getListFor(cl, name, subtoken);
-		}
+		List list = TokenDispatchTable.getTable(cl).getSubTokens(name, subtoken);
 		return list;
 	}
 
@@ -285,7 +248,6 @@ public class TokenSupport
 	{
 		List<DeferredToken<? extends Loadable>> c =
 				new ArrayList<DeferredToken<? extends Loadable>>();
-		c.addAll(localTokens.getDeferredTokens());
 		c.addAll(TokenFamily.CURRENT.getDeferredTokens());
 		return c;
 	}
@@ -57,7 +57,10 @@ public interface ParseResult
 	public void addMessagesToLog();
 
 	/**
-	 * Class representing a message from the parser.
+	 * Class representing a message from the parser. The stack where the
+	 * message was raised is only captured when Logging.isCaptureParseStacks()
+	 * is true, as every failed parse, including the expected failures of
+	 * candidate tokens, creates a message.
 	 */
 	public static class QueuedMessage
 	{
@@ -69,7 +72,7 @@ public interface ParseResult
 		{
 			level = lvl;
 			message = msg;
-			stackTrace = Thread.currentThread().getStackTrace();
+			stackTrace = Logging.getParseStack();
 		}
 	}
 
@@ -29,6 +29,17 @@ import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
@@ -36,6 +47,7 @@ import org.apache.commons.lang.StringUtils;
 import pcgen.cdom.base.Constants;
 import pcgen.core.SettingsHandler;
 import pcgen.facade.core.CharacterFacade;
+import pcgen.facade.core.DataSetFacade;
 import pcgen.facade.core.PartyFacade;
 import pcgen.facade.core.SourceSelectionFacade;
 import pcgen.facade.core.UIDelegate;
@@ -46,6 +58,7 @@ import pcgen.io.ExportException;
 import pcgen.io.ExportHandler;
 import pcgen.io.ExportUtilities;
 import pcgen.io.PCGFile;
+import pcgen.io.PipedExport;
 import pcgen.persistence.SourceFileLoader;
 import pcgen.util.fop.FOPHandler;
 import pcgen.util.fop.FOPHandlerFactory;
@@ -61,6 +74,10 @@ import pcgen.util.Logging;
  * used in batch mode an instance should be created for the the template and 
  * one of the export methods called. When used as a library the static methods
  * should be used and supplied with preloaded characters.  
+ * <p>
+ * A folder of characters may also be exported in batch mode. The data for 
+ * the characters is loaded once for each set of sources used, and the 
+ * character sheets are then produced on a pool of threads.
  *
  * <br/>
  * Last Editor: $Author$
@@ -152,6 +169,264 @@ public class BatchExporter
 		}
 	}
 
+	/**
+	 * Export a character sheet for each character in a folder using the 
+	 * pre-registered template. The sheets are written to the output folder, or
+	 * to the character folder if no output folder is supplied, named after 
+	 * the character files. Any existing output files will be overwritten.
+	 * <p>
+	 * The data for the characters is loaded once for each distinct game mode 
+	 * and set of sources used by the characters. The characters using those 
+	 * sources are then loaded in turn, and their sheets exported concurrently 
+	 * on up to the given number of threads. A character which cannot be 
+	 * loaded or exported is reported and does not stop the export of the 
+	 * other characters.
+	 * 
+	 * @param characterDir The folder containing the character PCG files.
+	 * @param outputDir The folder in which the output files are to be 
+	 * created. May be null.
+	 * @param threads The maximum number of characters to be exported at once.
+	 * @return true if every character was exported, false if any failed.
+	 */
+	public boolean exportCharacters(File characterDir, String outputDir,
+		int threads)
+	{
+		File[] files = characterDir.listFiles(new FilenameFilter()
+		{
+			@Override
+			public boolean accept(File dir, String name)
+			{
+				return PCGFile.isPCGenCharacterFile(new File(dir, name));
+			}
+		});
+		if (files == null)
+		{
+			Logging.errorPrint("Invalid character folder specified: "
+				+ characterDir.getAbsolutePath());
+			return false;
+		}
+		Arrays.sort(files);
+		File outDir = (outputDir == null) ? characterDir : new File(outputDir);
+		if (!outDir.isDirectory() && !outDir.mkdirs())
+		{
+			Logging.errorPrint("Unable to create output folder "
+				+ outDir.getAbsolutePath());
+			return false;
+		}
+		int poolSize = Math.max(1, threads);
+		Logging.log(Logging.INFO, "Started export of " + files.length
+			+ " characters in " + characterDir.getAbsolutePath() + " using "
+			+ exportTemplateFilename + " to " + outDir.getAbsolutePath()
+			+ " on " + poolSize + " threads");
+		long startTime = System.currentTimeMillis();
+
+		// Group the characters by the sources they need
+		Map<String, SourceSelectionFacade> sourcesByKey =
+				new LinkedHashMap<String, SourceSelectionFacade>();
+		Map<String, List<File>> filesByKey =
+				new LinkedHashMap<String, List<File>>();
+		int failed = 0;
+		for (File file : files)
+		{
+			SourceSelectionFacade sources =
+					CharacterManager.getRequiredSourcesForCharacter(file,
+						uiDelegate);
+			if (sources == null)
+			{
+				Logging.errorPrint("Unable to read sources for "
+					+ file.getAbsolutePath());
+				failed++;
+				continue;
+			}
+			String key =
+					sources.getGameMode().getReference() + " "
+						+ sources.getCampaigns();
+			List<File> group = filesByKey.get(key);
+			if (group == null)
+			{
+				group = new ArrayList<File>();
+				filesByKey.put(key, group);
+				sourcesByKey.put(key, sources);
+			}
+			group.add(file);
+		}
+
+		ExecutorService executor =
+				Executors.newFixedThreadPool(poolSize, new ThreadFactory()
+				{
+					@Override
+					public Thread newThread(Runnable r)
+					{
+						Thread thread = new Thread(r);
+						thread.setDaemon(true);
+						thread.setName("batch-export-thread"); //$NON-NLS-1$
+						return thread;
+					}
+				});
+		try
+		{
+			for (Map.Entry<String, List<File>> me : filesByKey.entrySet())
+			{
+				SourceSelectionFacade sources = sourcesByKey.get(me.getKey());
+				Logging.log(Logging.INFO, "Loading sources "
+					+ sources.getCampaigns() + " using game mode "
+					+ sources.getGameMode() + " for " + me.getValue().size()
+					+ " characters");
+				SourceFileLoader loader =
+						new SourceFileLoader(sources, uiDelegate);
+				loader.execute();
+				failed +=
+						exportGroup(me.getValue(), loader.getDataSetFacade(),
+							outDir, executor, poolSize);
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		long elapsed = System.currentTimeMillis() - startTime;
+		int exported = files.length - failed;
+		Logging.log(Logging.INFO, "Finished export of " + files.length
+			+ " characters in " + elapsed + " ms: " + exported
+			+ " exported, " + failed + " failed ("
+			+ (exported * 60000L / Math.max(1, elapsed))
+			+ " characters per minute)");
+		return failed == 0;
+	}
+
+	/**
+	 * Export the characters which use a single set of sources, once those 
+	 * sources have been loaded. Loading a character registers it with shared 
+	 * lists and listeners, so the characters are loaded in turn on this 
+	 * thread, a few at a time, and each set is then exported concurrently 
+	 * before the characters are closed again.
+	 * 
+	 * @return The number of characters which could not be exported.
+	 */
+	private int exportGroup(List<File> files, DataSetFacade dataset,
+		File outDir, ExecutorService executor, int poolSize)
+	{
+		File templateFile = new File(exportTemplateFilename);
+		int failed = 0;
+		int chunkSize = poolSize * 2;
+		for (int start = 0; start < files.size(); start += chunkSize)
+		{
+			List<File> chunk =
+					files.subList(start,
+						Math.min(start + chunkSize, files.size()));
+			List<CharacterFacade> loaded = new ArrayList<CharacterFacade>();
+			List<Future<Long>> results = new ArrayList<Future<Long>>();
+			List<Long> loadTimes = new ArrayList<Long>();
+			for (File file : chunk)
+			{
+				long loadStart = System.currentTimeMillis();
+				CharacterFacade character = null;
+				try
+				{
+					character =
+							CharacterManager.openCharacter(file, uiDelegate,
+								dataset);
+				}
+				catch (RuntimeException e)
+				{
+					Logging.errorPrint("Unable to load character " + file, e);
+				}
+				loaded.add(character);
+				loadTimes.add(System.currentTimeMillis() - loadStart);
+				if (character == null)
+				{
+					results.add(null);
+				}
+				else
+				{
+					File outFile =
+							new File(outDir, getOutputName(file.getName()));
+					results.add(executor.submit(new ExportTask(character,
+						outFile, templateFile)));
+				}
+			}
+			for (int i = 0; i < chunk.size(); i++)
+			{
+				File file = chunk.get(i);
+				Future<Long> result = results.get(i);
+				Long exportTime = null;
+				if (result != null)
+				{
+					try
+					{
+						exportTime = result.get();
+					}
+					catch (ExecutionException e)
+					{
+						Logging.errorPrint("Unable to export character "
+							+ file, e.getCause());
+					}
+					catch (InterruptedException e)
+					{
+						Logging.errorPrint("Export of character " + file
+							+ " was interrupted", e);
+						Thread.currentThread().interrupt();
+					}
+					CharacterManager.removeCharacter(loaded.get(i));
+				}
+				if (exportTime == null)
+				{
+					failed++;
+					Logging.errorPrint("Failed export of "
+						+ file.getAbsolutePath());
+				}
+				else
+				{
+					Logging.log(Logging.INFO, "Exported "
+						+ file.getAbsolutePath() + " (load "
+						+ loadTimes.get(i) + " ms, export " + exportTime
+						+ " ms)");
+				}
+			}
+		}
+		return failed;
+	}
+
+	/**
+	 * Exports a single loaded character, returning the time taken in 
+	 * milliseconds, or null if the export failed.
+	 */
+	private class ExportTask implements Callable<Long>
+	{
+		private final CharacterFacade character;
+		private final File outFile;
+		private final File templateFile;
+
+		private ExportTask(CharacterFacade character, File outFile,
+			File templateFile)
+		{
+			this.character = character;
+			this.outFile = outFile;
+			this.templateFile = templateFile;
+		}
+
+		@Override
+		public Long call()
+		{
+			long start = System.currentTimeMillis();
+			boolean success;
+			if (isPdf)
+			{
+				success =
+						exportCharacterToPDF(character, outFile, templateFile);
+			}
+			else
+			{
+				success =
+						exportCharacterToNonPDF(character, outFile,
+							templateFile);
+			}
+			return success ? Long.valueOf(System.currentTimeMillis() - start)
+				: null;
+		}
+	}
+
 	/**
 	 * Export a party sheet for the party to the output file using the 
 	 * pre-registered template. If the output file is null then a default file 
@@ -217,27 +492,44 @@ public class BatchExporter
 	 * @param templateFile The file that has the export template definition.  
 	 * @return true if the export was successful, false if it failed in some way.
 	 */
-	public static boolean exportCharacterToPDF(CharacterFacade character,
-		File outFile, File templateFile)
+	public static boolean exportCharacterToPDF(final CharacterFacade character,
+		File outFile, final File templateFile)
 	{
 		String extension =
 				StringUtils.substringAfterLast(templateFile.getName(), ".");
 		FOPHandler handler = FOPHandlerFactory.createFOPHandlerImpl(true);
-		File tempFile = null;
 		try
 		{
+			// The character is exported on another thread and read by FOP as
+			// it is produced, rather than through a temporary file
+			PipedExport export;
 			if ("xslt".equalsIgnoreCase(extension)
 				|| "xsl".equalsIgnoreCase(extension))
 			{
-				tempFile = File.createTempFile("currentPC_", ".xml");
-				printToXMLFile(tempFile, character);
-				handler.setInputFile(tempFile, templateFile);
+				final File xmlTemplate = getXMLTemplate(character);
+				export = new PipedExport()
+				{
+					@Override
+					protected void export(BufferedWriter out)
+						throws ExportException
+					{
+						character.export(new ExportHandler(xmlTemplate), out);
+					}
+				};
+				handler.setInputReader(export.getReader(), templateFile);
 			}
 			else
 			{
-				tempFile = File.createTempFile("currentPC_", ".fo");
-				printToFile(tempFile, templateFile, character);
-				handler.setInputFile(tempFile);
+				export = new PipedExport()
+				{
+					@Override
+					protected void export(BufferedWriter out)
+						throws ExportException
+					{
+						character.export(new ExportHandler(templateFile), out);
+					}
+				};
+				handler.setInputReader(export.getReader());
 			}
 			if (StringUtils.isNotEmpty(handler.getErrorMessage()))
 			{
@@ -247,7 +539,7 @@ public class BatchExporter
 			character.setDefaultOutputSheet(true, templateFile);
 			handler.setMode(FOPHandler.PDF_MODE);
 			handler.setOutputFile(outFile);
-			handler.run();
+			runFOP(handler, export);
 			if (StringUtils.isNotBlank(handler.getErrorMessage()))
 			{
 				Logging.errorPrint("BatchExporter.exportCharacterToPDF failed: " //$NON-NLS-1$
@@ -353,34 +645,56 @@ public class BatchExporter
 	 * @param templateFile The file that has the export template definition.  
 	 * @return true if the export was successful, false if it failed in some way.
 	 */
-	public static boolean exportPartyToPDF(PartyFacade party, File outFile,
-		File templateFile)
+	public static boolean exportPartyToPDF(final PartyFacade party,
+		File outFile, final File templateFile)
 	{
 		// We want the non pdf extension here for the intermediate file.
 		String extension =
 				ExportUtilities.getOutputExtension(templateFile.getName(),
 					false);
 		FOPHandler handler = FOPHandlerFactory.createFOPHandlerImpl(true);
-		File tempFile = null;
 		try
 		{
+			// The party is exported on another thread and read by FOP as
+			// it is produced, rather than through a temporary file
+			PipedExport export;
 			if ("xslt".equalsIgnoreCase(extension)
 				|| "xsl".equalsIgnoreCase(extension))
 			{
-				tempFile = File.createTempFile("currentPC_", ".xml");
-				printToXMLFile(tempFile, party);
-				handler.setInputFile(tempFile, templateFile);
+				export = new PipedExport()
+				{
+					@Override
+					protected void export(BufferedWriter out)
+						throws ExportException
+					{
+						for (CharacterFacade character : party)
+						{
+							File xmlTemplate = getXMLTemplate(character);
+							character.export(new ExportHandler(xmlTemplate),
+								out);
+						}
+					}
+				};
+				handler.setInputReader(export.getReader(), templateFile);
 				//SettingsHandler.setSelectedCharacterPDFOutputSheet(template.getAbsolutePath(), Globals.getPCList().get(pcExports[loop]));
 			}
 			else
 			{
-				tempFile = File.createTempFile("currentPC_", ".fo");
-				printToFile(tempFile, true, templateFile, party);
-				handler.setInputFile(tempFile);
+				SettingsHandler.setSelectedPartyPDFOutputSheet(templateFile
+					.getAbsolutePath());
+				export = new PipedExport()
+				{
+					@Override
+					protected void export(BufferedWriter out)
+					{
+						party.export(new ExportHandler(templateFile), out);
+					}
+				};
+				handler.setInputReader(export.getReader());
 			}
 			handler.setMode(FOPHandler.PDF_MODE);
 			handler.setOutputFile(outFile);
-			handler.run();
+			runFOP(handler, export);
 		}
 		catch (IOException e)
 		{
@@ -471,60 +785,31 @@ public class BatchExporter
 		});
 	}
 
-	private static void printToXMLFile(File outFile, CharacterFacade character)
-		throws IOException, ExportException
-	{
-		final BufferedWriter bw =
-				new BufferedWriter(new OutputStreamWriter(new FileOutputStream(
-					outFile), "UTF-8"));
-		File template = getXMLTemplate(character);
-		character.export(new ExportHandler(template), bw);
-		bw.close();
-	}
-
-	private static void printToXMLFile(File outFile, PartyFacade party)
-		throws IOException, ExportException
+	/**
+	 * Run FOP on the output of an export as the export is produced. Any 
+	 * failure of the export is reported once FOP has finished, unless FOP 
+	 * has already reported an error.
+	 * 
+	 * @param handler The FOPHandler reading the output of the export.
+	 * @param export The export providing the input for FOP.
+	 * @throws ExportException If the export failed.
+	 */
+	private static void runFOP(FOPHandler handler, PipedExport export)
+		throws ExportException
 	{
-		final BufferedWriter bw =
-				new BufferedWriter(new OutputStreamWriter(new FileOutputStream(
-					outFile), "UTF-8"));
-		for (CharacterFacade character : party)
+		export.start();
+		try
 		{
-			File templateFile = getXMLTemplate(character);
-			character.export(new ExportHandler(templateFile), bw);
+			handler.run();
 		}
-		bw.close();
-	}
-
-	private static void printToFile(File outFile, 
-		File templateFile, CharacterFacade character) throws IOException, ExportException
-	{
-		final BufferedWriter bw =
-				new BufferedWriter(new OutputStreamWriter(new FileOutputStream(
-					outFile), "UTF-8"));
-		character.export(new ExportHandler(templateFile), bw);
-		bw.close();
-	}
-
-	private static void printToFile(File outFile, boolean pdf,
-		File templateFile, PartyFacade party) throws IOException
-	{
-		final BufferedWriter bw =
-				new BufferedWriter(new OutputStreamWriter(new FileOutputStream(
-					outFile), "UTF-8"));
-
-		if (pdf)
+		finally
 		{
-			SettingsHandler.setSelectedPartyPDFOutputSheet(templateFile
-				.getAbsolutePath());
+			export.close();
 		}
-		else
+		if (StringUtils.isBlank(handler.getErrorMessage()))
 		{
-			SettingsHandler.setSelectedPartyHTMLOutputSheet(templateFile
-				.getAbsolutePath());
+			export.checkError();
 		}
-		party.export(new ExportHandler(templateFile), bw);
-		bw.close();
 	}
 
 	private static File getXMLTemplate(CharacterFacade character)
@@ -553,13 +838,23 @@ public class BatchExporter
 	private String generateOutputFilename(String characterFilename)
 	{
 		File charFile = new File(characterFilename);
-		String charname = charFile.getName();
+		String outputName = getOutputName(charFile.getName());
+		return new File(charFile.getParent(), outputName).getAbsolutePath();
+	}
+
+	/**
+	 * Create the name of the default output file for a character file, based 
+	 * on the export template type.
+	 * 
+	 * @param charname The name of the character PCG file.
+	 * @return The name of the output file.
+	 */
+	private String getOutputName(String charname)
+	{
 		String extension =
 				ExportUtilities.getOutputExtension(exportTemplateFilename,
 					isPdf);
-		String outputName =
-				charname.substring(0, charname.lastIndexOf('.')) + "."
-					+ extension;
-		return new File(charFile.getParent(), outputName).getAbsolutePath();
+		return charname.substring(0, charname.lastIndexOf('.')) + "."
+			+ extension;
 	}
 }
@@ -85,6 +85,7 @@ public final class Main
 	private static String partyFile = null;
 	private static String characterFile = null;
 	private static String outputFile = null;
+	private static int exportThreads = Runtime.getRuntime().availableProcessors();
 
 	public static boolean shouldStartInGMGen()
 	{
@@ -281,6 +282,29 @@ public final class Main
 				}
 				outputFile  = args[index];
 			}
+			else if (arg.equals("-t"))
+			{
+				// Specify the number of characters to be exported at once
+				index++;
+				if (index == args.length)
+				{
+					Logging.errorPrint("-t is missing argument");
+					System.exit(1);
+				}
+				try
+				{
+					exportThreads = Integer.parseInt(args[index]);
+				}
+				catch (NumberFormatException e)
+				{
+					exportThreads = 0;
+				}
+				if (exportThreads < 1)
+				{
+					Logging.errorPrint("Invalid number of export threads: " + args[index]);
+					System.exit(1);
+				}
+			}
 			else if (arg.equals("-J"))
 			{
 				// Ignore Java version checks
@@ -335,7 +359,8 @@ public final class Main
 		if (characterFile != null)
 		{
 			File file = new File(characterFile);
-			if (!PCGFile.isPCGenCharacterFile(file))
+			// A folder of characters may be exported
+			if (!PCGFile.isPCGenCharacterFile(file) && !(doExport && file.isDirectory()))
 			{
 				Logging.errorPrint("Invalid character file specified: " + file.getAbsolutePath());
 				System.exit(1);
@@ -558,7 +583,15 @@ public final class Main
 
 		if (characterFile != null)
 		{
-			result = exporter.exportCharacter(characterFile, outputFile);
+			File file = new File(characterFile);
+			if (file.isDirectory())
+			{
+				result = exporter.exportCharacters(file, outputFile, exportThreads);
+			}
+			else
+			{
+				result = exporter.exportCharacter(characterFile, outputFile);
+			}
 		}
 		
 		return result;
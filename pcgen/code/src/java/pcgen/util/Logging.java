@@ -30,10 +30,15 @@ import java.io.PrintStream;
 import java.net.URI;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
@@ -53,6 +58,14 @@ import pcgen.core.SettingsHandler;
 public class Logging
 {
 	private static boolean debugMode = false;
+
+	/**
+	 * Should parse messages record the stack at the point they were raised,
+	 * even when not debugging. Set by the pcgen.parse.stacktrace system
+	 * property.
+	 */
+	private static volatile boolean captureParseStacks =
+			Boolean.getBoolean("pcgen.parse.stacktrace"); //$NON-NLS-1$
 	private static final Toolkit s_TOOLKIT = Toolkit.getDefaultToolkit();
 
 	/** Log level for error output. */
@@ -688,11 +701,172 @@ public class Logging
 		Logger.getLogger("plugin").setLevel(level);
 	}
 
+	/**
+	 * Identify if parse messages should record the stack at the point they
+	 * were raised. Capturing the stack is expensive, and data sets with many
+	 * deprecated or invalid tokens raise a great many messages, so the stack
+	 * is only captured when debugging or when requested.
+	 * 
+	 * @return true if the stack should be captured for each parse message.
+	 */
+	public static boolean isCaptureParseStacks()
+	{
+		return debugMode || captureParseStacks;
+	}
+
+	/**
+	 * Set whether parse messages should record the stack at the point they
+	 * were raised, even when not debugging.
+	 * 
+	 * @param capture true to capture the stack for each parse message.
+	 */
+	public static void setCaptureParseStacks(boolean capture)
+	{
+		captureParseStacks = capture;
+	}
+
+	/**
+	 * Return the stack of the current thread, for a parse message being
+	 * raised, if parse message stacks are being captured.
+	 * 
+	 * @return The current stack, or null if stacks are not being captured.
+	 */
+	public static StackTraceElement[] getParseStack()
+	{
+		return isCaptureParseStacks() ? Thread.currentThread().getStackTrace()
+			: null;
+	}
+
+	/** The token being parsed by each thread, for counting parse messages. */
+	private static final ThreadLocal<String> parseToken =
+			new ThreadLocal<String>();
+
+	/** The number of parse messages raised, by level and then token. */
+	private static final ConcurrentMap<Level, ConcurrentMap<String, AtomicInteger>> parseMessageCounts =
+			new ConcurrentHashMap<Level, ConcurrentMap<String, AtomicInteger>>();
+
+	/** The token used to count parse messages raised outside any token. */
+	private static final String NO_TOKEN = "(none)"; //$NON-NLS-1$
+
+	/**
+	 * Set the token being parsed by the current thread, so that any parse
+	 * messages raised are counted against it.
+	 * 
+	 * @param token The name of the token, or null if no token is being parsed.
+	 * @return The token previously being parsed, to be restored once this
+	 *         token has been parsed.
+	 */
+	public static String setParseToken(String token)
+	{
+		String previous = parseToken.get();
+		parseToken.set(token);
+		return previous;
+	}
+
+	private static void countParseMessage(Level lvl)
+	{
+		String token = parseToken.get();
+		if (token == null)
+		{
+			token = NO_TOKEN;
+		}
+		ConcurrentMap<String, AtomicInteger> levelCounts =
+				parseMessageCounts.get(lvl);
+		if (levelCounts == null)
+		{
+			levelCounts = new ConcurrentHashMap<String, AtomicInteger>();
+			ConcurrentMap<String, AtomicInteger> existing =
+					parseMessageCounts.putIfAbsent(lvl, levelCounts);
+			if (existing != null)
+			{
+				levelCounts = existing;
+			}
+		}
+		AtomicInteger count = levelCounts.get(token);
+		if (count == null)
+		{
+			count = new AtomicInteger();
+			AtomicInteger existing = levelCounts.putIfAbsent(token, count);
+			if (existing != null)
+			{
+				count = existing;
+			}
+		}
+		count.incrementAndGet();
+	}
+
+	/**
+	 * Return the number of parse messages raised since the counts were last
+	 * reset, by level and then by the token being parsed when each message
+	 * was raised.
+	 * 
+	 * @return A copy of the counts, sorted by token within each level.
+	 */
+	public static Map<Level, Map<String, Integer>> getParseMessageCounts()
+	{
+		Map<Level, Map<String, Integer>> result =
+				new TreeMap<Level, Map<String, Integer>>(
+					new Comparator<Level>()
+					{
+						@Override
+						public int compare(Level o1, Level o2)
+						{
+							return o2.intValue() - o1.intValue();
+						}
+					});
+		for (Map.Entry<Level, ConcurrentMap<String, AtomicInteger>> me : parseMessageCounts
+			.entrySet())
+		{
+			Map<String, Integer> levelCounts = new TreeMap<String, Integer>();
+			for (Map.Entry<String, AtomicInteger> ce : me.getValue().entrySet())
+			{
+				levelCounts.put(ce.getKey(), ce.getValue().get());
+			}
+			result.put(me.getKey(), levelCounts);
+		}
+		return result;
+	}
+
+	/**
+	 * Reset the counts of parse messages, such as before a data load.
+	 */
+	public static void resetParseMessageCounts()
+	{
+		parseMessageCounts.clear();
+	}
+
+	/**
+	 * Log the number of parse messages raised since the counts were last
+	 * reset, by level and token, at debug level.
+	 */
+	public static void logParseMessageCounts()
+	{
+		if (!isLoggable(DEBUG))
+		{
+			return;
+		}
+		for (Map.Entry<Level, Map<String, Integer>> me : getParseMessageCounts()
+			.entrySet())
+		{
+			int total = 0;
+			StringBuilder sb = new StringBuilder();
+			for (Map.Entry<String, Integer> ce : me.getValue().entrySet())
+			{
+				total += ce.getValue();
+				sb.append(' ').append(ce.getKey()).append('=')
+					.append(ce.getValue());
+			}
+			debugPrint("Parse messages at " + me.getKey() + ": " + total
+				+ " [" + sb.toString().trim() + "]");
+		}
+	}
+
 	private static LinkedList<QueuedMessage> queuedMessages =
 			new LinkedList<QueuedMessage>();
 
 	public static void addParseMessage(Level lvl, String msg)
 	{
+		countParseMessage(lvl);
 		queuedMessages.add(new QueuedMessage(lvl, msg));
 	}
 
@@ -703,6 +877,7 @@ public class Logging
 	public static void addParseMessage(Level lvl, String msg,
 		StackTraceElement[] stack)
 	{
+		countParseMessage(lvl);
 		queuedMessages.add(new QueuedMessage(lvl, msg, stack));
 	}
 
@@ -746,13 +921,14 @@ public class Logging
 	{
 		public final Level level;
 		public final String message;
+		/** The stack where the message was raised, or null if not captured. */
 		public final StackTraceElement[] stackTrace;
 
 		public QueuedMessage(Level lvl, String msg)
 		{
 			level = lvl;
 			message = msg;
-			stackTrace = Thread.currentThread().getStackTrace();
+			stackTrace = getParseStack();
 		}
 
 		/*
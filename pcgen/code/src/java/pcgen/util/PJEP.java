@@ -23,8 +23,11 @@
 package pcgen.util;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.nfunk.jep.ASTFunNode;
 import org.nfunk.jep.JEP;
@@ -56,10 +59,37 @@ public final class PJEP extends JEP
 {
 	private Object parent;
 	private String variableSource;
+
+	/**
+	 * True while this parser is acquired from the PjepPool, so that a release
+	 * of a parser which was not acquired can be detected without searching.
+	 */
+	private volatile boolean acquired;
 	private static List<Class<PCGenCommand>> commandList =
 			new ArrayList<Class<PCGenCommand>>();
 	private List<PCGenCommand> localCommandList = new ArrayList<PCGenCommand>();
 
+	/** The maximum number of parsed formulas each parser will retain. */
+	private static final int FORMULA_CACHE_SIZE = 4096;
+	private static final AtomicLong formulaCacheHits = new AtomicLong();
+	private static final AtomicLong formulaCacheMisses = new AtomicLong();
+
+	/**
+	 * The formulas already parsed by this parser, keyed by formula text. As
+	 * parsers are pooled per thread and shared by all characters, the entries
+	 * are reused across characters.
+	 */
+	private final Map<String, ParsedFormula> formulaCache =
+			new LinkedHashMap<String, ParsedFormula>(256, 0.75f, true)
+			{
+				@Override
+				protected boolean removeEldestEntry(
+					Map.Entry<String, ParsedFormula> eldest)
+				{
+					return size() > FORMULA_CACHE_SIZE;
+				}
+			};
+
 	public static void addCommand(Class<PCGenCommand> clazz)
 	{
 		commandList.add(clazz);
@@ -127,6 +157,93 @@ public final class PJEP extends JEP
 		return super.parseExpression(expression_in);
 	}
 
+	/**
+	 * Retrieve the parsed form of a formula, parsing it only if this parser
+	 * has not seen the formula text before. The returned formula's variables
+	 * must be given values before it is evaluated using
+	 * getValueAsObject(ParsedFormula).
+	 *
+	 * @param formula The text of the formula.
+	 * @return The parsed formula, which will not be valid if the formula is
+	 *         not a JEP expression.
+	 */
+	public ParsedFormula getParsedFormula(String formula)
+	{
+		ParsedFormula parsed = formulaCache.get(formula);
+		if (parsed != null)
+		{
+			formulaCacheHits.incrementAndGet();
+			return parsed;
+		}
+		formulaCacheMisses.incrementAndGet();
+
+		Node node = parseExpression(formula);
+		if (hasError() || node == null)
+		{
+			parsed = ParsedFormula.INVALID;
+		}
+		else
+		{
+			parsed = ParsedFormula.create(this, node);
+		}
+		formulaCache.put(formula, parsed);
+		return parsed;
+	}
+
+	/**
+	 * Evaluate a formula previously parsed by this parser. Any errors are
+	 * recorded in the same way as for getValueAsObject().
+	 *
+	 * @param formula The formula to be evaluated.
+	 * @return The result of the evaluation, or null if it failed.
+	 */
+	public Object getValueAsObject(ParsedFormula formula)
+	{
+		errorList.removeAllElements();
+		if (!formula.isValid())
+		{
+			return null;
+		}
+		try
+		{
+			return evaluate(formula.getTopNode());
+		}
+		catch (Exception e)
+		{
+			errorList.addElement("Error during evaluation: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Identify if the name is one of the constants that are never looked up
+	 * as character variables.
+	 *
+	 * @param name The variable name to be checked.
+	 * @return True if the name is TRUE, FALSE, e or pi.
+	 */
+	public static boolean isConstantName(String name)
+	{
+		return "e".equals(name) || "FALSE".equals(name) || "pi".equals(name)
+			|| "TRUE".equals(name);
+	}
+
+	/**
+	 * @return The number of formula lookups answered from a parser's cache.
+	 */
+	public static long getFormulaCacheHits()
+	{
+		return formulaCacheHits.get();
+	}
+
+	/**
+	 * @return The number of formula lookups which required a parse.
+	 */
+	public static long getFormulaCacheMisses()
+	{
+		return formulaCacheMisses.get();
+	}
+
 	/**
 	 * Identify if the results of the calculation will be cachable.
 	 *
@@ -330,4 +447,21 @@ public final class PJEP extends JEP
 			com.setParent(parent);
 		}
 	}
+
+	/**
+	 * @return true if this parser is currently acquired from the PjepPool.
+	 */
+	boolean isAcquired()
+	{
+		return acquired;
+	}
+
+	/**
+	 * @param acquired true if this parser has been acquired from the
+	 *            PjepPool; false once it is released.
+	 */
+	void setAcquired(boolean acquired)
+	{
+		this.acquired = acquired;
+	}
 }
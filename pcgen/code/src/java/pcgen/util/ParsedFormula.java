@@ -0,0 +1,129 @@
+/*
+ * ParsedFormula.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.nfunk.jep.ASTVarNode;
+import org.nfunk.jep.Node;
+import org.nfunk.jep.Variable;
+
+/**
+ * <code>ParsedFormula</code> holds the result of parsing a JEP formula so
+ * that it can be evaluated again without re-parsing the formula text. It
+ * keeps the node tree, the variables the tree reads and whether the result
+ * of evaluating the tree may be cached.
+ *
+ * A ParsedFormula belongs to the PJEP instance that parsed it, as the
+ * function nodes in the tree refer to that parser's command instances.
+ *
+ * @see PJEP#getParsedFormula(String)
+ */
+public final class ParsedFormula
+{
+	/** The entry used for formulas that are not valid JEP expressions. */
+	static final ParsedFormula INVALID = new ParsedFormula(null, Collections
+		.<Variable> emptyList(), false);
+
+	private final Node topNode;
+	private final List<Variable> variables;
+	private final boolean cachable;
+
+	private ParsedFormula(Node topNode, List<Variable> variables,
+		boolean cachable)
+	{
+		this.topNode = topNode;
+		this.variables = variables;
+		this.cachable = cachable;
+	}
+
+	/**
+	 * Create a ParsedFormula for the tree produced by the supplied parser.
+	 *
+	 * @param parser The parser which parsed the formula.
+	 * @param node The top node of the parsed formula.
+	 * @return The new ParsedFormula.
+	 */
+	static ParsedFormula create(PJEP parser, Node node)
+	{
+		List<Variable> vars = new ArrayList<Variable>();
+		collectVariables(node, vars);
+		return new ParsedFormula(node, Collections.unmodifiableList(vars),
+			parser.isResultCachable(node));
+	}
+
+	private static void collectVariables(Node node, List<Variable> vars)
+	{
+		if (node instanceof ASTVarNode)
+		{
+			Variable var = ((ASTVarNode) node).getVar();
+			if (var != null && !vars.contains(var)
+				&& !PJEP.isConstantName(var.getName()))
+			{
+				vars.add(var);
+			}
+		}
+		for (int i = 0; i < node.jjtGetNumChildren(); i++)
+		{
+			collectVariables(node.jjtGetChild(i), vars);
+		}
+	}
+
+	/**
+	 * Identify if the formula was successfully parsed as a JEP expression.
+	 *
+	 * @return True if the formula is a valid JEP expression.
+	 */
+	public boolean isValid()
+	{
+		return topNode != null;
+	}
+
+	/**
+	 * @return The top node of the parsed formula.
+	 */
+	public Node getTopNode()
+	{
+		return topNode;
+	}
+
+	/**
+	 * Retrieve the variables that must be given a value before the formula
+	 * can be evaluated. The constants TRUE, FALSE, e and pi are not included.
+	 *
+	 * @return The unmodifiable list of variables used by the formula.
+	 */
+	public List<Variable> getVariables()
+	{
+		return variables;
+	}
+
+	/**
+	 * Identify if the results of evaluating the formula will be cachable.
+	 *
+	 * @return True if the result would be cachable, false otherwise.
+	 * @see PJEP#isResultCachable(Node)
+	 */
+	public boolean isResultCachable()
+	{
+		return cachable;
+	}
+}
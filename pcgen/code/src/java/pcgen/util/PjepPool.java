@@ -20,16 +20,42 @@
  */
 package pcgen.util;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Stack;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * <code>PjepPool</code> hands out PJEP parsers for formula evaluation.
+ * <p>
+ * Each thread keeps its own free parsers, so acquiring and releasing a parser
+ * takes no lock and exports running on several threads do not wait on each
+ * other. A parser may be released on a different thread to the one which
+ * acquired it, in which case it joins the free parsers of the releasing
+ * thread. Parsers record whether they are acquired, so a release of a parser
+ * which was not acquired is detected without searching, and the pool counts
+ * the parsers currently acquired so that leaks can be seen in the statistics.
+ */
 public class PjepPool
 {
-	private Stack<PJEP> freeStack = new Stack<PJEP>();
-	private List<PJEP> usedList = new ArrayList<PJEP>();
+	/** The most free parsers kept by any one thread. */
+	private static final int MAX_FREE_PER_THREAD = 8;
+
 	private static PjepPool instance = new PjepPool();
 
+	private final ThreadLocal<Deque<PJEP>> freeParsers =
+			new ThreadLocal<Deque<PJEP>>()
+			{
+				@Override
+				protected Deque<PJEP> initialValue()
+				{
+					return new ArrayDeque<PJEP>();
+				}
+			};
+
+	private final AtomicInteger createdCount = new AtomicInteger();
+	private final AtomicInteger usedCount = new AtomicInteger();
+	private final AtomicInteger badReleaseCount = new AtomicInteger();
+
 	private PjepPool()
 	{
 		// Do Nothing
@@ -40,57 +66,92 @@ public class PjepPool
 		return instance;
 	}
 
-	public synchronized void initialise()
+	/**
+	 * Creates a parser ready for use by the current thread.
+	 */
+	public void initialise()
 	{
-		freeStack.push(new PJEP());
+		Deque<PJEP> free = freeParsers.get();
+		if (free.isEmpty())
+		{
+			free.push(createParser());
+		}
 	}
 
-	public synchronized PJEP aquire()
+	public PJEP aquire()
 	{
 		return aquire(null, "");
 	}
 
-	public synchronized PJEP aquire(final Object parent, String variableSource)
+	public PJEP aquire(final Object parent, String variableSource)
 	{
-		//System.out.println("aquireJep()");
-		PJEP jep;
-		if (freeStack.size() > 0)
+		PJEP jep = freeParsers.get().poll();
+		if (jep == null)
 		{
-			jep = freeStack.pop();
-		}
-		else
-		{
-			jep = new PJEP();
-			//System.err.println("aquirePJep() - creating new parser");
+			jep = createParser();
 		}
 
-		usedList.add(jep);
+		jep.setAcquired(true);
+		usedCount.incrementAndGet();
 		jep.initSymTab();
 		jep.setVariableSource(variableSource);
 		jep.setParent(parent);
 		return jep;
 	}
 
-	public synchronized void release(PJEP interp)
+	public void release(PJEP interp)
 	{
-		//System.out.println("releaseJep( " + interp + " )");
-		if (usedList.contains(interp))
+		if (interp.isAcquired())
 		{
-			usedList.remove(interp);
+			interp.setAcquired(false);
+			usedCount.decrementAndGet();
 		}
 		else
 		{
-			System.err
-				.println("Tried to release a PJEP instance that we did not aquire...");
+			badReleaseCount.incrementAndGet();
+			Logging.errorPrint("Tried to release a PJEP instance that we did not aquire...");
+			return;
 		}
 		interp.setParent(null);
-		freeStack.push(interp);
+		Deque<PJEP> free = freeParsers.get();
+		if (free.size() < MAX_FREE_PER_THREAD)
+		{
+			free.push(interp);
+		}
+	}
+
+	private PJEP createParser()
+	{
+		createdCount.incrementAndGet();
+		return new PJEP();
+	}
+
+	/**
+	 * @return The number of parsers currently acquired and not yet released,
+	 *         on any thread.
+	 */
+	public int getUsedCount()
+	{
+		return usedCount.get();
+	}
+
+	/**
+	 * @return The number of times a parser was released which had not been
+	 *         acquired.
+	 */
+	public int getBadReleaseCount()
+	{
+		return badReleaseCount.get();
 	}
 
-	public synchronized void dumpStats()
+	public void dumpStats()
 	{
 		System.out.println("PJEP Pool: ");
-		System.out.println("    Currently Unused: " + freeStack.size());
-		System.out.println("    Currently Used  : " + usedList.size());
+		System.out.println("    Created         : " + createdCount.get());
+		System.out.println("    Unused (thread) : " + freeParsers.get().size());
+		System.out.println("    Currently Used  : " + usedCount.get());
+		System.out.println("    Bad Releases    : " + badReleaseCount.get());
+		System.out.println("    Formula Hits    : " + PJEP.getFormulaCacheHits());
+		System.out.println("    Formula Misses  : " + PJEP.getFormulaCacheMisses());
 	}
 }
@@ -35,6 +35,7 @@ public final class ChooserFactory
 {
 	private static UIDelegate delegate;
 	private final static Stack<String> interfaceClassNameStack = new Stack<String>();
+	private final static ThreadLocal<String> threadClassName = new ThreadLocal<String>();
 
 	/**
 	 * Deliberately private so it can't be instantiated.
@@ -50,15 +51,22 @@ public final class ChooserFactory
 	 * display an interactive dialog. If multiple handlers are currently 
 	 * registered the most recently registered (LIFO) will be returned.
 	 * 
+	 * A handler registered for the current thread takes precedence over any
+	 * other handler.
+	 * 
 	 * @return The most recently registered ChoiceHandler, if any.
 	 */
 	public static ChoiceHandler getChoiceHandler()
 	{
-		if (interfaceClassNameStack.isEmpty())
+		String className = threadClassName.get();
+		if (className == null)
 		{
-			return null;
+			if (interfaceClassNameStack.isEmpty())
+			{
+				return null;
+			}
+			className = interfaceClassNameStack.peek();
 		}
-		String className = interfaceClassNameStack.peek();
 		try
 		{
 			Class<?> c = Class.forName(className);
@@ -106,6 +114,27 @@ public final class ChooserFactory
 		return ChooserFactory.interfaceClassNameStack.pop();
 	}
 
+	/**
+	 * Set the chooser class name to be used by the current thread, in place
+	 * of the stack of class names shared by all threads. This allows
+	 * characters to be processed by a background thread without affecting
+	 * the choices made on other threads.
+	 * 
+	 * @param chooserClassname The chooser class name for the current thread, 
+	 * or null to return to the shared stack of class names.
+	 */
+	public static void setThreadChooserClassname(String chooserClassname)
+	{
+		if (chooserClassname == null)
+		{
+			threadClassName.remove();
+		}
+		else
+		{
+			threadClassName.set(chooserClassname);
+		}
+	}
+
 	/**
 	 * @return the delegate
 	 */
@@ -27,6 +27,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.Reader;
 import java.util.Date;
 
 import javax.xml.transform.ErrorListener;
@@ -204,6 +205,89 @@ public class FOP11HandlerImpl implements FOPHandler
 		}
 	}
 
+	/**
+	 * Set the FO input to be read from a reader
+	 * 
+	 * @param in
+	 */
+	@Override
+	public void setInputReader(Reader in)
+	{
+		try
+		{
+			if (in == null)
+			{
+				throw new NullPointerException(
+					"Input must be specified for the tranform mode");
+			}
+
+            transformer = factory.newTransformer(); // identity transformer		
+
+			Logging.debugPrint("FOP input set to a reader");
+            src = new StreamSource(in);
+		}
+		catch (NullPointerException e)
+		{
+			errBuffer.append(e.getMessage()).append(Constants.LINE_SEPARATOR);
+			Logging.errorPrint("Exception in FOPHandler:setInputReader", e);
+		}
+		catch (TransformerConfigurationException e)
+		{
+			errBuffer.append(e.getMessage()).append(Constants.LINE_SEPARATOR);
+			Logging.errorPrint("Exception in FOPHandler:setInputReader", e);
+		}
+	}
+
+	/**
+	 * Set the XML input to be read from a reader and transformed by the XSLT file
+	 * 
+	 * @param xmlReader
+	 * @param xsltFile
+	 */
+	@Override
+	public void setInputReader(Reader xmlReader, File xsltFile)
+	{
+		try
+		{
+			if (xmlReader == null)
+			{
+				throw new NullPointerException(
+					"XML input must be specified for the tranform mode");
+			}
+
+			if (xsltFile == null)
+			{
+				throw new NullPointerException(
+					"XSLT file must be specified for the tranform mode");
+			}
+
+			if (!xsltFile.exists())
+			{
+				throw new FileNotFoundException("xsl file "
+					+ xsltFile.getAbsolutePath() + " not found ");
+			}
+
+			Logging.debugPrint("FOP input set to a reader");
+            src = new StreamSource(xmlReader);
+            transformer = factory.newTransformer(new StreamSource(xsltFile));
+		}
+		catch (FileNotFoundException e)
+		{
+			errBuffer.append(e.getMessage()).append(Constants.LINE_SEPARATOR);
+			Logging.errorPrint("Exception in FOPHandler:setInputReader", e);
+		}
+		catch (NullPointerException e)
+		{
+			errBuffer.append(e.getMessage()).append(Constants.LINE_SEPARATOR);
+			Logging.errorPrint("Exception in FOPHandler:setInputReader", e);
+		}
+		catch (TransformerConfigurationException e)
+		{
+			errBuffer.append(e.getMessage()).append(Constants.LINE_SEPARATOR);
+			Logging.errorPrint("Exception in FOPHandler:setInputReader", e);
+		}
+	}
+
 	/**
 	 * Set the mode
 	 * @param m
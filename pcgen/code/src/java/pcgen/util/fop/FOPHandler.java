@@ -22,6 +22,7 @@ package pcgen.util.fop;
 
 import java.awt.print.Pageable;
 import java.io.File;
+import java.io.Reader;
 
 /*
 General plan (with - at least - a commit after each stage.) If I fail to complete all tasks below the FOP code will at least not be in a worse state than now.
@@ -47,6 +48,23 @@ public interface FOPHandler extends Runnable {
 
 	void setInputFile(File xmlFile, File xsltFile);
 
+	/**
+	 * Set the FO input to be read from a reader, such as the reader of a
+	 * PipedExport, rather than a file.
+	 * 
+	 * @param in The reader providing the FO input
+	 */
+	void setInputReader(Reader in);
+
+	/**
+	 * Set the XML input to be read from a reader, such as the reader of a
+	 * PipedExport, and transformed using the XSLT file.
+	 * 
+	 * @param xmlReader The reader providing the XML input
+	 * @param xsltFile The XSLT file to transform the input with
+	 */
+	void setInputReader(Reader xmlReader, File xsltFile);
+
 	void setMode(int m);
 
 	void setOutputFile(File out);
@@ -48,6 +48,7 @@ import pcgen.core.analysis.SkillRankControl;
 import pcgen.core.display.SkillCostDisplay;
 import pcgen.core.display.SkillDisplay;
 import pcgen.io.ExportHandler;
+import pcgen.io.exporttoken.CharacterTokenCache;
 import pcgen.io.exporttoken.SkillToken;
 import pcgen.io.exporttoken.SkillToken.SkillDetails;
 import pcgen.io.exporttoken.Token;
@@ -59,9 +60,8 @@ public class SkillSitToken extends Token
 	public static final String TOKENNAME = "SKILLSIT";
 
 	// Cache the skill list as it is expensive to build
-	private List<Skill> cachedSkillList = null;
-	private PlayerCharacter lastPC = null;
-	private int lastPCSerial;
+	private final CharacterTokenCache<List<Skill>> skillListCache =
+			new CharacterTokenCache<List<Skill>>();
 	
 	/**
 	 * @see pcgen.io.exporttoken.Token#getTokenName()
@@ -185,19 +185,18 @@ public class SkillSitToken extends Token
 		return skill;
 	}
 
-	private synchronized List<Skill> getSkillList(PlayerCharacter pc)
+	private List<Skill> getSkillList(PlayerCharacter pc)
 	{
-		if (pc == lastPC && pc.getSerial() == lastPCSerial)
+		List<Skill> pcSkills = skillListCache.get(pc, TOKENNAME);
+		if (pcSkills != null)
 		{
-			return cachedSkillList;
+			return pcSkills;
 		}
 		
-		final List<Skill> pcSkills =
+		pcSkills =
 				SkillDisplay.getSkillListInOutputOrder(pc, pc.getDisplay()
 					.getPartialSkillList(View.VISIBLE_EXPORT));
-		cachedSkillList = pcSkills;
-		lastPC = pc;
-		lastPCSerial = pc.getSerial();
+		skillListCache.put(pc, TOKENNAME, pcSkills);
 		return pcSkills;
 	}
 
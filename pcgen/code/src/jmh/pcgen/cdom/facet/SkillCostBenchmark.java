@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA
+ */
+package pcgen.cdom.facet;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import pcgen.cdom.enumeration.CharID;
+import pcgen.cdom.enumeration.DataSetID;
+import pcgen.cdom.enumeration.ObjectKey;
+import pcgen.cdom.enumeration.SkillCost;
+import pcgen.core.PCClass;
+import pcgen.core.Skill;
+
+/**
+ * SkillCostBenchmark measures the cost of finding the SkillCost of every
+ * Skill for every PCClass of a character, as the Skills tab and the SKILL
+ * output tokens do, through the SkillCostMatrix and through the sources held
+ * in SkillCostFacet (the lookup used before the matrix was added).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SkillCostBenchmark
+{
+	@Param({"100"})
+	public int skillCount;
+
+	@Param({"3", "10"})
+	public int classCount;
+
+	private SkillCostFacet facet;
+
+	private CharID id;
+
+	private Skill[] skills;
+
+	private PCClass[] classes;
+
+	@Setup
+	public void setUp()
+	{
+		facet = new SkillCostFacet();
+		id = CharID.getID(DataSetID.getID());
+		Object source = new Object();
+		skills = new Skill[skillCount];
+		for (int i = 0; i < skillCount; i++)
+		{
+			skills[i] = new Skill();
+			skills[i].setName("Skill" + i);
+			if (i % 10 == 0)
+			{
+				skills[i].put(ObjectKey.EXCLUSIVE, Boolean.TRUE);
+			}
+		}
+		classes = new PCClass[classCount];
+		for (int i = 0; i < classCount; i++)
+		{
+			classes[i] = new PCClass();
+			classes[i].setName("Class" + i);
+		}
+		for (int i = 0; i < skillCount; i++)
+		{
+			for (int j = 0; j < classCount; j++)
+			{
+				if ((i + j) % 4 == 0)
+				{
+					facet.add(id, skills[i], SkillCost.CLASS, classes[j],
+						source);
+				}
+				else if ((i + j) % 4 == 1)
+				{
+					facet.add(id, skills[i], SkillCost.CROSS_CLASS,
+						classes[j], source);
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public void matrix(Blackhole bh)
+	{
+		for (Skill sk : skills)
+		{
+			for (PCClass cl : classes)
+			{
+				bh.consume(facet.skillCostForPCClass(id, sk, cl));
+			}
+		}
+	}
+
+	@Benchmark
+	public void sources(Blackhole bh)
+	{
+		for (Skill sk : skills)
+		{
+			for (PCClass cl : classes)
+			{
+				bh.consume(costFromSources(sk, cl));
+			}
+		}
+	}
+
+	private SkillCost costFromSources(Skill sk, PCClass cl)
+	{
+		if (facet.contains(id, sk, SkillCost.CLASS, cl))
+		{
+			return SkillCost.CLASS;
+		}
+		else if (sk.getSafe(ObjectKey.EXCLUSIVE)
+			&& !facet.contains(id, sk, SkillCost.CROSS_CLASS, cl))
+		{
+			return SkillCost.EXCLUSIVE;
+		}
+		return SkillCost.CROSS_CLASS;
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA
+ */
+package pcgen.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pcgen.system.LoadedCharacter;
+
+/**
+ * CalcActiveBonusesBenchmark measures recalculating the active bonuses of
+ * each bundled character, both with the character unchanged since the last
+ * calculation and after it has been marked as changed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CalcActiveBonusesBenchmark
+{
+	@Benchmark
+	public void unchanged(LoadedCharacter loaded)
+	{
+		loaded.getCharacter().calcActiveBonuses();
+	}
+
+	@Benchmark
+	public void changed(LoadedCharacter loaded)
+	{
+		PlayerCharacter pc = loaded.getCharacter();
+		pc.setDirty(true);
+		pc.calcActiveBonuses();
+	}
+}
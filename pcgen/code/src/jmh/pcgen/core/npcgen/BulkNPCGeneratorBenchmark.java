@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA
+ */
+package pcgen.core.npcgen;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import pcgen.cdom.content.RollMethod;
+import pcgen.core.Campaign;
+import pcgen.core.PlayerCharacter;
+import pcgen.facade.core.DataSetFacade;
+import pcgen.facade.util.ListFacades;
+import pcgen.system.BenchmarkEnvironment;
+
+/**
+ * BulkNPCGeneratorBenchmark measures generating a batch of NPCs with the data
+ * used by one of the bundled characters, on one thread and on several.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BulkNPCGeneratorBenchmark
+{
+	@Param({"CodeMonkey.pcg"})
+	public String character;
+
+	@Param({"1", "4"})
+	public int threads;
+
+	@Param({"20"})
+	public int count;
+
+	private BulkNPCGenerator generator;
+
+	@SuppressWarnings("unchecked")
+	@Setup
+	public void setUp()
+	{
+		File file = BenchmarkEnvironment.getCharacterFile(character);
+		DataSetFacade dataset = BenchmarkEnvironment.getDataSet(file);
+		@SuppressWarnings("rawtypes")
+		Collection campaigns = ListFacades.wrap(dataset.getCampaigns());
+
+		AlignGeneratorOption align = new AlignGeneratorOption();
+		align.addChoice(1, "*");
+		RaceGeneratorOption race = new RaceGeneratorOption();
+		race.addChoice(1, "*");
+		GenderGeneratorOption gender = new GenderGeneratorOption();
+		gender.addChoice(1, "*");
+		ClassGeneratorOption classOption = new ClassGeneratorOption();
+		classOption.addChoice(1, "TYPE=Base");
+		LevelGeneratorOption levelOption = new LevelGeneratorOption();
+		levelOption.addChoice(1, "1,4");
+		RollMethod rollMethod = new RollMethod();
+		rollMethod.setName("Standard");
+		rollMethod.setMethodRoll("4d6");
+
+		generator =
+				new BulkNPCGenerator((Collection<Campaign>) campaigns, align,
+					race, gender, Collections.singletonList(classOption),
+					Collections.singletonList(levelOption), rollMethod);
+		generator.setSeed(1L);
+		generator.setThreads(threads);
+	}
+
+	@Benchmark
+	public int generate(final Blackhole bh) throws InterruptedException
+	{
+		return generator.generate(count, new BulkNPCGenerator.NPCReceiver()
+		{
+			@Override
+			public void npcGenerated(int index, PlayerCharacter npc)
+			{
+				bh.consume(npc);
+			}
+		});
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA
+ */
+package pcgen.persistence;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pcgen.facade.core.DataSetFacade;
+import pcgen.facade.core.SourceSelectionFacade;
+import pcgen.system.BenchmarkEnvironment;
+
+/**
+ * SourceLoadBenchmark measures loading the data used by a bundled character
+ * through SourceFileLoader. Each load is timed on its own, as a load is long
+ * enough to be measured singly and replaces the data loaded before it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SourceLoadBenchmark
+{
+	/** A character whose sources are to be loaded. */
+	@Param({"CodeMonkey.pcg"})
+	public String character;
+
+	private SourceSelectionFacade sources;
+
+	@Setup
+	public void setUp()
+	{
+		sources =
+				BenchmarkEnvironment.getSources(BenchmarkEnvironment
+					.getCharacterFile(character));
+	}
+
+	@Benchmark
+	public DataSetFacade loadSources()
+	{
+		return BenchmarkEnvironment.loadSources(sources);
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA
+ */
+package pcgen.rules.persistence;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import pcgen.base.util.DoubleKeyMapToList;
+import pcgen.core.Ability;
+import pcgen.core.Equipment;
+import pcgen.core.PCClass;
+import pcgen.core.spell.Spell;
+import pcgen.rules.persistence.TokenLibrary.TokenIterator;
+import pcgen.rules.persistence.token.CDOMToken;
+import pcgen.system.BenchmarkEnvironment;
+
+/**
+ * TokenDispatchBenchmark measures the cost of finding the tokens for each
+ * token on a data line, for the tokens common on ability, equipment, spell
+ * and class lines, through the per class dispatch tables and through a cache
+ * filled lazily from TokenIterator (the lookup used before the tables were
+ * added). Names with no token, which the lazy cache could not remember, are
+ * included as they appear for misspelt and .MOD only tokens.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TokenDispatchBenchmark
+{
+	private static final Class<?>[] CLASSES = {Ability.class,
+		Equipment.class, Spell.class, PCClass.class};
+
+	private static final String[][] LINES = {
+		{"KEY", "CATEGORY", "TYPE", "DESC", "BONUS", "PREMULT", "SOURCEPAGE",
+			"MULT", "NOTATOKEN"},
+		{"COST", "WT", "TYPE", "PROFICIENCY", "BONUS", "SOURCEPAGE",
+			"NOTATOKEN"},
+		{"SCHOOL", "CLASSES", "RANGE", "TYPE", "DESC", "SOURCEPAGE",
+			"NOTATOKEN"},
+		{"HD", "TYPE", "BONUS", "SKILLLIST", "PREMULT", "SOURCEPAGE",
+			"NOTATOKEN"}};
+
+	private TokenSupport support;
+
+	private DoubleKeyMapToList<Class<?>, String, CDOMToken<?>> tokenCache;
+
+	@Setup
+	public void setUp()
+	{
+		BenchmarkEnvironment.initialise();
+		support = new TokenSupport();
+		tokenCache = new DoubleKeyMapToList<Class<?>, String, CDOMToken<?>>();
+	}
+
+	@Benchmark
+	public void dispatchTable(Blackhole bh)
+	{
+		for (int i = 0; i < CLASSES.length; i++)
+		{
+			Class cl = CLASSES[i];
+			for (String name : LINES[i])
+			{
+				bh.consume(support.getTokens(cl, name));
+			}
+		}
+	}
+
+	@Benchmark
+	public void lazyCache(Blackhole bh)
+	{
+		for (int i = 0; i < CLASSES.length; i++)
+		{
+			Class<?> cl = CLASSES[i];
+			for (String name : LINES[i])
+			{
+				bh.consume(getCachedTokens(cl, name));
+			}
+		}
+	}
+
+	private List<CDOMToken<?>> getCachedTokens(Class cl, String name)
+	{
+		List<CDOMToken<?>> list = tokenCache.getListFor(cl, name);
+		if (list == null)
+		{
+			for (Iterator<? extends CDOMToken<?>> it =
+					new TokenIterator(cl, name); it.hasNext();)
+			{
+				tokenCache.addToListFor(cl, name, it.next());
+			}
+			list = tokenCache.getListFor(cl, name);
+		}
+		return list;
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA
+ */
+package pcgen.system;
+
+import java.io.File;
+import java.util.List;
+
+import org.apache.commons.lang.SystemUtils;
+
+import pcgen.core.PlayerCharacter;
+import pcgen.facade.core.DataSetFacade;
+import pcgen.facade.core.SourceSelectionFacade;
+import pcgen.facade.core.UIDelegate;
+import pcgen.facade.util.ListFacades;
+import pcgen.io.PCGIOHandler;
+import pcgen.persistence.CampaignFileLoader;
+import pcgen.persistence.GameModeFileLoader;
+import pcgen.persistence.SourceFileLoader;
+
+/**
+ * BenchmarkEnvironment starts PCGen without a user interface for the
+ * benchmarks, in the same way as a batch export, and provides the loading of
+ * the sources and characters which the benchmarks share.
+ *
+ * The benchmarks are run from the pcgen folder, so the characters folder and
+ * the data and settings of the local installation are used.
+ */
+public final class BenchmarkEnvironment
+{
+	/** The folder holding the characters the benchmarks use. */
+	public static final String CHARACTER_FOLDER = "characters";
+
+	private static final UIDelegate DELEGATE = new ConsoleUIDelegate();
+
+	private static boolean initialised = false;
+
+	private static String loadedSources;
+
+	private static DataSetFacade loadedData;
+
+	private BenchmarkEnvironment()
+	{
+		// Utility class
+	}
+
+	/**
+	 * Loads the settings, plugins, game modes and campaign list, if not
+	 * already loaded.
+	 */
+	public static synchronized void initialise()
+	{
+		if (initialised)
+		{
+			return;
+		}
+		PropertyContextFactory configFactory =
+				new PropertyContextFactory(SystemUtils.USER_DIR);
+		configFactory.registerAndLoadPropertyContext(ConfigurationSettings
+			.getInstance());
+		Main.loadProperties(false);
+		Main.createLoadPluginTask().execute();
+		new GameModeFileLoader().execute();
+		new CampaignFileLoader().execute();
+		initialised = true;
+	}
+
+	/**
+	 * @param name The name of a character file, without the folder.
+	 * @return The character file in the characters folder.
+	 */
+	public static File getCharacterFile(String name)
+	{
+		return new File(CHARACTER_FOLDER, name);
+	}
+
+	/**
+	 * Reads the sources a character was saved with.
+	 *
+	 * @param characterFile The character file.
+	 * @return The game mode and campaigns used by the character.
+	 */
+	public static SourceSelectionFacade getSources(File characterFile)
+	{
+		initialise();
+		SourceSelectionFacade sources =
+				new PCGIOHandler().readSources(characterFile);
+		if (sources == null)
+		{
+			throw new IllegalStateException("Unable to read the sources of "
+				+ characterFile.getAbsolutePath());
+		}
+		return sources;
+	}
+
+	/**
+	 * Loads the data for the given sources, replacing any data loaded before.
+	 *
+	 * @param sources The game mode and campaigns to be loaded.
+	 * @return The loaded data set.
+	 */
+	public static synchronized DataSetFacade loadSources(
+		SourceSelectionFacade sources)
+	{
+		initialise();
+		loadedSources = null;
+		SourceFileLoader loader = new SourceFileLoader(sources, DELEGATE);
+		loader.execute();
+		return loader.getDataSetFacade();
+	}
+
+	/**
+	 * Returns the data for the sources a character was saved with, loading
+	 * it only if different sources were loaded last.
+	 *
+	 * @param characterFile The character file.
+	 * @return The data set the character uses.
+	 */
+	public static synchronized DataSetFacade getDataSet(File characterFile)
+	{
+		SourceSelectionFacade sources = getSources(characterFile);
+		String key =
+				sources.getGameMode().getReference() + " "
+					+ ListFacades.wrap(sources.getCampaigns());
+		if (!key.equals(loadedSources))
+		{
+			loadedData = loadSources(sources);
+			loadedSources = key;
+		}
+		return loadedData;
+	}
+
+	/**
+	 * Reads a character from its file, without registering it as an open
+	 * character. The data for the character must already be loaded.
+	 *
+	 * @param characterFile The character file.
+	 * @param dataset The data the character is to be read with.
+	 * @return The character.
+	 */
+	@SuppressWarnings("unchecked")
+	public static PlayerCharacter readCharacter(File characterFile,
+		DataSetFacade dataset)
+	{
+		@SuppressWarnings("rawtypes")
+		List campaigns = ListFacades.wrap(dataset.getCampaigns());
+		PlayerCharacter pc = new PlayerCharacter(false, campaigns);
+		pc.setFileName(characterFile.getAbsolutePath());
+		PCGIOHandler ioHandler = new PCGIOHandler();
+		ioHandler.read(pc, characterFile.getAbsolutePath());
+		if (!ioHandler.getErrors().isEmpty())
+		{
+			throw new IllegalStateException("Unable to read "
+				+ characterFile.getAbsolutePath() + ": "
+				+ ioHandler.getErrors());
+		}
+		return pc;
+	}
+}
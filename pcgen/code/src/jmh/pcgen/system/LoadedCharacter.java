@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA
+ */
+package pcgen.system;
+
+import java.io.File;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import pcgen.core.PlayerCharacter;
+import pcgen.facade.core.DataSetFacade;
+
+/**
+ * LoadedCharacter is the benchmark state for benchmarks which work on a
+ * character read from the characters folder, along with the data it uses.
+ */
+@State(Scope.Benchmark)
+public class LoadedCharacter
+{
+	@Param({"CodeMonkey.pcg", "Everything.pcg", "Sorcerer.pcg",
+		"SpecialWizard.pcg"})
+	public String character;
+
+	private File file;
+
+	private DataSetFacade dataset;
+
+	private PlayerCharacter pc;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		file = BenchmarkEnvironment.getCharacterFile(character);
+		dataset = BenchmarkEnvironment.getDataSet(file);
+		pc = BenchmarkEnvironment.readCharacter(file, dataset);
+	}
+
+	/**
+	 * @return The character file.
+	 */
+	public File getFile()
+	{
+		return file;
+	}
+
+	/**
+	 * @return The data the character uses.
+	 */
+	public DataSetFacade getDataSet()
+	{
+		return dataset;
+	}
+
+	/**
+	 * @return The character, read once for the trial.
+	 */
+	public PlayerCharacter getCharacter()
+	{
+		return pc;
+	}
+}
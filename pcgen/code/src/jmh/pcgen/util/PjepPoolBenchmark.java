@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA
+ */
+package pcgen.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Stack;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PjepPoolBenchmark measures acquiring a parser, evaluating a formula and
+ * releasing the parser on 1, 4 and 16 threads, through the per-thread
+ * PjepPool and through a copy of the single synchronized pool it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PjepPoolBenchmark
+{
+	private static final String FORMULA = "max(3+4*2,floor(17/2))";
+
+	private final SynchronizedPool synchronizedPool = new SynchronizedPool();
+
+	@Benchmark
+	@Threads(1)
+	public double threadPool1()
+	{
+		return evaluate(PjepPool.getInstance());
+	}
+
+	@Benchmark
+	@Threads(4)
+	public double threadPool4()
+	{
+		return evaluate(PjepPool.getInstance());
+	}
+
+	@Benchmark
+	@Threads(16)
+	public double threadPool16()
+	{
+		return evaluate(PjepPool.getInstance());
+	}
+
+	@Benchmark
+	@Threads(1)
+	public double synchronizedPool1()
+	{
+		return evaluate(synchronizedPool);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public double synchronizedPool4()
+	{
+		return evaluate(synchronizedPool);
+	}
+
+	@Benchmark
+	@Threads(16)
+	public double synchronizedPool16()
+	{
+		return evaluate(synchronizedPool);
+	}
+
+	private static double evaluate(PjepPool pool)
+	{
+		PJEP jep = pool.aquire(null, "");
+		try
+		{
+			jep.parseExpression(FORMULA);
+			return jep.getValue();
+		}
+		finally
+		{
+			pool.release(jep);
+		}
+	}
+
+	private static double evaluate(SynchronizedPool pool)
+	{
+		PJEP jep = pool.aquire(null, "");
+		try
+		{
+			jep.parseExpression(FORMULA);
+			return jep.getValue();
+		}
+		finally
+		{
+			pool.release(jep);
+		}
+	}
+
+	/**
+	 * The pool as it was before parsers were kept per thread: one lock, a
+	 * synchronized Stack and a linear search of the parsers in use.
+	 */
+	private static final class SynchronizedPool
+	{
+		private Stack<PJEP> freeStack = new Stack<PJEP>();
+		private List<PJEP> usedList = new ArrayList<PJEP>();
+
+		synchronized PJEP aquire(final Object parent, String variableSource)
+		{
+			PJEP jep = freeStack.isEmpty() ? new PJEP() : freeStack.pop();
+			usedList.add(jep);
+			jep.initSymTab();
+			jep.setVariableSource(variableSource);
+			jep.setParent(parent);
+			return jep;
+		}
+
+		synchronized void release(PJEP interp)
+		{
+			usedList.remove(interp);
+			interp.setParent(null);
+			freeStack.push(interp);
+		}
+	}
+}
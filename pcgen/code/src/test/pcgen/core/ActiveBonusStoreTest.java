@@ -0,0 +1,116 @@
+/*
+ * ActiveBonusStoreTest.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.core;
+
+import java.util.Set;
+import java.util.SortedMap;
+
+import junit.framework.TestCase;
+
+/**
+ * Test class for ActiveBonusStore.
+ */
+public class ActiveBonusStoreTest extends TestCase
+{
+
+	private ActiveBonusStore store;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+		store = new ActiveBonusStore();
+	}
+
+	/**
+	 * Verify the totals of untyped and typed bonuses, including the .STACK
+	 * and .REPLACE forms.
+	 */
+	public void testGetTotal()
+	{
+		assertEquals(0.0, store.getTotal("COMBAT.AC"));
+		store.put("COMBAT.AC", 1);
+		store.put("COMBAT.AC:Armor", 4);
+		store.put("COMBAT.AC:Armor.REPLACE", 6);
+		store.put("COMBAT.AC:Luck", 2);
+		store.put("COMBAT.AC:Luck.STACK", 1);
+		store.put("COMBAT.AC:Dodge.REPLACE", -1);
+
+		assertEquals(1.0, store.getTotal("COMBAT.AC:"));
+		assertEquals(6.0, store.getTotal("COMBAT.AC:ARMOR"));
+		assertEquals(3.0, store.getTotal("combat.ac:luck"));
+		assertEquals(-1.0, store.getTotal("COMBAT.AC:Dodge"));
+		assertEquals(9.0, store.getTotal("COMBAT.AC"));
+		assertEquals(0.0, store.getTotal("COMBAT.AC:Shield"));
+	}
+
+	/**
+	 * Verify that a bonus name and info is not confused with a longer one
+	 * starting with the same text.
+	 */
+	public void testSimilarNames()
+	{
+		store.put("COMBAT.AC:Armor", 4);
+		store.put("COMBAT.ACCHECK", -2);
+
+		assertEquals(4.0, store.getTotal("COMBAT.AC"));
+		assertEquals(-2.0, store.getTotal("COMBAT.ACCHECK"));
+		SortedMap<String, Double> keyed = store.getKeyedTotals("COMBAT.AC");
+		assertEquals(1, keyed.size());
+		assertEquals(4.0, keyed.get("COMBAT.AC:ARMOR"));
+	}
+
+	/**
+	 * Verify the type reported for typed and untyped bonuses.
+	 */
+	public void testGetType()
+	{
+		assertEquals("", store.getType("CASTERLEVEL.Wizard"));
+		store.put("CASTERLEVEL.Wizard", 1);
+		assertEquals("", store.getType("CASTERLEVEL.Wizard"));
+		store.put("CASTERLEVEL.Wizard:Racial.STACK", 1);
+		assertEquals("RACIAL.STACK", store.getType("CASTERLEVEL.Wizard"));
+	}
+
+	/**
+	 * Verify that copies compare equal and that changes between stores are
+	 * identified by name, info and type.
+	 */
+	public void testChangedBonuses()
+	{
+		store.put("COMBAT.AC:Armor", 4);
+		store.put("COMBAT.AC", 1);
+		store.put("STAT.STR", 2);
+
+		ActiveBonusStore copy = new ActiveBonusStore();
+		copy.putAll(store);
+		assertEquals(store, copy);
+		assertEquals(store.hashCode(), copy.hashCode());
+		assertTrue(store.getChangedBonuses(copy).isEmpty());
+
+		copy.put("COMBAT.AC:Armor.STACK", 1);
+		copy.put("SKILL.Climb", 2);
+		assertFalse(store.equals(copy));
+		Set<String> changed = store.getChangedBonuses(copy);
+		assertEquals(2, changed.size());
+		assertTrue(changed.contains("COMBAT.AC:ARMOR"));
+		assertTrue(changed.contains("SKILL.CLIMB"));
+		assertEquals(changed, copy.getChangedBonuses(store));
+	}
+}
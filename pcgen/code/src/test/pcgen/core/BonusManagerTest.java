@@ -22,12 +22,15 @@
  */
 package pcgen.core;
 
+import java.util.Collection;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import pcgen.AbstractCharacterTestCase;
+import pcgen.cdom.base.FormulaFactory;
 import pcgen.cdom.enumeration.ListKey;
+import pcgen.cdom.enumeration.VariableKey;
 import pcgen.core.bonus.Bonus;
 import pcgen.core.bonus.BonusObj;
 import pcgen.rules.context.LoadContext;
@@ -133,4 +136,128 @@ public class BonusManagerTest extends AbstractCharacterTestCase
 		}
 	}
 
+	/**
+	 * Validate that a bonus activated by the result of another bonus is
+	 * included, and that the passes after the first reuse the work whose
+	 * inputs did not change.
+	 */
+	@Test
+	public void testCalculationReusesUnchangedBonuses()
+	{
+		PCTemplate testObj = TestHelper.makeTemplate("Reuse");
+		LoadContext context = Globals.getContext();
+		testObj.put(VariableKey.getConstant("ReuseVar"), FormulaFactory.ZERO);
+		testObj.addToListFor(ListKey.BONUS, Bonus.newBonus(context,
+			"COMBAT|AC|5|TYPE=Armor"));
+		testObj.addToListFor(ListKey.BONUS, Bonus.newBonus(context,
+			"VAR|ReuseVar|2"));
+		testObj.addToListFor(ListKey.BONUS, Bonus.newBonus(context,
+			"COMBAT|AC|1|PREVARGT:ReuseVar,1|TYPE=Luck"));
+
+		final int[] counts = new int[3];
+		BonusCalculationListener listener = new BonusCalculationListener()
+		{
+			@Override
+			public void bonusesCalculated(PlayerCharacter pc, int passes,
+				int evaluated, int reused)
+			{
+				counts[0] = Math.max(counts[0], passes);
+				counts[1] += evaluated;
+				counts[2] += reused;
+			}
+
+			@Override
+			public void bonusLoopDetected(PlayerCharacter pc, int passes,
+				Collection<BonusObj> cycle, Collection<String> changedBonuses)
+			{
+				fail("Unexpected bonus loop " + cycle);
+			}
+		};
+		BonusManager.addCalculationListener(listener);
+		try
+		{
+			PlayerCharacter pc = getCharacter();
+			pc.addTemplate(testObj);
+			pc.calcActiveBonuses();
+			assertEquals("Incorrect bonus total", 6.0, pc.getTotalBonusTo(
+				"COMBAT", "AC"), 0.0001);
+			assertTrue("Expected more than one pass", counts[0] > 1);
+			assertTrue("Expected work to be reused", counts[2] > 0);
+		}
+		finally
+		{
+			BonusManager.removeCalculationListener(listener);
+		}
+	}
+
+	/**
+	 * Validate that the incremental calculation of the active bonuses gives
+	 * the same results as recalculating everything, including after
+	 * equipment is equipped and a stat is changed.
+	 */
+	@Test
+	public void testIncrementalMatchesFullCalculation()
+	{
+		PCTemplate testObj = TestHelper.makeTemplate("Compare");
+		LoadContext context = Globals.getContext();
+		testObj.put(VariableKey.getConstant("CompareEqVar"), FormulaFactory.ZERO);
+		testObj.addToListFor(ListKey.BONUS, Bonus.newBonus(context,
+			"COMBAT|AC|STR|TYPE=Armor"));
+		testObj.addToListFor(ListKey.BONUS, Bonus.newBonus(context,
+			"VAR|CompareEqVar|COUNT[EQUIPMENT.EQUIPPED]"));
+		testObj.addToListFor(ListKey.BONUS, Bonus.newBonus(context,
+			"COMBAT|AC|1|PREVARGT:CompareEqVar,0|TYPE=Luck"));
+		testObj.addToListFor(ListKey.BONUS, Bonus.newBonus(context,
+			"COMBAT|TOHIT|CompareEqVar+STR"));
+
+		try
+		{
+			PlayerCharacter pc = getCharacter();
+			setPCStat(pc, str, 14);
+			pc.addTemplate(testObj);
+			Equipment shield = new Equipment();
+			shield.setName("Compare Shield");
+			pc.addEquipment(shield);
+			assertSameBonuses(pc, 2.0, 2.0);
+
+			shield.setIsEquipped(true, pc);
+			pc.doAfavorForAunitTestThatIgnoresEquippingRules();
+			assertSameBonuses(pc, 3.0, 3.0);
+
+			setPCStat(pc, str, 8);
+			assertSameBonuses(pc, 0.0, 0.0);
+
+			shield.setIsEquipped(false, pc);
+			pc.doAfavorForAunitTestThatIgnoresEquippingRules();
+			assertSameBonuses(pc, -1.0, -1.0);
+		}
+		finally
+		{
+			SettingsHandler.setUseIncrementalBonusCalculation(true);
+		}
+	}
+
+	/**
+	 * Calculate the active bonuses of the character both incrementally and in
+	 * full, checking both give the expected totals.
+	 */
+	private void assertSameBonuses(PlayerCharacter pc, double ac, double toHit)
+	{
+		SettingsHandler.setUseIncrementalBonusCalculation(true);
+		pc.calcActiveBonuses();
+		double incrementalAC = pc.getTotalBonusTo("COMBAT", "AC");
+		double incrementalToHit = pc.getTotalBonusTo("COMBAT", "TOHIT");
+
+		SettingsHandler.setUseIncrementalBonusCalculation(false);
+		pc.calcActiveBonuses();
+		double fullAC = pc.getTotalBonusTo("COMBAT", "AC");
+		double fullToHit = pc.getTotalBonusTo("COMBAT", "TOHIT");
+
+		assertEquals("Incremental AC differs", fullAC, incrementalAC, 0.0001);
+		assertEquals("Incremental TOHIT differs", fullToHit, incrementalToHit,
+			0.0001);
+		assertEquals("Incorrect AC total", ac, fullAC, 0.0001);
+		assertEquals("Incorrect TOHIT total", toHit, fullToHit, 0.0001);
+	}
+
 }
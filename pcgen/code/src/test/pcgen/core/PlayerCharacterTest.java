@@ -48,6 +48,8 @@ import pcgen.cdom.enumeration.ObjectKey;
 import pcgen.cdom.enumeration.StringKey;
 import pcgen.cdom.enumeration.Type;
 import pcgen.cdom.enumeration.VariableKey;
+import pcgen.cdom.facet.base.AbstractStorageFacet;
+import pcgen.cdom.helper.SpringHelper;
 import pcgen.cdom.inst.PCClassLevel;
 import pcgen.cdom.list.CompanionList;
 import pcgen.cdom.reference.CDOMDirectSingleRef;
@@ -633,6 +635,195 @@ public class PlayerCharacterTest extends AbstractCharacterTestCase
 			"max(STR,DEX)-STR", "").floatValue(), 0.1);
 	}
 
+	/**
+	 * Test that formula results cached by their dependencies are discarded
+	 * when the stats and bonuses they read change, and only then.
+	 */
+	public void testDependencyTrackedCache()
+	{
+		readyToRun();
+		PlayerCharacter pc = getCharacter();
+		LoadContext context = Globals.getContext();
+		VariableProcessor vp = pc.getVariableProcessor();
+		vp.setDependencyTracked(true);
+
+		setPCStat(pc, str, 8);
+		setPCStat(pc, dex, 14);
+		assertEquals("STR", -1.0, pc.getVariableValue("STR", "").floatValue(),
+			0.1);
+		assertEquals("max(STR,DEX)", 2.0, pc.getVariableValue("max(STR,DEX)",
+			"").floatValue(), 0.1);
+		int cached = vp.getDependencyTrackedCount();
+		assertTrue("Results should be cached by dependency", cached > 0);
+
+		pc.setWeight(150);
+		assertEquals("Unrelated change should keep results", cached, vp
+			.getDependencyTrackedCount());
+		assertEquals("max(STR,DEX)", 2.0, pc.getVariableValue("max(STR,DEX)",
+			"").floatValue(), 0.1);
+
+		setPCStat(pc, dex, 16);
+		assertEquals("max(STR,DEX)", 3.0, pc.getVariableValue("max(STR,DEX)",
+			"").floatValue(), 0.1);
+
+		Spell spell2 = new Spell();
+		spell2.setName("Concrete Boots");
+		final BonusObj aBonus = Bonus.newBonus(context, "STAT|DEX|-4");
+		spell2.addToListFor(ListKey.BONUS, aBonus);
+		BonusObj penalty = spell2.getRawBonusList(pc).get(0);
+		pc.addTempBonus(penalty, spell2, pc);
+		pc.setUseTempMods(true);
+		pc.calcActiveBonuses();
+		assertEquals("max(STR,DEX)", 1.0, pc.getVariableValue("max(STR,DEX)",
+			"").floatValue(), 0.1);
+		assertEquals("STR", -1.0, pc.getVariableValue("STR", "").floatValue(),
+			0.1);
+
+		vp.setDependencyTracked(false);
+		assertEquals(0, vp.getDependencyTrackedCount());
+	}
+
+	/**
+	 * Test that results held by the dependency tracked cache are recomputed
+	 * when equipment is changed in place or a stat is changed.
+	 */
+	public void testDependencyTrackedCacheEquipAndStat()
+	{
+		readyToRun();
+		PlayerCharacter pc = getCharacter();
+		VariableProcessor vp = pc.getVariableProcessor();
+		vp.setDependencyTracked(true);
+
+		setPCStat(pc, str, 10);
+		Equipment pack = new Equipment();
+		pack.setName("Backpack");
+		pack.put(ObjectKey.WEIGHT, new BigDecimal(2));
+		pack.setQty(1.0);
+		pack.setCarried(1.0f);
+		pc.addEquipment(pack);
+
+		assertEquals("WEIGHT.CARRIED", 2.0, pc.getVariableValue(
+			"WEIGHT.CARRIED", "").floatValue(), 0.1);
+		assertEquals("STR+COUNT[EQUIPMENT.EQUIPPED]", 0.0, pc.getVariableValue(
+			"STR+COUNT[EQUIPMENT.EQUIPPED]", "").floatValue(), 0.1);
+
+		pack.setIsEquipped(true, pc);
+		pack.setQty(3.0);
+		pack.setCarried(3.0f);
+		assertEquals("WEIGHT.CARRIED", 6.0, pc.getVariableValue(
+			"WEIGHT.CARRIED", "").floatValue(), 0.1);
+		assertEquals("STR+COUNT[EQUIPMENT.EQUIPPED]", 1.0, pc.getVariableValue(
+			"STR+COUNT[EQUIPMENT.EQUIPPED]", "").floatValue(), 0.1);
+
+		setPCStat(pc, str, 14);
+		assertEquals("STR", 2.0, pc.getVariableValue("STR", "").floatValue(),
+			0.1);
+		assertEquals("STR+COUNT[EQUIPMENT.EQUIPPED]", 3.0, pc.getVariableValue(
+			"STR+COUNT[EQUIPMENT.EQUIPPED]", "").floatValue(), 0.1);
+		setPCStat(pc, str, 8);
+		assertEquals("STR+COUNT[EQUIPMENT.EQUIPPED]", 0.0, pc.getVariableValue(
+			"STR+COUNT[EQUIPMENT.EQUIPPED]", "").floatValue(), 0.1);
+
+		vp.setDependencyTracked(false);
+	}
+
+	/**
+	 * Test that results held by the dependency tracked cache which depend on
+	 * a variable not being defined are recomputed once it is defined.
+	 */
+	public void testDependencyTrackedCacheLateVariable()
+	{
+		readyToRun();
+		PlayerCharacter pc = getCharacter();
+		VariableProcessor vp = pc.getVariableProcessor();
+		vp.setDependencyTracked(true);
+
+		assertEquals("VARDEFINED:TrackedLateVar", 0.0, pc.getVariableValue(
+			"VARDEFINED:TrackedLateVar", "").floatValue(), 0.1);
+
+		Race lateRace = new Race();
+		lateRace.setName("Late Race");
+		lateRace.put(VariableKey.getConstant("TrackedLateVar"), FormulaFactory
+			.getFormulaFor(3));
+		pc.setRace(lateRace);
+		assertEquals("VARDEFINED:TrackedLateVar", 1.0, pc.getVariableValue(
+			"VARDEFINED:TrackedLateVar", "").floatValue(), 0.1);
+		assertEquals("TrackedLateVar", 3.0, pc.getVariableValue(
+			"TrackedLateVar", "").floatValue(), 0.1);
+
+		vp.setDependencyTracked(false);
+	}
+
+	/**
+	 * Test that a snapshot of a character holds the character as it was when
+	 * the snapshot was taken, and is independent of later changes to either.
+	 */
+	public void testSnapshot()
+	{
+		readyToRun();
+		PlayerCharacter pc = getCharacter();
+		setPCStat(pc, str, 14);
+		pc.setRace(human);
+		pc.incrementClassLevel(1, pcClass, true);
+
+		PlayerCharacter snapshot = pc.createSnapshot();
+		setPCStat(pc, str, 8);
+		pc.incrementClassLevel(1, pcClass, true);
+		snapshot.setWeight(200);
+		assertEquals(14, snapshot.getBaseStatFor(str));
+		assertEquals(1, snapshot.getDisplay().getTotalLevels());
+		assertEquals(human, snapshot.getDisplay().getRace());
+		assertEquals(8, pc.getBaseStatFor(str));
+		assertEquals(2, pc.getDisplay().getTotalLevels());
+		assertFalse(pc.getDisplay().getWeight() == 200);
+
+		PlayerCharacter discarded = pc.createSnapshot();
+		discarded.discardSnapshot();
+		setPCStat(pc, str, 10);
+		assertEquals(10, pc.getBaseStatFor(str));
+	}
+
+	/**
+	 * Test that taking a snapshot leaves most of the character's facets to be
+	 * copied later, while the snapshot still holds its own equipment.
+	 */
+	public void testSnapshotDefersCopy()
+	{
+		readyToRun();
+		PlayerCharacter pc = getCharacter();
+		setPCStat(pc, str, 14);
+		pc.setRace(human);
+		pc.incrementClassLevel(1, pcClass, true);
+		Equipment item = new Equipment();
+		item.setName("Snapshot Item");
+		item.setQty(1.0);
+		pc.addEquipment(item);
+
+		PlayerCharacter snapshot = pc.createSnapshot();
+		try
+		{
+			int facetCount = SpringHelper.getStorageBeans().size();
+			int deferred =
+					AbstractStorageFacet.getDeferredCopyCount(snapshot
+						.getCharID());
+			assertTrue("Only " + deferred + " of " + facetCount
+				+ " facets left to copy", deferred > facetCount / 2);
+
+			Equipment copied = snapshot.getEquipmentNamed("Snapshot Item");
+			assertNotNull(copied);
+			assertNotSame(item, copied);
+			copied.setQty(3.0);
+			assertEquals(1.0, item.qty(), 0.001);
+			assertEquals(14, snapshot.getBaseStatFor(str));
+		}
+		finally
+		{
+			snapshot.discardSnapshot();
+		}
+		assertEquals(0, AbstractStorageFacet.getDeferredCopyCount(snapshot
+			.getCharID()));
+	}
+
 	/**
 	 * Test the skills visibility functionality. We want to ensure that
 	 * each call retrieves the right set of skills.
@@ -0,0 +1,202 @@
+/*
+ * BulkNPCGeneratorTest.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.core.npcgen;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import pcgen.AbstractCharacterTestCase;
+import pcgen.cdom.content.RollMethod;
+import pcgen.cdom.enumeration.CharID;
+import pcgen.core.AbilityCategory;
+import pcgen.core.Campaign;
+import pcgen.core.Deity;
+import pcgen.core.Globals;
+import pcgen.core.PCClass;
+import pcgen.core.PCStat;
+import pcgen.core.PlayerCharacter;
+import pcgen.core.Race;
+import pcgen.core.Skill;
+import pcgen.rules.context.LoadContext;
+import pcgen.util.TestHelper;
+
+/**
+ * <code>BulkNPCGeneratorTest</code> checks that NPCs generated in bulk are
+ * reproducible from their seed, whatever the number of threads used, and
+ * that each is a separate character.
+ */
+public class BulkNPCGeneratorTest extends AbstractCharacterTestCase
+{
+	private AlignGeneratorOption align;
+	private RaceGeneratorOption race;
+	private GenderGeneratorOption gender;
+	private List<ClassGeneratorOption> classes;
+	private List<LevelGeneratorOption> levels;
+	private RollMethod rollMethod;
+
+	@Override
+	protected void additionalSetUp() throws Exception
+	{
+		LoadContext context = Globals.getContext();
+		for (String name : new String[]{"Human", "Elf", "Dwarf"})
+		{
+			Race r = new Race();
+			r.setName(name);
+			context.getReferenceContext().importObject(r);
+		}
+		for (String name : new String[]{"Climb", "Hide", "Swim"})
+		{
+			Skill sk = new Skill();
+			sk.setName(name);
+			context.getReferenceContext().importObject(sk);
+		}
+		for (String name : new String[]{"Alertness", "Toughness", "Dodge"})
+		{
+			TestHelper.makeAbility(name, AbilityCategory.FEAT, "General");
+		}
+		for (String name : new String[]{"Odin", "Thor"})
+		{
+			Deity d = new Deity();
+			d.setName(name);
+			context.getReferenceContext().importObject(d);
+		}
+		for (String name : new String[]{"Fighter", "Rogue"})
+		{
+			PCClass cl = new PCClass();
+			cl.setName(name);
+			context.getReferenceContext().importObject(cl);
+		}
+
+		align = new AlignGeneratorOption();
+		align.addChoice(1, "LG");
+		align.addChoice(1, "TN");
+		align.addChoice(1, "CE");
+		race = new RaceGeneratorOption();
+		race.addChoice(1, "Human");
+		race.addChoice(1, "Elf");
+		race.addChoice(1, "Dwarf");
+		gender = new GenderGeneratorOption();
+		gender.addChoice(1, "*");
+		ClassGeneratorOption classOption = new ClassGeneratorOption();
+		classOption.addChoice(1, "Fighter");
+		classOption.addChoice(1, "Rogue");
+		classes = Collections.singletonList(classOption);
+		LevelGeneratorOption levelOption = new LevelGeneratorOption();
+		levelOption.addChoice(1, "1,4");
+		levels = Collections.singletonList(levelOption);
+		rollMethod = new RollMethod();
+		rollMethod.setName("Standard");
+		rollMethod.setMethodRoll("4d6");
+	}
+
+	private Map<Integer, String> generate(int count, int threads, long seed)
+		throws InterruptedException
+	{
+		BulkNPCGenerator generator =
+				new BulkNPCGenerator(Collections.<Campaign> emptyList(),
+					align, race, gender, classes, levels, rollMethod);
+		generator.setSeed(seed);
+		generator.setThreads(threads);
+		final Map<Integer, String> npcs = new HashMap<Integer, String>();
+		final Thread caller = Thread.currentThread();
+		int generated =
+				generator.generate(count,
+					new BulkNPCGenerator.NPCReceiver()
+					{
+						@Override
+						public void npcGenerated(int index, PlayerCharacter npc)
+						{
+							assertSame("NPCs should be received by the caller",
+								caller, Thread.currentThread());
+							assertNull("Each NPC should be received once",
+								npcs.put(index, describe(npc)));
+						}
+					});
+		assertEquals(count, generated);
+		assertEquals(count, npcs.size());
+		return npcs;
+	}
+
+	private static String describe(PlayerCharacter npc)
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append(npc.getRace()).append(' ');
+		sb.append(npc.getDisplay().getGenderObject()).append(' ');
+		sb.append(npc.getDisplay().getPCAlignment()).append(' ');
+		for (PCClass cl : npc.getClassSet())
+		{
+			sb.append(cl.getKeyName()).append(npc.getLevel(cl)).append(' ');
+		}
+		for (PCStat stat : npc.getStatSet())
+		{
+			sb.append(stat.getAbb()).append(npc.getStat(stat)).append(' ');
+		}
+		sb.append(npc.getDisplay().getHairStyle());
+		return sb.toString();
+	}
+
+	/**
+	 * Verify that the same seed produces the same NPCs whether they are
+	 * generated one at a time or several at once, and that a different seed
+	 * produces different NPCs.
+	 */
+	public void testReproducible() throws Exception
+	{
+		Map<Integer, String> serial = generate(12, 1, 42L);
+		assertEquals(serial, generate(12, 4, 42L));
+		assertFalse("A different seed should give different NPCs", serial
+			.equals(generate(12, 4, 43L)));
+	}
+
+	/**
+	 * Verify that generating more NPCs than the threads can hold at once
+	 * generates every NPC, each as a separate character.
+	 */
+	public void testDistinctCharacters() throws Exception
+	{
+		BulkNPCGenerator generator =
+				new BulkNPCGenerator(Collections.<Campaign> emptyList(),
+					align, race, gender, classes, levels, rollMethod);
+		generator.setSeed(7L);
+		generator.setThreads(3);
+		final Map<PlayerCharacter, Integer> npcs =
+				new IdentityHashMap<PlayerCharacter, Integer>();
+		final Set<CharID> ids = new HashSet<CharID>();
+		int generated =
+				generator.generate(20, new BulkNPCGenerator.NPCReceiver()
+				{
+					@Override
+					public void npcGenerated(int index, PlayerCharacter npc)
+					{
+						assertNull("Each NPC should be a new character", npcs
+							.put(npc, index));
+						assertTrue("Each NPC should have its own id", ids
+							.add(npc.getCharID()));
+					}
+				});
+		assertEquals(20, generated);
+		assertEquals(20, npcs.size());
+		assertEquals(20, new HashSet<Integer>(npcs.values()).size());
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * PrerequisiteCacheTest.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.core.prereq;
+
+import pcgen.AbstractCharacterTestCase;
+import pcgen.cdom.enumeration.Gender;
+import pcgen.cdom.facet.FacetLibrary;
+import pcgen.cdom.facet.fact.GenderFacet;
+import pcgen.core.Equipment;
+import pcgen.core.PlayerCharacter;
+import pcgen.persistence.lst.prereq.PreParserFactory;
+
+/**
+ * <code>PrerequisiteCacheTest</code> checks that the results of prerequisite
+ * tests are held by a character's PrerequisiteCache only while the cache is
+ * enabled and the character is unchanged, and never when the test read
+ * something that may change without being reported.
+ */
+@SuppressWarnings("nls")
+public class PrerequisiteCacheTest extends AbstractCharacterTestCase
+{
+
+	/**
+	 * Verify that results are not held unless the cache is enabled.
+	 * @throws Exception
+	 */
+	public void testDisabled() throws Exception
+	{
+		final PlayerCharacter character = getCharacter();
+		final PrerequisiteCache cache = character.getPrerequisiteCache();
+		assertFalse(cache.isEnabled());
+		final Prerequisite prereq =
+				PreParserFactory.getInstance().parse("PREGENDER:M");
+		character.setGender(Gender.Male);
+		assertTrue(PrereqHandler.passes(prereq, character, null));
+		assertTrue(PrereqHandler.passes(prereq, character, null));
+		assertEquals(0, cache.getHitCount());
+		assertEquals(0, cache.getMissCount());
+	}
+
+	/**
+	 * Verify that results are held by prerequisite and caller, and discarded
+	 * when the serial of the character changes.
+	 * @throws Exception
+	 */
+	public void testHeldUntilSerialChanges() throws Exception
+	{
+		final PlayerCharacter character = getCharacter();
+		final PrerequisiteCache cache = character.getPrerequisiteCache();
+		cache.setEnabled(true);
+		final Prerequisite prereq =
+				PreParserFactory.getInstance().parse("PREGENDER:M");
+		final Object caller = new Object();
+		character.setGender(Gender.Male);
+
+		assertTrue(PrereqHandler.passes(prereq, character, null));
+		assertTrue(PrereqHandler.passes(prereq, character, null));
+		assertTrue(PrereqHandler.passes(prereq, character, caller));
+		assertTrue(PrereqHandler.passes(prereq, character, caller));
+		assertEquals(2, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+		assertEquals(0.5, cache.getHitRate(), 0.0001);
+
+		character.setGender(Gender.Female);
+		assertFalse(PrereqHandler.passes(prereq, character, null));
+		assertEquals(2, cache.getHitCount());
+		assertEquals(3, cache.getMissCount());
+		cache.setEnabled(false);
+	}
+
+	/**
+	 * Verify that results are discarded when a facet of the character reports
+	 * a change, even if the serial of the character is unchanged.
+	 * @throws Exception
+	 */
+	public void testDiscardedOnFacetChange() throws Exception
+	{
+		final PlayerCharacter character = getCharacter();
+		final PrerequisiteCache cache = character.getPrerequisiteCache();
+		final Prerequisite prereq =
+				PreParserFactory.getInstance().parse("PREGENDER:M");
+		character.setGender(Gender.Male);
+		cache.setEnabled(true);
+
+		assertTrue(PrereqHandler.passes(prereq, character, null));
+		final int serial = character.getSerial();
+		FacetLibrary.getFacet(GenderFacet.class).setGender(
+			character.getCharID(), Gender.Female);
+		assertEquals(serial, character.getSerial());
+		assertFalse(PrereqHandler.passes(prereq, character, null));
+		assertEquals(0, cache.getHitCount());
+		cache.setEnabled(false);
+	}
+
+	/**
+	 * Verify that a result is not held when the test read equipment, which
+	 * can be changed in place without the character being told.
+	 * @throws Exception
+	 */
+	public void testNotHeldForUntrackedRead() throws Exception
+	{
+		final PlayerCharacter character = getCharacter();
+		final PrerequisiteCache cache = character.getPrerequisiteCache();
+		final Equipment longsword = new Equipment();
+		longsword.setName("Longsword");
+		character.addEquipment(longsword);
+		longsword.setIsEquipped(true, character);
+		character.doAfavorForAunitTestThatIgnoresEquippingRules();
+		final Prerequisite prereq =
+				PreParserFactory.getInstance().parse("PREEQUIP:1,Longsword");
+		cache.setEnabled(true);
+
+		assertTrue(PrereqHandler.passes(prereq, character, null));
+		final int serial = character.getSerial();
+		longsword.setName("Shortsword");
+		assertEquals(serial, character.getSerial());
+		assertFalse(PrereqHandler.passes(prereq, character, null));
+		assertEquals(0, cache.getHitCount());
+		cache.setEnabled(false);
+	}
+}
@@ -22,6 +22,8 @@
  */
 package pcgen.gui2.facade;
 
+import java.util.EnumSet;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -30,6 +32,8 @@ import pcgen.core.AbilityCategory;
 import pcgen.core.PlayerCharacter;
 import pcgen.core.SettingsHandler;
 import pcgen.core.character.EquipSet;
+import pcgen.gui2.facade.CharacterFacadeImpl.CharacterAspect;
+import pcgen.gui2.facade.CharacterFacadeImpl.RefreshTask;
 
 /**
  * The Class <code>CharacterFacadeImplTest</code> verifies the behaviour of 
@@ -65,6 +69,36 @@ public class CharacterFacadeImplTest extends AbstractCharacterTestCase
 		assertEquals("Incorrect id of the default equip set",
 			EquipSet.DEFAULT_SET_PATH, defaultEquipSet.getIdPath());
 	}
+
+	/**
+	 * Check the models refreshed when each aspect of the character changes.
+	 */
+	@Test
+	public void testGetRefreshTasks()
+	{
+		// Adding or removing an ability can change temporary bonuses and
+		// granted equipment as well as the kits available
+		assertEquals(EnumSet.of(RefreshTask.KIT_LIST, RefreshTask.TEMP_BONUSES,
+			RefreshTask.EQUIPMENT), CharacterFacadeImpl
+			.getRefreshTasks(CharacterAspect.ABILITIES));
+		assertEquals(EnumSet.allOf(RefreshTask.class), CharacterFacadeImpl
+			.getRefreshTasks(CharacterAspect.LEVELS));
+		assertEquals(EnumSet.of(RefreshTask.TEMP_BONUSES, RefreshTask.EQUIPMENT,
+			RefreshTask.HEIGHT_WEIGHT, RefreshTask.STAT_SCORES,
+			RefreshTask.KNOWN_SPELLS), CharacterFacadeImpl
+			.getRefreshTasks(CharacterAspect.RACE));
+		assertEquals(EnumSet.of(RefreshTask.TEMP_BONUSES), CharacterFacadeImpl
+			.getRefreshTasks(CharacterAspect.EQUIPPED));
+		assertEquals(EnumSet.of(RefreshTask.EQUIPMENT), CharacterFacadeImpl
+			.getRefreshTasks(CharacterAspect.GRANTED_EQUIPMENT));
+		assertEquals(EnumSet.of(RefreshTask.KNOWN_SPELLS), CharacterFacadeImpl
+			.getRefreshTasks(CharacterAspect.DOMAINS));
+		assertEquals(EnumSet.of(RefreshTask.STAT_SCORES, RefreshTask.LANGUAGES),
+			CharacterFacadeImpl.getRefreshTasks(CharacterAspect.STATS,
+				CharacterAspect.LANGUAGES));
+		assertEquals(EnumSet.noneOf(RefreshTask.class), CharacterFacadeImpl
+			.getRefreshTasks());
+	}
 	
 	/* (non-Javadoc)
 	 * @see pcgen.AbstractCharacterTestCase#setUp()
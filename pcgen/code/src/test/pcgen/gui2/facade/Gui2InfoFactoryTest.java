@@ -25,9 +25,11 @@ package pcgen.gui2.facade;
 import pcgen.AbstractCharacterTestCase;
 import pcgen.cdom.enumeration.ListKey;
 import pcgen.cdom.enumeration.ObjectKey;
+import pcgen.cdom.enumeration.SourceFormat;
 import pcgen.core.Ability;
 import pcgen.core.AbilityCategory;
 import pcgen.core.Description;
+import pcgen.core.Equipment;
 import pcgen.core.Globals;
 import pcgen.core.PlayerCharacter;
 import pcgen.core.SettingsHandler;
@@ -102,6 +104,105 @@ public class Gui2InfoFactoryTest extends AbstractCharacterTestCase
 				+ "<b>Desc:</b>&nbsp;CE Desc<br><b>Source:</b>&nbsp;</html>",
 			infoFactory.getHTMLInfo(tbf));
 	}	
+
+	/**
+	 * Verify that the information rendered for an object is reused until the
+	 * character changes.
+	 */
+	public void testGetHTMLInfoCached()
+	{
+		PlayerCharacter pc = getCharacter();
+		Gui2InfoFactory infoFactory = new Gui2InfoFactory(pc);
+
+		Ability ability =
+				TestHelper.makeAbility("Power Attack", AbilityCategory.FEAT,
+					"General");
+		Globals.getContext().commit();
+
+		String info = infoFactory.getHTMLInfo(ability);
+		assertSame("Information should be reused", info,
+			infoFactory.getHTMLInfo(ability));
+
+		pc.setDirty(true);
+		String newInfo = infoFactory.getHTMLInfo(ability);
+		assertNotSame("Information should be rendered again", info, newInfo);
+		assertEquals("Unexpected information", info, newInfo);
+	}
+
+	/**
+	 * Verify that the information rendered for an object is rendered again
+	 * after a stat of the character changes.
+	 */
+	public void testGetHTMLInfoAfterStatChange()
+	{
+		PlayerCharacter pc = getCharacter();
+		Gui2InfoFactory infoFactory = new Gui2InfoFactory(pc);
+
+		Ability ability =
+				TestHelper.makeAbility("Cleave", AbilityCategory.FEAT,
+					"General");
+		Globals.getContext().commit();
+
+		String info = infoFactory.getHTMLInfo(ability);
+		assertSame("Information should be reused", info,
+			infoFactory.getHTMLInfo(ability));
+
+		setPCStat(pc, str, 16);
+		assertNotSame("Information should be rendered again", info,
+			infoFactory.getHTMLInfo(ability));
+	}
+
+	/**
+	 * Verify that the information rendered for an object is rendered again
+	 * after a preference used in the information changes.
+	 */
+	public void testGetHTMLInfoAfterPreferenceChange()
+	{
+		PlayerCharacter pc = getCharacter();
+		Gui2InfoFactory infoFactory = new Gui2InfoFactory(pc);
+
+		Ability ability =
+				TestHelper.makeAbility("Dodge", AbilityCategory.FEAT,
+					"General");
+		Globals.getContext().commit();
+
+		SourceFormat oldFormat = Globals.getSourceDisplay();
+		try
+		{
+			String info = infoFactory.getHTMLInfo(ability);
+			assertSame("Information should be reused", info,
+				infoFactory.getHTMLInfo(ability));
+
+			Globals.setSourceDisplay(oldFormat == SourceFormat.LONG
+				? SourceFormat.SHORT : SourceFormat.LONG);
+			assertNotSame("Information should be rendered again", info,
+				infoFactory.getHTMLInfo(ability));
+		}
+		finally
+		{
+			Globals.setSourceDisplay(oldFormat);
+		}
+	}
+
+	/**
+	 * Verify that the information rendered for equipment reflects changes
+	 * made to the equipment in place.
+	 */
+	public void testGetHTMLInfoEquipmentChanged()
+	{
+		PlayerCharacter pc = getCharacter();
+		Gui2InfoFactory infoFactory = new Gui2InfoFactory(pc);
+
+		Equipment equip = new Equipment();
+		equip.setName("Rope");
+		assertTrue(infoFactory.getHTMLInfo(equip).contains("Rope"));
+
+		equip.setName("Chain");
+		String info = infoFactory.getHTMLInfo(equip);
+		assertTrue("Information should show the new name",
+			info.contains("Chain"));
+		assertFalse(info.contains("Rope"));
+	}
 	
 	/* (non-Javadoc)
 	 * @see pcgen.AbstractCharacterTestCase#setUp()
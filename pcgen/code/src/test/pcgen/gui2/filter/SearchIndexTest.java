@@ -0,0 +1,83 @@
+/*
+ * SearchIndexTest.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.gui2.filter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import junit.framework.TestCase;
+
+/**
+ * <code>SearchIndexTest</code> checks that a SearchIndex finds the same
+ * elements as testing the search text of every element.
+ */
+@SuppressWarnings("nls")
+public class SearchIndexTest extends TestCase
+{
+
+	/**
+	 * Verify that short and long searches find the matching elements.
+	 */
+	public void testFind()
+	{
+		SearchIndex<String> index = new SearchIndex<String>();
+		index.rebuild(Arrays.asList("Fighter", "Figurine", "Wizard",
+			"Power Attack"));
+		assertEquals(4, index.size());
+		assertEquals(new HashSet<String>(Arrays.asList("Fighter", "Figurine")),
+			index.find("fi"));
+		assertEquals(Collections.singleton("Fighter"), index.find("ghte"));
+		assertEquals(Collections.singleton("Power Attack"),
+			index.find("er att"));
+		assertTrue(index.find("zzz").isEmpty());
+		assertEquals(4, index.find("").size());
+	}
+
+	/**
+	 * Verify that added and removed elements are found only while indexed,
+	 * and that an element added twice remains until removed twice.
+	 */
+	public void testAddRemove()
+	{
+		SearchIndex<String> index = new SearchIndex<String>();
+		index.add("Dodge");
+		index.add("Dodge");
+		index.add("Mobility");
+		assertEquals(Collections.singleton("Dodge"), index.find("dod"));
+		index.remove("Dodge");
+		assertEquals(Collections.singleton("Dodge"), index.find("dod"));
+		index.remove("Dodge");
+		assertTrue(index.find("dod").isEmpty());
+		assertEquals(Collections.singleton("Mobility"), index.find("bil"));
+		for (int i = 0; i < 100; i++)
+		{
+			index.add("Feat " + i);
+		}
+		for (int i = 0; i < 90; i++)
+		{
+			index.remove("Feat " + i);
+		}
+		assertEquals(11, index.size());
+		assertEquals(10, index.find("feat 9").size());
+		assertEquals(Collections.singleton("Feat 95"), index.find("feat 95"));
+		assertTrue(index.find("feat 89").isEmpty());
+		assertEquals(Collections.singleton("Mobility"), index.find("mob"));
+	}
+}
@@ -30,6 +30,11 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -78,6 +83,7 @@ public class ExportHandlerTest extends AbstractCharacterTestCase
 	private Equipment weapon = null;
 	private Equipment gem = null;
 	private Equipment armor = null;
+	private PCClass myClass = null;
 
 	/**
 	 * Quick test suite creation - adds all methods beginning with "test"
@@ -130,7 +136,7 @@ public class ExportHandlerTest extends AbstractCharacterTestCase
 		character.setRace(testRace);
 
 		// Class
-		PCClass myClass = new PCClass();
+		myClass = new PCClass();
 		myClass.setName("My Class");
 		myClass.put(FormulaKey.START_SKILL_POINTS, FormulaFactory.getFormulaFor(3));
 		character.incrementClassLevel(5, myClass, true);
@@ -207,6 +213,7 @@ public class ExportHandlerTest extends AbstractCharacterTestCase
 		knowledge = null;
 		balance = null;
 		tumble = null;
+		myClass = null;
 		intel.removeListFor(ListKey.BONUS);
 
 		super.tearDown();
@@ -447,6 +454,174 @@ public class ExportHandlerTest extends AbstractCharacterTestCase
 			result);
 	}
 	
+	/**
+	 * Check that a parsed template is reused by later exports, and is parsed
+	 * again once the template file is changed.
+	 * @throws Exception 
+	 */
+	public void testTemplateReuse() throws Exception
+	{
+		PlayerCharacter pc = getCharacter();
+		File temp = File.createTempFile("testTemplate", ".txt");
+		temp.deleteOnExit();
+		String nl = System.getProperty("line.separator");
+
+		writeTemplate(temp, "|FOR,%x,1,3,1,0|\n%x\n|ENDFOR|\n");
+		assertEquals("1" + nl + "2" + nl + "3" + nl, exportTemplate(temp, pc));
+		assertEquals("Template should be exported again", "1" + nl + "2"
+			+ nl + "3" + nl, exportTemplate(temp, pc));
+
+		writeTemplate(temp, "|FOR,%x,1,2,1,0|\n[%x]\n|ENDFOR|\n");
+		temp.setLastModified(temp.lastModified() + 2000);
+		assertEquals("Changed template should be parsed again", "[1]" + nl
+			+ "[2]" + nl, exportTemplate(temp, pc));
+	}
+
+	/**
+	 * Check that prerequisites tested while the equipment sets are output
+	 * follow the equipment set, even though the results of prerequisites
+	 * are held for the duration of the export.
+	 * @throws Exception 
+	 */
+	public void testEquipSetLoopPrerequisites() throws Exception
+	{
+		LoadContext context = Globals.getContext();
+		PlayerCharacter pc = getCharacter();
+
+		Ability armorFeat = new Ability();
+		armorFeat.setName("ArmorFeat");
+		armorFeat.setCDOMCategory(AbilityCategory.FEAT);
+		armorFeat.put(VariableKey.getConstant("ArmorWorn"), FormulaFactory
+			.getFormulaFor(0));
+		BonusObj aBonus =
+				Bonus.newBonus(context,
+					"VAR|ArmorWorn|1|PREEQUIP:1,TestArmorSuit");
+		if (aBonus != null)
+		{
+			armorFeat.addToListFor(ListKey.BONUS, aBonus);
+		}
+		addAbility(AbilityCategory.FEAT, armorFeat);
+
+		pc.addEquipment(armor);
+		pc.addEquipSet(new EquipSet("0.1", "Armored"));
+		pc.addEquipSet(new EquipSet("0.1.1", "Body", "", armor));
+		pc.addEquipSet(new EquipSet("0.2", "Unarmored"));
+		pc.setCalcEquipSetId("0.1");
+		pc.setCalcEquipmentList();
+
+		File temp = File.createTempFile("testTemplate", ".ftl");
+		temp.deleteOnExit();
+		writeTemplate(temp, "<@equipsetloop>${pcstring('EQSET.NAME')}="
+			+ "${pcstring('VAR.ArmorWorn.INTVAL')};</@equipsetloop>");
+		assertEquals("Armored=1;Unarmored=0;", exportTemplate(temp, pc));
+		assertEquals("Export should restore the equipment set", "0.1",
+			pc.getCalcEquipSetId());
+		assertEquals("1", evaluateToken("VAR.ArmorWorn.INTVAL", pc));
+	}
+
+	/**
+	 * Check that two characters exported at the same time each get their
+	 * own equipment, skills and abilities, even though the tokens producing
+	 * them are shared and hold the lists they build.
+	 * @throws Exception 
+	 */
+	public void testConcurrentExport() throws Exception
+	{
+		PlayerCharacter first = getCharacter();
+		first.addEquipment(weapon);
+		first.addEquipment(gem);
+		Ability alertness = new Ability();
+		alertness.setName("Alertness");
+		alertness.setCDOMCategory(AbilityCategory.FEAT);
+		applyAbility(first, AbilityCategory.FEAT, alertness, null);
+
+		final PlayerCharacter second = new PlayerCharacter();
+		Race otherRace = new Race();
+		otherRace.setName("OtherRace");
+		second.setRace(otherRace);
+		setPCStat(second, dex, 12);
+		setPCStat(second, intel, 10);
+		second.incrementClassLevel(2, myClass, true);
+		SkillRankControl.modRanks(2.0, myClass, true, second, tumble);
+		second.addEquipment(armor);
+		Ability toughness = new Ability();
+		toughness.setName("Toughness");
+		toughness.setCDOMCategory(AbilityCategory.FEAT);
+		applyAbility(second, AbilityCategory.FEAT, toughness, null);
+		second.calcActiveBonuses();
+
+		final File temp = File.createTempFile("testTemplate", ".ftl");
+		temp.deleteOnExit();
+		writeTemplate(temp, "<#list 0..2 as i>${pcstring('EQ.' + i + '.NAME')};"
+			+ "${pcstring('SKILL.' + i)}=${pcstring('SKILL.' + i + '.TOTAL')};"
+			+ "${pcstring('ABILITY.FEAT.' + i)};</#list>"
+			+ "${pcstring('ABILITYLIST.FEAT')}");
+
+		final String firstSheet = exportTemplate(temp, first);
+		final String secondSheet = exportTemplate(temp, second);
+		assertTrue(firstSheet, firstSheet.contains("TestWpn"));
+		assertTrue(firstSheet, firstSheet.contains("Alertness"));
+		assertTrue(secondSheet, secondSheet.contains("TestArmorSuit"));
+		assertTrue(secondSheet, secondSheet.contains("Toughness"));
+		assertFalse(secondSheet, secondSheet.contains("Alertness"));
+
+		final int exports = 50;
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try
+		{
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for (final PlayerCharacter pc : new PlayerCharacter[]{first,
+				second})
+			{
+				final String expected =
+						pc == first ? firstSheet : secondSheet;
+				results.add(pool.submit(new Callable<String>()
+				{
+					@Override
+					public String call() throws Exception
+					{
+						start.await();
+						for (int i = 0; i < exports; i++)
+						{
+							String sheet = exportTemplate(temp, pc);
+							if (!expected.equals(sheet))
+							{
+								return sheet;
+							}
+						}
+						return expected;
+					}
+				}));
+			}
+			start.countDown();
+			assertEquals(firstSheet, results.get(0).get());
+			assertEquals(secondSheet, results.get(1).get());
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	private void writeTemplate(File template, String contents)
+		throws IOException
+	{
+		BufferedWriter out = new BufferedWriter(new FileWriter(template));
+		out.write(contents);
+		out.close();
+	}
+
+	private String exportTemplate(File template, PlayerCharacter pc)
+		throws Exception
+	{
+		StringWriter retWriter = new StringWriter();
+		BufferedWriter bufWriter = new BufferedWriter(retWriter);
+		new ExportHandler(template).write(pc, bufWriter);
+		bufWriter.flush();
+		return retWriter.toString();
+	}
+
 	private String evaluateToken(String token, PlayerCharacter pc)
 		throws IOException
 	{
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.io;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import pcgen.core.GameMode;
+import pcgen.core.PlayerCharacter;
+import pcgen.facade.core.CampaignFacade;
+import pcgen.facade.core.DataSetFacade;
+import pcgen.facade.core.SourceSelectionFacade;
+import pcgen.facade.core.UIDelegate;
+import pcgen.facade.util.ListFacades;
+import pcgen.persistence.SourceFileLoader;
+import pcgen.system.CharacterManager;
+import pcgen.system.ConsoleUIDelegate;
+import pcgen.system.PCGenSettings;
+import pcgen.util.TestHelper;
+
+/**
+ * Tests saving characters to file with PCGIOHandler.
+ */
+@SuppressWarnings("nls")
+public class PCGIOHandlerTest extends TestCase
+{
+	/** The settings file we will generate and use. */
+	private static final String TEST_CONFIG_FILE = "config.ini.junit";
+
+	/** The folder holding the sample characters. */
+	private static final String CHARACTER_FOLDER = "characters";
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private File tempDir;
+
+	private File backupDir;
+
+	private boolean oldCreateBackup;
+
+	private String oldBackupDir;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+		tempDir = Files.createTempDirectory("pcgiohandler").toFile();
+		backupDir = new File(tempDir, "backup");
+		backupDir.mkdir();
+		oldCreateBackup = PCGenSettings.getCreatePcgBackup();
+		oldBackupDir = PCGenSettings.getBackupPcgDir();
+		PCGenSettings.OPTIONS_CONTEXT.setBoolean(
+			PCGenSettings.OPTION_CREATE_PCG_BACKUP, true);
+		PCGenSettings.getInstance().setProperty(PCGenSettings.BACKUP_PCG_PATH,
+			backupDir.getAbsolutePath());
+	}
+
+	@Override
+	protected void tearDown() throws Exception
+	{
+		PCGenSettings.OPTIONS_CONTEXT.setBoolean(
+			PCGenSettings.OPTION_CREATE_PCG_BACKUP, oldCreateBackup);
+		PCGenSettings.getInstance().setProperty(PCGenSettings.BACKUP_PCG_PATH,
+			oldBackupDir == null ? "" : oldBackupDir);
+		delete(tempDir);
+		super.tearDown();
+	}
+
+	private static void delete(File file)
+	{
+		File[] children = file.listFiles();
+		if (children != null)
+		{
+			for (File child : children)
+			{
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private static String read(File file) throws IOException
+	{
+		return new String(Files.readAllBytes(file.toPath()), UTF_8);
+	}
+
+	/**
+	 * Check that a backup copies the file to the backup folder, replacing
+	 * any older backup, and leaves the original in place.
+	 * @throws Exception
+	 */
+	public void testCreateBackupForFile() throws Exception
+	{
+		File target = new File(tempDir, "target.pcg");
+		File backup = new File(backupDir, "target.pcg.bak");
+		Files.write(target.toPath(), "current".getBytes(UTF_8));
+		Files.write(backup.toPath(), "older".getBytes(UTF_8));
+
+		new PCGIOHandler().createBackupForFile(target);
+
+		assertEquals("current", read(target));
+		assertEquals("current", read(backup));
+	}
+
+	/**
+	 * Check that replacing a file moves the new contents over the old and
+	 * leaves no source file behind.
+	 * @throws Exception
+	 */
+	public void testReplaceFile() throws Exception
+	{
+		File target = new File(tempDir, "target.pcg");
+		File source = new File(tempDir, "target.pcg.tmp");
+		Files.write(target.toPath(), "old".getBytes(UTF_8));
+		Files.write(source.toPath(), "new".getBytes(UTF_8));
+
+		PCGIOHandler.replaceFile(source, target);
+
+		assertFalse("Source file left behind", source.exists());
+		assertEquals("new", read(target));
+	}
+
+	/**
+	 * Check that a failed replacement is reported and removes the source.
+	 * @throws Exception
+	 */
+	public void testReplaceFileFailure() throws Exception
+	{
+		File target = new File(new File(tempDir, "missing"), "target.pcg");
+		File source = new File(tempDir, "target.pcg.tmp");
+		Files.write(source.toPath(), "new".getBytes(UTF_8));
+
+		try
+		{
+			PCGIOHandler.replaceFile(source, target);
+			fail("Replacing a file in a missing folder should fail");
+		}
+		catch (IOException e)
+		{
+			// Expected
+		}
+		assertFalse("Source file left behind", source.exists());
+		assertFalse("Target file created", target.exists());
+	}
+
+	/**
+	 * Check that each sample character survives being saved and read again.
+	 * Each character is read with its sources loaded, saved over an existing
+	 * file (which is backed up first) and read back from that file, and then
+	 * each section written for the reloaded character is compared with the
+	 * section written for the original.
+	 * @throws Exception
+	 */
+	public void testSampleCharacterRoundTrip() throws Exception
+	{
+		File[] characterFiles =
+				new File(CHARACTER_FOLDER).listFiles(new FilenameFilter()
+				{
+					@Override
+					public boolean accept(File dir, String name)
+					{
+						return PCGFile.isPCGenCharacterFile(new File(dir,
+							name));
+					}
+				});
+		assertNotNull("Sample characters not found", characterFiles);
+		assertTrue("Sample characters not found", characterFiles.length > 0);
+		Arrays.sort(characterFiles);
+
+		try
+		{
+			TestHelper.loadGameModes(TEST_CONFIG_FILE);
+			UIDelegate uiDelegate = new ConsoleUIDelegate();
+			for (File characterFile : characterFiles)
+			{
+				String name = characterFile.getName();
+				SourceSelectionFacade sources =
+						CharacterManager.getRequiredSourcesForCharacter(
+							characterFile, uiDelegate);
+				assertNotNull("No sources for " + name, sources);
+				SourceFileLoader loader =
+						new SourceFileLoader(sources, uiDelegate);
+				loader.execute();
+				DataSetFacade dataset = loader.getDataSetFacade();
+				GameMode mode = (GameMode) dataset.getGameMode();
+				List<CampaignFacade> campaigns =
+						ListFacades.wrap(dataset.getCampaigns());
+
+				PlayerCharacter original =
+						readCharacter(characterFile, campaigns);
+
+				File saved = new File(tempDir, name);
+				Files.write(saved.toPath(), "old".getBytes(UTF_8));
+				new PCGIOHandler().write(original, mode, campaigns, saved);
+				assertFalse("Temporary file left behind for " + name,
+					new File(tempDir, name + ".tmp").exists());
+				assertEquals("Backup of " + name, "old", read(new File(
+					backupDir, name + ".bak")));
+
+				PlayerCharacter reloaded = readCharacter(saved, campaigns);
+
+				List<String> expected =
+						writeSections(original, mode, campaigns);
+				List<String> actual = writeSections(reloaded, mode, campaigns);
+				assertEquals(name, expected.size(), actual.size());
+				for (int i = 0; i < expected.size(); i++)
+				{
+					assertEquals(name + " section " + i, expected.get(i),
+						actual.get(i));
+				}
+			}
+		}
+		finally
+		{
+			new File(TEST_CONFIG_FILE).delete();
+		}
+	}
+
+	/**
+	 * Read a character, failing if any errors are reported.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static PlayerCharacter readCharacter(File characterFile,
+		List<CampaignFacade> campaigns)
+	{
+		PlayerCharacter pc = new PlayerCharacter(false, (List) campaigns);
+		PCGIOHandler ioh = new PCGIOHandler();
+		ioh.read(pc, characterFile.getAbsolutePath());
+		assertEquals(characterFile.getName() + " " + ioh.getErrors(), 0, ioh
+			.getErrors().size());
+		return pc;
+	}
+
+	/**
+	 * Write a character, keeping each section of the output separate.
+	 */
+	private static List<String> writeSections(PlayerCharacter pc,
+		GameMode mode, List<CampaignFacade> campaigns) throws IOException
+	{
+		final List<String> sections = new ArrayList<String>();
+		new PCGVer2Creator(pc, mode, campaigns).writePCG(new Appendable()
+		{
+			@Override
+			public Appendable append(CharSequence csq)
+			{
+				sections.add(csq.toString());
+				return this;
+			}
+
+			@Override
+			public Appendable append(CharSequence csq, int start, int end)
+			{
+				return append(csq.subSequence(start, end));
+			}
+
+			@Override
+			public Appendable append(char c)
+			{
+				return append(String.valueOf(c));
+			}
+		});
+		return sections;
+	}
+}
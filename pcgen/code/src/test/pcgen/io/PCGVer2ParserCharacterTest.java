@@ -22,6 +22,8 @@
  */
 package pcgen.io;
 
+import java.io.BufferedReader;
+import java.io.StringReader;
 import java.util.List;
 
 import pcgen.AbstractCharacterTestCase;
@@ -80,4 +82,35 @@ public class PCGVer2ParserCharacterTest extends AbstractCharacterTestCase
 		List<Object> assocList = pc.getAssocList(tc, AssociationListKey.ADD);
 		assertEquals("Number of associations for ADD " + assocList, 1, assocList.size());
 	}
+
+	/**
+	 * Check that lines read straight from a reader are parsed in the same way
+	 * as lines supplied as an array, and that the version 2 marker is seen.
+	 * @throws Exception
+	 */
+	public void testReadPCG() throws Exception
+	{
+		LoadContext context = Globals.getContext();
+		Race rakshasha =
+				context.getReferenceContext().constructCDOMObject(Race.class, "Rakshasa");
+		context
+			.unconditionallyProcess(rakshasha, "ADD", "SPELLCASTER|Sorcerer");
+		context.getReferenceContext().constructCDOMObject(PCClass.class, "Sorcerer");
+
+		PlayerCharacter pc = getCharacter();
+		pc.setImporting(true);
+		PCGVer2Parser pcgParser = new PCGVer2Parser(pc);
+
+		String pcg =
+				"# A comment\n\n" + IOConstants.TAG_PCGVERSION + ":6.03.00\n"
+					+ "  RACE:Rakshasa|ADD:[SPELLCASTER:Sorcerer|CHOICE:Sorcerer]\n";
+		assertTrue("Version 2 marker not seen",
+			pcgParser.readPCG(new BufferedReader(new StringReader(pcg))));
+		pcgParser.parsePCG();
+
+		assertEquals(rakshasha, pc.getRace());
+		PersistentTransitionChoice<?> tc = rakshasha.getListFor(ListKey.ADD).get(0);
+		List<Object> assocList = pc.getAssocList(tc, AssociationListKey.ADD);
+		assertEquals("Number of associations for ADD " + assocList, 1, assocList.size());
+	}
 }
@@ -0,0 +1,86 @@
+/*
+ * LoggingTest.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.util;
+
+import java.util.Map;
+import java.util.logging.Level;
+
+import junit.framework.TestCase;
+
+import pcgen.rules.persistence.token.ParseResult;
+
+/**
+ * <code>LoggingTest</code> checks the capture of stacks for parse messages
+ * and the counting of parse messages by level and token.
+ */
+public class LoggingTest extends TestCase
+{
+
+	@Override
+	protected void tearDown() throws Exception
+	{
+		Logging.setCaptureParseStacks(false);
+		Logging.setParseToken(null);
+		Logging.clearParseMessages();
+		Logging.resetParseMessageCounts();
+		super.tearDown();
+	}
+
+	/**
+	 * Verify that the stack is only captured for a parse message when
+	 * requested or debugging.
+	 */
+	public void testParseStackCapture()
+	{
+		Logging.setCaptureParseStacks(false);
+		if (!Logging.isDebugMode())
+		{
+			assertNull(new ParseResult.Fail("Not captured").getError().stackTrace);
+		}
+		Logging.setCaptureParseStacks(true);
+		StackTraceElement[] stack =
+				new ParseResult.Fail("Captured").getError().stackTrace;
+		assertNotNull(stack);
+		assertTrue(stack.length > 0);
+	}
+
+	/**
+	 * Verify that parse messages are counted by level and by the token
+	 * being parsed.
+	 */
+	public void testParseMessageCounts()
+	{
+		Logging.resetParseMessageCounts();
+		Logging.addParseMessage(Logging.LST_ERROR, "No token");
+		assertNull(Logging.setParseToken("FOO"));
+		Logging.addParseMessage(Logging.LST_ERROR, "First");
+		Logging.addParseMessage(Logging.LST_WARNING, "Second");
+		new ParseResult.Fail("Third").addMessagesToLog();
+		assertEquals("FOO", Logging.setParseToken(null));
+
+		Map<Level, Map<String, Integer>> counts =
+				Logging.getParseMessageCounts();
+		assertEquals(Integer.valueOf(2), counts.get(Logging.LST_ERROR).get("FOO"));
+		assertEquals(Integer.valueOf(1), counts.get(Logging.LST_ERROR).get("(none)"));
+		assertEquals(Integer.valueOf(1), counts.get(Logging.LST_WARNING).get("FOO"));
+
+		Logging.resetParseMessageCounts();
+		assertTrue(Logging.getParseMessageCounts().isEmpty());
+	}
+}
@@ -287,6 +287,58 @@ public class PJepTest extends AbstractCharacterTestCase
 		assertEquals(-2, jep.getValue(), 0.1);
 	}
 
+	public void testParsedFormulaReused()
+	{
+		final PJEP jep = new PJEP();
+
+		final long misses = PJEP.getFormulaCacheMisses();
+		final long hits = PJEP.getFormulaCacheHits();
+		ParsedFormula parsed = jep.getParsedFormula("IF(MONKLVL<=4,-2,0)+TRUE");
+		assertTrue(parsed.isValid());
+		assertEquals(misses + 1, PJEP.getFormulaCacheMisses());
+		assertSame(parsed, jep.getParsedFormula("IF(MONKLVL<=4,-2,0)+TRUE"));
+		assertEquals(hits + 1, PJEP.getFormulaCacheHits());
+		assertEquals(misses + 1, PJEP.getFormulaCacheMisses());
+
+		assertEquals("Constants should not need a value", 1, parsed
+			.getVariables().size());
+		assertEquals("MONKLVL", parsed.getVariables().get(0).getName());
+		assertTrue(parsed.isResultCachable());
+	}
+
+	public void testParsedFormulaEvaluation()
+	{
+		final PJEP jep = new PJEP();
+
+		ParsedFormula parsed = jep.getParsedFormula("if(MonkLvl<=4,-2,if(MonkLvl<=8,-1,0))");
+		parsed.getVariables().get(0).setValue(3.0);
+		assertEquals(-2.0, ((Number) jep.getValueAsObject(parsed)).doubleValue(), 0.1);
+
+		parsed = jep.getParsedFormula("if(MonkLvl<=4,-2,if(MonkLvl<=8,-1,0))");
+		parsed.getVariables().get(0).setValue(11.0);
+		assertEquals(0.0, ((Number) jep.getValueAsObject(parsed)).doubleValue(), 0.1);
+		assertFalse(jep.hasError());
+	}
+
+	public void testParsedFormulaInvalid()
+	{
+		final PJEP jep = new PJEP();
+
+		ParsedFormula parsed = jep.getParsedFormula("3+(4");
+		assertFalse(parsed.isValid());
+		assertSame(parsed, jep.getParsedFormula("3+(4"));
+		assertNull(jep.getValueAsObject(parsed));
+	}
+
+	public void testParsedFormulaRollNotCachable()
+	{
+		final PJEP jep = new PJEP();
+
+		ParsedFormula parsed = jep.getParsedFormula("roll(\"1d6\")+5");
+		assertTrue(parsed.isValid());
+		assertFalse(parsed.isResultCachable());
+	}
+
 	public void testJepIf()
 	{
 		final PlayerCharacter character = new PlayerCharacter();
@@ -0,0 +1,99 @@
+/*
+ * PjepPoolTest.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.util;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+/**
+ * <code>PjepPoolTest</code> checks that parsers are reused by the thread
+ * which released them and that unbalanced releases are detected.
+ */
+public class PjepPoolTest extends TestCase
+{
+
+	/**
+	 * Verify that a released parser is reused by the same thread, and that
+	 * the count of acquired parsers is kept.
+	 */
+	public void testReuseOnThread()
+	{
+		PjepPool pool = PjepPool.getInstance();
+		int used = pool.getUsedCount();
+		PJEP first = pool.aquire();
+		assertEquals(used + 1, pool.getUsedCount());
+		PJEP nested = pool.aquire();
+		assertNotSame(first, nested);
+		assertEquals(used + 2, pool.getUsedCount());
+		pool.release(nested);
+		pool.release(first);
+		assertEquals(used, pool.getUsedCount());
+		assertSame(first, pool.aquire());
+		pool.release(first);
+	}
+
+	/**
+	 * Verify that parsers released by one thread are not handed out to
+	 * another.
+	 * @throws Exception
+	 */
+	public void testThreadConfined() throws Exception
+	{
+		final PjepPool pool = PjepPool.getInstance();
+		final PJEP mine = pool.aquire();
+		pool.release(mine);
+		final AtomicReference<PJEP> theirs = new AtomicReference<PJEP>();
+		Thread other = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				PJEP jep = pool.aquire();
+				theirs.set(jep);
+				pool.release(jep);
+			}
+		};
+		other.start();
+		other.join();
+		assertNotNull(theirs.get());
+		assertNotSame(mine, theirs.get());
+		assertSame(mine, pool.aquire());
+		pool.release(mine);
+	}
+
+	/**
+	 * Verify that releasing a parser twice is detected and does not leave it
+	 * free to be handed out twice.
+	 */
+	public void testDoubleRelease()
+	{
+		PjepPool pool = PjepPool.getInstance();
+		int bad = pool.getBadReleaseCount();
+		PJEP jep = pool.aquire();
+		pool.release(jep);
+		pool.release(jep);
+		assertEquals(bad + 1, pool.getBadReleaseCount());
+		PJEP first = pool.aquire();
+		PJEP second = pool.aquire();
+		assertNotSame(first, second);
+		pool.release(second);
+		pool.release(first);
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.cdom.facet;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import pcgen.cdom.enumeration.CharID;
+import pcgen.cdom.enumeration.DataSetID;
+import pcgen.cdom.enumeration.ObjectKey;
+import pcgen.cdom.enumeration.SkillCost;
+import pcgen.core.PCClass;
+import pcgen.core.Skill;
+
+public class SkillCostFacetTest extends TestCase
+{
+	private CharID id;
+	private CharID altid;
+	private SkillCostFacet facet = new SkillCostFacet();
+	private Skill s1, s2, ex;
+	private PCClass cl1, cl2;
+	private Object source1 = new Object();
+	private Object source2 = new Object();
+
+	@Override
+	public void setUp() throws Exception
+	{
+		super.setUp();
+		DataSetID cid = DataSetID.getID();
+		id = CharID.getID(cid);
+		altid = CharID.getID(cid);
+		s1 = new Skill();
+		s1.setName("S1");
+		s2 = new Skill();
+		s2.setName("S2");
+		ex = new Skill();
+		ex.setName("Ex");
+		ex.put(ObjectKey.EXCLUSIVE, Boolean.TRUE);
+		cl1 = new PCClass();
+		cl1.setName("Cl1");
+		cl2 = new PCClass();
+		cl2.setName("Cl2");
+	}
+
+	@Test
+	public void testNullArguments()
+	{
+		try
+		{
+			facet.isClassSkill(id, null, s1);
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			// Expected
+		}
+		try
+		{
+			facet.isCrossClassSkill(id, cl1, null);
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			// Expected
+		}
+	}
+
+	@Test
+	public void testEmpty()
+	{
+		assertFalse(facet.isClassSkill(id, cl1, s1));
+		assertFalse(facet.isCrossClassSkill(id, cl1, s1));
+		assertEquals(SkillCost.CROSS_CLASS,
+			facet.skillCostForPCClass(id, s1, cl1));
+		assertEquals(SkillCost.EXCLUSIVE,
+			facet.skillCostForPCClass(id, ex, cl1));
+	}
+
+	@Test
+	public void testClassSkill()
+	{
+		facet.add(id, s1, SkillCost.CLASS, cl1, source1);
+		assertTrue(facet.isClassSkill(id, cl1, s1));
+		assertFalse(facet.isCrossClassSkill(id, cl1, s1));
+		assertEquals(SkillCost.CLASS, facet.skillCostForPCClass(id, s1, cl1));
+		// Only for the given class, skill and character
+		assertFalse(facet.isClassSkill(id, cl2, s1));
+		assertFalse(facet.isClassSkill(id, cl1, s2));
+		assertFalse(facet.isClassSkill(altid, cl1, s1));
+	}
+
+	@Test
+	public void testClassOverridesCrossClass()
+	{
+		facet.add(id, s1, SkillCost.CROSS_CLASS, cl1, source1);
+		assertTrue(facet.isCrossClassSkill(id, cl1, s1));
+		facet.add(id, s1, SkillCost.CLASS, cl1, source2);
+		assertFalse(facet.isCrossClassSkill(id, cl1, s1));
+		assertEquals(SkillCost.CLASS, facet.skillCostForPCClass(id, s1, cl1));
+		facet.remove(id, s1, SkillCost.CLASS, cl1, source2);
+		assertTrue(facet.isCrossClassSkill(id, cl1, s1));
+		assertEquals(SkillCost.CROSS_CLASS,
+			facet.skillCostForPCClass(id, s1, cl1));
+	}
+
+	@Test
+	public void testExclusive()
+	{
+		facet.add(id, ex, SkillCost.CROSS_CLASS, cl1, source1);
+		assertEquals(SkillCost.CROSS_CLASS,
+			facet.skillCostForPCClass(id, ex, cl1));
+		assertEquals(SkillCost.EXCLUSIVE,
+			facet.skillCostForPCClass(id, ex, cl2));
+		facet.add(id, ex, SkillCost.CLASS, cl2, source1);
+		assertEquals(SkillCost.CLASS, facet.skillCostForPCClass(id, ex, cl2));
+	}
+
+	@Test
+	public void testRemoveNeedsAllSources()
+	{
+		facet.add(id, s1, SkillCost.CLASS, cl1, source1);
+		facet.add(id, s1, SkillCost.CLASS, cl1, source2);
+		facet.remove(id, s1, SkillCost.CLASS, cl1, source1);
+		assertTrue(facet.isClassSkill(id, cl1, s1));
+		facet.remove(id, s1, SkillCost.CLASS, cl1, source2);
+		assertFalse(facet.isClassSkill(id, cl1, s1));
+	}
+
+	@Test
+	public void testRemoveAllFromSource()
+	{
+		facet.add(id, s1, SkillCost.CLASS, cl1, source1);
+		facet.add(id, s2, SkillCost.CROSS_CLASS, cl2, source1);
+		facet.add(id, s2, SkillCost.CLASS, cl1, source2);
+		facet.removeAllFromSource(id, source1);
+		assertFalse(facet.isClassSkill(id, cl1, s1));
+		assertFalse(facet.isCrossClassSkill(id, cl2, s2));
+		assertTrue(facet.isClassSkill(id, cl1, s2));
+	}
+
+	@Test
+	public void testCopyContents()
+	{
+		facet.add(id, s1, SkillCost.CLASS, cl1, source1);
+		facet.add(id, s2, SkillCost.CROSS_CLASS, cl2, source1);
+		facet.copyContents(id, altid);
+		assertTrue(facet.isClassSkill(altid, cl1, s1));
+		assertTrue(facet.isCrossClassSkill(altid, cl2, s2));
+		// The copy is independent of the original
+		facet.remove(id, s1, SkillCost.CLASS, cl1, source1);
+		assertTrue(facet.isClassSkill(altid, cl1, s1));
+		facet.add(altid, s2, SkillCost.CLASS, cl2, source1);
+		assertFalse(facet.isClassSkill(id, cl2, s2));
+	}
+
+	@Test
+	public void testManySkillsAndClasses()
+	{
+		Skill[] skills = new Skill[40];
+		PCClass[] classes = new PCClass[10];
+		for (int i = 0; i < skills.length; i++)
+		{
+			skills[i] = new Skill();
+			skills[i].setName("Skill" + i);
+		}
+		for (int i = 0; i < classes.length; i++)
+		{
+			classes[i] = new PCClass();
+			classes[i].setName("Class" + i);
+		}
+		for (int i = 0; i < skills.length; i++)
+		{
+			for (int j = 0; j < classes.length; j++)
+			{
+				if ((i + j) % 3 == 0)
+				{
+					facet.add(id, skills[i], SkillCost.CLASS, classes[j],
+						source1);
+				}
+			}
+		}
+		for (int i = 0; i < skills.length; i++)
+		{
+			for (int j = 0; j < classes.length; j++)
+			{
+				assertEquals(skills[i] + " " + classes[j], (i + j) % 3 == 0,
+					facet.isClassSkill(id, classes[j], skills[i]));
+			}
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA
+ */
+package pcgen.cdom.facet.base;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import pcgen.cdom.enumeration.CharID;
+import pcgen.cdom.enumeration.DataSetID;
+
+public class ChangeCountedCacheTest extends TestCase
+{
+	private CharID id;
+	private CharID altid;
+	private ChangeCountedCache<String> cache;
+
+	private static class TestFacet extends AbstractStorageFacet<CharID>
+	{
+		@Override
+		public void copyContents(CharID source, CharID copy)
+		{
+			setCache(copy, getCache(source));
+		}
+	}
+
+	@Override
+	public void setUp() throws Exception
+	{
+		super.setUp();
+		DataSetID cid = DataSetID.getID();
+		id = CharID.getID(cid);
+		altid = CharID.getID(cid);
+		cache = new ChangeCountedCache<String>(id);
+		cache.startListening();
+	}
+
+	@Override
+	public void tearDown() throws Exception
+	{
+		cache.stopListening();
+		super.tearDown();
+	}
+
+	@Test
+	public void testHeldByIdentity()
+	{
+		Object key = new Object();
+		String subKey = new String("Sub");
+		long count = cache.getChangeCount(1);
+		assertTrue(cache.put(key, null, count, 1, "Value"));
+		assertTrue(cache.put(key, subKey, count, 1, "SubValue"));
+		assertEquals("Value", cache.get(key, null, 1));
+		assertEquals("SubValue", cache.get(key, subKey, 1));
+		assertNull(cache.get(key, new String("Sub"), 1));
+		assertNull(cache.get(new Object(), null, 1));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testSerialChange()
+	{
+		Object key = new Object();
+		long count = cache.getChangeCount(1);
+		assertTrue(cache.put(key, null, count, 1, "Value"));
+		assertNull(cache.get(key, null, 2));
+		// A value calculated before the serial changed is not held
+		assertFalse(cache.put(key, null, count, 3, "Stale"));
+		assertNull(cache.get(key, null, 3));
+	}
+
+	@Test
+	public void testFacetChange()
+	{
+		TestFacet facet = new TestFacet();
+		Object key = new Object();
+		long count = cache.getChangeCount(1);
+		assertTrue(cache.put(key, null, count, 1, "Value"));
+		// Changes to other resources are not relevant
+		facet.setCache(altid, "Other");
+		assertEquals("Value", cache.get(key, null, 1));
+		facet.setCache(id, "Changed");
+		assertNull(cache.get(key, null, 1));
+	}
+
+	@Test
+	public void testChangeDuringCalculation()
+	{
+		TestFacet facet = new TestFacet();
+		Object key = new Object();
+		long count = cache.getChangeCount(1);
+		facet.setCache(id, "Changed");
+		assertFalse(cache.put(key, null, count, 1, "Stale"));
+		assertNull(cache.get(key, null, 1));
+		assertTrue(cache.put(key, null, cache.getChangeCount(1), 1, "Value"));
+		assertEquals("Value", cache.get(key, null, 1));
+	}
+
+	@Test
+	public void testStopListening()
+	{
+		TestFacet facet = new TestFacet();
+		Object key = new Object();
+		assertTrue(cache.put(key, null, cache.getChangeCount(1), 1, "Value"));
+		cache.stopListening();
+		assertNull(cache.get(key, null, 1));
+		assertTrue(cache.put(key, null, cache.getChangeCount(1), 1, "Value"));
+		facet.setCache(id, "Unheard");
+		assertEquals("Value", cache.get(key, null, 1));
+		cache.startListening();
+		assertNull(cache.get(key, null, 1));
+	}
+}
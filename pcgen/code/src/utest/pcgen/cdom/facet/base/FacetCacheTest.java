@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA
+ */
+package pcgen.cdom.facet.base;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import pcgen.cdom.base.PCGenIdentifier;
+import pcgen.cdom.enumeration.CharID;
+import pcgen.cdom.enumeration.DataSetID;
+
+public class FacetCacheTest extends TestCase
+{
+	private CharID id;
+	private CharID altid;
+
+	private static class FirstFacet extends AbstractStorageFacet<CharID>
+	{
+		@Override
+		public void copyContents(CharID source, CharID copy)
+		{
+			setCache(copy, getCache(source));
+		}
+	}
+
+	private static class SecondFacet extends AbstractStorageFacet<CharID>
+	{
+		@Override
+		public void copyContents(CharID source, CharID copy)
+		{
+			setCache(copy, getCache(source));
+		}
+	}
+
+	private static class LateFacet extends AbstractStorageFacet<CharID>
+	{
+		@Override
+		public void copyContents(CharID source, CharID copy)
+		{
+			setCache(copy, getCache(source));
+		}
+	}
+
+	@Override
+	public void setUp() throws Exception
+	{
+		super.setUp();
+		DataSetID cid = DataSetID.getID();
+		id = CharID.getID(cid);
+		altid = CharID.getID(cid);
+	}
+
+	@Test
+	public void testSlotsByClass()
+	{
+		FirstFacet first = new FirstFacet();
+		SecondFacet second = new SecondFacet();
+		assertNull(first.getCache(id));
+		assertNull(first.setCache(id, "First"));
+		assertNull(second.setCache(id, "Second"));
+		assertEquals("First", first.getCache(id));
+		assertEquals("Second", second.getCache(id));
+		assertNull(first.getCache(altid));
+		// Facets of the same class share the stored information
+		assertEquals("First", new FirstFacet().getCache(id));
+		assertEquals("First", first.setCache(id, "Replaced"));
+		assertEquals("Replaced", first.removeCache(id));
+		assertNull(first.getCache(id));
+		assertEquals("Second", second.getCache(id));
+	}
+
+	@Test
+	public void testFacetAfterIdentifier()
+	{
+		// The slot of LateFacet is assigned after the CharID was created
+		LateFacet late = new LateFacet();
+		assertNull(late.getCache(id));
+		assertNull(late.removeCache(id));
+		late.setCache(id, "Late");
+		assertEquals("Late", late.getCache(id));
+		late.copyContents(id, altid);
+		assertEquals("Late", late.getCache(altid));
+	}
+
+	@Test
+	public void testPeekAtCache()
+	{
+		FirstFacet first = new FirstFacet();
+		SecondFacet second = new SecondFacet();
+		Map<Class<?>, Object> view = AbstractStorageFacet.peekAtCache(id);
+		assertTrue(view.isEmpty());
+		first.setCache(id, "First");
+		second.setCache(id, "Second");
+		assertEquals(2, view.size());
+		assertEquals("First", view.get(FirstFacet.class));
+		assertTrue(view.containsKey(SecondFacet.class));
+		assertFalse(view.containsKey(LateFacet.class));
+		first.removeCache(id);
+		assertEquals(1, view.size());
+		assertEquals(SecondFacet.class, view.keySet().iterator().next());
+		try
+		{
+			view.clear();
+			fail("View of the cache should be read-only");
+		}
+		catch (UnsupportedOperationException e)
+		{
+			//Expected
+		}
+	}
+
+	@Test
+	public void testDeferredCopy()
+	{
+		FirstFacet first = new FirstFacet();
+		SecondFacet second = new SecondFacet();
+		LateFacet late = new LateFacet();
+		first.setCache(id, "First");
+		second.setCache(id, "Second");
+		late.setCache(id, "Late");
+		AbstractStorageFacet.deferCopyContents(id, altid, Arrays.asList(first,
+			second, late));
+		// A change to the source copies the original information first
+		first.setCache(id, "Changed");
+		assertEquals("Changed", first.getCache(id));
+		assertEquals("First", first.getCache(altid));
+		// A change to the copy does not affect the source
+		second.setCache(altid, "Other");
+		assertEquals("Second", second.getCache(id));
+		assertEquals("Other", second.getCache(altid));
+		// The view of the copy holds everything copied
+		Map<Class<?>, Object> view = AbstractStorageFacet.peekAtCache(altid);
+		assertEquals(3, view.size());
+		assertEquals("Late", view.get(LateFacet.class));
+	}
+
+	@Test
+	public void testDiscardDeferredCopy()
+	{
+		FirstFacet first = new FirstFacet();
+		SecondFacet second = new SecondFacet();
+		first.setCache(id, "First");
+		second.setCache(id, "Second");
+		AbstractStorageFacet.deferCopyContents(id, altid, Arrays.asList(first,
+			second));
+		assertEquals("First", first.getCache(altid));
+		AbstractStorageFacet.discardDeferredCopy(altid);
+		// Nothing further is copied once the copy is discarded
+		second.setCache(id, "Changed");
+		assertNull(second.getCache(altid));
+		assertEquals("First", first.getCache(altid));
+		AbstractStorageFacet.discardDeferredCopy(altid);
+	}
+
+	@Test
+	public void testChangeListeners()
+	{
+		final List<PCGenIdentifier> changed = new ArrayList<PCGenIdentifier>();
+		CacheAccessListener listener = new CacheAccessListener()
+		{
+			@Override
+			public void cacheRead(PCGenIdentifier readId, Class<?> facetClass,
+				boolean changeTracked)
+			{
+				//Not relevant to this test
+			}
+
+			@Override
+			public void cacheChanged(PCGenIdentifier changedId,
+				Class<?> facetClass)
+			{
+				changed.add(changedId);
+			}
+		};
+		FirstFacet first = new FirstFacet();
+		AbstractStorageFacet.addChangeListener(id, listener);
+		first.setCache(id, "First");
+		// Changes to other resources are not reported
+		first.setCache(altid, "Other");
+		assertEquals(Arrays.asList(id), changed);
+		first.removeCache(id);
+		assertEquals(2, changed.size());
+		AbstractStorageFacet.removeChangeListener(id, listener);
+		first.setCache(id, "Again");
+		assertEquals(2, changed.size());
+	}
+}
+
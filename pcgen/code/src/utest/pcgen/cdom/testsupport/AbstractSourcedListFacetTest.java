@@ -29,7 +29,9 @@ import org.junit.Test;
 
 import pcgen.cdom.enumeration.CharID;
 import pcgen.cdom.enumeration.DataSetID;
+import pcgen.cdom.facet.base.AbstractDataFacet;
 import pcgen.cdom.facet.base.AbstractSourcedListFacet;
+import pcgen.cdom.facet.event.DataFacetChangeBatchListener;
 import pcgen.cdom.facet.event.DataFacetChangeEvent;
 import pcgen.cdom.facet.event.DataFacetChangeListener;
 import pcgen.core.bonus.BonusObj;
@@ -951,6 +953,75 @@ public abstract class AbstractSourcedListFacetTest<T> extends TestCase
 
 	abstract protected AbstractSourcedListFacet<CharID, T> getFacet();
 
+	@Test
+	public void testChangeBatch()
+	{
+		Object source1 = new Object();
+		T t1 = getObject();
+		T t2 = getAltObject();
+		AbstractDataFacet.beginChangeBatch(id);
+		getFacet().add(id, t1, source1);
+		getFacet().add(id, t2, source1);
+		assertEquals(2, getFacet().getCount(id));
+		assertEventCount(0, 0);
+		AbstractDataFacet.commitChangeBatch(id);
+		assertEventCount(2, 0);
+		assertFalse(AbstractDataFacet.isChangeBatchOpen(id));
+	}
+
+	@Test
+	public void testChangeBatchCancelled()
+	{
+		Object source1 = new Object();
+		T t1 = getObject();
+		AbstractDataFacet.beginChangeBatch(id);
+		getFacet().add(id, t1, source1);
+		getFacet().remove(id, t1, source1);
+		AbstractDataFacet.commitChangeBatch(id);
+		assertEventCount(0, 0);
+		assertTrue(getFacet().isEmpty(id));
+	}
+
+	@Test
+	public void testChangeBatchListener()
+	{
+		Object source1 = new Object();
+		T t1 = getObject();
+		T t2 = getAltObject();
+		final List<List<DataFacetChangeEvent<CharID, T>>> batches =
+				new ArrayList<List<DataFacetChangeEvent<CharID, T>>>();
+		getFacet().addDataFacetChangeListener(
+			new DataFacetChangeBatchListener<CharID, T>()
+			{
+				@Override
+				public void dataAdded(DataFacetChangeEvent<CharID, T> dfce)
+				{
+					fail("Events should be batched");
+				}
+
+				@Override
+				public void dataRemoved(DataFacetChangeEvent<CharID, T> dfce)
+				{
+					fail("Events should be batched");
+				}
+
+				@Override
+				public void dataChanged(
+					List<DataFacetChangeEvent<CharID, T>> events)
+				{
+					batches.add(new ArrayList<DataFacetChangeEvent<CharID, T>>(
+						events));
+				}
+			});
+		List<T> pct = new ArrayList<T>();
+		pct.add(t1);
+		pct.add(t2);
+		getFacet().addAll(id, pct, source1);
+		assertEquals(1, batches.size());
+		assertEquals(getFacet().getCount(id), batches.get(0).size());
+		assertEventCount(getFacet().getCount(id), 0);
+	}
+
 	abstract protected T getObject();
 
 	protected T getAltObject()
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.gui2.converter;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Observable;
+import java.util.Observer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import pcgen.cdom.enumeration.ListKey;
+import pcgen.core.Campaign;
+import pcgen.persistence.lst.CampaignSourceEntry;
+import pcgen.rules.context.EditorLoadContext;
+
+/**
+ * LSTConverterTest checks that converting several campaigns on worker
+ * threads converts each file once, in order, and writes each output file
+ * whole.
+ */
+public class LSTConverterTest
+{
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private File rootDir;
+	private File outDir;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		rootDir =
+				Files.createTempDirectory("LSTConverterTest").toFile()
+					.getCanonicalFile();
+		outDir = new File(rootDir, "out");
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		delete(rootDir);
+	}
+
+	private static void delete(File file)
+	{
+		File[] children = file.listFiles();
+		if (children != null)
+		{
+			for (File child : children)
+			{
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private File createFile(String name, String contents) throws IOException
+	{
+		File f = new File(new File(rootDir, "data"), name);
+		f.getParentFile().mkdirs();
+		Files.write(f.toPath(), contents.getBytes(UTF_8));
+		return f;
+	}
+
+	private File getOutputFile(File in)
+	{
+		return new File(outDir, in.getParentFile().getName() + File.separator
+			+ in.getName());
+	}
+
+	private static String read(File f) throws IOException
+	{
+		return new String(Files.readAllBytes(f.toPath()), UTF_8);
+	}
+
+	private Campaign createCampaign(String name, List<File> kits)
+		throws IOException
+	{
+		File pcc = createFile(name + ".pcc", "CAMPAIGN:" + name + "\n");
+		Campaign campaign = new Campaign();
+		campaign.setName(name);
+		campaign.setSourceURI(pcc.toURI());
+		for (File kit : kits)
+		{
+			campaign.addToListFor(ListKey.FILE_KIT, new CampaignSourceEntry(
+				campaign, kit.toURI()));
+		}
+		return campaign;
+	}
+
+	private LSTConverter createConverter()
+	{
+		return new LSTConverter(new EditorLoadContext(), rootDir, outDir
+			.getAbsolutePath(), new ConversionDecider()
+		{
+			@Override
+			public String getConversionDecision(String overallDescription,
+				List<String> choiceDescriptions,
+				List<String> choiceTokenResults, int defaultChoice)
+			{
+				return choiceTokenResults.get(defaultChoice);
+			}
+
+			@Override
+			public String getConversionInput(String overallDescription)
+			{
+				return "";
+			}
+		}, new StringWriter());
+	}
+
+	/**
+	 * Check that processCampaigns converts every file of every campaign
+	 * once, in campaign order, even with many more files than it reads
+	 * ahead.
+	 */
+	@Test
+	public void testProcessCampaigns() throws Exception
+	{
+		List<File> expectedOrder = new ArrayList<File>();
+		List<Campaign> campaigns = new ArrayList<Campaign>();
+		File shared = createFile("shared.lst", "KIT:Shared\n");
+		for (String name : Arrays.asList("first", "second"))
+		{
+			List<File> kits = new ArrayList<File>();
+			if (name.equals("first"))
+			{
+				kits.add(shared);
+			}
+			for (int i = 0; i < 10; i++)
+			{
+				kits.add(createFile(name + i + ".lst", "KIT:" + name + i
+					+ "\tEQUIP:Item " + i + "\n# comment\n"));
+			}
+			if (name.equals("second"))
+			{
+				// Already converted for the first campaign
+				kits.add(shared);
+			}
+			Campaign campaign = createCampaign(name, kits);
+			campaigns.add(campaign);
+			expectedOrder.addAll(kits.subList(0, 10 + (name.equals("first")
+				? 1 : 0)));
+			expectedOrder.add(new File(campaign.getSourceURI()));
+		}
+
+		LSTConverter converter = createConverter();
+		final List<URI> notified = new ArrayList<URI>();
+		converter.addObserver(new Observer()
+		{
+			@Override
+			public void update(Observable o, Object arg)
+			{
+				notified.add((URI) arg);
+			}
+		});
+		converter.processCampaigns(campaigns, 2);
+
+		List<LSTConverter.FileConversion> conversions =
+				converter.getFileConversions();
+		assertEquals(expectedOrder.size(), conversions.size());
+		assertEquals(expectedOrder.size(), notified.size());
+		for (int i = 0; i < expectedOrder.size(); i++)
+		{
+			File in = expectedOrder.get(i);
+			assertEquals(in.toURI(), conversions.get(i).getURI());
+			assertEquals(in.toURI(), notified.get(i));
+			assertEquals(0, conversions.get(i).getTokensChanged());
+			File out = getOutputFile(in);
+			assertTrue("Missing " + out, out.exists());
+			assertEquals(read(in), read(out));
+		}
+		for (File f : new File(outDir, "data").listFiles())
+		{
+			assertFalse("Temporary file left " + f, f.getName().endsWith(
+				".tmp"));
+		}
+	}
+
+	/**
+	 * Check that processCampaigns leaves an existing output file alone.
+	 */
+	@Test
+	public void testProcessCampaignsWontOverwrite() throws Exception
+	{
+		File kit = createFile("kit.lst", "KIT:New\n");
+		File out = getOutputFile(kit);
+		out.getParentFile().mkdirs();
+		Files.write(out.toPath(), "KIT:Old\n".getBytes(UTF_8));
+
+		LSTConverter converter = createConverter();
+		converter.processCampaigns(Arrays.asList(createCampaign("only",
+			Arrays.asList(kit))), 1);
+
+		assertEquals("KIT:Old\n", read(out));
+		assertEquals(1, converter.getFileConversions().size());
+	}
+
+	@Test
+	public void testWriteAtomically() throws Exception
+	{
+		File out = new File(rootDir, "written.lst");
+		LSTConverter.writeAtomically(out, "KIT:Written\n");
+		assertEquals("KIT:Written\n", read(out));
+		assertFalse(new File(rootDir, "written.lst.tmp").exists());
+	}
+
+	@Test
+	public void testWriteAtomicallyFailure() throws Exception
+	{
+		// A non empty directory cannot be replaced by the converted file
+		File out = new File(rootDir, "blocked.lst");
+		out.mkdir();
+		Files.write(new File(out, "child").toPath(), "x".getBytes(UTF_8));
+		try
+		{
+			LSTConverter.writeAtomically(out, "KIT:Blocked\n");
+			fail("Writing over a directory should fail");
+		}
+		catch (IOException e)
+		{
+			// Expected
+		}
+		assertTrue(out.isDirectory());
+		assertFalse(new File(rootDir, "blocked.lst.tmp").exists());
+	}
+
+	@Test
+	public void testCountChangedTokens()
+	{
+		assertEquals(0, LSTConverter.countChangedTokens("A\tB\tC", "A\tB\tC"));
+		assertEquals(1, LSTConverter.countChangedTokens("A\tB\tC", "A\tX\tC"));
+		assertEquals(2, LSTConverter.countChangedTokens("A\tB\tC", "X\tB\tY"));
+		assertEquals(1, LSTConverter.countChangedTokens("A\tB", "A\tB\tC"));
+		assertEquals(2, LSTConverter.countChangedTokens("A\tB\tC", "A"));
+		assertEquals(1, LSTConverter.countChangedTokens("A\tB\t", "A\tB"));
+		assertEquals(1, LSTConverter.countChangedTokens("", "A"));
+	}
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.gui2.facade;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * RefreshSchedulerTest checks that RefreshScheduler runs each requested task
+ * once, in order, at the end of a batch or once requests stop arriving on
+ * the event dispatch thread.
+ */
+public class RefreshSchedulerTest
+{
+	private enum Task
+	{
+		FIRST, SECOND, THIRD
+	}
+
+	private final List<Task> run =
+			Collections.synchronizedList(new ArrayList<Task>());
+
+	private final List<Boolean> runOnEDT =
+			Collections.synchronizedList(new ArrayList<Boolean>());
+
+	private RefreshScheduler<Task> scheduler;
+
+	@Before
+	public void setUp()
+	{
+		scheduler = createScheduler(new RefreshScheduler.TaskRunner<Task>()
+		{
+			@Override
+			public void run(Task task)
+			{
+				record(task);
+			}
+		}, 10);
+	}
+
+	private RefreshScheduler<Task> createScheduler(
+		RefreshScheduler.TaskRunner<Task> runner, int delay)
+	{
+		return new RefreshScheduler<Task>(Task.class, runner, delay);
+	}
+
+	private void record(Task task)
+	{
+		run.add(task);
+		runOnEDT.add(SwingUtilities.isEventDispatchThread());
+	}
+
+	/**
+	 * Check that a task requested off the event dispatch thread is run
+	 * immediately, on the requesting thread.
+	 */
+	@Test
+	public void testRequestOffEDT()
+	{
+		scheduler.request(EnumSet.of(Task.SECOND));
+		assertEquals(Arrays.asList(Task.SECOND), run);
+		assertEquals(Arrays.asList(Boolean.FALSE), runOnEDT);
+		assertFalse(scheduler.hasPendingTasks());
+	}
+
+	/**
+	 * Check that the tasks requested during a batch are each run once, in
+	 * the order of their declaration, when the batch ends.
+	 */
+	@Test
+	public void testBatchCoalesces()
+	{
+		scheduler.beginBatch();
+		scheduler.request(EnumSet.of(Task.THIRD));
+		scheduler.request(EnumSet.of(Task.FIRST, Task.THIRD));
+		scheduler.request(EnumSet.of(Task.FIRST));
+		assertTrue(run.isEmpty());
+		assertTrue(scheduler.hasPendingTasks());
+		scheduler.endBatch();
+		assertEquals(Arrays.asList(Task.FIRST, Task.THIRD), run);
+		assertFalse(scheduler.hasPendingTasks());
+	}
+
+	/**
+	 * Check that the tasks requested in nested batches are only run when the
+	 * outermost batch ends.
+	 */
+	@Test
+	public void testNestedBatch()
+	{
+		scheduler.beginBatch();
+		scheduler.request(EnumSet.of(Task.SECOND));
+		scheduler.beginBatch();
+		scheduler.request(EnumSet.of(Task.FIRST, Task.SECOND));
+		scheduler.endBatch();
+		assertTrue(run.isEmpty());
+		scheduler.endBatch();
+		assertEquals(Arrays.asList(Task.FIRST, Task.SECOND), run);
+	}
+
+	/**
+	 * Check that a flush off the event dispatch thread runs the pending tasks
+	 * even during a batch, and leaves nothing for the end of the batch.
+	 */
+	@Test
+	public void testFlushOffEDT()
+	{
+		scheduler.beginBatch();
+		scheduler.request(EnumSet.of(Task.THIRD, Task.SECOND));
+		scheduler.flush();
+		assertEquals(Arrays.asList(Task.SECOND, Task.THIRD), run);
+		assertEquals(Arrays.asList(Boolean.FALSE, Boolean.FALSE), runOnEDT);
+		scheduler.endBatch();
+		assertEquals(2, run.size());
+	}
+
+	/**
+	 * Check that a task requested while the tasks are being run is run
+	 * before the flush returns, and is not run twice.
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testRequestWhileRunning()
+	{
+		final RefreshScheduler<Task>[] holder = new RefreshScheduler[1];
+		holder[0] = createScheduler(new RefreshScheduler.TaskRunner<Task>()
+		{
+			@Override
+			public void run(Task task)
+			{
+				record(task);
+				if (task == Task.SECOND)
+				{
+					holder[0].request(EnumSet.of(Task.FIRST, Task.THIRD));
+				}
+			}
+		}, 10);
+		holder[0].request(EnumSet.of(Task.SECOND));
+		assertEquals(Arrays.asList(Task.SECOND, Task.FIRST, Task.THIRD), run);
+	}
+
+	/**
+	 * Check that tasks requested on the event dispatch thread are held until
+	 * requests stop, and then each run once on the event dispatch thread.
+	 */
+	@Test
+	public void testRequestOnEDTCoalesces() throws Exception
+	{
+		final CountDownLatch done = new CountDownLatch(1);
+		final RefreshScheduler<Task> edtScheduler =
+				createScheduler(new RefreshScheduler.TaskRunner<Task>()
+				{
+					@Override
+					public void run(Task task)
+					{
+						record(task);
+						if (task == Task.THIRD)
+						{
+							done.countDown();
+						}
+					}
+				}, 50);
+		SwingUtilities.invokeAndWait(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				edtScheduler.request(EnumSet.of(Task.THIRD));
+				edtScheduler.request(EnumSet.of(Task.FIRST));
+				edtScheduler.request(EnumSet.of(Task.THIRD, Task.FIRST));
+				assertTrue(run.isEmpty());
+			}
+		});
+		assertTrue("Tasks were not run", done.await(10, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList(Task.FIRST, Task.THIRD), run);
+		assertEquals(Arrays.asList(Boolean.TRUE, Boolean.TRUE), runOnEDT);
+	}
+
+	/**
+	 * Check that disposing of the scheduler discards the pending tasks.
+	 */
+	@Test
+	public void testDispose()
+	{
+		scheduler.beginBatch();
+		scheduler.request(EnumSet.of(Task.FIRST));
+		scheduler.dispose();
+		assertFalse(scheduler.hasPendingTasks());
+		scheduler.endBatch();
+		assertTrue(run.isEmpty());
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * PipedExportTest.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+
+import org.junit.Test;
+
+/**
+ * PipedExportTest checks that the output of a PipedExport is passed to its
+ * reader, and that failures of the export are reported.
+ */
+public class PipedExportTest
+{
+
+	private static final int LINES = 20000;
+
+	private static final String LINE = "<fo:block>Line of output</fo:block>";
+
+	/**
+	 * Verify that output much larger than the pipe is read in full.
+	 */
+	@Test
+	public void testLargeOutput() throws Exception
+	{
+		PipedExport export = new PipedExport()
+		{
+			@Override
+			protected void export(BufferedWriter out) throws IOException
+			{
+				for (int i = 0; i < LINES; i++)
+				{
+					out.write(LINE);
+					out.write('\n');
+				}
+			}
+		};
+		export.start();
+		Reader reader = export.getReader();
+		char[] buf = new char[1000];
+		long total = 0;
+		int n;
+		while ((n = reader.read(buf)) >= 0)
+		{
+			total += n;
+		}
+		export.close();
+		export.checkError();
+		assertEquals((long) LINES * (LINE.length() + 1), total);
+	}
+
+	/**
+	 * Verify that a failed export is reported after the output is read.
+	 */
+	@Test
+	public void testExportFailure() throws Exception
+	{
+		final ExportException failure = new ExportException(null, "Failed");
+		PipedExport export = new PipedExport()
+		{
+			@Override
+			protected void export(BufferedWriter out) throws IOException,
+				ExportException
+			{
+				out.write(LINE);
+				throw failure;
+			}
+		};
+		export.start();
+		Reader reader = export.getReader();
+		StringBuilder sb = new StringBuilder();
+		int c;
+		while ((c = reader.read()) >= 0)
+		{
+			sb.append((char) c);
+		}
+		export.close();
+		assertEquals(LINE, sb.toString());
+		try
+		{
+			export.checkError();
+			fail("Export failure should be reported");
+		}
+		catch (ExportException e)
+		{
+			assertSame(failure, e);
+		}
+	}
+
+	/**
+	 * Verify that the export does not wait forever if the reader stops
+	 * reading part way through the output.
+	 */
+	@Test(timeout = 30000)
+	public void testReaderClosedEarly() throws Exception
+	{
+		PipedExport export = new PipedExport()
+		{
+			@Override
+			protected void export(BufferedWriter out) throws IOException
+			{
+				for (int i = 0; i < LINES; i++)
+				{
+					out.write(LINE);
+					out.write('\n');
+				}
+			}
+		};
+		export.start();
+		export.getReader().read(new char[100]);
+		export.close();
+		try
+		{
+			export.checkError();
+			fail("Export should fail when the reader is closed");
+		}
+		catch (ExportException e)
+		{
+			// Expected
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * TemplateFileLoaderTest.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.io.freemarker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+
+/**
+ * TemplateFileLoaderTest checks that templates in any directory can be
+ * loaded, included and reloaded through one Configuration using a
+ * TemplateFileLoader.
+ */
+public class TemplateFileLoaderTest
+{
+	private File dir;
+	private Configuration cfg;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		dir = File.createTempFile("pcgenftl", "");
+		dir.delete();
+		new File(dir, "common").mkdirs();
+		cfg = new Configuration();
+		cfg.setTemplateLoader(new TemplateFileLoader());
+		cfg.setTemplateUpdateDelay(0);
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		FileUtils.deleteDirectory(dir);
+	}
+
+	@Test
+	public void testMissingTemplate() throws Exception
+	{
+		TemplateFileLoader loader = new TemplateFileLoader();
+		assertNull(loader.findTemplateSource(TemplateFileLoader
+			.getTemplateName(new File(dir, "missing.ftl"))));
+		assertNull(loader.findTemplateSource("missing.ftl"));
+	}
+
+	@Test
+	public void testRelativeInclude() throws Exception
+	{
+		File sheet = new File(dir, "sheet.ftl");
+		FileUtils.writeStringToFile(sheet,
+			"A<#include \"common/part.ftl\">${name}", "UTF-8");
+		FileUtils.writeStringToFile(new File(dir, "common/part.ftl"), "B",
+			"UTF-8");
+
+		assertEquals("ABC", process(sheet));
+	}
+
+	@Test
+	public void testTemplateCachedUntilChanged() throws Exception
+	{
+		File sheet = new File(dir, "sheet.ftl");
+		FileUtils.writeStringToFile(sheet, "one ${name}", "UTF-8");
+		String name = TemplateFileLoader.getTemplateName(sheet);
+		Template first = cfg.getTemplate(name);
+		assertSame(first, cfg.getTemplate(name));
+
+		FileUtils.writeStringToFile(sheet, "two ${name}", "UTF-8");
+		sheet.setLastModified(sheet.lastModified() + 10000);
+		assertEquals("two C", process(sheet));
+	}
+
+	private String process(File sheet) throws Exception
+	{
+		Template template =
+				cfg.getTemplate(TemplateFileLoader.getTemplateName(sheet));
+		StringWriter out = new StringWriter();
+		template.process(Collections.singletonMap("name", "C"), out);
+		return out.toString();
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * DatasetSnapshotTest.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.persistence.lst;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * DatasetSnapshotTest checks that source files are read from a snapshot only
+ * when the snapshot matches the files being loaded.
+ */
+public class DatasetSnapshotTest
+{
+
+	private File dir;
+	private File source;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		dir = File.createTempFile("DatasetSnapshotTest", "");
+		dir.delete();
+		dir.mkdir();
+		source = new File(dir, "source.lst");
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		DatasetSnapshot.finishLoad(false);
+		for (File f : dir.listFiles())
+		{
+			f.delete();
+		}
+		dir.delete();
+	}
+
+	private void writeSource(String contents, long lastModified)
+		throws Exception
+	{
+		Writer w =
+				new OutputStreamWriter(new FileOutputStream(source), "UTF-8");
+		try
+		{
+			w.write(contents);
+		}
+		finally
+		{
+			w.close();
+		}
+		source.setLastModified(lastModified);
+	}
+
+	private String load(String version) throws Exception
+	{
+		DatasetSnapshot.startLoad(dir, version, "Game\nfile:/campaign.pcc");
+		return LstFileLoader.readFromURI(source.toURI()).toString();
+	}
+
+	private int countSnapshots()
+	{
+		int count = 0;
+		for (File f : dir.listFiles())
+		{
+			if (f.getName().endsWith(".snapshot"))
+			{
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Verify that a snapshot is only written by a successful load, and is then
+	 * used by the next load of the same selection.
+	 */
+	@Test
+	public void testRecordAndRead() throws Exception
+	{
+		writeSource("Foo\tTYPE:Bar\u00e9", 100000000L);
+		assertEquals("Foo\tTYPE:Bar\u00e9", load("6.0"));
+		DatasetSnapshot.finishLoad(false);
+		assertEquals(0, countSnapshots());
+
+		assertEquals("Foo\tTYPE:Bar\u00e9", load("6.0"));
+		DatasetSnapshot.finishLoad(true);
+		assertEquals(1, countSnapshots());
+
+		// Same length and time, so the contents are taken from the snapshot
+		writeSource("Baz\tTYPE:Bar\u00e9", 100000000L);
+		assertEquals("Foo\tTYPE:Bar\u00e9", load("6.0"));
+		DatasetSnapshot.finishLoad(true);
+
+		// A different version does not use the snapshot
+		assertEquals("Baz\tTYPE:Bar\u00e9", load("6.1"));
+		DatasetSnapshot.finishLoad(true);
+		assertEquals(2, countSnapshots());
+	}
+
+	/**
+	 * Verify that a snapshot is not used once a source file has changed.
+	 */
+	@Test
+	public void testChangedSource() throws Exception
+	{
+		writeSource("Foo\tTYPE:Bar", 100000000L);
+		load("6.0");
+		DatasetSnapshot.finishLoad(true);
+
+		writeSource("Foo\tTYPE:Bar|Baz", 100000000L);
+		assertEquals("Foo\tTYPE:Bar|Baz", load("6.0"));
+		DatasetSnapshot.finishLoad(true);
+
+		writeSource("Foo\tTYPE:Bar|Qux", 200000000L);
+		assertEquals("Foo\tTYPE:Bar|Qux", load("6.0"));
+		DatasetSnapshot.finishLoad(true);
+		assertEquals(1, countSnapshots());
+	}
+
+	/**
+	 * Verify that nothing is taken from a snapshot when no load is in
+	 * progress, and that a file not in the snapshot is read normally.
+	 */
+	@Test
+	public void testNoSnapshot() throws Exception
+	{
+		writeSource("Foo", 100000000L);
+		URI uri = source.toURI();
+		assertNull(DatasetSnapshot.getContents(uri));
+		load("6.0");
+		DatasetSnapshot.finishLoad(true);
+		assertNull(DatasetSnapshot.getContents(uri));
+
+		load("6.0");
+		File other = new File(dir, "other.lst");
+		assertNull(DatasetSnapshot.getContents(other.toURI()));
+		assertEquals("Foo", DatasetSnapshot.getContents(uri));
+		DatasetSnapshot.finishLoad(true);
+		// The incomplete snapshot is discarded
+		assertEquals(0, countSnapshots());
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * LstFileReaderTest.java
+ * Copyright (c) 2014 PCGen Project
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.persistence.lst;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import pcgen.core.Campaign;
+import pcgen.system.PCGenSettings;
+
+/**
+ * LstFileReaderTest checks that files read ahead by LstFileReader provide
+ * the same contents as files read by the loader itself.
+ */
+public class LstFileReaderTest
+{
+
+	private final List<File> files = new ArrayList<File>();
+	private boolean wasParallel;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		wasParallel = LstFileReader.isParallelLoad();
+		PCGenSettings.OPTIONS_CONTEXT.setBoolean(
+			PCGenSettings.OPTION_SOURCES_PARALLEL_LOAD, true);
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		PCGenSettings.OPTIONS_CONTEXT.setBoolean(
+			PCGenSettings.OPTION_SOURCES_PARALLEL_LOAD, wasParallel);
+		for (File f : files)
+		{
+			f.delete();
+		}
+	}
+
+	private CampaignSourceEntry createFile(String contents) throws Exception
+	{
+		File f = File.createTempFile("LstFileReaderTest", ".lst");
+		files.add(f);
+		Writer w =
+				new OutputStreamWriter(new FileOutputStream(f), "UTF-8");
+		try
+		{
+			w.write(contents);
+		}
+		finally
+		{
+			w.close();
+		}
+		return new CampaignSourceEntry(new Campaign(), f.toURI());
+	}
+
+	/**
+	 * Verify that files read ahead are split into the same lines and first
+	 * tokens as a file read directly.
+	 */
+	@Test
+	public void testReadAhead() throws Exception
+	{
+		List<CampaignSourceEntry> entries =
+				new ArrayList<CampaignSourceEntry>();
+		entries.add(createFile("# Comment\r\nFoo\tTYPE:Bar\r\n\r\nBaz.MOD\tKEY:Baz\n"));
+		entries.add(createFile("\uFEFFSingle\nLast\tA:B\tC:D"));
+		entries.add(null);
+
+		LstFileReader reader = LstFileReader.readAhead(entries, true);
+		assertNotNull("Files should be read ahead", reader);
+		for (int f = 0; f < 2; f++)
+		{
+			URI uri = entries.get(f).getURI();
+			LstFileReader.LstFileContents contents = reader.take(uri);
+			String[] expected =
+					LstFileReader.splitLines(LstFileLoader.readFromURI(uri)
+						.toString(), false);
+			assertArrayEquals(expected, contents.getLines());
+			for (int i = 0; i < expected.length; i++)
+			{
+				assertEquals(LstFileReader.getFirstToken(expected[i]),
+					contents.getFirstToken(i));
+			}
+			assertNull("Contents should only be taken once", reader.take(uri));
+		}
+		reader.close();
+		assertEquals("Baz.MOD", LstFileReader.getFirstToken("Baz.MOD\tKEY:Baz"));
+		assertEquals("Single", LstFileReader.getFirstToken("Single"));
+	}
+
+	/**
+	 * Verify that a file which cannot be read is provided as empty, and that
+	 * nothing is read ahead unless parallel loading is enabled.
+	 */
+	@Test
+	public void testMissingFileAndDisabled() throws Exception
+	{
+		List<CampaignSourceEntry> entries =
+				new ArrayList<CampaignSourceEntry>();
+		entries.add(createFile("Foo\tTYPE:Bar"));
+		File missing = new File(files.get(0).getPath() + ".missing");
+		entries.add(new CampaignSourceEntry(new Campaign(), missing.toURI()));
+
+		LstFileReader reader = LstFileReader.readAhead(entries, false);
+		LstFileReader.LstFileContents contents =
+				reader.take(missing.toURI());
+		assertEquals("", contents.getData());
+		assertNull(contents.getLines());
+		assertEquals("Foo\tTYPE:Bar", reader.take(entries.get(0).getURI())
+			.getData());
+		reader.close();
+
+		PCGenSettings.OPTIONS_CONTEXT.setBoolean(
+			PCGenSettings.OPTION_SOURCES_PARALLEL_LOAD, false);
+		assertNull(LstFileReader.readAhead(entries, true));
+	}
+}